@@ -0,0 +1,107 @@
+package org.freeplane.core.extension;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Map for controllers and maps holding many extensions which are looked up very often.
+ * Each extension is stored in the array slot given by the index of its key class.
+ */
+public class DenseExtensionMap extends AbstractMap<Class<? extends IExtension>, IExtension> {
+	private static final Class<?>[] NO_KEYS = {};
+	private static final IExtension[] NO_EXTENSIONS = {};
+	private Class<?>[] keys = NO_KEYS;
+	private IExtension[] extensions = NO_EXTENSIONS;
+	private int size;
+
+	@Override
+	public IExtension get(final Object key) {
+		if (!(key instanceof Class<?>)) {
+			return null;
+		}
+		final int index = ExtensionIndex.of((Class<?>) key);
+		final IExtension[] extensions = this.extensions;
+		return index < extensions.length ? extensions[index] : null;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public IExtension put(final Class<? extends IExtension> key, final IExtension value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+		final int index = ExtensionIndex.of(key);
+		if (index >= extensions.length) {
+			final int length = Math.max(index + 1, extensions.length + extensions.length / 2);
+			keys = Arrays.copyOf(keys, length);
+			extensions = Arrays.copyOf(extensions, length);
+		}
+		final IExtension oldValue = extensions[index];
+		keys[index] = key;
+		extensions[index] = value;
+		if (oldValue == null) {
+			size++;
+		}
+		return oldValue;
+	}
+
+	@Override
+	public IExtension remove(final Object key) {
+		if (!(key instanceof Class<?>)) {
+			return null;
+		}
+		final int index = ExtensionIndex.of((Class<?>) key);
+		if (index >= extensions.length || extensions[index] == null) {
+			return null;
+		}
+		final IExtension oldValue = extensions[index];
+		keys[index] = null;
+		extensions[index] = null;
+		size--;
+		return oldValue;
+	}
+
+	@Override
+	public void clear() {
+		keys = NO_KEYS;
+		extensions = NO_EXTENSIONS;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Collection<IExtension> values() {
+		final List<IExtension> values = new ArrayList<>(size);
+		for (final IExtension extension : extensions) {
+			if (extension != null) {
+				values.add(extension);
+			}
+		}
+		return values;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<Entry<Class<? extends IExtension>, IExtension>> entrySet() {
+		final Set<Entry<Class<? extends IExtension>, IExtension>> entries = new LinkedHashSet<>();
+		for (int i = 0; i < extensions.length; i++) {
+			if (extensions[i] != null) {
+				entries.add(new SimpleImmutableEntry<>((Class<? extends IExtension>) keys[i], extensions[i]));
+			}
+		}
+		return entries;
+	}
+}
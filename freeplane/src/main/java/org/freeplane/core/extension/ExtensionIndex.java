@@ -0,0 +1,23 @@
+package org.freeplane.core.extension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns each extension class a small dense index used as its slot in extension maps.
+ */
+final class ExtensionIndex {
+	private static final AtomicInteger nextIndex = new AtomicInteger();
+	private static final ClassValue<Integer> indices = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return nextIndex.getAndIncrement();
+		}
+	};
+
+	private ExtensionIndex() {
+	}
+
+	static int of(final Class<?> clazz) {
+		return indices.get(clazz);
+	}
+}
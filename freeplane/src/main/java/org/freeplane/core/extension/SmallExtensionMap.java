@@ -19,89 +19,75 @@
  */
 package org.freeplane.core.extension;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Map for the few extensions of a node.
+ * Extensions are kept in insertion order together with the slot indices of their classes,
+ * so a lookup scans an int array and never allocates.
+ */
 public class SmallExtensionMap implements Map<Class<? extends IExtension>, IExtension> {
 	private static final int INITIAL_CAPACITY = 5;
-	private List<IExtension> collection;
+	private int[] indices;
+	private IExtension[] extensions;
+	private int size;
 
 	public void clear() {
-		collection = null;
+		indices = null;
+		extensions = null;
+		size = 0;
 	}
 
 	public boolean containsKey(final Object key) {
-		if (collection == null) {
-			return false;
-		}
 		if (!(key instanceof Class<?>)) {
 			return false;
 		}
-		for (int i = 0; i < collection.size(); i++) {
-			final Object extension = collection.get(i);
-			if (key.equals(extension.getClass())) {
-				return true;
-			}
-		}
-		return false;
+		return find((Class<?>) key) >= 0;
 	}
 
 	public boolean containsValue(final Object value) {
-		if (collection == null) {
-			return false;
-		}
 		if (!(value instanceof IExtension)) {
 			return false;
 		}
-		for (int i = 0; i < collection.size(); i++) {
-			if ( value.equals(collection.get(i))) {
+		for (int i = 0; i < size; i++) {
+			if (value.equals(extensions[i])) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	private List<IExtension> createCollection() {
-		if (collection == null) {
-			collection = new ArrayList<IExtension>(INITIAL_CAPACITY);
-		}
-		return collection;
-	}
-
 	public Set<java.util.Map.Entry<Class<? extends IExtension>, IExtension>> entrySet() {
 		throw new NoSuchMethodError();
 	}
 
-	private int find(final Class<? extends IExtension> clazz) {
-		if (collection == null) {
+	private int find(final Class<?> clazz) {
+		if (size == 0) {
 			return -1;
 		}
-		for (int i = 0; i < collection.size(); i++) {
-			if (clazz.equals(collection.get(i).getClass())) {
+		final int index = ExtensionIndex.of(clazz);
+		for (int i = 0; i < size; i++) {
+			if (indices[i] == index) {
 				return i;
 			}
 		}
 		return -1;
 	}
 
-	@SuppressWarnings("unchecked")
-    public IExtension get(final Object key) {
+	public IExtension get(final Object key) {
 		if (!(key instanceof Class<?>)) {
 			return null;
 		}
-		final int index = find((Class<? extends IExtension>) key);
-		if (index >= 0) {
-			return collection.get(index);
-		}
-		return null;
+		final int position = find((Class<?>) key);
+		return position >= 0 ? extensions[position] : null;
 	}
 
 	public boolean isEmpty() {
-		return collection == null;
+		return size == 0;
 	}
 
 	public Set<Class<? extends IExtension>> keySet() {
@@ -109,19 +95,27 @@ public class SmallExtensionMap implements Map<Class<? extends IExtension>, IExte
 	}
 
 	public IExtension put(final Class<? extends IExtension> key, final IExtension value) {
-		final int index = find(key);
-		if (index >= 0) {
-			final IExtension oldValue = collection.get(index);
-			collection.set(index, value);
+		final int position = find(key);
+		if (position >= 0) {
+			final IExtension oldValue = extensions[position];
+			extensions[position] = value;
 			return oldValue;
 		}
-		else {
-			if (!key.equals(value.getClass())) {
-				throw new ClassCastException();
-			}
-			createCollection().add(value);
-			return null;
+		if (!key.equals(value.getClass())) {
+			throw new ClassCastException();
+		}
+		if (extensions == null) {
+			indices = new int[INITIAL_CAPACITY];
+			extensions = new IExtension[INITIAL_CAPACITY];
 		}
+		else if (size == extensions.length) {
+			indices = Arrays.copyOf(indices, 2 * size);
+			extensions = Arrays.copyOf(extensions, 2 * size);
+		}
+		indices[size] = ExtensionIndex.of(key);
+		extensions[size] = value;
+		size++;
+		return null;
 	}
 
 	public void putAll(final Map<? extends Class<? extends IExtension>, ? extends IExtension> source) {
@@ -132,32 +126,35 @@ public class SmallExtensionMap implements Map<Class<? extends IExtension>, IExte
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-    public IExtension remove(final Object key) {
-		if (collection == null || !(key instanceof Class<?>)) {
+	public IExtension remove(final Object key) {
+		if (!(key instanceof Class<?>)) {
 			return null;
 		}
-		final int index = find((Class<? extends IExtension>) key);
-		if (index == -1) {
+		final int position = find((Class<?>) key);
+		if (position == -1) {
 			return null;
 		}
-		final IExtension remove = collection.remove(index);
-		removeEmptyCollection();
-		return remove;
-	}
-
-	private void removeEmptyCollection() {
-		if (collection.size() == 0) {
-			collection = null;
+		final IExtension remove = extensions[position];
+		size--;
+		if (size == 0) {
+			clear();
 		}
+		else {
+			System.arraycopy(indices, position + 1, indices, position, size - position);
+			System.arraycopy(extensions, position + 1, extensions, position, size - position);
+			extensions[size] = null;
+		}
+		return remove;
 	}
 
 	public int size() {
-		return collection == null ? 0 : collection.size();
+		return size;
 	}
 
 	public Collection<IExtension> values() {
-		final Collection<IExtension> emptyList = Collections.emptyList();
-		return collection == null ? emptyList : collection;
+		if (size == 0) {
+			return Collections.emptyList();
+		}
+		return Arrays.asList(Arrays.copyOf(extensions, size));
 	}
 }
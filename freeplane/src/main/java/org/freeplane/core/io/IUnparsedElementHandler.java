@@ -0,0 +1,12 @@
+package org.freeplane.core.io;
+
+/**
+ * Element handler which may receive some child elements as unparsed xml.
+ * Only the streaming parser passes child elements this way, other parsers ignore the request.
+ */
+public interface IUnparsedElementHandler extends IElementHandler {
+	/** Returns the tag of the child elements to be passed unparsed, or null if all of them should be parsed. */
+	String unparsedChildTag(Object element);
+
+	void addUnparsedChild(Object element, String xml);
+}
@@ -0,0 +1,43 @@
+package org.freeplane.core.io.xml;
+
+/**
+ * Binary encoding of the element tree written by {@link TreeXmlWriter} and read by {@link TreeXmlReader}.
+ *
+ * After the header the data consists of records, each prefixed by its length as a variable length integer.
+ * A record starts with its type:
+ * <ul>
+ * <li>{@link #START_ELEMENT}: element name, attribute count and attribute names and values</li>
+ * <li>{@link #END_ELEMENT}</li>
+ * <li>{@link #TEXT}: decoded text content</li>
+ * <li>{@link #RAW_CONTENT}: xml passed to {@link TreeXmlWriter#addElementContent(String)}</li>
+ * </ul>
+ * Element and attribute names are always, attribute values are mostly kept in a string table
+ * which is built while the data is read: a string is written as variable length integer code
+ * followed by the string bytes for codes {@link #NEW_TABLE_STRING} and {@link #LITERAL_STRING},
+ * or a reference to the table entry with index code - {@link #FIRST_TABLE_INDEX}.
+ */
+public final class BinaryXml {
+	static final byte[] HEADER = { 'F', 'P', 'M', 'B', 1 };
+	static final byte START_ELEMENT = 1;
+	static final byte END_ELEMENT = 2;
+	static final byte TEXT = 3;
+	static final byte RAW_CONTENT = 4;
+	static final int NEW_TABLE_STRING = 0;
+	static final int LITERAL_STRING = 1;
+	static final int FIRST_TABLE_INDEX = 2;
+
+	private BinaryXml() {
+	}
+
+	public static boolean startsWithHeader(final byte[] data, final int length) {
+		if (length < HEADER.length) {
+			return false;
+		}
+		for (int i = 0; i < HEADER.length; i++) {
+			if (data[i] != HEADER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,297 @@
+package org.freeplane.core.io.xml;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * Feeds {@link TreeXmlReader} from data in the {@link BinaryXml} encoding.
+ *
+ * It produces the same builder calls as {@link StreamingXmlParser} does for the xml written from the same elements.
+ * Raw xml content is parsed by a {@link StreamingXmlParser} unless the element handler collects it as string,
+ * in this case the xml of child elements is restored from their records.
+ */
+final class BinaryXmlParser implements IElementContentCollector {
+	private static final String ATTRIBUTE_TYPE = "CDATA";
+	private final InputStream input;
+	private final TreeXmlReader builder;
+	private final ArrayList<String> stringTable = new ArrayList<String>();
+	private byte[] record = new byte[1024];
+	private int recordLength;
+	private int position;
+	private boolean collectsContent;
+
+	BinaryXmlParser(final InputStream input, final TreeXmlReader builder) {
+		this.input = input;
+		this.builder = builder;
+	}
+
+	@Override
+	public void collectContentUntilMatchingTag(final boolean findsClosingTagByName) {
+		collectsContent = true;
+	}
+
+	void parse() throws XMLException {
+		try {
+			final byte[] header = new byte[BinaryXml.HEADER.length];
+			if (readFully(header, header.length) < header.length || !BinaryXml.startsWithHeader(header, header.length)) {
+				throw new XMLParseException(null, 0, "Not a binary map");
+			}
+			builder.startBuilding(null, 0);
+			while (readRecord()) {
+				final byte type = readByte();
+				switch (type) {
+					case BinaryXml.START_ELEMENT:
+						processElement();
+						break;
+					case BinaryXml.RAW_CONTENT:
+					case BinaryXml.TEXT:
+						break;
+					default:
+						throw unexpectedRecord(type);
+				}
+			}
+		}
+		catch (final XMLException e) {
+			throw e;
+		}
+		catch (final IOException e) {
+			throw new XMLException(e);
+		}
+		catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/* Called after the start element record has been read */
+	private void processElement() throws Exception {
+		final String fullName = readString();
+		String name = fullName;
+		String prefix = null;
+		final int colonIndex = fullName.indexOf(':');
+		if (colonIndex > 0) {
+			prefix = fullName.substring(0, colonIndex);
+			name = fullName.substring(colonIndex + 1);
+		}
+		collectsContent = false;
+		builder.startElement(name, prefix, null, null, 0);
+		final int attributeCount = readVarInt();
+		for (int i = 0; i < attributeCount; i++) {
+			final String key = readString();
+			final String value = readString();
+			final int attributeColonIndex = key.indexOf(':');
+			if (attributeColonIndex > 0) {
+				builder.addAttribute(key.substring(attributeColonIndex + 1), key.substring(0, attributeColonIndex),
+				    null, value, ATTRIBUTE_TYPE);
+			}
+			else {
+				builder.addAttribute(key, null, null, value, ATTRIBUTE_TYPE);
+			}
+		}
+		builder.elementAttributesProcessed(name, prefix, null);
+		if (collectsContent) {
+			collectsContent = false;
+			final StringBuilder content = new StringBuilder();
+			collectContent(content);
+			builder.setElementContent(content.toString());
+		}
+		else {
+			processElementContent();
+		}
+		builder.endElement(name, prefix, null);
+	}
+
+	private void processElementContent() throws Exception {
+		for (;;) {
+			if (!readRecord()) {
+				throw new EOFException("Unexpected end of binary map");
+			}
+			final byte type = readByte();
+			switch (type) {
+				case BinaryXml.START_ELEMENT:
+					processElement();
+					break;
+				case BinaryXml.END_ELEMENT:
+					return;
+				case BinaryXml.TEXT:
+					builder.addPCData(readLiteralString(), null, 0);
+					break;
+				case BinaryXml.RAW_CONTENT:
+					parseRawContent(readLiteralString());
+					break;
+				default:
+					throw unexpectedRecord(type);
+			}
+		}
+	}
+
+	private void parseRawContent(final String content) throws XMLException {
+		final IElementContentCollector parser = builder.getContentCollector();
+		try {
+			final StreamingXmlParser contentParser = new StreamingXmlParser(new StringReader(content), builder);
+			builder.setContentCollector(contentParser);
+			contentParser.parseContent();
+		}
+		finally {
+			builder.setContentCollector(parser);
+		}
+	}
+
+	/* Restores the xml as TreeXmlWriter would have written it */
+	private void collectContent(final StringBuilder content) throws IOException, XMLParseException {
+		for (;;) {
+			if (!readRecord()) {
+				throw new EOFException("Unexpected end of binary map");
+			}
+			final byte type = readByte();
+			switch (type) {
+				case BinaryXml.START_ELEMENT:
+					final String fullName = readString();
+					content.append('<').append(fullName);
+					final int attributeCount = readVarInt();
+					for (int i = 0; i < attributeCount; i++) {
+						content.append(' ').append(readString()).append("=\"");
+						appendEncoded(content, readString(), true);
+						content.append('"');
+					}
+					content.append('>');
+					collectContent(content);
+					content.append("</").append(fullName).append('>');
+					break;
+				case BinaryXml.END_ELEMENT:
+					return;
+				case BinaryXml.TEXT:
+					appendEncoded(content, readLiteralString(), false);
+					break;
+				case BinaryXml.RAW_CONTENT:
+					content.append(readLiteralString());
+					break;
+				default:
+					throw unexpectedRecord(type);
+			}
+		}
+	}
+
+	private static void appendEncoded(final StringBuilder content, final String text, final boolean isAttributeValue) {
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			switch (c) {
+				case '<':
+					content.append("&lt;");
+					break;
+				case '>':
+					content.append("&gt;");
+					break;
+				case '&':
+					content.append("&amp;");
+					break;
+				case '"':
+					content.append("&quot;");
+					break;
+				case '\n':
+					content.append(isAttributeValue ? "&#xa;" : "\n");
+					break;
+				default:
+					if (c < ' ') {
+						content.append("&#x").append(Integer.toString(c, 16)).append(';');
+					}
+					else {
+						content.append(c);
+					}
+			}
+		}
+	}
+
+	private XMLParseException unexpectedRecord(final byte type) {
+		return new XMLParseException(null, 0, "Unexpected binary map record " + type);
+	}
+
+	private boolean readRecord() throws IOException {
+		final int first = input.read();
+		if (first < 0) {
+			return false;
+		}
+		int length = first & 0x7F;
+		for (int shift = 7, b = first; (b & 0x80) != 0; shift += 7) {
+			b = input.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of binary map");
+			}
+			length |= (b & 0x7F) << shift;
+		}
+		if (length > record.length) {
+			record = Arrays.copyOf(record, Math.max(length, record.length * 2));
+		}
+		if (readFully(record, length) < length) {
+			throw new EOFException("Unexpected end of binary map");
+		}
+		recordLength = length;
+		position = 0;
+		return true;
+	}
+
+	private int readFully(final byte[] buffer, final int length) throws IOException {
+		int readCount = 0;
+		while (readCount < length) {
+			final int count = input.read(buffer, readCount, length - readCount);
+			if (count < 0) {
+				break;
+			}
+			readCount += count;
+		}
+		return readCount;
+	}
+
+	private byte readByte() throws EOFException {
+		if (position >= recordLength) {
+			throw new EOFException("Damaged binary map record");
+		}
+		return record[position++];
+	}
+
+	private int readVarInt() throws EOFException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			final byte b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	private String readLiteralString() throws EOFException {
+		final int length = readVarInt();
+		if (length > recordLength - position) {
+			throw new EOFException("Damaged binary map record");
+		}
+		final String string = new String(record, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return string;
+	}
+
+	private String readString() throws IOException {
+		final int code = readVarInt();
+		switch (code) {
+			case BinaryXml.NEW_TABLE_STRING:
+				final String string = readLiteralString();
+				stringTable.add(string);
+				return string;
+			case BinaryXml.LITERAL_STRING:
+				return readLiteralString();
+			default:
+				final int index = code - BinaryXml.FIRST_TABLE_INDEX;
+				if (index >= stringTable.size()) {
+					throw new IOException("Damaged binary map record");
+				}
+				return stringTable.get(index);
+		}
+	}
+}
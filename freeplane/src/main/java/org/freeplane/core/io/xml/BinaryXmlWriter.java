@@ -0,0 +1,219 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.freeplane.n3.nanoxml.XMLElement;
+
+/**
+ * Writes the elements passed by {@link TreeXmlWriter} in the {@link BinaryXml} encoding.
+ */
+class BinaryXmlWriter extends XMLWriter {
+	private static final int MAX_TABLED_VALUE_LENGTH = 64;
+	private static final int TABLE_USE_CHECK_INTERVAL = 256;
+
+	/* Values of attributes like ID or TEXT are unique, they are written as literals after the first checks */
+	private static class ValueTableUse {
+		int lookups = 0;
+		int hits = 0;
+		boolean addsValues = true;
+
+		void count(final boolean hit) {
+			lookups++;
+			if (hit) {
+				hits++;
+			}
+			if (lookups == TABLE_USE_CHECK_INTERVAL) {
+				addsValues = hits * 4 >= lookups;
+				lookups = 0;
+				hits = 0;
+			}
+		}
+	}
+
+	private final OutputStream output;
+	private final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+	private final Map<String, ValueTableUse> valueTableUse = new HashMap<String, ValueTableUse>();
+	private final StringBuilder rawContent = new StringBuilder();
+	private byte[] record = new byte[1024];
+	private int recordLength = 0;
+	private boolean headerWritten = false;
+
+	BinaryXmlWriter(final OutputStream output) {
+		super();
+		this.output = output;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeRawContent();
+		writeHeader();
+		output.flush();
+	}
+
+	@Override
+	public void endElement(final String fullName, final boolean prettyPrint) throws IOException {
+		writeRawContent();
+		recordLength = 0;
+		writeByte(BinaryXml.END_ELEMENT);
+		writeRecord();
+	}
+
+	@Override
+	public void write(final String content) throws IOException {
+		rawContent.append(content);
+	}
+
+	@Override
+	protected void write(final XMLElement xml, final boolean prettyPrint, final int indent,
+	                     final boolean collapseEmptyElements, final boolean endElement) throws IOException {
+		final String fullName = xml.getFullName();
+		if (fullName == null) {
+			final String content = xml.getContent();
+			if (content != null) {
+				writeText(prettyPrint ? content.trim() : content);
+			}
+			return;
+		}
+		writeRawContent();
+		recordLength = 0;
+		writeByte(BinaryXml.START_ELEMENT);
+		writeTabledString(fullName);
+		writeVarInt(xml.getAttributeCount());
+		final Enumeration<String> attributeNames = xml.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String key = attributeNames.nextElement();
+			writeTabledString(key);
+			writeAttributeValue(key, xml.getAttribute(key, null));
+		}
+		writeRecord();
+		final String content = xml.getContent();
+		if (content != null && content.length() > 0) {
+			writeText(content);
+		}
+		else {
+			final Enumeration<XMLElement> children = xml.enumerateChildren();
+			while (children.hasMoreElements()) {
+				write(children.nextElement(), prettyPrint, indent + 4, collapseEmptyElements, true);
+			}
+		}
+		if (endElement) {
+			endElement(fullName, prettyPrint);
+		}
+	}
+
+	private void writeText(final String text) throws IOException {
+		if (text.trim().isEmpty()) {
+			return;
+		}
+		writeRawContent();
+		recordLength = 0;
+		writeByte(BinaryXml.TEXT);
+		writeLiteralString(text);
+		writeRecord();
+	}
+
+	private void writeRawContent() throws IOException {
+		if (rawContent.length() == 0) {
+			return;
+		}
+		recordLength = 0;
+		writeByte(BinaryXml.RAW_CONTENT);
+		writeLiteralString(rawContent.toString());
+		rawContent.setLength(0);
+		writeRecord();
+	}
+
+	private void writeAttributeValue(final String key, final String value) {
+		if (value.length() > MAX_TABLED_VALUE_LENGTH) {
+			writeVarInt(BinaryXml.LITERAL_STRING);
+			writeLiteralString(value);
+			return;
+		}
+		ValueTableUse tableUse = valueTableUse.get(key);
+		if (tableUse == null) {
+			tableUse = new ValueTableUse();
+			valueTableUse.put(key, tableUse);
+		}
+		final Integer index = stringTable.get(value);
+		tableUse.count(index != null);
+		if (index != null) {
+			writeVarInt(BinaryXml.FIRST_TABLE_INDEX + index);
+		}
+		else if (tableUse.addsValues) {
+			addToTable(value);
+		}
+		else {
+			writeVarInt(BinaryXml.LITERAL_STRING);
+			writeLiteralString(value);
+		}
+	}
+
+	private void writeTabledString(final String string) {
+		final Integer index = stringTable.get(string);
+		if (index != null) {
+			writeVarInt(BinaryXml.FIRST_TABLE_INDEX + index);
+		}
+		else {
+			addToTable(string);
+		}
+	}
+
+	private void addToTable(final String string) {
+		stringTable.put(string, stringTable.size());
+		writeVarInt(BinaryXml.NEW_TABLE_STRING);
+		writeLiteralString(string);
+	}
+
+	private void writeLiteralString(final String string) {
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, record, recordLength, bytes.length);
+		recordLength += bytes.length;
+	}
+
+	private void writeVarInt(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			record[recordLength++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		record[recordLength++] = (byte) value;
+	}
+
+	private void writeByte(final byte value) {
+		ensureCapacity(1);
+		record[recordLength++] = value;
+	}
+
+	private void ensureCapacity(final int additionalLength) {
+		final int requiredLength = recordLength + additionalLength;
+		if (requiredLength > record.length) {
+			record = Arrays.copyOf(record, Math.max(requiredLength, record.length * 2));
+		}
+	}
+
+	private void writeRecord() throws IOException {
+		writeHeader();
+		int length = recordLength;
+		while ((length & ~0x7F) != 0) {
+			output.write((length & 0x7F) | 0x80);
+			length >>>= 7;
+		}
+		output.write(length);
+		output.write(record, 0, recordLength);
+	}
+
+	private void writeHeader() throws IOException {
+		if (!headerWritten) {
+			output.write(BinaryXml.HEADER);
+			headerWritten = true;
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package org.freeplane.core.io.xml;
+
+/**
+ * Implemented by the parsers driving {@link TreeXmlReader}: on request the raw content of the current element
+ * is collected as a string and passed to {@link TreeXmlReader#setElementContent(String)}
+ * instead of being parsed.
+ */
+interface IElementContentCollector {
+	void collectContentUntilMatchingTag(boolean findsClosingTagByName);
+
+	/** Child elements of the current element with the given tag are passed to
+	 * {@link TreeXmlReader#addUnparsedElement(String)} as xml. */
+	default void keepChildElementsUnparsed(String tag) {
+	}
+}
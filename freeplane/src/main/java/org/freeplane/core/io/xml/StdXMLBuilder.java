@@ -99,6 +99,9 @@ class StdXMLBuilder implements IXMLBuilder {
 			fullName = nsPrefix + ':' + key;
 		}
 		final XMLElement top = stack.peek();
+		if (top == null) {
+			return;
+		}
 		if (top.hasAttribute(fullName)) {
 			throw new XMLParseException(top.getSystemID(), top.getLineNr(), "Duplicate attribute: " + key);
 		}
@@ -147,11 +150,39 @@ class StdXMLBuilder implements IXMLBuilder {
 			str.append(buf, 0, size);
 			sizeRead += size;
 		}
+		addPCData(str.toString(), systemID, lineNr);
+	}
+
+	/**
+	 * Adds #PCDATA content. Content of an element without children is kept
+	 * as its content, it is only turned into a child element if the element
+	 * gets children.
+	 */
+	void addPCData(final String content, final String systemID, final int lineNr) {
+		if (stack.empty()) {
+			return;
+		}
+		final XMLElement top = stack.peek();
+		if (top == null) {
+			return;
+		}
+		if (!top.hasChildren()) {
+			final String collectedContent = top.getContent();
+			top.setContent(collectedContent == null ? content : collectedContent + content);
+			return;
+		}
 		final XMLElement elt = prototype.createElement(null, systemID, lineNr);
-		elt.setContent(str.toString());
-		if (!stack.empty()) {
-			final XMLElement top = stack.peek();
-			top.addChild(elt);
+		elt.setContent(content);
+		top.addChild(elt);
+	}
+
+	private void convertContentToChild(final XMLElement element) {
+		final String content = element.getContent();
+		if (content != null && !element.hasChildren()) {
+			final XMLElement elt = prototype.createElement(null, element.getSystemID(), element.getLineNr());
+			elt.setContent(content);
+			element.setContent(null);
+			element.addChild(elt);
 		}
 	}
 
@@ -190,6 +221,9 @@ class StdXMLBuilder implements IXMLBuilder {
 	 */
 	public void endElement(final String name, final String nsPrefix, final String nsURI) {
 		final XMLElement elt = stack.pop();
+		if (elt == null) {
+			return;
+		}
 		if (elt.getChildrenCount() == 1) {
 			final XMLElement child = elt.getChildAtIndex(0);
 			if (child.getName() == null) {
@@ -288,8 +322,21 @@ class StdXMLBuilder implements IXMLBuilder {
 		}
 		else {
 			final XMLElement top = stack.peek();
-			top.addChild(elt);
+			if (top != null) {
+				convertContentToChild(top);
+				top.addChild(elt);
+			}
 		}
 		stack.push(elt);
 	}
+
+	/**
+	 * Starts an element whose handler does not need its DOM: nothing is
+	 * built for it, its attributes and content are dropped and its child
+	 * elements are built without parent.
+	 */
+	void startUnmaterializedElement() {
+		last = null;
+		stack.push(null);
+	}
 }
@@ -0,0 +1,409 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.io.IAttributeWriter;
+import org.freeplane.core.io.IElementWriter;
+import org.freeplane.core.io.IExtensionAttributeWriter;
+import org.freeplane.core.io.IExtensionElementWriter;
+import org.freeplane.core.io.ITreeWriter;
+import org.freeplane.core.io.WriteManager;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.n3.nanoxml.XMLElement;
+
+/**
+ * Writes the same xml as {@link TreeXmlWriter} straight into a character buffer.
+ *
+ * Attributes of elements added by name are kept in reused lists instead of an {@link XMLElement},
+ * strings are escaped using lookup tables and copied in runs of characters which need no escaping.
+ */
+public class StreamingTreeXmlWriter implements ITreeWriter {
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final String[] ATTRIBUTE_ESCAPES = createEscapes(true);
+	private static final String[] TEXT_ESCAPES = createEscapes(false);
+
+	private static String[] createEscapes(final boolean isAttributeValue) {
+		final String[] escapes = new String[0x80];
+		for (char c = 0; c < ' '; c++) {
+			escapes[c] = "&#x" + Integer.toString(c, 16) + ';';
+		}
+		escapes['\n'] = isAttributeValue ? "&#xa;" : null;
+		escapes['<'] = "&lt;";
+		escapes['>'] = "&gt;";
+		escapes['&'] = "&amp;";
+		escapes['\''] = "&apos;";
+		escapes['"'] = "&quot;";
+		return escapes;
+	}
+
+	private final WriteManager writeManager;
+	private final Writer writer;
+	private final boolean restrictedCharset;
+	private final String lineSeparator;
+	private final HashMap<Object, Object> hints;
+	private final char[] buffer;
+	private int length;
+	private boolean hasElement;
+	private boolean elementStarted;
+	private String elementName;
+	/* Set instead of elementName for elements with content, children or namespace given by the caller */
+	private XMLElement element;
+	private final ArrayList<String> attributeNames;
+	private final ArrayList<String> attributeValues;
+
+	public StreamingTreeXmlWriter(final WriteManager writeManager, final Writer writer,
+	                              final boolean restrictedCharset) {
+		this.writeManager = writeManager;
+		this.writer = writer;
+		this.restrictedCharset = restrictedCharset;
+		lineSeparator = System.lineSeparator();
+		hints = new HashMap<Object, Object>();
+		buffer = new char[BUFFER_SIZE];
+		length = 0;
+		hasElement = false;
+		elementStarted = false;
+		attributeNames = new ArrayList<String>();
+		attributeValues = new ArrayList<String>();
+	}
+
+	public void flush() throws IOException {
+		writeBuffer();
+		writer.flush();
+	}
+
+	@Override
+	public void addAttribute(final String key, final double value) {
+		addAttribute(key, Double.toString(value));
+	}
+
+	@Override
+	public void addAttribute(final String key, final int value) {
+		addAttribute(key, Integer.toString(value));
+	}
+
+	@Override
+	public void addAttribute(final String key, final String value) {
+		if (elementStarted) {
+			throw new RuntimeException("elementStarted");
+		}
+		if (element != null) {
+			if (null != element.getAttribute(key, null)) {
+				LogUtils.warn("attribute \"" + key + "\" already exist with value \"" + value);
+				return;
+			}
+			element.setAttribute(key, value);
+			return;
+		}
+		if (attributeNames.contains(key)) {
+			LogUtils.warn("attribute \"" + key + "\" already exist with value \"" + value);
+			return;
+		}
+		attributeNames.add(key);
+		attributeValues.add(value);
+	}
+
+	@Override
+	public void addComment(final String comment) throws IOException {
+		append("<!-- ");
+		appendEncoded(comment, null);
+		append(" -->\n");
+	}
+
+	@Override
+	public void addElement(final Object userObject, final String name) throws IOException {
+		addElement(userObject, name, null);
+	}
+
+	@Override
+	public void addElement(final Object userObject, final XMLElement element) throws IOException {
+		addElement(userObject, element.getName(), isWrittenWithoutDom(element) ? null : element);
+	}
+
+	private boolean isWrittenWithoutDom(final XMLElement element) {
+		final String content = element.getContent();
+		return element.getName() != null && element.getNamespace() == null && element.getAttributeCount() == 0
+		        && !element.hasChildren() && (content == null || content.isEmpty());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addElement(final Object userObject, final String name, final XMLElement element)
+	        throws IOException {
+		final boolean isString = userObject instanceof String;
+		if (elementStarted == false && hasElement) {
+			writeStartedElement(!isString, false);
+		}
+		hasElement = true;
+		elementName = name;
+		this.element = element;
+		attributeNames.clear();
+		attributeValues.clear();
+		elementStarted = false;
+		{
+			final Iterator<IAttributeWriter> iterator = writeManager.getAttributeWriters().iterator(name);
+			while (iterator.hasNext()) {
+				final IAttributeWriter as = iterator.next();
+				as.writeAttributes(this, userObject, name);
+			}
+			if (userObject instanceof List<?>) {
+				addExtensionAttributes(userObject, (List<IExtension>) userObject);
+			}
+		}
+		if (isString) {
+			addElementContent((String) userObject);
+		}
+		else {
+			final Iterator<IElementWriter> iterator = writeManager.getElementWriters().iterator(name);
+			while (iterator.hasNext()) {
+				final IElementWriter nw = iterator.next();
+				nw.writeContent(this, userObject, name);
+			}
+			if (userObject instanceof List<?>) {
+				addExtensionNodes(userObject, (List<IExtension>) userObject);
+			}
+		}
+		if (elementStarted == false) {
+			writeStartedElement(true, true);
+			elementStarted = true;
+		}
+		else {
+			endElement(name, true);
+		}
+	}
+
+	@Override
+	public void addElementContent(final String content) throws IOException {
+		if (content.equals("")) {
+			return;
+		}
+		if (elementStarted == false && hasElement) {
+			writeStartedElement(true, false);
+			elementStarted = true;
+		}
+		appendEncoded(content, null);
+	}
+
+	@Override
+	public void addExtensionAttributes(final Object map, final Collection<IExtension> extensions) {
+		for (final IExtension extension : extensions) {
+			final Iterator<IExtensionAttributeWriter> writerIterator = writeManager.getExtensionAttributeWriters()
+			    .iterator(extension.getClass());
+			while (writerIterator.hasNext()) {
+				writerIterator.next().writeAttributes(this, map, extension);
+			}
+		}
+	}
+
+	@Override
+	public void addExtensionNodes(final Object extensionContainer, final Collection<IExtension> extensions)
+	        throws IOException {
+		for (final IExtension extension : extensions) {
+			final Iterator<IExtensionElementWriter> writerIterator = writeManager.getExtensionElementWriters()
+			    .iterator(extension.getClass());
+			while (writerIterator.hasNext()) {
+				writerIterator.next().writeContent(this, extensionContainer, extension);
+			}
+		}
+	}
+
+	@Override
+	public Object getHint(final Object key) {
+		final Object object = hints.get(key);
+		return object == null ? Boolean.FALSE : object;
+	}
+
+	@Override
+	public void setHint(final Object key) {
+		hints.put(key, Boolean.TRUE);
+	}
+
+	@Override
+	public void setHint(final Object key, final Object value) {
+		hints.put(key, value);
+	}
+
+	private void writeStartedElement(final boolean prettyPrint, final boolean endElement) throws IOException {
+		if (element != null) {
+			writeElement(element, prettyPrint, 0, endElement);
+			return;
+		}
+		append('<');
+		append(elementName);
+		final int attributeCount = attributeNames.size();
+		for (int i = 0; i < attributeCount; i++) {
+			appendAttribute(attributeNames.get(i), attributeValues.get(i));
+		}
+		append(endElement ? "/>" : ">");
+		if (prettyPrint) {
+			append(lineSeparator);
+		}
+	}
+
+	private void appendAttribute(final String key, final String value) throws IOException {
+		append(' ');
+		append(key);
+		append("=\"");
+		appendEncoded(value, ATTRIBUTE_ESCAPES);
+		append('"');
+	}
+
+	private void endElement(final String fullName, final boolean prettyPrint) throws IOException {
+		append("</");
+		append(fullName);
+		append('>');
+		if (prettyPrint) {
+			append(lineSeparator);
+		}
+	}
+
+	/* Same output as XMLWriter.write(XMLElement, boolean, int, boolean, boolean) collapsing empty elements */
+	private void writeElement(final XMLElement xml, final boolean prettyPrint, final int indent,
+	                          final boolean endElement) throws IOException {
+		if (prettyPrint) {
+			appendSpaces(indent);
+		}
+		if (xml.getName() == null) {
+			if (xml.getContent() != null) {
+				if (prettyPrint) {
+					appendEncoded(xml.getContent().trim(), TEXT_ESCAPES);
+					append(lineSeparator);
+				}
+				else {
+					appendEncoded(xml.getContent(), TEXT_ESCAPES);
+				}
+			}
+			return;
+		}
+		append('<');
+		final String fullName = xml.getFullName();
+		append(fullName);
+		final ArrayList<String> namespacePrefixes = new ArrayList<String>();
+		if (xml.getNamespace() != null) {
+			if (xml.getName().equals(fullName)) {
+				append(" xmlns=\"" + xml.getNamespace() + '"');
+			}
+			else {
+				final String prefix = fullName.substring(0, fullName.indexOf(':'));
+				namespacePrefixes.add(prefix);
+				append(" xmlns:" + prefix);
+				append("=\"" + xml.getNamespace() + "\"");
+			}
+		}
+		Enumeration<String> attributeNames = xml.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String key = attributeNames.nextElement();
+			final int index = key.indexOf(':');
+			if (index >= 0) {
+				final String namespace = xml.getAttributeNamespace(key);
+				if (namespace != null) {
+					final String prefix = key.substring(0, index);
+					if (!namespacePrefixes.contains(prefix)) {
+						append(" xmlns:" + prefix);
+						append("=\"" + namespace + '"');
+						namespacePrefixes.add(prefix);
+					}
+				}
+			}
+		}
+		attributeNames = xml.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String key = attributeNames.nextElement();
+			appendAttribute(key, xml.getAttribute(key, null));
+		}
+		if ((xml.getContent() != null) && (xml.getContent().length() > 0)) {
+			append('>');
+			appendEncoded(xml.getContent(), TEXT_ESCAPES);
+			if (endElement) {
+				endElement(fullName, prettyPrint);
+			}
+		}
+		else if (xml.hasChildren()) {
+			append('>');
+			if (prettyPrint) {
+				append(lineSeparator);
+			}
+			final Enumeration<XMLElement> children = xml.enumerateChildren();
+			while (children.hasMoreElements()) {
+				writeElement(children.nextElement(), prettyPrint, indent + 4, true);
+			}
+			if (prettyPrint) {
+				appendSpaces(indent);
+			}
+			if (endElement) {
+				endElement(fullName, prettyPrint);
+			}
+		}
+		else {
+			append(endElement ? "/>" : ">");
+			if (prettyPrint) {
+				append(lineSeparator);
+			}
+		}
+	}
+
+	private void appendSpaces(final int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			append(' ');
+		}
+	}
+
+	/* Without escape table only characters outside of ASCII are encoded if the charset is restricted */
+	private void appendEncoded(final String string, final String[] escapes) throws IOException {
+		final int stringLength = string.length();
+		int start = 0;
+		for (int i = 0; i < stringLength; i++) {
+			final char c = string.charAt(i);
+			final String escape;
+			if (c > 0x7E) {
+				if (!restrictedCharset) {
+					continue;
+				}
+				escape = "&#x" + Integer.toString(c, 16) + ';';
+			}
+			else if (escapes == null || (escape = escapes[c]) == null) {
+				continue;
+			}
+			append(string, start, i);
+			append(escape);
+			start = i + 1;
+		}
+		append(string, start, stringLength);
+	}
+
+	private void append(final char c) throws IOException {
+		if (length == buffer.length) {
+			writeBuffer();
+		}
+		buffer[length++] = c;
+	}
+
+	private void append(final String string) throws IOException {
+		append(string, 0, string.length());
+	}
+
+	private void append(final String string, int start, final int end) throws IOException {
+		while (start < end) {
+			if (length == buffer.length) {
+				writeBuffer();
+			}
+			final int count = Math.min(end - start, buffer.length - length);
+			string.getChars(start, start + count, buffer, length);
+			length += count;
+			start += count;
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if (length > 0) {
+			writer.write(buffer, 0, length);
+			length = 0;
+		}
+	}
+}
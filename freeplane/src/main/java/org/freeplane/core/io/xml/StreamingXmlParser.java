@@ -0,0 +1,796 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * Pull parser feeding {@link TreeXmlReader} directly from a char array buffer.
+ *
+ * It produces the same builder calls as the nanoxml stack ({@link XMLParser} reading from
+ * {@link org.freeplane.n3.nanoxml.StdXMLReader}) for the documents freeplane reads:
+ * line breaks are normalized, leading white space of text is collapsed, white space only text is dropped,
+ * character references and the predefined entities are resolved.
+ * Document type declarations are skipped, entities declared in them are not supported.
+ */
+final class StreamingXmlParser implements IElementContentCollector {
+	private static enum ContentCollect {
+		NONE, BY_CLOSING_TAG_LEVEL, BY_CLOSING_TAG_NAME
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String ATTRIBUTE_TYPE = "CDATA";
+
+	private final Reader reader;
+	private final TreeXmlReader builder;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfStream;
+	private int lineNr;
+	private ContentCollect contentCollect;
+	private String unparsedChildTag;
+	private final NameTable names;
+	private final StringBuilder text;
+	private final ArrayList<String> attributeNames;
+	private final ArrayList<String> attributeValues;
+
+	StreamingXmlParser(final Reader reader, final TreeXmlReader builder) {
+		this.reader = reader;
+		this.builder = builder;
+		buffer = new char[BUFFER_SIZE];
+		position = 0;
+		limit = 0;
+		endOfStream = false;
+		lineNr = 1;
+		contentCollect = ContentCollect.NONE;
+		unparsedChildTag = null;
+		names = new NameTable();
+		text = new StringBuilder();
+		attributeNames = new ArrayList<String>();
+		attributeValues = new ArrayList<String>();
+	}
+
+	@Override
+	public void collectContentUntilMatchingTag(final boolean findsClosingTagByName) {
+		contentCollect = findsClosingTagByName ? ContentCollect.BY_CLOSING_TAG_NAME
+		        : ContentCollect.BY_CLOSING_TAG_LEVEL;
+	}
+
+	@Override
+	public void keepChildElementsUnparsed(final String tag) {
+		unparsedChildTag = tag;
+	}
+
+	void parse() throws XMLException {
+		try {
+			builder.startBuilding(null, lineNr);
+			if (!atEndOfStream() && buffer[position] == '\uFEFF') {
+				position++;
+			}
+			while (!atEndOfStream()) {
+				final char ch = read();
+				switch (ch) {
+					case '<':
+						scanSomeTag(false, null, null);
+						break;
+					case ' ':
+					case '\t':
+					case '\n':
+						break;
+					default:
+						throw invalidInput(ch);
+				}
+			}
+		}
+		catch (final XMLException e) {
+			throw e;
+		}
+		catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/* Parses an xml fragment found in the content of an element which is being built */
+	void parseContent() throws XMLException {
+		try {
+			while (!atEndOfStream()) {
+				final char ch = read();
+				if (ch == '<') {
+					scanSomeTag(true, null, null);
+				}
+				else if (ch != ' ' && ch != '\t' && ch != '\n') {
+					final int startLineNr = lineNr;
+					unread();
+					text.setLength(0);
+					readText();
+					builder.addPCData(text.toString(), null, startLineNr);
+				}
+			}
+		}
+		catch (final XMLException e) {
+			throw e;
+		}
+		catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void scanSomeTag(final boolean allowCDATA, final String defaultNamespace,
+	                         final Map<String, String> namespaces) throws Exception {
+		final char ch = read();
+		switch (ch) {
+			case '?':
+				skipUntil("?>");
+				break;
+			case '!':
+				processSpecialTag(allowCDATA);
+				break;
+			default:
+				unread();
+				processElement(scanIdentifier(), defaultNamespace, namespaces);
+		}
+	}
+
+	private void processSpecialTag(final boolean allowCDATA) throws Exception {
+		final char ch = read();
+		switch (ch) {
+			case '[':
+				if (!allowCDATA) {
+					throw new XMLParseException(null, lineNr, "Unexpected <![CDATA[");
+				}
+				expectLiteral("CDATA[");
+				final int startLineNr = lineNr;
+				text.setLength(0);
+				readUntil("]]>", text);
+				builder.addPCData(text.toString(), null, startLineNr);
+				return;
+			case 'D':
+				expectLiteral("OCTYPE");
+				skipDocType();
+				return;
+			case '-':
+				if (read() != '-') {
+					throw expectedInput("<!--");
+				}
+				skipUntil("-->");
+				return;
+			default:
+				throw new XMLParseException(null, lineNr, "Invalid input: <!" + ch);
+		}
+	}
+
+	private void skipDocType() throws IOException, XMLParseException {
+		char quote = 0;
+		int subsetLevel = 0;
+		for (;;) {
+			final char ch = read();
+			if (quote != 0) {
+				if (ch == quote) {
+					quote = 0;
+				}
+			}
+			else if (ch == '"' || ch == '\'') {
+				quote = ch;
+			}
+			else if (ch == '[') {
+				subsetLevel++;
+			}
+			else if (ch == ']') {
+				subsetLevel--;
+			}
+			else if (ch == '>' && subsetLevel == 0) {
+				return;
+			}
+		}
+	}
+
+	private void processElement(final String fullName, String defaultNamespace, Map<String, String> namespaces)
+	        throws Exception {
+		if (fullName.isEmpty()) {
+			throw invalidInput(read());
+		}
+		final int elementLineNr = lineNr;
+		String name = fullName;
+		String prefix = null;
+		final int colonIndex = fullName.indexOf(':');
+		if (colonIndex > 0) {
+			prefix = fullName.substring(0, colonIndex);
+			name = fullName.substring(colonIndex + 1);
+		}
+		skipWhitespace();
+		attributeNames.clear();
+		attributeValues.clear();
+		char ch;
+		for (;;) {
+			ch = read();
+			if (ch == '/' || ch == '>') {
+				break;
+			}
+			unread();
+			scanAttribute();
+			skipWhitespace();
+		}
+		boolean declaresNamespaces = false;
+		final int attributeCount = attributeNames.size();
+		for (int i = 0; i < attributeCount; i++) {
+			final String key = attributeNames.get(i);
+			if (key.equals("xmlns")) {
+				defaultNamespace = attributeValues.get(i);
+			}
+			else if (key.startsWith("xmlns:")) {
+				if (!declaresNamespaces) {
+					namespaces = namespaces == null ? new HashMap<String, String>()
+					        : new HashMap<String, String>(namespaces);
+					declaresNamespaces = true;
+				}
+				namespaces.put(key.substring(6), attributeValues.get(i));
+			}
+		}
+		final String namespace = prefix == null ? defaultNamespace : namespace(namespaces, prefix);
+		try {
+			builder.startElement(name, prefix, namespace, null, elementLineNr);
+			for (int i = 0; i < attributeCount; i++) {
+				final String key = attributeNames.get(i);
+				if (key.startsWith("xmlns")) {
+					continue;
+				}
+				final String value = attributeValues.get(i);
+				final int attributeColonIndex = key.indexOf(':');
+				if (attributeColonIndex > 0) {
+					final String attributePrefix = key.substring(0, attributeColonIndex);
+					builder.addAttribute(key.substring(attributeColonIndex + 1), attributePrefix,
+					    namespace(namespaces, attributePrefix), value, ATTRIBUTE_TYPE);
+				}
+				else {
+					builder.addAttribute(key, null, null, value, ATTRIBUTE_TYPE);
+				}
+			}
+			builder.elementAttributesProcessed(name, prefix, namespace);
+			final String unparsedTag = unparsedChildTag;
+			unparsedChildTag = null;
+			if (ch == '/') {
+				if (read() != '>') {
+					throw expectedInput("`>'");
+				}
+				builder.endElement(name, prefix, namespace);
+				return;
+			}
+			final boolean closingTagIsReadAndVerified = processElementContent(defaultNamespace, namespaces,
+			    fullName, unparsedTag);
+			if (!closingTagIsReadAndVerified) {
+				skipWhitespace();
+				final String closingName = scanIdentifier();
+				if (!closingName.equals(fullName)) {
+					throw new XMLParseException(null, lineNr, "Closing tag does not match opening tag: `"
+					        + closingName + "' != `" + fullName + "'");
+				}
+				skipWhitespace();
+				if (read() != '>') {
+					throw new XMLParseException(null, lineNr, "Closing tag must be empty");
+				}
+			}
+			builder.endElement(name, prefix, namespace);
+		}
+		finally {
+			contentCollect = ContentCollect.NONE;
+			unparsedChildTag = null;
+		}
+	}
+
+	private String namespace(final Map<String, String> namespaces, final String prefix) {
+		return namespaces == null ? null : namespaces.get(prefix);
+	}
+
+	private void scanAttribute() throws IOException, XMLParseException {
+		final String key = scanIdentifier();
+		skipWhitespace();
+		if (read() != '=') {
+			throw expectedInput("`='");
+		}
+		skipWhitespace();
+		final char delimiter = read();
+		if (delimiter != '\'' && delimiter != '"') {
+			throw expectedInput("delimited string");
+		}
+		final int start = position;
+		while (position < limit) {
+			final char ch = buffer[position];
+			if (ch == delimiter) {
+				attributeNames.add(key);
+				attributeValues.add(new String(buffer, start, position - start));
+				position++;
+				return;
+			}
+			if (ch == '&' || ch == '\t' || ch == '\n' || ch == '\r') {
+				break;
+			}
+			position++;
+		}
+		text.setLength(0);
+		text.append(buffer, start, position - start);
+		for (;;) {
+			final char ch = read();
+			if (ch == delimiter) {
+				break;
+			}
+			else if (ch == '&') {
+				text.appendCodePoint(readEntity());
+			}
+			else if (ch == '\t' || ch == '\n') {
+				text.append(' ');
+			}
+			else {
+				text.append(ch);
+			}
+		}
+		attributeNames.add(key);
+		attributeValues.add(text.toString());
+	}
+
+	private boolean processElementContent(final String defaultNamespace, final Map<String, String> namespaces,
+	                                      final String fullName, final String unparsedTag) throws Exception {
+		if (contentCollect != ContentCollect.NONE) {
+			return collectContent(fullName);
+		}
+		for (;;) {
+			text.setLength(0);
+			char ch;
+			for (;;) {
+				ch = read();
+				if (ch == ' ' || ch == '\t') {
+					text.append(' ');
+				}
+				else if (ch == '\n') {
+					text.append('\n');
+				}
+				else {
+					break;
+				}
+			}
+			if (ch == '<') {
+				if (read() == '/') {
+					return false;
+				}
+				unread();
+				if (unparsedTag == null) {
+					scanSomeTag(true, defaultNamespace, namespaces);
+				}
+				else {
+					final String childName = scanIdentifier();
+					if (childName.equals(unparsedTag)) {
+						builder.addUnparsedElement(captureElement(childName));
+					}
+					else if (childName.isEmpty()) {
+						scanSomeTag(true, defaultNamespace, namespaces);
+					}
+					else {
+						processElement(childName, defaultNamespace, namespaces);
+					}
+				}
+			}
+			else {
+				final int startLineNr = lineNr;
+				unread();
+				readText();
+				builder.addPCData(text.toString(), null, startLineNr);
+			}
+		}
+	}
+
+	private void readText() throws IOException, XMLParseException {
+		for (;;) {
+			final int start = position;
+			while (position < limit) {
+				final char ch = buffer[position];
+				if (ch == '<' || ch == '&' || ch == '\r' || ch == '\n') {
+					break;
+				}
+				position++;
+			}
+			text.append(buffer, start, position - start);
+			if (atEndOfStream()) {
+				return;
+			}
+			final char ch = read();
+			if (ch == '<') {
+				unread();
+				return;
+			}
+			else if (ch == '&') {
+				text.appendCodePoint(readEntity());
+			}
+			else {
+				text.append(ch);
+			}
+		}
+	}
+
+	/** Returns the code point of the entity, numeric references may lie outside the basic multilingual plane. */
+	private int readEntity() throws IOException, XMLParseException {
+		final int entityLineNr = lineNr;
+		final StringBuilder entity = new StringBuilder();
+		for (;;) {
+			final char ch = read();
+			if (ch == ';') {
+				break;
+			}
+			entity.append(ch);
+		}
+		final int length = entity.length();
+		if (length > 1 && entity.charAt(0) == '#') {
+			int codePoint = -1;
+			try {
+				if (entity.charAt(1) == 'x') {
+					codePoint = Integer.parseInt(entity.substring(2), 16);
+				}
+				else {
+					codePoint = Integer.parseInt(entity.substring(1), 10);
+				}
+			}
+			catch (final NumberFormatException e) {
+			}
+			if (!Character.isValidCodePoint(codePoint)) {
+				throw new XMLParseException(null, entityLineNr, "Invalid entity: `&" + entity + ";'");
+			}
+			return codePoint;
+		}
+		final String name = entity.toString();
+		if (name.equals("amp")) {
+			return '&';
+		}
+		if (name.equals("lt")) {
+			return '<';
+		}
+		if (name.equals("gt")) {
+			return '>';
+		}
+		if (name.equals("quot")) {
+			return '"';
+		}
+		if (name.equals("apos")) {
+			return '\'';
+		}
+		throw new XMLParseException(null, entityLineNr, "Invalid entity: `&" + name + ";'");
+	}
+
+	/* Same algorithm as XMLParser.processElementContent */
+	private boolean collectContent(final String fullName) throws IOException, XMLParseException {
+		boolean inComment = false;
+		final StringBuilder contentBuffer = new StringBuilder();
+		int level = 1;
+		int confirmedContentBufferLength = 0;
+		int closingTagMatchingCharacters = -2;
+		boolean closingTagIsReadAndVerified = false;
+		for (;;) {
+			char ch = read();
+			if (inComment) {
+				contentBuffer.append(ch);
+				if (ch != '-') {
+					continue;
+				}
+				ch = read();
+				contentBuffer.append(ch);
+				if (ch != '-') {
+					continue;
+				}
+				ch = read();
+				contentBuffer.append(ch);
+				if (ch != '>') {
+					continue;
+				}
+				inComment = false;
+				continue;
+			}
+			if (ch == '<') {
+				ch = read();
+				if (ch == '/') {
+					if (contentCollect == ContentCollect.BY_CLOSING_TAG_LEVEL) {
+						level--;
+						if (level == 0) {
+							break;
+						}
+					}
+					else {
+						confirmedContentBufferLength = contentBuffer.length();
+						closingTagMatchingCharacters = -1;
+					}
+				}
+				else if (contentCollect == ContentCollect.BY_CLOSING_TAG_LEVEL) {
+					if (ch == '!') {
+						final char read1 = read();
+						final char read2 = read();
+						if (read1 != '-' || read2 != '-') {
+							throw new XMLParseException(null, lineNr, "Invalid input: <!" + read1 + read2);
+						}
+						inComment = true;
+						contentBuffer.append("<!--");
+						continue;
+					}
+					else {
+						level++;
+					}
+				}
+				contentBuffer.append('<');
+			}
+			else if (contentCollect == ContentCollect.BY_CLOSING_TAG_LEVEL && ch == '/') {
+				ch = read();
+				if (ch == '>') {
+					level--;
+					if (level == 0) {
+						throw new XMLParseException(null, lineNr, "Invalid input: />");
+					}
+				}
+				else if (ch == '<') {
+					contentBuffer.append('/');
+					unread();
+					continue;
+				}
+				contentBuffer.append('/');
+			}
+			if (contentCollect == ContentCollect.BY_CLOSING_TAG_NAME) {
+				if (closingTagMatchingCharacters == -1
+				        || closingTagMatchingCharacters >= 0 && closingTagMatchingCharacters < fullName.length()
+				        && fullName.charAt(closingTagMatchingCharacters) == ch) {
+					if ((closingTagMatchingCharacters >= 0 && closingTagMatchingCharacters < fullName.length())
+					        || (ch != ' ' && ch != '\t' && ch != '\n')) {
+						closingTagMatchingCharacters++;
+					}
+				}
+				else if (ch == '>' && closingTagMatchingCharacters == fullName.length()) {
+					contentBuffer.setLength(confirmedContentBufferLength);
+					closingTagIsReadAndVerified = true;
+					break;
+				}
+				else {
+					closingTagMatchingCharacters = -2;
+				}
+			}
+			contentBuffer.append(ch);
+		}
+		builder.setElementContent(contentBuffer.toString());
+		return closingTagIsReadAndVerified;
+	}
+
+	/* Returns the source of the element whose name has just been read, line breaks are normalized */
+	private String captureElement(final String fullName) throws IOException, XMLParseException {
+		final StringBuilder element = new StringBuilder(256).append('<').append(fullName);
+		int level = 1;
+		boolean inTag = true;
+		char quote = 0;
+		for (;;) {
+			final char ch = read();
+			element.append(ch);
+			if (inTag) {
+				if (quote != 0) {
+					if (ch == quote) {
+						quote = 0;
+					}
+				}
+				else if (ch == '"' || ch == '\'') {
+					quote = ch;
+				}
+				else if (ch == '>') {
+					inTag = false;
+					if (element.charAt(element.length() - 2) == '/' && --level == 0) {
+						return element.toString();
+					}
+				}
+			}
+			else if (ch == '<') {
+				final char next = read();
+				element.append(next);
+				switch (next) {
+					case '/':
+						readUntil(">", element);
+						element.append('>');
+						if (--level == 0) {
+							return element.toString();
+						}
+						break;
+					case '?':
+						readUntil("?>", element);
+						element.append("?>");
+						break;
+					case '!':
+						final char afterExclamationMark = read();
+						element.append(afterExclamationMark);
+						final String terminator = afterExclamationMark == '-' ? "-->"
+						        : afterExclamationMark == '[' ? "]]>" : ">";
+						readUntil(terminator, element);
+						element.append(terminator);
+						break;
+					default:
+						level++;
+						inTag = true;
+				}
+			}
+		}
+	}
+
+	private String scanIdentifier() throws IOException, XMLParseException {
+		final int start = position;
+		while (position < limit && isIdentifierCharacter(buffer[position])) {
+			position++;
+		}
+		if (position < limit) {
+			return names.get(buffer, start, position - start);
+		}
+		final StringBuilder identifier = new StringBuilder();
+		identifier.append(buffer, start, position - start);
+		for (;;) {
+			final char ch = read();
+			if (!isIdentifierCharacter(ch)) {
+				unread();
+				return identifier.toString();
+			}
+			identifier.append(ch);
+		}
+	}
+
+	private static boolean isIdentifierCharacter(final char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_'
+		        || ch == ':' || ch == '-' || ch == '.' || ch > '~';
+	}
+
+	private void skipWhitespace() throws IOException, XMLParseException {
+		char ch;
+		do {
+			ch = read();
+		} while (ch == ' ' || ch == '\t' || ch == '\n');
+		unread();
+	}
+
+	private void expectLiteral(final String literal) throws IOException, XMLParseException {
+		for (int i = 0; i < literal.length(); i++) {
+			if (read() != literal.charAt(i)) {
+				throw expectedInput(literal);
+			}
+		}
+	}
+
+	private void skipUntil(final String terminator) throws IOException, XMLParseException {
+		readUntil(terminator, null);
+	}
+
+	private void readUntil(final String terminator, final StringBuilder content) throws IOException,
+	        XMLParseException {
+		final int terminatorLength = terminator.length();
+		final char lastTerminatorCharacter = terminator.charAt(terminatorLength - 1);
+		final StringBuilder tail = content != null ? content : new StringBuilder();
+		for (;;) {
+			final char ch = read();
+			tail.append(ch);
+			final int length = tail.length();
+			if (ch == lastTerminatorCharacter && endsWith(tail, terminator)) {
+				tail.setLength(length - terminatorLength);
+				return;
+			}
+			if (content == null && length >= terminatorLength) {
+				tail.deleteCharAt(0);
+			}
+		}
+	}
+
+	private static boolean endsWith(final StringBuilder characters, final String suffix) {
+		final int offset = characters.length() - suffix.length();
+		if (offset < 0) {
+			return false;
+		}
+		for (int i = 0; i < suffix.length(); i++) {
+			if (characters.charAt(offset + i) != suffix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private XMLParseException expectedInput(final String expected) {
+		return new XMLParseException(null, lineNr, "Expected: " + expected);
+	}
+
+	private XMLParseException invalidInput(final char ch) {
+		return new XMLParseException(null, lineNr, "Invalid input: `" + ch + "' (0x" + Integer.toHexString(ch)
+		        + ')');
+	}
+
+	private boolean atEndOfStream() throws IOException {
+		return position >= limit && !fill();
+	}
+
+	/* Reads a character converting "\r\n" and "\r" to "\n" like java.io.LineNumberReader */
+	private char read() throws IOException, XMLParseException {
+		if (position >= limit && !fill()) {
+			throw new XMLParseException(null, lineNr, "Unexpected end of data");
+		}
+		char ch = buffer[position++];
+		if (ch == '\r') {
+			if ((position < limit || fill()) && buffer[position] == '\n') {
+				position++;
+			}
+			ch = '\n';
+		}
+		if (ch == '\n') {
+			lineNr++;
+		}
+		return ch;
+	}
+
+	/* Steps back exactly one character returned by read() */
+	private void unread() {
+		position--;
+		final char ch = buffer[position];
+		if (ch == '\n' || ch == '\r') {
+			lineNr--;
+		}
+	}
+
+	private boolean fill() throws IOException {
+		if (endOfStream) {
+			return false;
+		}
+		if (position > 0) {
+			buffer[0] = buffer[position - 1];
+			position = 1;
+		}
+		limit = position;
+		int count;
+		do {
+			count = reader.read(buffer, limit, buffer.length - limit);
+		} while (count == 0);
+		if (count < 0) {
+			endOfStream = true;
+			return false;
+		}
+		limit += count;
+		return true;
+	}
+
+	/* Reuses strings for element and attribute names */
+	private static class NameTable {
+		private static final int CAPACITY = 512;
+		private final String[] names = new String[CAPACITY];
+		private int size = 0;
+
+		String get(final char[] characters, final int start, final int length) {
+			int hash = 0;
+			for (int i = start; i < start + length; i++) {
+				hash = 31 * hash + characters[i];
+			}
+			int index = hash & (CAPACITY - 1);
+			for (;;) {
+				final String name = names[index];
+				if (name == null) {
+					final String newName = new String(characters, start, length);
+					if (size < CAPACITY / 2) {
+						names[index] = newName;
+						size++;
+					}
+					return newName;
+				}
+				if (name.hashCode() == hash && matches(name, characters, start, length)) {
+					return name;
+				}
+				index = (index + 1) & (CAPACITY - 1);
+			}
+		}
+
+		private static boolean matches(final String name, final char[] characters, final int start,
+		                               final int length) {
+			if (name.length() != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (name.charAt(i) != characters[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -20,6 +20,7 @@
 package org.freeplane.core.io.xml;
 
 import java.awt.Point;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.Date;
 import java.util.Enumeration;
@@ -35,6 +36,7 @@ import org.freeplane.core.io.IAttributeHandler;
 import org.freeplane.core.io.IElementContentHandler;
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.IElementHandler;
+import org.freeplane.core.io.IUnparsedElementHandler;
 import org.freeplane.core.io.ListHashTable;
 import org.freeplane.core.io.ReadManager;
 import org.freeplane.core.util.LogUtils;
@@ -92,14 +94,25 @@ public class TreeXmlReader implements IXMLBuilder {
 	final private LinkedList<IElementHandler> nodeCreatorStack = new LinkedList<IElementHandler>();
 	private Object parentElement;
 	final private ReadManager parseManager;
-	private XMLParser parser;
+	private IElementContentCollector parser;
 	private XMLElement saveAsXmlUntil;
 	private String tag;
 	private StdXMLBuilder xmlBuilder;
+	private boolean usesStreamingParser;
 
 	public TreeXmlReader(final ReadManager parseManager) {
 		super();
 		this.parseManager = parseManager;
+		usesStreamingParser = false;
+	}
+
+	/**
+	 * Selects the buffered streaming parser instead of the nanoxml parser.
+	 * The streaming parser only builds XMLElement objects for elements
+	 * whose handlers need them.
+	 */
+	public void setUsesStreamingParser(final boolean usesStreamingParser) {
+		this.usesStreamingParser = usesStreamingParser;
 	}
 
 	private boolean addAttribute(final String key, final String value) {
@@ -141,6 +154,10 @@ public class TreeXmlReader implements IXMLBuilder {
 		xmlBuilder.addPCData(reader, systemID, lineNr);
 	}
 
+	void addPCData(final String content, final String systemID, final int lineNr) {
+		xmlBuilder.addPCData(content, systemID, lineNr);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -150,7 +167,11 @@ public class TreeXmlReader implements IXMLBuilder {
 	public void elementAttributesProcessed(final String name, final String nsPrefix, final String nsURI)
 	        throws Exception {
 		xmlBuilder.elementAttributesProcessed(name, nsPrefix, nsURI);
-		if (saveAsXmlUntil != null || nodeCreator != null) {
+		if (saveAsXmlUntil != null) {
+			return;
+		}
+		if (nodeCreator != null) {
+			requestUnparsedChildElements();
 			return;
 		}
 		final Iterator<IElementHandler> iterator = getElementHandlers().iterator(tag);
@@ -168,16 +189,16 @@ public class TreeXmlReader implements IXMLBuilder {
 				parser.collectContentUntilMatchingTag(((IElementContentHandler)nodeCreator).findsClosingTagByName());
 			}
 			attributeHandlersForTag = getAttributeLoaders().get(tag);
-			if (attributeHandlersForTag == null) {
-				return;
-			}
-			final Enumeration<String> attributeNames = lastBuiltElement.enumerateAttributeNames();
-			while (attributeNames.hasMoreElements()) {
-				final String atName = attributeNames.nextElement();
-				if (addAttribute(atName, lastBuiltElement.getAttribute(atName, null))) {
-					lastBuiltElement.removeAttribute(atName);
+			if (attributeHandlersForTag != null) {
+				final Enumeration<String> attributeNames = lastBuiltElement.enumerateAttributeNames();
+				while (attributeNames.hasMoreElements()) {
+					final String atName = attributeNames.nextElement();
+					if (addAttribute(atName, lastBuiltElement.getAttribute(atName, null))) {
+						lastBuiltElement.removeAttribute(atName);
+					}
 				}
 			}
+			requestUnparsedChildElements();
 		}
 		else {
 			currentElement = null;
@@ -186,6 +207,19 @@ public class TreeXmlReader implements IXMLBuilder {
 		}
 	}
 
+	private void requestUnparsedChildElements() {
+		if (currentElement != null && nodeCreator instanceof IUnparsedElementHandler) {
+			final String childTag = ((IUnparsedElementHandler) nodeCreator).unparsedChildTag(currentElement);
+			if (childTag != null) {
+				parser.keepChildElementsUnparsed(childTag);
+			}
+		}
+	}
+
+	void addUnparsedElement(final String xml) {
+		((IUnparsedElementHandler) nodeCreator).addUnparsedChild(currentElement, xml);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -219,7 +253,7 @@ public class TreeXmlReader implements IXMLBuilder {
 		} catch (Exception e) {
 			LogUtils.severe("Can not process element" + name, e);
 		}
-		final XMLElement top = lastBuiltElement.getParent();
+		final XMLElement top = lastBuiltElement != null ? lastBuiltElement.getParent() : null;
 		if (nodeCreator != null && top != null && top.hasChildren()) {
 			final int lastChildIndex = top.getChildrenCount() - 1;
 			top.removeChildAtIndex(lastChildIndex);
@@ -249,12 +283,19 @@ public class TreeXmlReader implements IXMLBuilder {
 	 * @see freeplane.persistence.Reader#load()
 	 */
 	public void load(final Reader reader) throws XMLException {
-		parser = new XMLParser();
+		if (usesStreamingParser) {
+			final StreamingXmlParser streamingParser = new StreamingXmlParser(reader, this);
+			parser = streamingParser;
+			streamingParser.parse();
+			return;
+		}
+		final XMLParser nanoxmlParser = new XMLParser();
+		parser = nanoxmlParser;
 		final IXMLReader nanoxmlReader = new StdXMLReader(reader);
-		parser.setReader(nanoxmlReader);
-		parser.setBuilder(this);
-		parser.setValidator(new NonValidator());
-		parser.parse();
+		nanoxmlParser.setReader(nanoxmlReader);
+		nanoxmlParser.setBuilder(this);
+		nanoxmlParser.setValidator(new NonValidator());
+		nanoxmlParser.parse();
 	}
 
 	/*
@@ -302,7 +343,6 @@ public class TreeXmlReader implements IXMLBuilder {
 			xmlBuilder.startElement(name, nsPrefix, nsURI, systemID, lineNr);
 			return;
 		}
-		xmlBuilder.startElement(name, nsPrefix, nsURI, systemID, lineNr);
 		tag = name;
 		pushParentObjects();
 		parentElement = currentElement;
@@ -316,6 +356,12 @@ public class TreeXmlReader implements IXMLBuilder {
 				LogUtils.severe("Can not process element" + tag, e);
 			}
 		}
+		if (usesStreamingParser && currentElement != null && !needsDom(nodeCreator)) {
+			xmlBuilder.startUnmaterializedElement();
+		}
+		else {
+			xmlBuilder.startElement(name, nsPrefix, nsURI, systemID, lineNr);
+		}
 		if (currentElement != null) {
 			attributeHandlersForTag = getAttributeLoaders().get(tag);
 			if (nodeCreator instanceof IElementContentHandler) {
@@ -329,8 +375,37 @@ public class TreeXmlReader implements IXMLBuilder {
 		}
 	}
 
+	private boolean needsDom(final IElementHandler handler) {
+		return handler instanceof IElementDOMHandler || handler instanceof IElementContentHandler;
+	}
+
 	public void load(Object currentElement, Reader pReader) throws XMLException {
 	    this.currentElement = currentElement;
 	    load(pReader);
     }
+
+	/**
+	 * Reads elements written by {@link TreeXmlWriter#createBinaryWriter}.
+	 */
+	public void loadBinary(Object currentElement, InputStream input) throws XMLException {
+		this.currentElement = currentElement;
+		final boolean usedStreamingParser = usesStreamingParser;
+		usesStreamingParser = true;
+		try {
+			final BinaryXmlParser binaryParser = new BinaryXmlParser(input, this);
+			parser = binaryParser;
+			binaryParser.parse();
+		}
+		finally {
+			usesStreamingParser = usedStreamingParser;
+		}
+	}
+
+	IElementContentCollector getContentCollector() {
+		return parser;
+	}
+
+	void setContentCollector(final IElementContentCollector parser) {
+		this.parser = parser;
+	}
 }
@@ -21,6 +21,7 @@ package org.freeplane.core.io.xml;
 
 import java.awt.Point;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Collection;
 import java.util.Date;
@@ -77,17 +78,26 @@ public class TreeXmlWriter implements ITreeWriter {
 	private XMLElement xmlElement;
 	final private XMLWriter xmlwriter;
 
-	public void flush() {
+	public void flush() throws IOException {
 	    xmlwriter.flush();
     }
 
 	public TreeXmlWriter(final WriteManager writeManager, final Writer writer, boolean restrictedCharset) {
+		this(writeManager, new XMLWriter(writer, restrictedCharset));
+	}
+
+	private TreeXmlWriter(final WriteManager writeManager, final XMLWriter xmlwriter) {
 		super();
 		this.writeManager = writeManager;
-		xmlwriter = new XMLWriter(writer, restrictedCharset);
+		this.xmlwriter = xmlwriter;
 		hints = new HashMap<Object, Object>();
 	}
 
+	/** Creates a writer producing the {@link BinaryXml} encoding of the written elements. */
+	public static TreeXmlWriter createBinaryWriter(final WriteManager writeManager, final OutputStream output) {
+		return new TreeXmlWriter(writeManager, new BinaryXmlWriter(output));
+	}
+
 	public void addAttribute(final String key, final double value) {
 		addAttribute(key, Double.toString(value));
 	}
@@ -27,7 +27,7 @@ import org.freeplane.n3.nanoxml.IXMLReader;
 import org.freeplane.n3.nanoxml.StdXMLParser;
 import org.freeplane.n3.nanoxml.XMLParseException;
 
-class XMLParser extends StdXMLParser implements IXMLParser {
+class XMLParser extends StdXMLParser implements IXMLParser, IElementContentCollector {
 	static enum ContentCollect{NONE, BY_CLOSING_TAG_LEVEL, BY_CLOSING_TAG_NAME}
 	ContentCollect contentCollect = ContentCollect.NONE;
 
@@ -37,7 +37,8 @@ class XMLParser extends StdXMLParser implements IXMLParser {
 		setResolver(new LocalEntityResolver());
 	}
 
-	void collectContentUntilMatchingTag(boolean findsClosingTagByName) {
+	@Override
+	public void collectContentUntilMatchingTag(boolean findsClosingTagByName) {
 	    contentCollect = findsClosingTagByName ? ContentCollect.BY_CLOSING_TAG_NAME : ContentCollect.BY_CLOSING_TAG_LEVEL;
 	}
 
@@ -41,10 +41,15 @@ class XMLWriter {
 	private PrintWriter writer;
 	private final boolean restrictedCharset;
 
-	public void flush() {
+	public void flush() throws IOException {
 	    writer.flush();
     }
 
+	/** Used by subclasses writing other formats. */
+	XMLWriter() {
+		restrictedCharset = false;
+	}
+
 	/**
 	 * Creates a new XML writer.
 	 * 
@@ -61,7 +66,7 @@ class XMLWriter {
 		}
 	}
 
-	public void endElement(final String fullName, final boolean prettyPrint) {
+	public void endElement(final String fullName, final boolean prettyPrint) throws IOException {
 		writer.print("</" + fullName + '>');
 		if (prettyPrint) {
 			writer.println();
@@ -90,7 +95,7 @@ class XMLWriter {
 
 	/**
 	*/
-	public void write(final String content) {
+	public void write(final String content) throws IOException {
 		writeEncoded(content, false, true);
 	}
 
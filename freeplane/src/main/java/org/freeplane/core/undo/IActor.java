@@ -20,6 +20,9 @@
 package org.freeplane.core.undo;
 
 public interface IActor {
+	/** Estimated heap size of an actor which keeps no large objects alive. */
+	long ESTIMATED_ACTOR_SIZE = 64;
+
 	void act();
 
 	String getDescription();
@@ -29,4 +32,9 @@ public interface IActor {
 	default boolean isReadonly() {
 		return false;
 	}
+
+	/** Estimated heap size in bytes this actor keeps alive while it stays in the undo history. */
+	default long getEstimatedSize() {
+		return ESTIMATED_ACTOR_SIZE;
+	}
 }
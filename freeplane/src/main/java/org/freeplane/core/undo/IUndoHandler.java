@@ -66,4 +66,8 @@ public interface IUndoHandler extends IExtension {
 	
 	public int getTransactionLevel();
 
+	int getHistoryLength();
+
+	long getEstimatedHistorySize();
+
 }
@@ -28,6 +28,7 @@ import java.util.ListIterator;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapModel;
@@ -56,10 +57,11 @@ public class UndoHandler implements IUndoHandler {
 		int commitDelay = COMMIT_DELAY;
 	}
 
-	/**
-	 *
-	 */
-	private static final int MAX_ENTRIES = 100;
+	private static final String UNDO_LEVELS_PROPERTY = "undo_levels";
+	private static final int DEFAULT_UNDO_LEVELS = 100;
+	/** Heap budget of the undo history in megabytes. */
+	private static final String MEMORY_BUDGET_PROPERTY = "undo_memory_budget_mb";
+	private static final int DEFAULT_MEMORY_BUDGET = 256;
 	private static final long TIME_TO_BEGIN_NEW_ACTION = 100;
 	private boolean actionFrameStarted;
 	private ListIterator<CompoundActor> actorIterator;
@@ -122,6 +124,7 @@ public class UndoHandler implements IUndoHandler {
 			CompoundActor compoundActor = actorIterator.previous();
 			compoundActor.add(actor);
 			actorIterator.next();
+			trimHistory();
 		}
 		else {
 			CompoundActor compoundActor = new CompoundActor();
@@ -133,17 +136,50 @@ public class UndoHandler implements IUndoHandler {
 			}
 			compoundActor.add(actor);
 			actorIterator.add(compoundActor);
-			final int maxEntries = UndoHandler.MAX_ENTRIES;
-			while (actorList.size() > maxEntries) {
-				actorList.removeFirst();
-				actorIterator = actorList.listIterator(actorList.size());
-			}
+			trimHistory();
 		}
 		startActionFrame();
 		timeOfLastAdd = currentTime;
 		fireStateChanged();
 	}
 
+	/**
+	 * Drops the oldest entries exceeding the undo levels or the memory budget.
+	 * The newest entry is kept even if it alone exceeds the budget.
+	 */
+	private void trimHistory() {
+		if (!transactionList.isEmpty())
+			return;
+		final ResourceController resourceController = ResourceController.getResourceController();
+		final int maxEntries = Math.max(1, resourceController.getIntProperty(UNDO_LEVELS_PROPERTY, DEFAULT_UNDO_LEVELS));
+		final long memoryBudget = resourceController.getLongProperty(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET) << 20;
+		long historySize = getEstimatedHistorySize();
+		if (actorList.size() <= maxEntries && historySize <= memoryBudget)
+			return;
+		while (actorList.size() > 1 && (actorList.size() > maxEntries || historySize > memoryBudget)) {
+			historySize -= actorList.removeFirst().getEstimatedSize();
+		}
+		actorIterator = actorList.listIterator(actorList.size());
+	}
+
+	/** Number of entries in the undo history. */
+	public int getHistoryLength() {
+		return historyList().size();
+	}
+
+	/** Estimated heap size in bytes kept alive by the undo history. */
+	public long getEstimatedHistorySize() {
+		long size = 0;
+		for (final CompoundActor actor : historyList()) {
+			size += actor.getEstimatedSize();
+		}
+		return size;
+	}
+
+	private ActorList historyList() {
+		return transactionList.isEmpty() ? actorList : transactionList.getFirst();
+	}
+
 	private void fireStateChanged() {
 		for (final ChangeListener listener : listeners) {
 			listener.stateChanged(event);
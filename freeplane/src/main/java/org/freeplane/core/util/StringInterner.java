@@ -0,0 +1,58 @@
+package org.freeplane.core.util;
+
+import java.util.HashMap;
+
+/**
+ * Makes equal strings read from one source share a single instance.
+ *
+ * The interner is meant to live as long as the source is read.
+ * It keeps at most a fixed number of strings of limited length,
+ * so unique long texts do not make it grow.
+ */
+public class StringInterner {
+	private static final int MAX_STRING_LENGTH = 256;
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+	private final HashMap<String, String> strings = new HashMap<>();
+	private final int capacity;
+	private int sharedStringCount;
+	private long savedBytes;
+
+	public StringInterner() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public StringInterner(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public String intern(final String string) {
+		if (string == null || string.length() > MAX_STRING_LENGTH) {
+			return string;
+		}
+		final String sharedString = strings.get(string);
+		if (sharedString != null) {
+			if (sharedString != string) {
+				sharedStringCount++;
+				savedBytes += estimatedSize(string);
+			}
+			return sharedString;
+		}
+		if (strings.size() < capacity) {
+			strings.put(string, string);
+		}
+		return string;
+	}
+
+	/** Size of a string with its character array on a 64 bit VM with compressed references. */
+	private static long estimatedSize(final String string) {
+		return 24 + ((16 + 2 * string.length() + 7) & ~7);
+	}
+
+	public int getSharedStringCount() {
+		return sharedStringCount;
+	}
+
+	public long getSavedBytes() {
+		return savedBytes;
+	}
+}
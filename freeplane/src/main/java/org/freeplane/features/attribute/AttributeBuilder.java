@@ -151,7 +151,7 @@ class AttributeBuilder implements IElementDOMHandler {
 			    @Override
 				public void setAttribute(final Object userObject, final String value) {
 				    final RegisteredAttributeProperties rap = (RegisteredAttributeProperties) userObject;
-				    rap.attributeName = value;
+				    rap.attributeName = mapReader.intern(value);
 				    AttributeRegistry.getRegistry(getMap()).registry(value);
 			    }
 		    });
@@ -184,7 +184,7 @@ class AttributeBuilder implements IElementDOMHandler {
 			    @Override
 				public void setAttribute(final Object userObject, final String value) {
 				    final AttributeProperties ap = (AttributeProperties) userObject;
-				    ap.attributeValue = value;
+				    ap.attributeValue = mapReader.intern(value);
 			    }
 		    });
 		reader.addAttributeHandler(AttributeBuilder.XML_NODE_REGISTERED_ATTRIBUTE_VALUE, "OBJECT",
@@ -223,14 +223,14 @@ class AttributeBuilder implements IElementDOMHandler {
 			@Override
 			public void setAttribute(final Object userObject, final String value) {
 				final AttributeProperties ap = (AttributeProperties) userObject;
-				ap.attributeName = value;
+				ap.attributeName = mapReader.intern(value);
 			}
 		});
 		reader.addAttributeHandler(AttributeBuilder.XML_NODE_ATTRIBUTE, "VALUE", new IAttributeHandler() {
 			@Override
 			public void setAttribute(final Object userObject, final String value) {
 				final AttributeProperties ap = (AttributeProperties) userObject;
-				ap.attributeValue = value;
+				ap.attributeValue = mapReader.intern(value);
 			}
 		});
 		reader.addAttributeHandler(AttributeBuilder.XML_NODE_ATTRIBUTE, "OBJECT", new IAttributeHandler() {
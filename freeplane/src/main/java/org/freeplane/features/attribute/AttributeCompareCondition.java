@@ -79,6 +79,11 @@ public class AttributeCompareCondition extends CompareConditionAdapter {
 	}
 
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
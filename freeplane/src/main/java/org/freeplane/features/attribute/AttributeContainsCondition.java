@@ -20,6 +20,7 @@
 package org.freeplane.features.attribute;
 
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.filter.NodeTextIndex;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.ConditionFactory;
@@ -64,6 +65,11 @@ public class AttributeContainsCondition extends StringConditionAdapter {
         	StringMatchingStrategy.EXACT_STRING_MATCHING_STRATEGY;
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -71,6 +77,8 @@ public class AttributeContainsCondition extends StringConditionAdapter {
 	 * .MindMapNode)
 	 */
 	public boolean checkNode(final NodeModel node) {
+		if (!matchApproximately && !NodeTextIndex.mayContain(node, normalizedValue()))
+			return false;
 		final IAttributeTableModel attributes = NodeAttributeTableModel.getModel(node);
 		final TextController textController = TextController.getController();
 		for (int i = 0; i < attributes.getRowCount(); i++) {
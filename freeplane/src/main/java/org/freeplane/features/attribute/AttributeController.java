@@ -23,6 +23,7 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
 import java.net.URI;
+import java.util.List;
 
 import javax.swing.SwingUtilities;
 
@@ -295,4 +296,18 @@ public class AttributeController implements IExtension {
 	public static AttributeSelection getAttributeSelection() {
 		return attributeSelection;
 	}
+
+	/** Collects attribute names and values for the node text index. */
+	public static boolean collectIndexedTexts(final NodeModel node, List<String> texts) {
+		final NodeAttributeTableModel attributes = NodeAttributeTableModel.getModel(node);
+		final TextController textController = TextController.getController();
+		for (int i = 0; i < attributes.getRowCount(); i++) {
+			final Object value = attributes.getValueAt(i, 1);
+			if (textController.dependsOnOtherNodes(value))
+				return false;
+			texts.add(attributes.getValueAt(i, 0).toString());
+			texts.add(textController.getTransformedTextNoThrow(node, attributes, value));
+		}
+		return true;
+	}
 }
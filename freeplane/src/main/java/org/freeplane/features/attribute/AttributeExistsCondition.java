@@ -47,6 +47,11 @@ public class AttributeExistsCondition extends ASelectableCondition {
 		this.attribute = attribute;
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
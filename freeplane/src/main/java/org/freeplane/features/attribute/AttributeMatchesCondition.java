@@ -64,6 +64,11 @@ public class AttributeMatchesCondition extends ASelectableCondition {
         this.searchPattern = Pattern.compile(value, flags);
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
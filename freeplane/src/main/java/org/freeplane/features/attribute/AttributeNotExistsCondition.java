@@ -48,6 +48,11 @@ public class AttributeNotExistsCondition extends ASelectableCondition {
 		this.attribute = attribute;
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
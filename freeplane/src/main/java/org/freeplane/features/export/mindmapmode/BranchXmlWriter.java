@@ -1,14 +1,39 @@
 package org.freeplane.features.export.mindmapmode;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXSource;
 
 import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 class BranchXmlWriter{
+	private static final int PIPE_SIZE = 64 * 1024;
 	private final List<NodeModel> branches;
 
 	 BranchXmlWriter(List<NodeModel> branches) {
@@ -32,4 +57,84 @@ class BranchXmlWriter{
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * Transforms the xml written on the calling thread.
+	 * The transformer parses it on a separate thread while it is written, so the xml is never kept in memory as a whole.
+	 */
+	void transform(Templates templates, Result result, MapWriter.Mode mode) throws TransformerException, IOException {
+		final Transformer transformer = templates.newTransformer();
+		final XMLReader xmlReader = createXmlReader();
+		final PipedReader pipedReader = new PipedReader(PIPE_SIZE);
+		final PipedWriter pipedWriter = new PipedWriter(pipedReader);
+		final AtomicReference<Exception> transformationException = new AtomicReference<>();
+		final Thread transformation = new Thread(() -> {
+			try (Reader reader = pipedReader) {
+				transformer.transform(new SAXSource(xmlReader, new InputSource(reader)), result);
+			}
+			catch (TransformerException | IOException | RuntimeException e) {
+				transformationException.set(e);
+			}
+		}, "xslt export");
+		transformation.setDaemon(true);
+		transformation.start();
+		RuntimeException writingException = null;
+		try (Writer writer = pipedWriter) {
+			writeXml(writer, mode);
+		}
+		catch (RuntimeException e) {
+			writingException = e;
+		}
+		try {
+			transformation.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		final Exception exception = transformationException.get();
+		if (exception instanceof TransformerException)
+			throw (TransformerException) exception;
+		if (exception instanceof IOException)
+			throw (IOException) exception;
+		if (exception != null)
+			throw (RuntimeException) exception;
+		if (writingException != null)
+			throw writingException;
+	}
+
+	/**
+	 * Writes the xml into a deflated buffer.
+	 * It is a compact snapshot of the branches which can be transformed later on another thread.
+	 */
+	byte[] writeCompressedXml(MapWriter.Mode mode) throws IOException {
+		final ByteArrayOutputStream compressedXml = new ByteArrayOutputStream();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new DeflaterOutputStream(compressedXml),
+		    StandardCharsets.UTF_8))) {
+			writeXml(writer, mode);
+		}
+		return compressedXml.toByteArray();
+	}
+
+	/** Transforms the xml written by {@link #writeCompressedXml(MapWriter.Mode)} inflating it while it is parsed. */
+	static void transformCompressedXml(byte[] compressedXml, Templates templates, Result result)
+	        throws TransformerException, IOException {
+		final Transformer transformer = templates.newTransformer();
+		try (InputStream xml = new InflaterInputStream(new ByteArrayInputStream(compressedXml))) {
+			final InputSource inputSource = new InputSource(xml);
+			inputSource.setEncoding(StandardCharsets.UTF_8.name());
+			transformer.transform(new SAXSource(createXmlReader(), inputSource), result);
+		}
+	}
+
+	private static XMLReader createXmlReader() throws TransformerException {
+		try {
+			final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+			parserFactory.setNamespaceAware(true);
+			return parserFactory.newSAXParser().getXMLReader();
+		}
+		catch (ParserConfigurationException | SAXException e) {
+			throw new TransformerException(e);
+		}
+	}
 }
@@ -52,6 +52,12 @@ class ExportBranchesToHTML implements IExportEngine {
 		}
 	}
 
+	@Override
+	public ExportScheduler.OutputWriter prepareExport(List<NodeModel> branches, File file) throws IOException {
+		MapClipboardController.getController().saveHTML(branches, file);
+		return () -> {};
+	}
+
 	public FileFilter getFileFilter() {
 	    return new CaseSensitiveFileNameExtensionFilter("html", TextUtils.getText("ExportBranchToHTMLAction.text"));
     }
@@ -1,5 +1,6 @@
 package org.freeplane.features.export.mindmapmode;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
@@ -8,6 +9,7 @@ import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.swing.filechooser.FileFilter;
@@ -19,6 +21,7 @@ import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.n3.nanoxml.IXMLParser;
@@ -160,6 +163,21 @@ public class ExportController implements IExtension{
 	    return false;
     }
 
+	/**
+	 * Exports each branch to its own file.
+	 * Files are written concurrently as far as the export engine allows it,
+	 * the exception of the first failed file in iteration order is rethrown after all files are processed.
+	 */
+	public void exportBranches(IExportEngine exportEngine, Map<NodeModel, File> branchFiles) throws Exception {
+		final List<ExportScheduler.OutputPreparation> outputs = new ArrayList<>(branchFiles.size());
+		for (Map.Entry<NodeModel, File> branchFile : branchFiles.entrySet()) {
+			outputs.add(() -> exportEngine.prepareExport(Collections.singletonList(branchFile.getKey()),
+			    branchFile.getValue()));
+		}
+		ExportScheduler.export(TextUtils.getText(ExportDialog.EXPORT_BRANCHES_TITLE), outputs,
+		    Runtime.getRuntime().availableProcessors() + 1);
+	}
+
     ExportDialog createMapExportDialog() {
         return new ExportDialog(getMapExportFileFilters(), getMapExportEngines(), ExportDialog.EXPORT_MAP_TITLE);
     }
@@ -0,0 +1,225 @@
+package org.freeplane.features.export.mindmapmode;
+
+import java.awt.BorderLayout;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+import org.freeplane.core.ui.LabelAndMnemonicSetter;
+import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.util.TextUtils;
+
+/**
+ * Exports several independent outputs.
+ *
+ * Each output is prepared on the calling thread, which captures everything needed from the model and the view,
+ * and written on a bounded pool concurrently with the preparation of the following outputs.
+ * At most a given number of prepared outputs are kept in memory waiting to be written.
+ * Called on the event dispatch thread, a modal dialog shows the progress and allows to cancel the export,
+ * the outputs are then prepared in separate events so that the dialog keeps painting.
+ */
+public class ExportScheduler {
+	/** Writes an output from the captured state, called on a writer thread. */
+	@FunctionalInterface
+	public interface OutputWriter {
+		void write() throws Exception;
+	}
+
+	/** Captures the state needed to write an output, called on the exporting thread. */
+	@FunctionalInterface
+	public interface OutputPreparation {
+		OutputWriter prepare() throws Exception;
+	}
+
+	/**
+	 * Returns after all prepared outputs are written.
+	 * The exception of the first failed output is rethrown after the other written outputs are completed.
+	 *
+	 * @throws CancellationException if the user has cancelled the export
+	 */
+	public static void export(String title, List<? extends OutputPreparation> outputs, int maxPreparedOutputs)
+	        throws Exception {
+		final ExportScheduler scheduler = new ExportScheduler(outputs, maxPreparedOutputs);
+		if (outputs.size() > 1 && !GraphicsEnvironment.isHeadless() && SwingUtilities.isEventDispatchThread())
+			scheduler.runWithProgressDialog(title);
+		else
+			scheduler.run();
+	}
+
+	private final List<? extends OutputPreparation> outputs;
+	private final Semaphore preparedOutputs;
+	private final ExecutorService writers;
+	private final List<Future<Void>> writtenOutputs;
+	private boolean isCancelled;
+	private int nextOutput;
+	private Exception preparationException;
+	private JDialog dialog;
+	private JProgressBar progressBar;
+
+	private ExportScheduler(List<? extends OutputPreparation> outputs, int maxPreparedOutputs) {
+		this.outputs = outputs;
+		final int writerCount = Math.max(1,
+		    Math.min(Runtime.getRuntime().availableProcessors(), Math.min(maxPreparedOutputs, outputs.size())));
+		preparedOutputs = new Semaphore(Math.max(1, maxPreparedOutputs));
+		writers = Executors.newFixedThreadPool(writerCount, r -> {
+			final Thread thread = new Thread(r, "export writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writtenOutputs = new ArrayList<>(outputs.size());
+	}
+
+	private void run() throws Exception {
+		try {
+			while (hasNextOutput()) {
+				preparedOutputs.acquire();
+				prepareNextOutput();
+			}
+		}
+		finally {
+			writers.shutdown();
+		}
+		completeExport();
+	}
+
+	private boolean hasNextOutput() {
+		return nextOutput < outputs.size() && preparationException == null && !isCancelled && !hasFailedOutput();
+	}
+
+	private boolean hasFailedOutput() {
+		for (final Future<Void> writtenOutput : writtenOutputs) {
+			if (writtenOutput.isDone()) {
+				try {
+					writtenOutput.get();
+				}
+				catch (ExecutionException | InterruptedException e) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void prepareNextOutput() {
+		final OutputWriter writer;
+		try {
+			writer = outputs.get(nextOutput++).prepare();
+		}
+		catch (Exception e) {
+			preparedOutputs.release();
+			preparationException = e;
+			return;
+		}
+		final FutureTask<Void> writtenOutput = new FutureTask<Void>(() -> {
+			writer.write();
+			return null;
+		}) {
+			@Override
+			protected void done() {
+				preparedOutputs.release();
+				if (dialog != null)
+					SwingUtilities.invokeLater(ExportScheduler.this::continueExport);
+			}
+		};
+		writtenOutputs.add(writtenOutput);
+		writers.execute(writtenOutput);
+	}
+
+	private void completeExport() throws Exception {
+		for (final Future<Void> writtenOutput : writtenOutputs) {
+			try {
+				writtenOutput.get();
+			}
+			catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof Exception)
+					throw (Exception) cause;
+				throw (Error) cause;
+			}
+		}
+		if (preparationException != null)
+			throw preparationException;
+		if (isCancelled)
+			throw new CancellationException();
+	}
+
+	private void runWithProgressDialog(String title) throws Exception {
+		final Frame frame = UITools.getCurrentFrame();
+		dialog = new JDialog(frame, title, true);
+		dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		dialog.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				cancel();
+			}
+		});
+		progressBar = new JProgressBar(0, outputs.size());
+		progressBar.setStringPainted(true);
+		final JButton cancelButton = new JButton();
+		LabelAndMnemonicSetter.setLabelAndMnemonic(cancelButton, TextUtils.getRawText("cancel"));
+		cancelButton.addActionListener(e -> {
+			cancel();
+			cancelButton.setEnabled(false);
+		});
+		final JPanel buttonPanel = new JPanel();
+		buttonPanel.add(cancelButton);
+		final JPanel contentPane = new JPanel(new BorderLayout(0, 10));
+		contentPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 5, 10));
+		contentPane.add(progressBar, BorderLayout.CENTER);
+		contentPane.add(buttonPanel, BorderLayout.SOUTH);
+		dialog.setContentPane(contentPane);
+		dialog.pack();
+		dialog.setSize(Math.max(dialog.getWidth(), 400), dialog.getHeight());
+		UITools.setDialogLocationRelativeTo(dialog, frame);
+		SwingUtilities.invokeLater(this::continueExport);
+		try {
+			dialog.setVisible(true);
+		}
+		finally {
+			writers.shutdown();
+		}
+		completeExport();
+	}
+
+	private void cancel() {
+		isCancelled = true;
+		SwingUtilities.invokeLater(this::continueExport);
+	}
+
+	private void continueExport() {
+		if (!dialog.isDisplayable())
+			return;
+		int writtenOutputCount = 0;
+		for (final Future<Void> writtenOutput : writtenOutputs) {
+			if (writtenOutput.isDone())
+				writtenOutputCount++;
+		}
+		progressBar.setValue(writtenOutputCount);
+		if (hasNextOutput()) {
+			if (preparedOutputs.tryAcquire()) {
+				prepareNextOutput();
+				SwingUtilities.invokeLater(this::continueExport);
+			}
+		}
+		else if (writtenOutputCount == writtenOutputs.size())
+			dialog.dispose();
+	}
+}
@@ -84,29 +84,70 @@ public class ExportToImage implements IExportEngine {
 		catch (final OutOfMemoryError ex) {
 			UITools.errorMessage(TextUtils.getText("out_of_memory"));
 		}
+		finally {
+			dispose(image);
+		}
+	}
+
+	/** Releases images painted while they are written. */
+	static void dispose(final RenderedImage image) {
+		if (image instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) image).close();
+			}
+			catch (Exception e) {
+				LogUtils.warn(e);
+			}
+		}
+	}
+
+	/**
+	 * Renders the image on the calling thread, the returned writer encodes it.
+	 * The rendered image is kept in memory until it is written.
+	 * Large images painted in strips from the map view are encoded on the calling thread,
+	 * because the view can change before the returned writer runs.
+	 */
+	public ExportScheduler.OutputWriter prepareExport(MapModel map, final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, File toFile) throws IOException {
+		final int dpi = getImageResolutionDPI();
+		RenderedImage image = null;
+		try {
+			image = placedNode != null ? new ImageCreator(dpi).createBufferedImage(map, slideSize, placedNode, placedNodePosition) : new ImageCreator(dpi).createBufferedImage(map);
+			if (image == null) {
+				return () -> {};
+			}
+			if (image instanceof AutoCloseable) {
+				writeImage(image, toFile, dpi);
+				return () -> {};
+			}
+			final RenderedImage renderedImage = image;
+			return () -> writeImage(renderedImage, toFile, dpi);
+		}
+		catch (final OutOfMemoryError ex) {
+			throw new IllegalStateException(TextUtils.getText("out_of_memory"), ex);
+		}
+		finally {
+			dispose(image);
+		}
+	}
+
+	/** Estimates how many images rendered from the given view size can wait for writing without exhausting the heap. */
+	public int getMaxPreparedImages(Dimension viewSize) {
+		final double scaleFactor = getImageResolutionDPI() / (UITools.FONT_SCALE_FACTOR * 72);
+		final long imageBytes = Math.max(1, (long) (viewSize.width * scaleFactor * viewSize.height * scaleFactor * 4));
+		final Runtime runtime = Runtime.getRuntime();
+		final long availableBytes = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		return (int) Math.max(1, Math.min(runtime.availableProcessors() + 1, availableBytes / (2 * imageBytes)));
+	}
+
+	@Override
+	public ExportScheduler.OutputWriter prepareExport(List<NodeModel> nodes, File toFile) throws IOException {
+		return prepareExport(nodes.get(0).getMap(), null, null, null, toFile);
 	}
 
 	public boolean exportToImage(final RenderedImage image, File chosenFile) {
 		try {
 			Controller.getCurrentController().getViewController().setWaitingCursor(true);
-			Iterator<ImageWriter> imageWritersByFormatName = ImageIO.getImageWritersByFormatName(imageType);
-			for(;;){
-				ImageWriter writer = imageWritersByFormatName.next();
-				ImageWriteParam writeParam = writer.getDefaultWriteParam();
-				ImageTypeSpecifier typeSpecifier = ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_RGB);
-				IIOMetadata metadata = writer.getDefaultImageMetadata(typeSpecifier, writeParam);
-				if ((metadata.isReadOnly() || !metadata.isStandardMetadataFormatSupported()) && imageWritersByFormatName.hasNext()) {
-					continue;
-                }
-				addDpiToMetadata(metadata);
-				try ( final FileOutputStream outFile = new FileOutputStream(chosenFile);
-		              final ImageOutputStream stream = ImageIO.createImageOutputStream(outFile);
-				){
-					writer.setOutput(ImageIO.createImageOutputStream(outFile));
-					writer.write(metadata, new IIOImage(image, null, metadata), writeParam);
-					break;
-				}
-			}
+			writeImage(image, chosenFile, getImageResolutionDPI());
 		}
 		catch (final IOException e1) {
 			LogUtils.warn(e1);
@@ -118,8 +159,31 @@ public class ExportToImage implements IExportEngine {
 		return true;
 	}
 
-	private void addDpiToMetadata(IIOMetadata metadata) throws IIOInvalidTreeException {
-	    int dpi = getImageResolutionDPI();
+	private void writeImage(final RenderedImage image, File chosenFile, int dpi) throws IOException {
+		Iterator<ImageWriter> imageWritersByFormatName = ImageIO.getImageWritersByFormatName(imageType);
+		for(;;){
+			ImageWriter writer = imageWritersByFormatName.next();
+			ImageWriteParam writeParam = writer.getDefaultWriteParam();
+			ImageTypeSpecifier typeSpecifier = ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_RGB);
+			IIOMetadata metadata = writer.getDefaultImageMetadata(typeSpecifier, writeParam);
+			if ((metadata.isReadOnly() || !metadata.isStandardMetadataFormatSupported()) && imageWritersByFormatName.hasNext()) {
+				continue;
+			}
+			addDpiToMetadata(metadata, dpi);
+			try ( final FileOutputStream outFile = new FileOutputStream(chosenFile);
+			      final ImageOutputStream stream = ImageIO.createImageOutputStream(outFile);
+			){
+				writer.setOutput(stream);
+				writer.write(metadata, new IIOImage(image, null, metadata), writeParam);
+				break;
+			}
+			finally {
+				writer.dispose();
+			}
+		}
+	}
+
+	private void addDpiToMetadata(IIOMetadata metadata, int dpi) throws IIOInvalidTreeException {
 	    double dotsPerMilli = 1.0 * dpi / 10 / 2.54;
 	    IIOMetadataNode root = new IIOMetadataNode("javax_imageio_1.0");
 	    IIOMetadataNode horiz = new IIOMetadataNode("HorizontalPixelSize");
@@ -165,6 +165,9 @@ public class ExportWithXSLT implements IExportEngine {
 			LogUtils.severe(e1);
 			return false;
 		}
+		finally {
+			ExportToImage.dispose(image);
+		}
 	}
 
 	/**
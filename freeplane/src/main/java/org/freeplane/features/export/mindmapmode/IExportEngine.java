@@ -7,4 +7,13 @@ import org.freeplane.features.map.NodeModel;
 
 public interface IExportEngine {
 	public void export(List<NodeModel> nodes, File toFile);
+
+	/**
+	 * Captures the exported state on the calling thread for an {@link ExportScheduler}.
+	 * Engines which can not separate capturing from writing export completely here.
+	 */
+	default ExportScheduler.OutputWriter prepareExport(List<NodeModel> nodes, File toFile) throws Exception {
+		export(nodes, toFile);
+		return () -> {};
+	}
 }
@@ -1,22 +1,18 @@
 package org.freeplane.features.export.mindmapmode;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilePermission;
 import java.io.OutputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.security.Permission;
 import java.security.Policy;
 import java.security.ProtectionDomain;
 import java.util.List;
 
 import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.Templates;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.LogUtils;
@@ -46,7 +42,24 @@ public class XsltExportEngine implements IExportEngine {
 				 throw new IllegalStateException();
 			Policy.setPolicy(alternativePolicy);
 		}
-		
+
+		private static XsltExportPolicy installedPolicy;
+		private static int installationCount;
+
+		/** Installs the policy once for concurrently running transformations. */
+		static synchronized void install() {
+			if (installationCount++ == 0) {
+				installedPolicy = new XsltExportPolicy();
+				Policy.setPolicy(installedPolicy);
+			}
+		}
+
+		static synchronized void uninstall() {
+			if (--installationCount == 0) {
+				installedPolicy.remove();
+				installedPolicy = null;
+			}
+		}
 	}
 	public XsltExportEngine(File xsltFile) {
 	    super();
@@ -84,29 +97,40 @@ public class XsltExportEngine implements IExportEngine {
 	final private File xsltFile;
 	
 	public void export(List<NodeModel> branches, File toFile) {
-		final Source xsltSource = new StreamSource(xsltFile);
-		final Source xmlSource = getMapXml(branches);
-		final XsltExportPolicy xsltExportPolicy = new XsltExportPolicy();
-		Policy.setPolicy(xsltExportPolicy);
-        try (OutputStream outputStream = new FileOutputStream(toFile)){
+		XsltExportPolicy.install();
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(toFile))){
         	final Result result = new StreamResult(outputStream);
-        	final TransformerFactory transFact = TransformerFactory.newInstance();
-        	final Transformer trans = transFact.newTransformer(xsltSource);
-        	trans.transform(xmlSource, result);
+        	final Templates templates = XsltTemplatesCache.getTemplates(xsltFile);
+        	new BranchXmlWriter(branches).transform(templates, result, Mode.EXPORT);
         }
         catch (final Exception e) {
         	UITools.errorMessage(TextUtils.getText("export_failed"));
         	LogUtils.warn(e);
         }
         finally {
-        	xsltExportPolicy.remove();
+        	XsltExportPolicy.uninstall();
         }
 	}
 
-	private StreamSource getMapXml(final List<NodeModel> branches) {
-		final StringWriter writer = new StringWriter();
-		new BranchXmlWriter(branches).writeXml(writer, Mode.EXPORT);
-		final StringReader stringReader = new StringReader(writer.getBuffer().toString());
-		return new StreamSource(stringReader);
+	@Override
+	public ExportScheduler.OutputWriter prepareExport(List<NodeModel> branches, File toFile) throws Exception {
+		final byte[] compressedXml = new BranchXmlWriter(branches).writeCompressedXml(Mode.EXPORT);
+		final Templates templates;
+		XsltExportPolicy.install();
+		try {
+			templates = XsltTemplatesCache.getTemplates(xsltFile);
+		}
+		finally {
+			XsltExportPolicy.uninstall();
+		}
+		return () -> {
+			XsltExportPolicy.install();
+			try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(toFile))){
+				BranchXmlWriter.transformCompressedXml(compressedXml, templates, new StreamResult(outputStream));
+			}
+			finally {
+				XsltExportPolicy.uninstall();
+			}
+		};
 	}
 }
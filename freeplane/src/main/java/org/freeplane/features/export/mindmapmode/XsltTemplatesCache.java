@@ -0,0 +1,87 @@
+package org.freeplane.features.export.mindmapmode;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Keeps compiled stylesheets so that repeated exports do not compile them again.
+ * Stylesheet files are compiled again after the modification time of the file
+ * or of a file it includes or imports changes, stylesheets loaded from other URLs are compiled once.
+ */
+class XsltTemplatesCache {
+	private static class CompiledStylesheet {
+		/** Modification times of the stylesheet file and the files it includes or imports, by file. */
+		final Map<File, Long> lastModified;
+		final Templates templates;
+
+		CompiledStylesheet(Map<File, Long> lastModified, Templates templates) {
+			this.lastModified = lastModified;
+			this.templates = templates;
+		}
+
+		boolean isUpToDate() {
+			for (final Map.Entry<File, Long> file : lastModified.entrySet()) {
+				if (file.getKey().lastModified() != file.getValue())
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static final Map<String, CompiledStylesheet> compiledStylesheets = new ConcurrentHashMap<String, CompiledStylesheet>();
+
+	static Templates getTemplates(File xsltFile) throws TransformerConfigurationException {
+		return getTemplates(xsltFile.getAbsoluteFile().toURI().toString());
+	}
+
+	static Templates getTemplates(URL xsltUrl) throws TransformerConfigurationException {
+		if ("file".equals(xsltUrl.getProtocol())) {
+			try {
+				return getTemplates(new File(xsltUrl.toURI()));
+			}
+			catch (URISyntaxException | IllegalArgumentException e) {
+			}
+		}
+		return getTemplates(xsltUrl.toExternalForm());
+	}
+
+	private static Templates getTemplates(String systemId) throws TransformerConfigurationException {
+		final CompiledStylesheet compiledStylesheet = compiledStylesheets.get(systemId);
+		if (compiledStylesheet != null && compiledStylesheet.isUpToDate()) {
+			return compiledStylesheet.templates;
+		}
+		final Map<File, Long> lastModified = new HashMap<File, Long>();
+		recordLastModified(lastModified, systemId, null);
+		final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+		transformerFactory.setURIResolver((href, base) -> {
+			recordLastModified(lastModified, href, base);
+			return null;
+		});
+		final Templates templates = transformerFactory.newTemplates(new StreamSource(systemId));
+		compiledStylesheets.put(systemId, new CompiledStylesheet(lastModified, templates));
+		return templates;
+	}
+
+	/** Remembers the modification time of included files, the default resolution still loads them. */
+	private static void recordLastModified(Map<File, Long> lastModified, String href, String base) {
+		try {
+			final URI uri = base != null ? new URI(base).resolve(href) : new URI(href);
+			if ("file".equals(uri.getScheme())) {
+				final File file = new File(uri);
+				lastModified.put(file, file.lastModified());
+			}
+		}
+		catch (URISyntaxException | IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package org.freeplane.features.filter;
+
+import java.util.Arrays;
+
+/**
+ * Computes the same distance as {@link PseudoDamerauLevenshtein} with the bit-parallel algorithm
+ * of Myers extended to transpositions by Hyyrö.
+ *
+ * Each bit of a vector stands for a search term character, so a text character is processed
+ * by a few word operations for search terms up to 64 characters and by a block of words for longer ones.
+ * Character masks of the last search term and the vectors are kept in thread local buffers,
+ * so {@link #matches(String, String, boolean)} can be called on several threads at once.
+ * Masks of non ASCII characters are hashed, the table grows with the number of distinct characters.
+ */
+public class BitParallelDamerauLevenshtein implements EditDistanceStringMatchingStrategy {
+	/** The search text character matching every search term character. */
+	private static final char WILDCARD = '-';
+	private static final int EMPTY = -1;
+	private static final int ASCII = 128;
+	/** Buffers holding more mask words are dropped after use, so a huge search term does not keep its memory. */
+	private static final int MAX_RETAINED_MASK_WORDS = 1 << 16;
+
+	private static class Buffers {
+		private String searchTerm;
+		private int words;
+		private int[] characters = new int[0];
+		private long[] masks = new long[0];
+		private long[] verticalPositive = new long[0];
+		private long[] verticalNegative = new long[0];
+		private long[] diagonalZero = new long[0];
+		private long[] previousEqual = new long[0];
+		private long[] wildcardMask = new long[0];
+
+		void use(String searchTerm) {
+			if (searchTerm.equals(this.searchTerm))
+				return;
+			this.searchTerm = searchTerm;
+			words = (searchTerm.length() + 63) >>> 6;
+			int capacity = 2;
+			while (capacity < 2 * countDistinctNonAsciiCharacters(searchTerm))
+				capacity *= 2;
+			if (characters.length != capacity)
+				characters = new int[capacity];
+			Arrays.fill(characters, EMPTY);
+			final int maskCount = (ASCII + capacity) * words;
+			if (masks.length < maskCount)
+				masks = new long[maskCount];
+			else
+				Arrays.fill(masks, 0, maskCount, 0);
+			if (verticalPositive.length < words) {
+				verticalPositive = new long[words];
+				verticalNegative = new long[words];
+				diagonalZero = new long[words];
+				previousEqual = new long[words];
+				wildcardMask = new long[words];
+				Arrays.fill(wildcardMask, -1L);
+			}
+			for (int i = 0; i < searchTerm.length(); i++) {
+				final char c = searchTerm.charAt(i);
+				final int offset;
+				if (c < ASCII)
+					offset = c * words;
+				else {
+					final int slot = slot(c);
+					characters[slot] = c;
+					offset = (ASCII + slot) * words;
+				}
+				masks[offset + (i >>> 6)] |= 1L << i;
+			}
+		}
+
+		private static int countDistinctNonAsciiCharacters(String searchTerm) {
+			final char[] chars = new char[searchTerm.length()];
+			int count = 0;
+			for (int i = 0; i < searchTerm.length(); i++) {
+				final char c = searchTerm.charAt(i);
+				if (c >= ASCII)
+					chars[count++] = c;
+			}
+			Arrays.sort(chars, 0, count);
+			int distinctCount = 0;
+			for (int i = 0; i < count; i++) {
+				if (i == 0 || chars[i] != chars[i - 1])
+					distinctCount++;
+			}
+			return distinctCount;
+		}
+
+		boolean isOversized() {
+			return masks.length > MAX_RETAINED_MASK_WORDS;
+		}
+
+		private int slot(char c) {
+			final int mask = characters.length - 1;
+			int slot = (c * 0x9E3779B9 >>> 16) & mask;
+			while (characters[slot] != c && characters[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			return slot;
+		}
+
+		/**
+		 * Returns the first mask word of positions of the character in the search term.
+		 * Masks of ASCII characters are found directly, masks of other characters in a hash table.
+		 */
+		int maskOffset(char c) {
+			if (c < ASCII)
+				return c * words;
+			final int slot = slot(c);
+			return characters[slot] == EMPTY ? EMPTY : (ASCII + slot) * words;
+		}
+	}
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	private String searchTerm;
+	private String searchText;
+	private Type type;
+
+	@Override
+	public void init(String searchTerm, String searchText, boolean subStringMatch) {
+		if (searchTerm == null || searchText == null)
+			throw new IllegalArgumentException("Null searchText/searchTerm!");
+		this.searchTerm = searchTerm;
+		this.searchText = searchText;
+		this.type = subStringMatch ? Type.SemiGlobal : Type.Global;
+	}
+
+	@Override
+	public int distance() {
+		return distance(searchTerm, searchText, type);
+	}
+
+	@Override
+	public float matchProb() {
+		return matchProb(searchTerm, searchText, type, distance());
+	}
+
+	@Override
+	public boolean matches(String searchTerm, String searchText, boolean subStringMatch) {
+		if (searchTerm == null || searchText == null)
+			throw new IllegalArgumentException("Null searchText/searchTerm!");
+		final Type type = subStringMatch ? Type.SemiGlobal : Type.Global;
+		final int distance = distance(searchTerm, searchText, type);
+		return matchProb(searchTerm, searchText, type, distance) > StringMatchingStrategy.APPROXIMATE_MATCHING_MINPROB;
+	}
+
+	private static float matchProb(String searchTerm, String searchText, Type type, int distance) {
+		if (type == Type.SemiGlobal)
+			return 1.0F - ((float) distance / searchTerm.length());
+		else
+			return 1.0F - ((float) distance / Math.min(searchTerm.length(), searchText.length()));
+	}
+
+	static int distance(String searchTerm, String searchText, Type type) {
+		final boolean semiGlobal = type == Type.SemiGlobal;
+		if (searchTerm.isEmpty())
+			return semiGlobal ? 0 : searchText.length();
+		final Buffers buffers = BUFFERS.get();
+		try {
+			buffers.use(searchTerm);
+			if (buffers.words == 1)
+				return distanceOfShortSearchTerm(buffers, searchText, semiGlobal);
+			else
+				return distanceOfLongSearchTerm(buffers, searchText, semiGlobal);
+		}
+		finally {
+			if (buffers.isOversized())
+				BUFFERS.remove();
+		}
+	}
+
+	/**
+	 * Bit i of the vertical vectors tells whether the distance grows or shrinks from row i to row i + 1,
+	 * bit i of the horizontal vectors whether it grows or shrinks from the previous column.
+	 * Bit i of the diagonal vector tells whether the distance equals the distance of the previous row and column.
+	 */
+	private static int distanceOfShortSearchTerm(Buffers buffers, String searchText, boolean semiGlobal) {
+		final int length = buffers.searchTerm.length();
+		final long lastRow = 1L << (length - 1);
+		final long firstRowIncrement = semiGlobal ? 0 : 1;
+		final long[] masks = buffers.masks;
+		long verticalPositive = -1L;
+		long verticalNegative = 0;
+		long diagonalZero = 0;
+		long previousEqual = 0;
+		int distance = length;
+		int minimalDistance = length;
+		for (int j = 0; j < searchText.length(); j++) {
+			final char c = searchText.charAt(j);
+			final long equal;
+			if (c == WILDCARD)
+				equal = -1L;
+			else {
+				final int offset = buffers.maskOffset(c);
+				equal = offset == EMPTY ? 0 : masks[offset];
+			}
+			final long transposition = ((~diagonalZero & equal) << 1) & previousEqual;
+			diagonalZero = (((equal & verticalPositive) + verticalPositive) ^ verticalPositive) | equal | verticalNegative
+			        | transposition;
+			final long horizontalPositive = verticalNegative | ~(diagonalZero | verticalPositive);
+			final long horizontalNegative = verticalPositive & diagonalZero;
+			if ((horizontalPositive & lastRow) != 0)
+				distance++;
+			else if ((horizontalNegative & lastRow) != 0)
+				distance--;
+			final long shiftedPositive = horizontalPositive << 1 | firstRowIncrement;
+			final long shiftedNegative = horizontalNegative << 1;
+			verticalPositive = shiftedNegative | ~(diagonalZero | shiftedPositive);
+			verticalNegative = shiftedPositive & diagonalZero;
+			previousEqual = equal;
+			minimalDistance = Math.min(minimalDistance, distance);
+		}
+		return semiGlobal ? minimalDistance : distance;
+	}
+
+	/** Processes search terms longer than 64 characters in blocks of 64 bit words passing carries to the next word. */
+	private static int distanceOfLongSearchTerm(Buffers buffers, String searchText, boolean semiGlobal) {
+		final int length = buffers.searchTerm.length();
+		final int words = buffers.words;
+		final long lastRow = 1L << ((length - 1) & 63);
+		final long[] masks = buffers.masks;
+		final long[] verticalPositive = buffers.verticalPositive;
+		final long[] verticalNegative = buffers.verticalNegative;
+		final long[] diagonalZero = buffers.diagonalZero;
+		final long[] previousEqual = buffers.previousEqual;
+		Arrays.fill(verticalPositive, 0, words, -1L);
+		Arrays.fill(verticalNegative, 0, words, 0);
+		Arrays.fill(diagonalZero, 0, words, 0);
+		Arrays.fill(previousEqual, 0, words, 0);
+		int distance = length;
+		int minimalDistance = length;
+		for (int j = 0; j < searchText.length(); j++) {
+			final char c = searchText.charAt(j);
+			final long[] equalMasks;
+			final int offset;
+			if (c == WILDCARD) {
+				equalMasks = buffers.wildcardMask;
+				offset = 0;
+			}
+			else {
+				equalMasks = masks;
+				offset = buffers.maskOffset(c);
+			}
+			long additionCarry = 0;
+			long transpositionCarry = 0;
+			long positiveCarry = semiGlobal ? 0 : 1;
+			long negativeCarry = 0;
+			for (int word = 0; word < words; word++) {
+				final long equal = offset == EMPTY ? 0 : equalMasks[offset + word];
+				final long positive = verticalPositive[word];
+				final long negative = verticalNegative[word];
+				final long transposable = ~diagonalZero[word] & equal;
+				final long transposition = (transposable << 1 | transpositionCarry) & previousEqual[word];
+				transpositionCarry = transposable >>> 63;
+				final long addend = equal & positive;
+				final long sum = addend + positive + additionCarry;
+				additionCarry = ((addend & positive) | ((addend | positive) & ~sum)) >>> 63;
+				final long zero = (sum ^ positive) | equal | negative | transposition;
+				final long horizontalPositive = negative | ~(zero | positive);
+				final long horizontalNegative = positive & zero;
+				if (word == words - 1) {
+					if ((horizontalPositive & lastRow) != 0)
+						distance++;
+					else if ((horizontalNegative & lastRow) != 0)
+						distance--;
+				}
+				final long shiftedPositive = horizontalPositive << 1 | positiveCarry;
+				final long shiftedNegative = horizontalNegative << 1 | negativeCarry;
+				positiveCarry = horizontalPositive >>> 63;
+				negativeCarry = horizontalNegative >>> 63;
+				verticalPositive[word] = shiftedNegative | ~(zero | shiftedPositive);
+				verticalNegative[word] = shiftedPositive & zero;
+				diagonalZero[word] = zero;
+				previousEqual[word] = equal;
+			}
+			minimalDistance = Math.min(minimalDistance, distance);
+		}
+		return semiGlobal ? minimalDistance : distance;
+	}
+}
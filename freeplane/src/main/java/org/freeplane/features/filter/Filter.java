@@ -19,9 +19,12 @@
  */
 package org.freeplane.features.filter;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.Icon;
 
@@ -44,27 +47,22 @@ public class Filter implements IExtension {
 		return new Filter(null, false, resourceController.getBooleanProperty("filter.showAncestors"), resourceController.getBooleanProperty("filter.showDescendants"), false, null);
 	}
 
-	static class FilterInfoAccessor {
-	    private final WeakHashMap<NodeModel, FilterInfo> filterInfos = new WeakHashMap<>();
-
-	    FilterInfo getFilterInfo(NodeModel node) {
-	        return filterInfos.computeIfAbsent(node, x -> new FilterInfo());
-	    }
-
-	}
-
 	static public Filter createFilter(final ICondition condition, final boolean areAncestorsShown,
             final boolean areDescendantsShown, final boolean appliesToVisibleNodesOnly, Filter baseFilter) {
 		return new Filter(condition, false, areAncestorsShown, areDescendantsShown, appliesToVisibleNodesOnly, baseFilter);
 	}
 
+	private static final int PARALLEL_CHECK_THRESHOLD = 1024;
+
 	final private ICondition condition;
 	final int options;
 
-	private FilterInfoAccessor accessor;
+	private FilterResults results;
     private final boolean hidesMatchingNodes;
     private final boolean appliesToVisibleNodesOnly;
     private final Filter baseFilter;
+    /** Condition results checked in advance by node ordinal, only set while filter results are calculated. */
+    private boolean[] conditionResults;
 
 	public Filter(final ICondition condition, final boolean hidesMatchingNodes, final boolean areAncestorsShown,
 	              final boolean areDescendantsShown, final boolean appliesToVisibleNodesOnly, Filter baseFilter) {
@@ -72,7 +70,7 @@ public class Filter implements IExtension {
 		this.condition = condition;
         this.hidesMatchingNodes = hidesMatchingNodes;
         this.appliesToVisibleNodesOnly = appliesToVisibleNodesOnly;
-		this.accessor = new FilterInfoAccessor();
+		this.results = new FilterResults();
 
 		int options = FilterInfo.FILTER_SHOW_AS_MATCHED;
 		if (areAncestorsShown) {
@@ -86,7 +84,7 @@ public class Filter implements IExtension {
 	}
 
 	void addFilterResult(final NodeModel node, final int flag) {
-		getFilterInfo(node).add(flag);
+		results.add(node, flag);
 	}
 
 	protected boolean appliesToVisibleNodesOnly() {
@@ -108,25 +106,184 @@ public class Filter implements IExtension {
 	}
 
 	public void calculateFilterResults(final MapModel map) {
-	    this.accessor = new FilterInfoAccessor();
+		if (map.compactNodeOrdinals())
+			NodeTextIndex.rebuildWithCompactedOrdinals(map);
+		final NodeChangeLog changeLog;
+		if (canUpdateFilterResults()) {
+			changeLog = NodeChangeLog.startRecording(map);
+		}
+		else {
+			changeLog = null;
+			NodeChangeLog.stopRecording(map);
+		}
 		final NodeModel root = map.getRootNode();
-		resetFilter(root);
-		boolean rootSatisfiesFilter = checkNode(root);
-		if (filterChildren(root, rootSatisfiesFilter, false)) {
-			addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+		checkConditionInParallel(root);
+		try {
+			this.results = new FilterResults(map);
+			resetFilter(root);
+			boolean rootSatisfiesFilter = checkNode(root);
+			if (filterChildren(root, rootSatisfiesFilter, false)) {
+				addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+			}
+			if (changeLog != null)
+				results.calculatedFor(changeLog, rootSatisfiesFilter);
+		}
+		finally {
+			conditionResults = null;
 		}
 	}
 
 	public void calculateFilterResults(final NodeModel root) {
-	    this.accessor = new FilterInfoAccessor();
-	    if(applyFilter(root, false, false, false))
-	    	addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+		checkConditionInParallel(root);
+		try {
+			final MapModel map = root.getMap();
+			this.results = map != null ? new FilterResults(map) : new FilterResults();
+			if(applyFilter(root, false, false, false))
+				addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+		}
+		finally {
+			conditionResults = null;
+		}
+	}
+
+	/**
+	 * Updates the results calculated for the map for the nodes changed since then.
+	 * All results are calculated again if the condition depends on other nodes or on the base filter,
+	 * or if the changes are not recorded any more.
+	 * Changes are recorded only after results of a filter which can update them have been calculated.
+	 */
+	public void updateFilterResults(final MapModel map) {
+		final NodeChangeLog changeLog = NodeChangeLog.of(map);
+		if (! canUpdateFilterResults(map, changeLog) || ! updateChangedNodes(map, changeLog))
+			calculateFilterResults(map);
+		else
+			changeLog.forgetChanges();
+	}
+
+	private boolean canUpdateFilterResults() {
+		return condition != null && condition.checksNodeOnly() && ! appliesToVisibleNodesOnly();
+	}
+
+	private boolean canUpdateFilterResults(final MapModel map, final NodeChangeLog changeLog) {
+		return canUpdateFilterResults() && changeLog != null && results.canBeUpdatedFor(map)
+		        && results.changeLogId() == changeLog.id() && changeLog.recordsChangesSince(results.changeVersion());
+	}
+
+	/** Returns false if the root node does not match as before, so that all nodes need to be checked again. */
+	private boolean updateChangedNodes(final MapModel map, final NodeChangeLog changeLog) {
+		final NodeModel root = map.getRootNode();
+		final Map<NodeModel, Boolean> changedNodes = new LinkedHashMap<>();
+		changeLog.forEachChangeSince(results.changeVersion(),
+		    (node, subtreeChanged) -> changedNodes.merge(node, subtreeChanged, Boolean::logicalOr));
+		final List<NodeModel> updatedNodes = new ArrayList<>();
+		for (final Map.Entry<NodeModel, Boolean> change : changedNodes.entrySet()) {
+			final NodeModel node = change.getKey();
+			if (node == root) {
+				if (checkNode(root) != results.rootMatches())
+					return false;
+			}
+			else if (! isInTree(node, root))
+				continue;
+			else if (change.getValue() || FilterInfo.matches(results.get(node), FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE))
+				applyFilter(node, hasMatchingAncestor(node, root), false, false);
+			else if (updateMatch(node))
+				updateDescendantFlags(node, hasMatchingAncestor(node, root));
+			updatedNodes.add(node);
+		}
+		for (final NodeModel node : updatedNodes)
+			updateAncestorFlags(node);
+		results.updatedTo(changeLog.version());
+		return true;
+	}
+
+	private static boolean isInTree(final NodeModel node, final NodeModel root) {
+		NodeModel ancestor = node;
+		while (ancestor.getParentNode() != null)
+			ancestor = ancestor.getParentNode();
+		return ancestor == root;
+	}
+
+	private boolean hasMatchingAncestor(final NodeModel node, final NodeModel root) {
+		for (NodeModel ancestor = node.getParentNode(); ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (ancestor == root)
+				return results.rootMatches();
+			if (FilterInfo.matches(results.get(ancestor), FilterInfo.FILTER_SHOW_AS_MATCHED))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean updateMatch(final NodeModel node) {
+		final boolean matches = checkCondition(node);
+		if (FilterInfo.matches(results.get(node), FilterInfo.FILTER_SHOW_AS_MATCHED) == matches)
+			return false;
+		results.setMatched(node, matches);
+		return true;
+	}
+
+	private void updateDescendantFlags(final NodeModel node, final boolean hasMatchingAncestor) {
+		final boolean childrenHaveMatchingAncestor = hasMatchingAncestor
+		        || FilterInfo.matches(results.get(node), FilterInfo.FILTER_SHOW_AS_MATCHED);
+		for (final NodeModel child : children(node)) {
+			if (FilterInfo.matches(results.get(child), FilterInfo.FILTER_SHOW_AS_DESCENDANT) != childrenHaveMatchingAncestor) {
+				results.set(child, FilterInfo.FILTER_SHOW_AS_DESCENDANT, childrenHaveMatchingAncestor);
+				updateDescendantFlags(child, childrenHaveMatchingAncestor);
+			}
+		}
+	}
+
+	/** Updates the ancestor flags of the node and of its ancestors until they do not change. */
+	private void updateAncestorFlags(final NodeModel start) {
+		for (NodeModel node = start; node != null; node = node.getParentNode()) {
+			boolean hasMatchingDescendant = false;
+			for (final NodeModel child : children(node)) {
+				if (FilterInfo.matches(results.get(child),
+				    FilterInfo.FILTER_SHOW_AS_MATCHED | FilterInfo.FILTER_SHOW_AS_ANCESTOR)) {
+					hasMatchingDescendant = true;
+					break;
+				}
+			}
+			if (node != start
+			        && FilterInfo.matches(results.get(node), FilterInfo.FILTER_SHOW_AS_ANCESTOR) == hasMatchingDescendant)
+				break;
+			results.set(node, FilterInfo.FILTER_SHOW_AS_ANCESTOR, hasMatchingDescendant);
+		}
+	}
+
+	/**
+	 * Checks thread safe conditions for all nodes of large subtrees in advance using the common fork join pool.
+	 * The nodes are collected on the calling thread, so that child nodes loaded on demand
+	 * and node ordinals are created there.
+	 */
+	private void checkConditionInParallel(final NodeModel root) {
+		if (condition == null || !condition.isThreadSafe() || root.getOrdinal() < 0)
+			return;
+		final List<NodeModel> nodes = new ArrayList<>();
+		final int ordinalCount = collectNodes(root, nodes, 0);
+		if (nodes.size() < PARALLEL_CHECK_THRESHOLD)
+			return;
+		final boolean[] checkedNodes = new boolean[ordinalCount];
+		ForkJoinPool.commonPool().invoke(new ParallelConditionCheck(condition, nodes, checkedNodes));
+		conditionResults = checkedNodes;
+	}
+
+	private int collectNodes(final NodeModel node, final List<NodeModel> nodes, int ordinalCount) {
+		nodes.add(node);
+		ordinalCount = Math.max(ordinalCount, node.getOrdinal() + 1);
+		for (final NodeModel child : children(node)) {
+			ordinalCount = collectNodes(child, nodes, ordinalCount);
+		}
+		return ordinalCount;
+	}
+
+	private boolean checkCondition(final NodeModel node) {
+		return conditionResults != null ? conditionResults[node.getOrdinal()] : condition.checkNode(node);
 	}
 
 	private boolean applyFilter(final NodeModel node,
 	                            final boolean hasMatchingAncestor, final boolean hasHiddenAncestor,
 	                            boolean hasMatchingDescendant) {
-		final boolean conditionSatisfied =  (condition == null || condition.checkNode(node));
+		final boolean conditionSatisfied =  (condition == null || checkCondition(node));
 		final boolean matchesCombinedFilter;
 		if(appliesToVisibleNodesOnly()) {
 		    matchesCombinedFilter = conditionSatisfied  && baseFilter.isVisible(node);
@@ -177,7 +334,7 @@ public class Filter implements IExtension {
 	}
 
 	private boolean checkNode(final NodeModel node) {
-		return condition == null || ! shouldRemainInvisible(node) && condition.checkNode(node);
+		return condition == null || ! shouldRemainInvisible(node) && checkCondition(node);
 	}
 
 	private boolean shouldRemainInvisible(final NodeModel node) {
@@ -209,7 +366,7 @@ public class Filter implements IExtension {
 
 
     public void useFilterResultsFrom(Filter oldFilter) {
-        accessor = oldFilter.accessor;
+        results = oldFilter.results;
     }
 
 	/*
@@ -233,26 +390,42 @@ public class Filter implements IExtension {
 		if (condition == null || node.isRoot()) {
 			return true;
 		}
-		FilterInfo filterInfo = getFilterInfo(node);
-        return filterInfo.isNotChecked() || filterInfo.matches(options) != hidesMatchingNodes;
+		final int info = results.get(node);
+        return FilterInfo.matches(info, FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE)
+                || FilterInfo.matches(info, options) != hidesMatchingNodes;
     }
 
 
 	void resetFilter(final NodeModel node) {
-		getFilterInfo(node).reset();
+		results.reset(node);
 	}
 
 	public FilterInfo getFilterInfo(final NodeModel node) {
-		return accessor.getFilterInfo(node);
+		return results.getFilterInfo(node);
+	}
+
+	/** Tells whether the node matches the filter condition. */
+	public boolean isMatched(final NodeModel node) {
+		return results.matches(node, FilterInfo.FILTER_SHOW_AS_MATCHED);
+	}
+
+	/** Tells whether the node is shown as ancestor of a matching node. */
+	public boolean isAncestor(final NodeModel node) {
+		return results.matches(node, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+	}
+
+	/** Tells whether the node is an ancestor of a matching node or has not been checked. */
+	public boolean canBeAncestor(final NodeModel node) {
+		return results.matches(node, FilterInfo.FILTER_SHOW_AS_ANCESTOR | FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE);
 	}
 
     public void showAsMatched(NodeModel node) {
-        FilterInfo filterInfo = getFilterInfo(node);
-        if(! filterInfo.matches(FilterInfo.FILTER_SHOW_AS_MATCHED)) {
-            filterInfo.add(FilterInfo.FILTER_SHOW_AS_MATCHED);
-            if(! filterInfo.matches(FilterInfo.FILTER_SHOW_AS_ANCESTOR))
+        final int info = results.get(node);
+        if(! FilterInfo.matches(info, FilterInfo.FILTER_SHOW_AS_MATCHED)) {
+            results.add(node, FilterInfo.FILTER_SHOW_AS_MATCHED);
+            if(! FilterInfo.matches(info, FilterInfo.FILTER_SHOW_AS_ANCESTOR))
                 showAncestors(node);
-            if(! filterInfo.matches(FilterInfo.FILTER_SHOW_AS_DESCENDANT))
+            if(! FilterInfo.matches(info, FilterInfo.FILTER_SHOW_AS_DESCENDANT))
                 showDescendants(node);
         }
     }
@@ -261,17 +434,15 @@ public class Filter implements IExtension {
         NodeModel parent = node.getParentNode();
         if(parent == null)
             return;
-        FilterInfo filterInfo = getFilterInfo(parent);
-        if(! filterInfo.matches(FilterInfo.FILTER_SHOW_AS_ANCESTOR)) {
-            filterInfo.add(FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+        if(! FilterInfo.matches(results.get(parent), FilterInfo.FILTER_SHOW_AS_ANCESTOR)) {
+            results.add(parent, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
             showAncestors(parent);
         }
     }
 
     private void showDescendants(NodeModel node) {
         for (NodeModel child : children(node)) {
-            FilterInfo filterInfo = getFilterInfo(child);
-            filterInfo.add(FilterInfo.FILTER_SHOW_AS_DESCENDANT);
+            results.add(child, FilterInfo.FILTER_SHOW_AS_DESCENDANT);
             showDescendants(child);
         }
     }
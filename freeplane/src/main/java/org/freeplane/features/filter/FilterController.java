@@ -88,6 +88,7 @@ import org.freeplane.features.highlight.NodeHighlighter;
 import org.freeplane.features.map.CloneOfSelectedViewCondition;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapController.Direction;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.MapNavigationUtils;
@@ -251,6 +252,7 @@ public class FilterController implements IExtension, IMapViewChangeListener {
 	final private QuickFilterAction quickFilterAction;
 	private int mapChangeCounter;
     private boolean applyFilterRunning;
+    private final NodeChangeLog.Recorder nodeChangeRecorder = new NodeChangeLog.Recorder();
 
 	public FilterController() {
 		Controller controller = Controller.getCurrentController();
@@ -421,6 +423,21 @@ public class FilterController implements IExtension, IMapViewChangeListener {
 	    }
 	}
 
+    /** Records node changes of the maps, so that reapplied filters only check the changed nodes. */
+    public void recordNodeChanges(MapController mapController) {
+        mapController.addNodeChangeListener(nodeChangeRecorder);
+        mapController.addMapChangeListener(nodeChangeRecorder);
+    }
+
+    private void calculateFilterResults(MapModel map, boolean force, Filter filter, Filter oldFilter) {
+        if (force && oldFilter != null && filter.canUseFilterResultsFrom(oldFilter)) {
+            filter.useFilterResultsFrom(oldFilter);
+            filter.updateFilterResults(map);
+        }
+        else
+            filter.calculateFilterResults(map);
+    }
+
     public void applyFilter(MapModel map, boolean force, Filter filter) {
         final IMapSelection selection = Controller.getCurrentController().getSelection();
         if(selection != null && selection.getMap() == map) {
@@ -431,7 +448,7 @@ public class FilterController implements IExtension, IMapViewChangeListener {
         else {
             Filter oldFilter = map.putExtension(Filter.class, filter);
             if (oldFilter == null || force || !filter.canUseFilterResultsFrom(oldFilter)) {
-                filter.calculateFilterResults(map);
+                calculateFilterResults(map, force, filter, oldFilter);
         		NodeModel selectionRoot = selection.getSelectionRoot();
 				if(! selectionRoot.isRoot())
         			filter.resetFilter(selectionRoot);
@@ -449,7 +466,7 @@ public class FilterController implements IExtension, IMapViewChangeListener {
             	selection.setFilter(filter);
             	MapModel map = selection.getSelected().getMap();
                 if (force || !filter.canUseFilterResultsFrom(oldFilter)) {
-            		filter.calculateFilterResults(map);
+            		calculateFilterResults(map, force, filter, oldFilter);
             		NodeModel selectionRoot = selection.getSelectionRoot();
 					if(! selectionRoot.isRoot())
             			filter.resetFilter(selectionRoot);
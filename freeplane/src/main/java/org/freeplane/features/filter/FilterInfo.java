@@ -20,6 +20,8 @@
 package org.freeplane.features.filter;
 
 /**
+ * Filter result flags of one node, stored in the filter results of its filter.
+ *
  * @author Dimitry Polivaev
  */
 public class FilterInfo {
@@ -31,41 +33,56 @@ public class FilterInfo {
 	
 	static public final FilterInfo TRANSPARENT = new FilterInfo(FILTER_SHOW_AS_MATCHED);
 	
-	private int info;
+	private final FilterResults results;
+	private final int ordinal;
 
     public FilterInfo() {
         this(FILTER_SHOW_AS_INITIAL_VALUE);
     }
     
     private FilterInfo(int info) {
-        this.info = info;
+        this(new FilterResults(), 0);
+        results.set(ordinal, info);
     }
 
-	void add(final int flag) {
+    FilterInfo(FilterResults results, int ordinal) {
+        this.results = results;
+        this.ordinal = ordinal;
+    }
+
+	static int add(final int info, final int flag) {
 		if ((flag & (FILTER_SHOW_AS_MATCHED | FILTER_SHOW_AS_HIDDEN)) != 0) {
-			info &= ~FILTER_SHOW_AS_INITIAL_VALUE;
+			return (info & ~FILTER_SHOW_AS_INITIAL_VALUE) | flag;
 		}
-		info |= flag;
+		return info | flag;
+	}
+
+	static boolean matches(final int info, final int filterOptions) {
+		return (filterOptions & info) != 0;
+	}
+
+	void add(final int flag) {
+		results.add(ordinal, flag);
 	}
 
 	/**
 	 */
 	public boolean canBeAncestor() {
-		return (info & (FILTER_SHOW_AS_ANCESTOR|FILTER_SHOW_AS_INITIAL_VALUE)) != 0;
+		return matches(FILTER_SHOW_AS_ANCESTOR|FILTER_SHOW_AS_INITIAL_VALUE);
 	}
 
 	/**
 	 */
 	public boolean isMatched() {
-		return (info & FILTER_SHOW_AS_MATCHED) != 0;
+		return matches(FILTER_SHOW_AS_MATCHED);
 	}
 
 	public void reset() {
-		info = FILTER_SHOW_AS_INITIAL_VALUE;
+		results.reset(ordinal);
 	}
 
 	boolean matches(final int filterOptions) {
-		return (filterOptions & info) != 0;
+		return matches(results.get(ordinal), filterOptions);
 	}
 
     boolean isNotChecked() {
@@ -0,0 +1,140 @@
+package org.freeplane.features.filter;
+
+import java.util.Arrays;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Filter result flags of all nodes of a map, one byte per node indexed by the node ordinal.
+ * Nodes without stored flags, like detached nodes, are not checked.
+ * The flags follow the nodes when the map compacts their ordinals.
+ */
+class FilterResults {
+	private static final int INITIAL_CAPACITY = 64;
+	private byte[] flags;
+	private final MapModel map;
+	private int ordinalGeneration;
+	private long changeLogId;
+	private long changeVersion;
+	private boolean rootMatches;
+
+	FilterResults() {
+		flags = new byte[INITIAL_CAPACITY];
+		map = null;
+	}
+
+	FilterResults(final MapModel map) {
+		flags = new byte[Math.max(map.getNodeOrdinalCount(), 1)];
+		this.map = map;
+		ordinalGeneration = map.getNodeOrdinalGeneration();
+	}
+
+	private int ordinal(final NodeModel node) {
+		if (map != null && ordinalGeneration != map.getNodeOrdinalGeneration())
+			renumber();
+		return node.getOrdinal();
+	}
+
+	/** Moves the flags to the compacted ordinals, or drops them if the ordinals were compacted more than once. */
+	private synchronized void renumber() {
+		final int generation = map.getNodeOrdinalGeneration();
+		if (ordinalGeneration == generation)
+			return;
+		final int[] newOrdinals = map.getNodeOrdinalRenumbering(ordinalGeneration);
+		final byte[] renumberedFlags = new byte[Math.max(map.getNodeOrdinalCount(), 1)];
+		if (newOrdinals != null) {
+			for (int ordinal = Math.min(flags.length, newOrdinals.length) - 1; ordinal >= 0; ordinal--) {
+				final int newOrdinal = newOrdinals[ordinal];
+				if (newOrdinal >= 0 && newOrdinal < renumberedFlags.length)
+					renumberedFlags[newOrdinal] = flags[ordinal];
+			}
+		}
+		flags = renumberedFlags;
+		ordinalGeneration = generation;
+	}
+
+	int get(final NodeModel node) {
+		return get(ordinal(node));
+	}
+
+	int get(final int ordinal) {
+		final int info = ordinal >= 0 && ordinal < flags.length ? flags[ordinal] : 0;
+		return info != 0 ? info : FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+	}
+
+	boolean matches(final NodeModel node, final int filterOptions) {
+		return FilterInfo.matches(get(node), filterOptions);
+	}
+
+	void add(final NodeModel node, final int flag) {
+		add(ordinal(node), flag);
+	}
+
+	void add(final int ordinal, final int flag) {
+		set(ordinal, FilterInfo.add(get(ordinal), flag));
+	}
+
+	void reset(final NodeModel node) {
+		reset(ordinal(node));
+	}
+
+	void reset(final int ordinal) {
+		if (ordinal >= 0 && ordinal < flags.length)
+			flags[ordinal] = 0;
+	}
+
+	void set(final int ordinal, final int info) {
+		if (ordinal < 0)
+			return;
+		if (ordinal >= flags.length)
+			flags = Arrays.copyOf(flags, Math.max(ordinal + 1, 2 * flags.length));
+		flags[ordinal] = (byte) info;
+	}
+
+	void setMatched(final NodeModel node, final boolean isMatched) {
+		final int ordinal = ordinal(node);
+		final int info = get(ordinal) & ~(FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE | FilterInfo.FILTER_SHOW_AS_MATCHED
+		        | FilterInfo.FILTER_SHOW_AS_HIDDEN);
+		set(ordinal, info | (isMatched ? FilterInfo.FILTER_SHOW_AS_MATCHED : FilterInfo.FILTER_SHOW_AS_HIDDEN));
+	}
+
+	void set(final NodeModel node, final int flag, final boolean isSet) {
+		final int ordinal = ordinal(node);
+		final int info = get(ordinal);
+		set(ordinal, isSet ? FilterInfo.add(info, flag) : info & ~flag);
+	}
+
+	/** Remembers the change log version the results were calculated for. */
+	void calculatedFor(final NodeChangeLog changeLog, final boolean rootMatches) {
+		this.changeLogId = changeLog.id();
+		this.changeVersion = changeLog.version();
+		this.rootMatches = rootMatches;
+	}
+
+	void updatedTo(final long changeVersion) {
+		this.changeVersion = changeVersion;
+	}
+
+	/** Tells whether the results were calculated for the map and still know the ordinals of its nodes. */
+	boolean canBeUpdatedFor(final MapModel map) {
+		return this.map == map && (ordinalGeneration == map.getNodeOrdinalGeneration()
+		        || map.getNodeOrdinalRenumbering(ordinalGeneration) != null);
+	}
+
+	long changeLogId() {
+		return changeLogId;
+	}
+
+	long changeVersion() {
+		return changeVersion;
+	}
+
+	boolean rootMatches() {
+		return rootMatches;
+	}
+
+	FilterInfo getFilterInfo(final NodeModel node) {
+		return new FilterInfo(this, ordinal(node));
+	}
+}
@@ -44,7 +44,7 @@ public class NextPresentationItemAction extends AFreeplaneAction {
 		if(next != null){
 			final MapController mapController = Controller.getCurrentModeController().getMapController();
 			if (!next.hasVisibleContent(filter)) {
-			    filter.getFilterInfo(next).reset();
+			    filter.resetFilter(next);
             	mapController.nodeRefresh(next);
             }
             final NodeModel[] path = next.getPathToRoot();
@@ -0,0 +1,147 @@
+package org.freeplane.features.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+
+/**
+ * Nodes of a map changed since filter results were calculated.
+ *
+ * Changes are numbered by a version growing with each recorded change.
+ * Only the latest changes are kept, filter results calculated before them are calculated again.
+ * Changes are recorded only while the map has a change log, that is while a filter with updatable results
+ * is applied, and are forgotten each time filter results are calculated or updated.
+ */
+class NodeChangeLog implements IExtension {
+	interface ChangeConsumer {
+		void accept(NodeModel node, boolean subtreeChanged);
+	}
+
+	/** Records node changes in the change logs of their maps. */
+	static class Recorder implements INodeChangeListener, IMapChangeListener {
+		@Override
+		public void nodeChanged(NodeChangeEvent event) {
+			final NodeChangeLog changeLog = of(event.getNode().getMap());
+			if (changeLog != null)
+				changeLog.contentChanged(event.getNode());
+		}
+
+		@Override
+		public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+			final NodeChangeLog changeLog = of(parent.getMap());
+			if (changeLog != null) {
+				changeLog.contentChanged(parent);
+				changeLog.subtreeChanged(child);
+			}
+		}
+
+		@Override
+		public void onChildNodesLoaded(NodeModel parent, List<NodeModel> children) {
+			final NodeChangeLog changeLog = of(parent.getMap());
+			if (changeLog != null) {
+				for (final NodeModel child : children)
+					changeLog.subtreeChanged(child);
+			}
+		}
+
+		@Override
+		public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+			final NodeChangeLog changeLog = of(nodeDeletionEvent.parent.getMap());
+			if (changeLog != null)
+				changeLog.contentChanged(nodeDeletionEvent.parent);
+		}
+
+		@Override
+		public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
+			final NodeChangeLog changeLog = of(nodeMoveEvent.child.getMap());
+			if (changeLog != null) {
+				changeLog.contentChanged(nodeMoveEvent.oldParent);
+				changeLog.contentChanged(nodeMoveEvent.newParent);
+				changeLog.subtreeChanged(nodeMoveEvent.child);
+			}
+		}
+	}
+
+	static final int CAPACITY = 1 << 14;
+	private static final AtomicLong logIds = new AtomicLong();
+
+	/** Returns the change log of the map, or null if its changes are not recorded. */
+	static NodeChangeLog of(MapModel map) {
+		return map == null ? null : map.getExtension(NodeChangeLog.class);
+	}
+
+	/** Starts recording the changes of the map, changes recorded before are forgotten. */
+	static NodeChangeLog startRecording(MapModel map) {
+		NodeChangeLog changeLog = of(map);
+		if (changeLog == null) {
+			changeLog = new NodeChangeLog();
+			map.addExtension(NodeChangeLog.class, changeLog);
+		}
+		else
+			changeLog.forgetChanges();
+		return changeLog;
+	}
+
+	/** Stops recording the changes of the map and drops the recorded changes. */
+	static void stopRecording(MapModel map) {
+		map.removeExtension(NodeChangeLog.class);
+	}
+
+	private final long id = logIds.incrementAndGet();
+	private final ArrayList<NodeModel> changedNodes = new ArrayList<>();
+	private final BitSet subtreeChanges = new BitSet();
+	private long version;
+	private long firstRecordedVersion;
+
+	/** Distinguishes the versions of this log from the versions of logs dropped before. */
+	long id() {
+		return id;
+	}
+
+	long version() {
+		return version;
+	}
+
+	/** Forgets the recorded changes, filter results calculated before the current version are calculated again. */
+	void forgetChanges() {
+		changedNodes.clear();
+		subtreeChanges.clear();
+		firstRecordedVersion = version;
+	}
+
+	boolean recordsChangesSince(long version) {
+		return version >= firstRecordedVersion;
+	}
+
+	void contentChanged(NodeModel node) {
+		record(node, false);
+	}
+
+	void subtreeChanged(NodeModel node) {
+		record(node, true);
+	}
+
+	private void record(NodeModel node, boolean subtreeChanged) {
+		if (changedNodes.size() == CAPACITY)
+			forgetChanges();
+		if (subtreeChanged)
+			subtreeChanges.set(changedNodes.size());
+		changedNodes.add(node);
+		version++;
+	}
+
+	void forEachChangeSince(long version, ChangeConsumer consumer) {
+		for (int i = (int) (version - firstRecordedVersion); i < changedNodes.size(); i++)
+			consumer.accept(changedNodes.get(i), subtreeChanges.get(i));
+	}
+}
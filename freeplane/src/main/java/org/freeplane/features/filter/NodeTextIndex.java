@@ -0,0 +1,365 @@
+package org.freeplane.features.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.filter.condition.StringTransformer;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Optional index of the trigrams contained in the searchable texts of map nodes.
+ *
+ * Contains conditions check only the nodes whose texts have all trigrams of the searched text.
+ * Trigrams are taken from case folded texts without accents, so the candidates include the nodes
+ * matching with any case and diacritics setting.
+ * Changed nodes keep the trigrams of their former texts until the index is built again.
+ * Nodes whose texts depend on other nodes, like formulas, are always candidates.
+ * Children kept as xml by folded nodes are indexed when they are parsed, until then they are candidates.
+ * After the map compacts node ordinals all nodes are candidates until the index is built again.
+ */
+public class NodeTextIndex implements IExtension {
+	public static final String ENABLED_PROPERTY = "filter_text_index";
+
+	/** Collects the texts conditions compare for a node. */
+	public interface TextSource {
+		/** Returns false if the node texts can change without a change of the node. */
+		boolean collectTexts(NodeModel node, List<String> texts);
+	}
+
+	/** Builds indexes of loaded maps and keeps them up to date. */
+	public static class Updater implements INodeChangeListener, IMapChangeListener, IMapLifeCycleListener {
+		private final TextSource[] textSources;
+
+		public Updater(TextSource... textSources) {
+			this.textSources = textSources;
+		}
+
+		public void registerBy(MapController mapController) {
+			mapController.addMapLifeCycleListener(this);
+			mapController.addNodeChangeListener(this);
+			mapController.addMapChangeListener(this);
+		}
+
+		@Override
+		public void onCreate(MapModel map) {
+			if (ResourceController.getResourceController().getBooleanProperty(ENABLED_PROPERTY)) {
+				final NodeTextIndex index = new NodeTextIndex(textSources);
+				map.addExtension(NodeTextIndex.class, index);
+				index.buildInSteps(map);
+			}
+		}
+
+		@Override
+		public void onRemove(MapModel map) {
+			final NodeTextIndex index = map.getExtension(NodeTextIndex.class);
+			if (index != null)
+				index.stopBuilding();
+		}
+
+		@Override
+		public void nodeChanged(NodeChangeEvent event) {
+			final NodeModel node = event.getNode();
+			final MapModel map = node.getMap();
+			final NodeTextIndex index = map == null ? null : map.getExtension(NodeTextIndex.class);
+			if (index != null)
+				index.update(node);
+		}
+
+		@Override
+		public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+			final NodeTextIndex index = parent.getMap().getExtension(NodeTextIndex.class);
+			if (index != null)
+				index.updateSubtree(child);
+		}
+
+		@Override
+		public void onChildNodesLoaded(NodeModel parent, List<NodeModel> children) {
+			final NodeTextIndex index = parent.getMap().getExtension(NodeTextIndex.class);
+			if (index != null) {
+				for (final NodeModel child : children)
+					index.addLoadedSubtree(child);
+			}
+		}
+	}
+
+	private static class Postings {
+		private int[] ordinals = new int[2];
+		private int size;
+
+		void add(int ordinal) {
+			if (size > 0 && ordinals[size - 1] == ordinal)
+				return;
+			if (size == ordinals.length)
+				ordinals = Arrays.copyOf(ordinals, 2 * size);
+			ordinals[size++] = ordinal;
+		}
+	}
+
+	private static class Table {
+		final HashMap<Long, Postings> postings = new HashMap<>();
+		final BitSet indexedNodes = new BitSet();
+		final int ordinalGeneration;
+		int nodeCount;
+
+		Table(int ordinalGeneration) {
+			this.ordinalGeneration = ordinalGeneration;
+		}
+
+		long estimatedSize() {
+			long size = indexedNodes.size() / 8;
+			for (final Postings nodes : postings.values())
+				size += 88 + 4L * nodes.ordinals.length;
+			return size;
+		}
+	}
+
+	private static class Candidates {
+		final Table table;
+		final String text;
+		final BitSet nodes;
+
+		Candidates(Table table, String text, BitSet nodes) {
+			this.table = table;
+			this.text = text;
+			this.nodes = nodes;
+		}
+
+		boolean contain(int ordinal) {
+			return nodes.get(ordinal) || !table.indexedNodes.get(ordinal);
+		}
+	}
+
+	static final int TRIGRAM_LENGTH = 3;
+	private static final int NODES_PER_BUILD_STEP = 2000;
+	private static final int MINIMAL_UPDATE_COUNT_BEFORE_REBUILD = 4096;
+
+	/**
+	 * Tells whether the node can contain the text normalized by a contains condition.
+	 * Without a built index all nodes can contain it.
+	 */
+	public static boolean mayContain(NodeModel node, String text) {
+		final MapModel map = node.getMap();
+		final NodeTextIndex index = map == null ? null : map.getExtension(NodeTextIndex.class);
+		if (index == null)
+			return true;
+		final int ordinal = node.getOrdinal();
+		if (ordinal < 0)
+			return true;
+		final Candidates candidates = index.candidates(text, map.getNodeOrdinalGeneration());
+		return candidates == null || candidates.contain(ordinal);
+	}
+
+	/** Builds the index of the map again after the map has compacted node ordinals. */
+	static void rebuildWithCompactedOrdinals(MapModel map) {
+		final NodeTextIndex index = map.getExtension(NodeTextIndex.class);
+		if (index != null && (index.table != null || index.nextTable != null))
+			index.buildInSteps(map);
+	}
+
+	private final TextSource[] textSources;
+	private final ArrayList<String> texts = new ArrayList<>();
+	private Table table;
+	private Table nextTable;
+	private List<NodeModel> nodesToIndex;
+	private int indexedNodes;
+	private long nextTableBuildTime;
+	private long buildTime;
+	private int updatesSinceBuild;
+	private volatile Candidates lastCandidates;
+
+	NodeTextIndex(TextSource... textSources) {
+		this.textSources = textSources;
+	}
+
+	public boolean isBuilt() {
+		return table != null;
+	}
+
+	public boolean isBuilding() {
+		return nextTable != null;
+	}
+
+	public int getIndexedNodeCount() {
+		return table == null ? 0 : table.nodeCount;
+	}
+
+	public long getEstimatedSize() {
+		return table == null ? 0 : table.estimatedSize();
+	}
+
+	public long getBuildTimeMillis() {
+		return buildTime / 1000000;
+	}
+
+	/** Builds the index on the calling thread. */
+	void build(MapModel map) {
+		startBuilding(map);
+		while (!buildStep())
+			;
+	}
+
+	/** Builds the index in small steps run by the event dispatch thread, so the user interface stays responsive. */
+	void buildInSteps(MapModel map) {
+		startBuilding(map);
+		Controller.getCurrentController().getViewController().invokeLater(this::continueBuilding);
+	}
+
+	private void continueBuilding() {
+		if (nextTable != null && !buildStep())
+			Controller.getCurrentController().getViewController().invokeLater(this::continueBuilding);
+	}
+
+	void stopBuilding() {
+		nextTable = null;
+		nodesToIndex = null;
+	}
+
+	private void startBuilding(MapModel map) {
+		final ArrayList<NodeModel> nodes = new ArrayList<>();
+		collectSubtree(map.getRootNode(), nodes);
+		nodesToIndex = nodes;
+		indexedNodes = 0;
+		nextTable = new Table(map.getNodeOrdinalGeneration());
+		nextTableBuildTime = 0;
+	}
+
+	private static void collectSubtree(NodeModel node, List<NodeModel> nodes) {
+		nodes.add(node);
+		for (final NodeModel child : node.getParsedChildren())
+			collectSubtree(child, nodes);
+	}
+
+	private boolean buildStep() {
+		final long start = System.nanoTime();
+		final int end = Math.min(nodesToIndex.size(), indexedNodes + NODES_PER_BUILD_STEP);
+		for (; indexedNodes < end; indexedNodes++)
+			add(nextTable, nodesToIndex.get(indexedNodes));
+		nextTableBuildTime += System.nanoTime() - start;
+		if (indexedNodes < nodesToIndex.size())
+			return false;
+		nextTable.nodeCount += nodesToIndex.size();
+		table = nextTable;
+		buildTime = nextTableBuildTime;
+		updatesSinceBuild = 0;
+		lastCandidates = null;
+		stopBuilding();
+		return true;
+	}
+
+	void update(NodeModel node) {
+		if (nextTable != null)
+			add(nextTable, node);
+		if (table == null)
+			return;
+		add(table, node);
+		lastCandidates = null;
+		if (++updatesSinceBuild > Math.max(table.nodeCount, MINIMAL_UPDATE_COUNT_BEFORE_REBUILD) && nextTable == null)
+			buildInSteps(node.getMap());
+	}
+
+	void updateSubtree(NodeModel node) {
+		update(node);
+		for (final NodeModel child : node.getParsedChildren())
+			updateSubtree(child);
+	}
+
+	/** Adds parsed nodes, they are not changes making the index outdated. */
+	void addLoadedSubtree(NodeModel node) {
+		if (nextTable != null) {
+			add(nextTable, node);
+			nextTable.nodeCount++;
+		}
+		if (table != null) {
+			add(table, node);
+			table.nodeCount++;
+			lastCandidates = null;
+		}
+		for (final NodeModel child : node.getParsedChildren())
+			addLoadedSubtree(child);
+	}
+
+	private void add(Table table, NodeModel node) {
+		final int ordinal = node.getOrdinal();
+		if (ordinal < 0)
+			return;
+		texts.clear();
+		boolean indexable = true;
+		for (final TextSource textSource : textSources)
+			indexable = textSource.collectTexts(node, texts) && indexable;
+		table.indexedNodes.set(ordinal, indexable);
+		if (!indexable)
+			return;
+		for (final String text : texts) {
+			final String foldedText = fold(text);
+			for (int i = 0; i + TRIGRAM_LENGTH <= foldedText.length(); i++)
+				table.postings.computeIfAbsent(trigram(foldedText, i), key -> new Postings()).add(ordinal);
+		}
+	}
+
+	/** Maps texts so that texts containing each other after case or diacritics normalization still do. */
+	static String fold(String text) {
+		final char[] chars = StringTransformer.transform(text, false, true).toCharArray();
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		return new String(chars);
+	}
+
+	private static long trigram(String text, int start) {
+		return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+	}
+
+	/**
+	 * Returns the nodes which can contain the text or null if all nodes can contain it.
+	 * Nodes unknown to the index, like decrypted nodes, are candidates.
+	 * All nodes are candidates if the index was built for other node ordinals.
+	 */
+	Candidates candidates(String text, int ordinalGeneration) {
+		final Table table = this.table;
+		if (table == null || table.ordinalGeneration != ordinalGeneration || text.length() < TRIGRAM_LENGTH)
+			return null;
+		final Candidates lastCandidates = this.lastCandidates;
+		if (lastCandidates != null && lastCandidates.table == table && lastCandidates.text.equals(text))
+			return lastCandidates;
+		final Candidates candidates = new Candidates(table, text, findCandidates(table, fold(text)));
+		this.lastCandidates = candidates;
+		return candidates;
+	}
+
+	private static BitSet findCandidates(Table table, String foldedText) {
+		final ArrayList<Postings> trigramPostings = new ArrayList<>();
+		for (int i = 0; i + TRIGRAM_LENGTH <= foldedText.length(); i++) {
+			final Postings postings = table.postings.get(trigram(foldedText, i));
+			if (postings == null)
+				return new BitSet();
+			trigramPostings.add(postings);
+		}
+		trigramPostings.sort(Comparator.comparingInt(postings -> postings.size));
+		BitSet candidates = new BitSet();
+		final Postings rarestTrigramPostings = trigramPostings.get(0);
+		for (int i = 0; i < rarestTrigramPostings.size; i++)
+			candidates.set(rarestTrigramPostings.ordinals[i]);
+		for (final Postings postings : trigramPostings.subList(1, trigramPostings.size())) {
+			final BitSet remainingCandidates = new BitSet();
+			for (int i = 0; i < postings.size; i++) {
+				final int ordinal = postings.ordinals[i];
+				if (candidates.get(ordinal))
+					remainingCandidates.set(ordinal);
+			}
+			candidates = remainingCandidates;
+		}
+		return candidates;
+	}
+}
@@ -0,0 +1,48 @@
+package org.freeplane.features.filter;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Checks a thread safe condition for a list of nodes by splitting the list between fork join tasks.
+ * The results are stored by node ordinal.
+ */
+class ParallelConditionCheck extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private static final int SEQUENTIAL_CHECK_SIZE = 256;
+	private final ICondition condition;
+	private final List<NodeModel> nodes;
+	private final boolean[] results;
+	private final int from;
+	private final int to;
+
+	ParallelConditionCheck(ICondition condition, List<NodeModel> nodes, boolean[] results) {
+		this(condition, nodes, results, 0, nodes.size());
+	}
+
+	private ParallelConditionCheck(ICondition condition, List<NodeModel> nodes, boolean[] results, int from, int to) {
+		this.condition = condition;
+		this.nodes = nodes;
+		this.results = results;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= SEQUENTIAL_CHECK_SIZE) {
+			for (int i = from; i < to; i++) {
+				final NodeModel node = nodes.get(i);
+				results[node.getOrdinal()] = condition.checkNode(node);
+			}
+		}
+		else {
+			final int middle = (from + to) >>> 1;
+			invokeAll(new ParallelConditionCheck(condition, nodes, results, from, middle),
+			    new ParallelConditionCheck(condition, nodes, results, middle, to));
+		}
+	}
+}
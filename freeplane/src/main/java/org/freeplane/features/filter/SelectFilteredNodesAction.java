@@ -51,7 +51,7 @@ class SelectFilteredNodesAction extends AFreeplaneAction {
 		final NodeModel selected = selection.getSelected();
         final NodeModel rootNode = selected.getMap().getRootNode();
 		Filter filter = selection.getFilter();
-        boolean nodeFound = filter.getFilterInfo(rootNode).isMatched();
+        boolean nodeFound = filter.isMatched(rootNode);
 		if(nodeFound){
 			selection.selectAsTheOnlyOneSelected(rootNode);
 		}
@@ -61,7 +61,7 @@ class SelectFilteredNodesAction extends AFreeplaneAction {
 			if(next == null){
 				break;
 			}
-			if(next.isHiddenSummary() || ! filter.getFilterInfo(next).isMatched())
+			if(next.isHiddenSummary() || ! filter.isMatched(next))
 				continue;
 			mapController.displayNode(next);
 			if(nodeFound){
@@ -72,7 +72,7 @@ class SelectFilteredNodesAction extends AFreeplaneAction {
 				nodeFound = true;
 			}
 		}
-		if(filter.getFilterInfo(selected).isMatched())
+		if(filter.isMatched(selected))
 		    selection.makeTheSelected(selected);
 	}
 }
@@ -25,4 +25,15 @@ public interface ICombinedCondition extends ICondition{
         return split().stream().anyMatch(ICondition::checksDescendants);
     }
 
+	@Override
+	default boolean checksNodeOnly() {
+        return ! checksParent() && ! checksAncestors() && ! checksChildren() && ! checksDescendants()
+                && split().stream().allMatch(ICondition::checksNodeOnly);
+    }
+
+	@Override
+	default boolean isThreadSafe() {
+        return split().stream().allMatch(ICondition::isThreadSafe);
+    }
+
 }
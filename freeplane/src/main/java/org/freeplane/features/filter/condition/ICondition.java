@@ -39,4 +39,17 @@ public interface ICondition {
     default boolean checksDescendants() {
         return false;
     }
+
+    /**
+     * Tells whether the result for a node only changes with the node itself or with the list of its children,
+     * so that filter results can be updated for changed nodes only.
+     */
+    default boolean checksNodeOnly() {
+        return false;
+    }
+
+    /** Tells whether nodes can be checked on several threads at once. */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
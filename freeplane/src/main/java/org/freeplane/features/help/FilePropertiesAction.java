@@ -42,8 +42,10 @@ import javax.swing.SwingConstants;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.ui.AFreeplaneAction;
 import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.undo.IUndoHandler;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.Filter;
+import org.freeplane.features.filter.NodeTextIndex;
 import org.freeplane.features.filter.condition.ICondition;
 import org.freeplane.features.icon.factory.IconFactory;
 import org.freeplane.features.map.MapModel;
@@ -92,7 +94,7 @@ class FilePropertiesAction extends AFreeplaneAction {
             final ICondition matchesFilterCondition = new ICondition() {
                 @Override
 				public boolean checkNode(NodeModel node) {
-                    return filter.getFilterInfo(node).isMatched()  && ! node.isHiddenSummary();
+                    return filter.isMatched(node)  && ! node.isHiddenSummary();
                 }
             };
             nodeTotalFiltered = getNodeCount(rootNode, matchesFilterCondition);
@@ -244,6 +246,38 @@ class FilePropertiesAction extends AFreeplaneAction {
 		final JLabel nodeMainBranchesLabel = new JLabel(String.valueOf(nodeMainBranches));
 		gridbag.setConstraints(nodeMainBranchesLabel, c);
 		panel.add(nodeMainBranchesLabel);
+		//textIndex
+		final NodeTextIndex textIndex = map.getExtension(NodeTextIndex.class);
+		if(textIndex != null){
+		    c.gridy++;
+		    c.gridx = 1;
+		    final JLabel textIndexText = new JLabel(TextUtils.getText("FileProperties_TextIndex"));
+		    gridbag.setConstraints(textIndexText, c);
+		    panel.add(textIndexText);
+		    c.gridx = 2;
+		    final String textIndexStatistics = textIndex.isBuilt()
+		            ? TextUtils.format("FileProperties_TextIndexStatistics", textIndex.getIndexedNodeCount(),
+		                textIndex.getEstimatedSize() / 1024, textIndex.getBuildTimeMillis())
+		            : TextUtils.getText("FileProperties_TextIndexBuilding");
+		    final JLabel textIndexLabel = new JLabel(textIndexStatistics);
+		    gridbag.setConstraints(textIndexLabel, c);
+		    panel.add(textIndexLabel);
+		}
+		//undoHistory
+		final IUndoHandler undoHandler = map.getExtension(IUndoHandler.class);
+		if(undoHandler != null){
+		    c.gridy++;
+		    c.gridx = 1;
+		    final JLabel undoHistoryText = new JLabel(TextUtils.getText("FileProperties_UndoHistory"));
+		    gridbag.setConstraints(undoHistoryText, c);
+		    panel.add(undoHistoryText);
+		    c.gridx = 2;
+		    final String undoHistoryStatistics = TextUtils.format("FileProperties_UndoHistoryStatistics",
+		        undoHandler.getHistoryLength(), undoHandler.getEstimatedHistorySize() / 1024);
+		    final JLabel undoHistoryLabel = new JLabel(undoHistoryStatistics);
+		    gridbag.setConstraints(undoHistoryLabel, c);
+		    panel.add(undoHistoryLabel);
+		}
 		//Separator
 		c.gridy++;
 		c.gridx = 0;
@@ -42,6 +42,16 @@ public abstract class HyperLinkCondition extends StringConditionAdapter {
 
 	abstract protected boolean checkLink(final Hyperlink nodeLink);
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	public boolean checkNode(final NodeModel node) {
 		final Hyperlink nodeLink = NodeLinks.getValidLink(node);
 		if (nodeLink != null && checkLink(nodeLink))
@@ -38,6 +38,7 @@ import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.resources.TranslatedObject;
 import org.freeplane.core.util.ColorUtils;
 import org.freeplane.core.util.Hyperlink;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.NodeBuilder;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.styles.IStyle;
@@ -51,12 +52,13 @@ public class LinkBuilder implements IElementDOMHandler, IReadCompletionListener{
 	private static final int FREEPLANE_VERSION_WITH_CURVED_LOOPED_CONNECTORS = 3;
 	private static final String FORMAT_AS_HYPERLINK = "FORMAT_AS_HYPERLINK";
 	private static final String LINK = "LINK";
-	final private HashSet<NodeLinkModel> processedLinks;
+	/** Maps can be read and written on different threads at the same time. */
+	final private ThreadLocal<HashSet<NodeLinkModel>> processedLinks;
 	private final LinkController linkController;
 
 	public LinkBuilder(final LinkController linkController) {
 		this.linkController = linkController;
-		processedLinks = new HashSet<NodeLinkModel>();
+		processedLinks = ThreadLocal.withInitial(HashSet::new);
 	}
 
 	private NodeLinkModel createArrowLink(final NodeModel source, final String targetID) {
@@ -78,7 +80,7 @@ public class LinkBuilder implements IElementDOMHandler, IReadCompletionListener{
 	 */
 	@Override
 	public void readingCompleted(final NodeModel topNode, final Map<String, String> newIds) {
-		final Iterator<NodeLinkModel> iterator = processedLinks.iterator();
+		final Iterator<NodeLinkModel> iterator = processedLinks.get().iterator();
 		while (iterator.hasNext()) {
 			final NodeLinkModel arrowLink = iterator.next();
 			final String id = arrowLink.getTargetID();
@@ -92,17 +94,18 @@ public class LinkBuilder implements IElementDOMHandler, IReadCompletionListener{
 			final NodeModel source = arrowLink.getSource();
 			NodeLinks.createLinkExtension(source).addArrowlink(arrowLink);
 		}
-		processedLinks.clear();
+		processedLinks.get().clear();
 	}
 
 	private void registerAttributeHandlers(final ReadManager reader) {
+		final MapReader mapReader = linkController.modeController.getMapController().getMapReader();
 		reader.addAttributeHandler(NodeBuilder.XML_NODE, LINK, new IAttributeHandler() {
 			@Override
 			public void setAttribute(final Object userObject, final String value) {
 				final NodeModel node = (NodeModel) userObject;
-				linkController.loadLink(node, value);
+				linkController.loadLink(node, mapReader.intern(value));
 				final Collection<NodeLinkModel> links = NodeLinks.getLinks(node);
-				processedLinks.addAll(links);
+				processedLinks.get().addAll(links);
 			}
 		});
 
@@ -148,7 +151,7 @@ public class LinkBuilder implements IElementDOMHandler, IReadCompletionListener{
 			public void setAttribute(final Object userObject, final String value) {
 				final ConnectorModel arrowLink = (ConnectorModel) userObject;
 				arrowLink.setTargetID(value);
-				processedLinks.add(arrowLink);
+				processedLinks.get().add(arrowLink);
 			}
 		});
 		reader.addAttributeHandler("arrowlink", "SOURCE_LABEL", new IAttributeHandler() {
@@ -377,12 +380,12 @@ public class LinkBuilder implements IElementDOMHandler, IReadCompletionListener{
 			while (iterator.hasNext()) {
 				final NodeLinkModel linkModel = iterator.next();
 				if (linkModel instanceof ConnectorModel) {
-					final boolean linkNotWrittenBefore = ! processedLinks.contains(linkModel);
+					final boolean linkNotWrittenBefore = ! processedLinks.get().contains(linkModel);
 					if(linkNotWrittenBefore) {
 						final ConnectorModel arrowLinkModel = (ConnectorModel) linkModel.cloneForSource(node);
 						if(arrowLinkModel != null) {
 							save(writer, arrowLinkModel);
-							processedLinks.add(linkModel);
+							processedLinks.get().add(linkModel);
 						}
 					}
 				}
@@ -48,6 +48,10 @@ public class DetachedNodeList implements Clones {
 		this.cloneType = cloneType;
     }
 
+	boolean isUnclonedNode(NodeModel node) {
+		return clone == node && clonedNode == node;
+	}
+
 	public Iterator<NodeModel> iterator() {
 		return Collections.<NodeModel>emptyList().iterator();
 	}
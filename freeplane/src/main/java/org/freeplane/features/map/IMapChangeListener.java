@@ -19,6 +19,8 @@
  */
 package org.freeplane.features.map;
 
+import java.util.List;
+
 /**
  * @author Dimitry Polivaev
  */
@@ -31,6 +33,12 @@ public interface IMapChangeListener extends ComparableByPriority {
 
 	default void onNodeMoved(NodeMoveEvent nodeMoveEvent) {}
 
+	/**
+	 * Children kept as xml by a folded node have been parsed.
+	 * They belong to the map since it was loaded, so this is no change of the map.
+	 */
+	default void onChildNodesLoaded(NodeModel parent, List<NodeModel> children) {}
+
 	default void onPreNodeMoved(NodeMoveEvent nodeMoveEvent) {}
 
 	default void onPreNodeDelete(NodeDeletionEvent nodeDeletionEvent) {}
@@ -19,6 +19,22 @@
  */
 package org.freeplane.features.map;
 
+import java.util.List;
+
 public interface INodeChangeListener extends ComparableByPriority{
     public void nodeChanged(NodeChangeEvent event);
+
+    /**
+     * Listeners keeping caches of node values, which must be invalidated before the changed values are read,
+     * receive node changes immediately even while a node change transaction is open.
+     */
+    default boolean isNotifiedDuringTransactions() {
+        return false;
+    }
+
+    /** Receives the changes collected by a node change transaction, by default one by one. */
+    default void nodesChanged(List<NodeChangeEvent> events) {
+        for (NodeChangeEvent event : events)
+            nodeChanged(event);
+    }
 }
@@ -19,12 +19,19 @@
  */
 package org.freeplane.features.map;
 
+import java.util.List;
+
 /**
  * @author Dimitry Polivaev
  * 10.01.2009
  */
 public interface INodeView {
 	default void nodeChanged(NodeChangeEvent event) {};
+	/** Receives all changes of the node collected by a node change transaction, by default one by one. */
+	default void nodesChanged(List<NodeChangeEvent> events) {
+		for (NodeChangeEvent event : events)
+			nodeChanged(event);
+	}
     default void onPreNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {};
     default void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {};
 	default void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {}
@@ -0,0 +1,179 @@
+package org.freeplane.features.map;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+import org.freeplane.core.io.ITreeWriter;
+import org.freeplane.features.map.MapWriter.Hint;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.n3.nanoxml.XMLException;
+
+/**
+ * Children of a folded node which are kept as xml after the map is loaded.
+ * They are parsed when the list is accessed, until then they are saved as they were read.
+ */
+class LazyChildNodes extends AbstractList<NodeModel> implements RandomAccess {
+	private final NodeModel parent;
+	private final MapReader mapReader;
+	private final List<NodeModel> children;
+	private volatile List<byte[]> unparsedChildren;
+	private boolean isLoading;
+
+	LazyChildNodes(final NodeModel parent, final MapReader mapReader, final List<NodeModel> children) {
+		this.parent = parent;
+		this.mapReader = mapReader;
+		this.children = children;
+		this.unparsedChildren = new ArrayList<byte[]>();
+	}
+
+	void addUnparsedChild(final String xml) {
+		unparsedChildren.add(xml.getBytes(StandardCharsets.UTF_8));
+		parent.getMap().reserveLazyNodeIds(this, xml);
+	}
+
+	/** Finds the ID attributes in the xml of unparsed nodes without parsing it. */
+	static void forEachNodeId(final String xml, final Consumer<String> consumer) {
+		final String idAttribute = "ID=\"";
+		for (int start = xml.indexOf(idAttribute); start > 0; start = xml.indexOf(idAttribute, start)) {
+			final int valueStart = start + idAttribute.length();
+			final int valueEnd = xml.indexOf('"', valueStart);
+			if (valueEnd < 0) {
+				return;
+			}
+			if (Character.isWhitespace(xml.charAt(start - 1))) {
+				consumer.accept(xml.substring(valueStart, valueEnd));
+			}
+			start = valueEnd + 1;
+		}
+	}
+
+	boolean isLoaded() {
+		return unparsedChildren == null;
+	}
+
+	List<NodeModel> loadedChildren() {
+		return children;
+	}
+
+	/** Returns the number of bytes of the xml kept for the children, which is the heap it occupies. */
+	long unparsedSize() {
+		final List<byte[]> xmlChildren = unparsedChildren;
+		long size = 0;
+		if (xmlChildren != null) {
+			for (final byte[] xml : xmlChildren) {
+				size += xml.length;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Parses the children and attaches them to the parent.
+	 * Their IDs and connectors are registered while they are parsed, map change listeners are notified afterwards.
+	 * Node views create the child views when the parent is unfolded.
+	 */
+	void load() {
+		if (unparsedChildren == null) {
+			return;
+		}
+		final List<NodeModel> loadedChildren;
+		synchronized (this) {
+			final List<byte[]> xmlChildren = unparsedChildren;
+			if (xmlChildren == null || isLoading) {
+				return;
+			}
+			isLoading = true;
+			final MapModel map = parent.getMap();
+			final List<String> xmlTexts = new ArrayList<String>(xmlChildren.size());
+			for (final byte[] xml : xmlChildren) {
+				final String xmlText = new String(xml, StandardCharsets.UTF_8);
+				xmlTexts.add(xmlText);
+				map.releaseLazyNodeIds(this, xmlText);
+			}
+			loadedChildren = new ArrayList<NodeModel>(xmlChildren.size());
+			try {
+				final Map<Object, Object> hints = new HashMap<Object, Object>(2);
+				hints.put(Hint.MODE, Mode.FILE);
+				hints.put(NodeBuilder.FOLDING_LOADED, Boolean.TRUE);
+				for (final String xml : xmlTexts) {
+					final NodeModel child = mapReader.createNodeTreeFromXml(map, new StringReader(xml), hints);
+					children.add(child);
+					child.setParent(parent);
+					loadedChildren.add(child);
+				}
+			}
+			catch (final IOException | XMLException e) {
+				throw new RuntimeException(e);
+			}
+			finally {
+				unparsedChildren = null;
+				isLoading = false;
+			}
+		}
+		final ModeController modeController = Controller.getCurrentModeController();
+		if (modeController != null) {
+			modeController.getMapController().fireLazyChildNodesLoaded(parent, loadedChildren);
+		}
+	}
+
+	/** Writes the children as they were read unless they have been parsed. */
+	boolean writeUnparsedChildren(final ITreeWriter writer) throws IOException {
+		final List<byte[]> xmlChildren = unparsedChildren;
+		if (xmlChildren == null) {
+			return false;
+		}
+		for (final byte[] xml : xmlChildren) {
+			writer.addElementContent(new String(xml, StandardCharsets.UTF_8));
+			writer.addElementContent("\n");
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		final List<byte[]> xmlChildren = unparsedChildren;
+		return children.isEmpty() && (xmlChildren == null || xmlChildren.isEmpty());
+	}
+
+	@Override
+	public NodeModel get(final int index) {
+		load();
+		return children.get(index);
+	}
+
+	@Override
+	public int size() {
+		load();
+		return children.size();
+	}
+
+	@Override
+	public NodeModel set(final int index, final NodeModel element) {
+		load();
+		return children.set(index, element);
+	}
+
+	@Override
+	public void add(final int index, final NodeModel element) {
+		load();
+		modCount++;
+		children.add(index, element);
+	}
+
+	@Override
+	public NodeModel remove(final int index) {
+		load();
+		modCount++;
+		return children.remove(index);
+	}
+}
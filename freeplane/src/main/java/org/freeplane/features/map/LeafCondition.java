@@ -15,6 +15,16 @@ public class LeafCondition extends ASelectableCondition {
 		return node.isLeaf();
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	public static ASelectableCondition load(XMLElement element) {
 	    return new LeafCondition();
     }
@@ -26,6 +26,8 @@ import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,8 +35,10 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -333,6 +337,8 @@ implements IExtension, NodeChangeAnnouncer{
  	final private ModeController modeController;
 	final LinkedList<INodeChangeListener> nodeChangeListeners;
 	private boolean areNodeChangeListenersSorted;
+	/** Nodes can be changed on several threads, each thread has its own transaction. */
+	private final ThreadLocal<NodeChangeTransaction> nodeChangeTransaction = new ThreadLocal<NodeChangeTransaction>();
 	final private ReadManager readManager;
 	private final WriteManager writeManager;
 
@@ -540,7 +546,7 @@ implements IExtension, NodeChangeAnnouncer{
 	public boolean canBeUnfoldedOnCurrentView(final NodeModel node, Filter filter) {
 		final IMapViewManager mapViewManager = Controller.getCurrentController().getMapViewManager();
 		final boolean isFolded = mapViewManager.isFoldedOnCurrentView(node) ||  mapViewManager.hasHiddenChildren(node);
-		boolean canBeAncestor = filter.getFilterInfo(node).canBeAncestor();
+		boolean canBeAncestor = filter.canBeAncestor(node);
 		for(int i = 0; i < node.getChildCount(); i++){
 			final NodeModel child = node.getChildAt(i);
 			if (isFolded && child.subtreeHasVisibleContent(filter)
@@ -692,11 +698,143 @@ implements IExtension, NodeChangeAnnouncer{
     }
 
 	private void fireNodeChanged(final NodeModel node, final NodeChangeEvent nodeChangeEvent) {
+		final NodeChangeTransaction transaction = nodeChangeTransaction.get();
+		if (transaction != null) {
+			transaction.add(nodeChangeEvent);
+			fireNodeChangedDuringTransaction(node, nodeChangeEvent);
+			return;
+		}
 	    sortNodeChangeListeners();
 		final INodeChangeListener[] nodeChangeListeners = this.nodeChangeListeners.toArray(new INodeChangeListener[]{});
 	    node.fireNodeChanged(nodeChangeListeners, nodeChangeEvent);
 	}
 
+	private void fireNodeChangedDuringTransaction(final NodeModel node, final NodeChangeEvent nodeChangeEvent) {
+		sortNodeChangeListeners();
+		final INodeChangeListener[] nodeChangeListeners = this.nodeChangeListeners.stream()
+		    .filter(INodeChangeListener::isNotifiedDuringTransactions)
+		    .toArray(INodeChangeListener[]::new);
+		if (nodeChangeListeners.length == 0)
+			return;
+		final List<NodeChangeEvent> events = new ArrayList<NodeChangeEvent>();
+		node.addClonedNodeChangeEvents(events, nodeChangeEvent);
+		AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+			for (final NodeChangeEvent event : events) {
+				for (final INodeChangeListener listener : nodeChangeListeners)
+					listener.nodeChanged(event);
+			}
+			return null;
+		});
+	}
+
+	private void fireNodesChanged(final Collection<NodeChangeEvent> nodeChangeEvents) {
+		if (nodeChangeEvents.isEmpty())
+			return;
+		sortNodeChangeListeners();
+		final INodeChangeListener[] nodeChangeListeners = this.nodeChangeListeners.toArray(new INodeChangeListener[]{});
+		final List<NodeChangeEvent> events = new ArrayList<NodeChangeEvent>(nodeChangeEvents.size());
+		for (final NodeChangeEvent event : nodeChangeEvents) {
+			event.getNode().addClonedNodeChangeEvents(events, event);
+		}
+		final List<NodeChangeEvent> unmodifiableEvents = Collections.unmodifiableList(events);
+		AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+			for (final INodeChangeListener listener : nodeChangeListeners) {
+				if (!listener.isNotifiedDuringTransactions())
+					listener.nodesChanged(unmodifiableEvents);
+			}
+			final LinkedHashMap<NodeModel, List<NodeChangeEvent>> eventsByNode = new LinkedHashMap<>();
+			for (final NodeChangeEvent event : events) {
+				eventsByNode.computeIfAbsent(event.getNode(), node -> new ArrayList<>()).add(event);
+			}
+			eventsByNode.forEach(NodeModel::fireNodesChanged);
+			return null;
+		});
+	}
+
+	/**
+	 * Starts collecting node changes made on the current thread.
+	 * They are delivered to the listeners and to the node views as one batch when the outermost transaction is committed,
+	 * except for listeners notified during transactions,
+	 * changes of the same node property are coalesced,
+	 * and all modification time updates are recorded as one undoable action per map.
+	 */
+	public void startNodeChangeTransaction() {
+		NodeChangeTransaction transaction = nodeChangeTransaction.get();
+		if (transaction == null) {
+			transaction = new NodeChangeTransaction();
+			nodeChangeTransaction.set(transaction);
+		}
+		transaction.level++;
+	}
+
+	public void commitNodeChangeTransaction() {
+		final NodeChangeTransaction transaction = nodeChangeTransaction.get();
+		if (transaction == null)
+			throw new IllegalStateException("no node change transaction started");
+		if (transaction.level > 1) {
+			transaction.level--;
+			return;
+		}
+		try {
+			for (final Entry<MapModel, LinkedHashMap<NodeModel, Date>> modifiedNodes : transaction.modificationTimes()
+			    .entrySet()) {
+				Controller.getCurrentModeController().execute(new ModificationTimeActor(modifiedNodes.getValue()),
+				    modifiedNodes.getKey());
+			}
+		}
+		finally {
+			nodeChangeTransaction.remove();
+		}
+		fireNodesChanged(transaction.events());
+	}
+
+	public void runInNodeChangeTransaction(final Runnable runnable) {
+		startNodeChangeTransaction();
+		try {
+			runnable.run();
+		}
+		finally {
+			commitNodeChangeTransaction();
+		}
+	}
+
+	public boolean isNodeChangeTransactionRunning() {
+		return nodeChangeTransaction.get() != null;
+	}
+
+	/** Sets the modification time of changed nodes and restores their previous times on undo. */
+	private class ModificationTimeActor implements IActor {
+		private final Map<NodeModel, Date> lastModifiedAt;
+		private final Date now = new Date();
+
+		ModificationTimeActor(final Map<NodeModel, Date> lastModifiedAt) {
+			this.lastModifiedAt = lastModifiedAt;
+		}
+
+		@Override
+		public void act() {
+			runInNodeChangeTransaction(() -> lastModifiedAt.keySet().forEach(node -> setDate(node, now)));
+		}
+
+		@Override
+		public void undo() {
+			runInNodeChangeTransaction(() -> lastModifiedAt.forEach(this::setDate));
+		}
+
+		private void setDate(final NodeModel node, final Date lastModifiedAt) {
+			final Date oldLastModifiedAt = new Date(node.getLastModifiedAtMillis());
+			node.setLastModifiedAtMillis(lastModifiedAt.getTime());
+			final NodeChangeEvent nodeChangeEvent = new NodeChangeEvent(node,
+			    HistoryInformationModel.class, oldLastModifiedAt, lastModifiedAt, false, false);
+			fireNodeChanged(node, nodeChangeEvent);
+		}
+
+		@Override
+		public String getDescription() {
+			return null;
+		}
+	}
+
 
     private void sortMapChangeListeners() {
         if(! areMapChangeListenersSorted) {
@@ -720,6 +858,15 @@ implements IExtension, NodeChangeAnnouncer{
 		parent.fireNodeInserted(list, child, index);
 	}
 
+	/** Notifies the map change listeners about children parsed from the xml kept by a folded node. */
+	void fireLazyChildNodesLoaded(final NodeModel parent, final List<NodeModel> children) {
+	    sortMapChangeListeners();
+		final IMapChangeListener[] list = mapChangeListeners.toArray(new IMapChangeListener[]{});
+		for (final IMapChangeListener listener : list) {
+			listener.onChildNodesLoaded(parent, children);
+		}
+	}
+
 	protected void fireNodeMoved(final NodeMoveEvent nodeMoveEvent) {
 	    sortMapChangeListeners();
 		final IMapChangeListener[] list = mapChangeListeners.toArray(new IMapChangeListener[]{});
@@ -856,7 +1003,8 @@ implements IExtension, NodeChangeAnnouncer{
 		try {
 			Controller.getCurrentController().getViewController().setWaitingCursor(true);
 			final MapModel newModel = new MapModel(duplicator());
-			UrlManager.getController().loadCatchExceptions(url, newModel);
+			if (!UrlManager.getController().loadCatchExceptions(url, newModel))
+				return;
 			newModel.setReadOnly(true);
 			newModel.setSaved(true);
 			fireMapCreated(newModel);
@@ -937,37 +1085,13 @@ implements IExtension, NodeChangeAnnouncer{
 		if(nodeChangeEvent.setsDirtyFlag())
 			mapSaved(map, false);
 		if (nodeChangeEvent.updatesModificationTime() && !map.isUndoActionRunning()) {
-			final HistoryInformationModel historyInformation = node.getHistoryInformation();
-			if (historyInformation != null) {
-				final IActor historyActor = new IActor() {
-					private final Date lastModifiedAt = historyInformation.getLastModifiedAt();
-					private final Date now = new Date();
-
-					@Override
-					public void undo() {
-						setDate(historyInformation, lastModifiedAt);
-					}
-
-					private void setDate(final HistoryInformationModel historyInformation, final Date lastModifiedAt) {
-						final Date oldLastModifiedAt = historyInformation.getLastModifiedAt();
-						historyInformation.setLastModifiedAt(lastModifiedAt);
-						final NodeChangeEvent nodeChangeEvent = new NodeChangeEvent(node,
-						    HistoryInformationModel.class, oldLastModifiedAt, lastModifiedAt, false, false);
-						fireNodeChanged(node, nodeChangeEvent);
-					}
-
-					@Override
-					public String getDescription() {
-						return null;
-					}
-
-					@Override
-					public void act() {
-						setDate(historyInformation, now);
-					}
-				};
-				Controller.getCurrentModeController().execute(historyActor, map);
-			}
+			final NodeChangeTransaction transaction = nodeChangeTransaction.get();
+			if (transaction != null)
+				transaction.modified(node);
+			else
+				Controller.getCurrentModeController().execute(
+				    new ModificationTimeActor(Collections.singletonMap(node, new Date(node.getLastModifiedAtMillis()))),
+				    map);
 		}
 		fireNodeChanged(node, nodeChangeEvent);
 	}
@@ -1039,13 +1163,16 @@ implements IExtension, NodeChangeAnnouncer{
 						@SuppressWarnings("unchecked")
 						final Entry<NodeRefreshKey, NodeRefreshValue>[] entries = nodesToRefresh.entrySet().toArray(new Entry[]{} );
 						nodesToRefresh.clear();
-						for (Entry<NodeRefreshKey, NodeRefreshValue> entry : entries) {
-							final NodeRefreshValue info = entry.getValue();
-							if (info.controller == currentModeController){
-								final NodeRefreshKey key = entry.getKey();
-								currentModeController.getMapController().nodeRefresh(key.node, key.property, info.oldValue, info.newValue);
+						final MapController mapController = currentModeController.getMapController();
+						mapController.runInNodeChangeTransaction(() -> {
+							for (Entry<NodeRefreshKey, NodeRefreshValue> entry : entries) {
+								final NodeRefreshValue info = entry.getValue();
+								if (info.controller == currentModeController){
+									final NodeRefreshKey key = entry.getKey();
+									mapController.nodeRefresh(key.node, key.property, info.oldValue, info.newValue);
+								}
 							}
-						}
+						});
 					}
 				};
 				Controller.getCurrentController().getViewController().invokeLater(refresher);
@@ -21,13 +21,16 @@ package org.freeplane.features.map;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.freeplane.core.extension.DenseExtensionMap;
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.core.util.Compat;
@@ -47,25 +50,34 @@ public class MapModel {
 	private final ExtensionContainer extensionContainer;
 	private IconRegistry iconRegistry;
 	final private List<IMapChangeListener> listeners;
-	final private Map<String, NodeModel> nodes;
+	final private NodeIdRegistry nodeIds;
 	private boolean readOnly = false;
 	private NodeModel root;
 	private URL url;
 	private NodeChangeAnnouncer nodeChangeAnnouncer;
     private final INodeDuplicator nodeDuplicator;
+	/** IDs of nodes kept as xml by folded nodes, they are reserved until the xml is parsed. */
+	private final Map<String, LazyChildNodes> lazyNodeIds;
+	private static final int MINIMAL_RELEASED_ORDINALS_BEFORE_COMPACTION = 4096;
+	private final AtomicInteger nodeOrdinals = new AtomicInteger();
+	private final AtomicInteger attachedNodeCount = new AtomicInteger();
+	private volatile int nodeOrdinalGeneration;
+	/** New ordinals indexed by the ordinals of the previous generation, negative for released ordinals. */
+	private int[] lastOrdinalRenumbering;
 
 	public MapModel(INodeDuplicator nodeDuplicator, IconRegistry iconRegistry, NodeChangeAnnouncer nodeChangeAnnouncer) {
 		this.nodeDuplicator = nodeDuplicator;
-        extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
+        extensionContainer = new ExtensionContainer(new DenseExtensionMap());
 		this.root = null;
 		listeners = new LinkedList<IMapChangeListener>();
-		nodes = createNodeByIdMap();
+		nodeIds = createNodeIdRegistry();
+		lazyNodeIds = new HashMap<String, LazyChildNodes>();
 		this.iconRegistry = iconRegistry;
 		this.nodeChangeAnnouncer = nodeChangeAnnouncer;
 	}
 
-    protected Map<String, NodeModel> createNodeByIdMap() {
-        return new HashMap<String, NodeModel>();
+    protected NodeIdRegistry createNodeIdRegistry() {
+        return new NodeIdRegistry();
     }
 
 	public MapModel(INodeDuplicator nodeDuplicator) {
@@ -116,19 +128,15 @@ public class MapModel {
 	}
 
 	public String generateNodeID(final String proposedID) {
-		if (proposedID != null && !"".equals(proposedID) && getNodeForID(proposedID) == null) {
+		if (proposedID != null && !"".equals(proposedID) && nodeIds.get(proposedID) == null && ! isLazyNodeId(proposedID)) {
 			return proposedID;
 		}
-		String returnValue;
+		String id;
 		do {
-			final String prefix = "ID_";
-			/*
-			 * The prefix is to enable the id to be an ID in the sense of
-			 * XML/DTD.
-			 */
-			returnValue = prefix + Integer.toString(ran.nextInt(UNDEFINED_NODE_ID));
-		} while (nodes.containsKey(returnValue));
-		return returnValue;
+			final int number = ran.nextInt(UNDEFINED_NODE_ID);
+			id = nodeIds.contains(number) ? null : NodeIdRegistry.id(number);
+		} while (id == null || isLazyNodeId(id));
+		return id;
 	}
 
 	public <T extends IExtension> T getExtension(final Class<T> clazz) {
@@ -155,10 +163,41 @@ public class MapModel {
 	 * @return
 	 */
 	public NodeModel getNodeForID(final String nodeID) {
-		final NodeModel node = nodes.get(nodeID);
+		NodeModel node = nodeIds.get(nodeID);
+		// the node can be kept as xml, parsing its branch releases the reserved id, so the loop ends
+		while (node == null) {
+			final LazyChildNodes children;
+			synchronized (lazyNodeIds) {
+				children = lazyNodeIds.get(nodeID);
+			}
+			if (children == null) {
+				break;
+			}
+			children.load();
+			node = nodeIds.get(nodeID);
+		}
 		return node;
 	}
 
+	void reserveLazyNodeIds(final LazyChildNodes children, final String xml) {
+		synchronized (lazyNodeIds) {
+			LazyChildNodes.forEachNodeId(xml, id -> lazyNodeIds.put(id, children));
+		}
+	}
+
+	/** Called before the xml is parsed, the parsed nodes register the released IDs again. */
+	void releaseLazyNodeIds(final LazyChildNodes children, final String xml) {
+		synchronized (lazyNodeIds) {
+			LazyChildNodes.forEachNodeId(xml, id -> lazyNodeIds.remove(id, children));
+		}
+	}
+
+	private boolean isLazyNodeId(final String id) {
+		synchronized (lazyNodeIds) {
+			return lazyNodeIds.containsKey(id);
+		}
+	}
+
 	public int getNumberOfChangesSinceLastSave() {
 		return changesPerformedSinceLastSave;
 	}
@@ -198,7 +237,7 @@ public class MapModel {
 	 * @param nodeModel
 	 */
 	void registryID(final String value, final NodeModel nodeModel) {
-		final NodeModel old = nodes.put(value, nodeModel);
+		final NodeModel old = nodeIds.register(value, nodeModel);
 		if (null != old && nodeModel != old) {
 			throw new RuntimeException("id " + value + " already registered");
 		}
@@ -293,10 +332,62 @@ public class MapModel {
 		}
 		final String id = node.getID();
 		if (id != null) {
-			nodes.put(id, null);
+			nodeIds.unregister(id);
 		}
 	}
 
+	/** Gives access to the number of registered node IDs and to compaction of the registry. */
+	public NodeIdRegistry getNodeIdRegistry() {
+		return nodeIds;
+	}
+
+	int createNodeOrdinal() {
+		attachedNodeCount.incrementAndGet();
+		return nodeOrdinals.getAndIncrement();
+	}
+
+	void releaseNodeOrdinal() {
+		attachedNodeCount.decrementAndGet();
+	}
+
+	/** Upper bound of the ordinals given to the nodes of this map. */
+	public int getNodeOrdinalCount() {
+		return nodeOrdinals.get();
+	}
+
+	/** Changes each time the ordinals are compacted. */
+	public int getNodeOrdinalGeneration() {
+		return nodeOrdinalGeneration;
+	}
+
+	/**
+	 * Returns the new ordinals indexed by the ordinals of the given generation,
+	 * or null if the ordinals were compacted more than once since then.
+	 */
+	public int[] getNodeOrdinalRenumbering(int generation) {
+		return generation == nodeOrdinalGeneration - 1 ? lastOrdinalRenumbering : null;
+	}
+
+	/**
+	 * Numbers the attached nodes anew if most ordinals were released by removed nodes,
+	 * so that arrays indexed by ordinals do not grow with each inserted node.
+	 * Returns true if the ordinals have changed.
+	 */
+	public boolean compactNodeOrdinals() {
+		final int ordinalCount = nodeOrdinals.get();
+		if (root == null
+		        || ordinalCount <= 2 * attachedNodeCount.get() + MINIMAL_RELEASED_ORDINALS_BEFORE_COMPACTION)
+			return false;
+		final int[] newOrdinals = new int[ordinalCount];
+		Arrays.fill(newOrdinals, -1);
+		final int attachedNodes = root.renumberOrdinals(0, newOrdinals);
+		nodeOrdinals.set(attachedNodes);
+		attachedNodeCount.set(attachedNodes);
+		lastOrdinalRenumbering = newOrdinals;
+		nodeOrdinalGeneration++;
+		return true;
+	}
+
 	public NodeChangeAnnouncer getNodeChangeAnnouncer() {
 		return nodeChangeAnnouncer;
 	}
@@ -20,6 +20,7 @@
 package org.freeplane.features.map;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +29,9 @@ import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.ReadManager;
 import org.freeplane.core.io.UnknownElements;
 import org.freeplane.core.io.xml.TreeXmlReader;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.StringInterner;
 import org.freeplane.features.map.MapWriter.Hint;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -43,6 +47,7 @@ public class MapReader implements IElementDOMHandler {
 		private final Map<Object, Object> hints;
 		private NodeModel mapChild = null;
 		private final Map<String, String> newIds;
+		private StringInterner stringInterner;
 
 		public NodeTreeCreator() {
 			this(new HashMap<Object, Object>());
@@ -55,25 +60,40 @@ public class MapReader implements IElementDOMHandler {
         }
 
 		public NodeModel create(final Reader pReader) throws XMLException {
-			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+			return create((reader, map) -> reader.load(map, pReader));
+		}
+
+		private NodeModel create(final MapSource source) throws XMLException {
+			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
 			final TreeXmlReader reader = new TreeXmlReader(readManager);
+			reader.setUsesStreamingParser(ResourceController.getResourceController().getBooleanProperty(
+			    LOAD_WITH_STREAMING_PARSER_PROPERTY, true));
 			try {
-				nodeTreeCreator = this;
-				reader.load(createdMap, pReader);
+				nodeTreeCreator.set(this);
+				source.load(reader, createdMap);
 				final NodeModel node = nodeBuilder.getMapChild();
 				return node;
 			}
 			finally {
 				nodeBuilder.reset();
-				nodeTreeCreator = oldNodeTreeCreator;
+				nodeTreeCreator.set(oldNodeTreeCreator);
 			}
 		}
 
 		public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader) throws IOException,
 		XMLException {
+			return createNodeTree(map, (reader, createdMap) -> reader.load(createdMap, pReader));
+		}
+
+		public NodeModel createNodeTreeFromBinary(final MapModel map, final InputStream input) throws IOException,
+		XMLException {
+			return createNodeTree(map, (reader, createdMap) -> reader.loadBinary(createdMap, input));
+		}
+
+		private NodeModel createNodeTree(final MapModel map, final MapSource source) throws XMLException {
 			synchronized(this) {
 				start(map);
-				final NodeModel node = create(pReader);
+				final NodeModel node = create(source);
 				if (node == null)
 					throw new RuntimeException("corrupted map, no root node found");
 				finish(node);
@@ -82,18 +102,37 @@ public class MapReader implements IElementDOMHandler {
 		}
 
 		public void finish(final NodeModel node) {
-			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
 			try {
-				nodeTreeCreator = this;
+				nodeTreeCreator.set(this);
 				readManager.readingCompleted(node, newIds);
 				newIds.clear();
+				reportSharedStrings(createdMap != null && createdMap.getRootNode() == node);
 				createdMap = null;
 			}
 			finally {
-				nodeTreeCreator = oldNodeTreeCreator;
+				nodeTreeCreator.set(oldNodeTreeCreator);
 			}
 		}
 
+		/** Returns an equal string read before for the created map, if there is one. */
+		public String intern(final String string) {
+			if (stringInterner == null)
+				stringInterner = new StringInterner();
+			return stringInterner.intern(string);
+		}
+
+		/** Only loads of whole maps are reported, pasted and lazily parsed nodes are not. */
+		private void reportSharedStrings(final boolean wholeMapLoaded) {
+			if (wholeMapLoaded && stringInterner != null && stringInterner.getSharedStringCount() > 0) {
+				final String title = createdMap.getTitle();
+				LogUtils.info("Loading " + (title != null ? title : "map") + " shared "
+				        + stringInterner.getSharedStringCount() + " repeated strings, saved about "
+				        + stringInterner.getSavedBytes() / 1024 + " KB");
+			}
+			stringInterner = null;
+		}
+
 		void start(final MapModel map) {
 			createdMap = map;
 		}
@@ -137,12 +176,18 @@ public class MapReader implements IElementDOMHandler {
 		}
 	}
 
+	private interface MapSource {
+		void load(TreeXmlReader reader, MapModel map) throws XMLException;
+	}
+
+	private static final String LOAD_WITH_STREAMING_PARSER_PROPERTY = "load_with_streaming_parser";
 	private final NodeBuilder nodeBuilder;
 	final private ReadManager readManager;
-	private NodeTreeCreator nodeTreeCreator;
+	/** Maps can be loaded on worker threads, so each thread has its own creator. */
+	private final ThreadLocal<NodeTreeCreator> nodeTreeCreator = new ThreadLocal<NodeTreeCreator>();
 
 	public NodeTreeCreator getCurrentNodeTreeCreator() {
-		return nodeTreeCreator;
+		return nodeTreeCreator.get();
 	}
 
 	public MapReader(final ReadManager readManager) {
@@ -153,7 +198,7 @@ public class MapReader implements IElementDOMHandler {
 
 	@Override
 	public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
-		return nodeTreeCreator.getCreatedMap();
+		return nodeTreeCreator.get().getCreatedMap();
 	}
 
 	public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader, final Mode mode)
@@ -164,14 +209,31 @@ public class MapReader implements IElementDOMHandler {
 	}
 	public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader, final Map<Object, Object> hints)
 	        throws IOException, XMLException {
-		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
 		try {
-			nodeTreeCreator = new NodeTreeCreator(hints);
-			final NodeModel topNode = nodeTreeCreator.createNodeTreeFromXml(map, pReader);
+			final NodeTreeCreator newNodeTreeCreator = new NodeTreeCreator(hints);
+			nodeTreeCreator.set(newNodeTreeCreator);
+			final NodeModel topNode = newNodeTreeCreator.createNodeTreeFromXml(map, pReader);
 			return topNode;
 		}
 		finally {
-			nodeTreeCreator = oldNodeTreeCreator;
+			nodeTreeCreator.set(oldNodeTreeCreator);
+		}
+	}
+
+	/** Reads a map written by {@link MapWriter#writeMapAsBinary(MapModel, java.io.OutputStream, Mode)}. */
+	public NodeModel createNodeTreeFromBinary(final MapModel map, final InputStream input, final Mode mode)
+	        throws IOException, XMLException {
+		final Map<Object, Object> hints = new HashMap<Object, Object>(1);
+		hints.put(Hint.MODE, mode);
+		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator.get();
+		try {
+			final NodeTreeCreator newNodeTreeCreator = new NodeTreeCreator(hints);
+			nodeTreeCreator.set(newNodeTreeCreator);
+			return newNodeTreeCreator.createNodeTreeFromBinary(map, input);
+		}
+		finally {
+			nodeTreeCreator.set(oldNodeTreeCreator);
 		}
 	}
 
@@ -183,8 +245,14 @@ public class MapReader implements IElementDOMHandler {
 		}
 	}
 
+	/** Shares equal strings within the map being loaded on this thread. */
+	public String intern(final String string) {
+		final NodeTreeCreator creator = nodeTreeCreator.get();
+		return creator != null ? creator.intern(string) : string;
+	}
+
 	public boolean isMapLoadingInProcess() {
-		return nodeTreeCreator != null;
+		return nodeTreeCreator.get() != null;
 	}
 
 	public NodeTreeCreator nodeTreeCreator(final MapModel map) {
@@ -20,6 +20,7 @@
 package org.freeplane.features.map;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Arrays;
 
@@ -28,6 +29,7 @@ import org.freeplane.core.io.IAttributeWriter;
 import org.freeplane.core.io.IElementWriter;
 import org.freeplane.core.io.ITreeWriter;
 import org.freeplane.core.io.WriteManager;
+import org.freeplane.core.io.xml.StreamingTreeXmlWriter;
 import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.util.FreeplaneVersion;
@@ -83,7 +85,14 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 
 	public void writeMapAsXml(final MapModel map, final Writer fileout, final Mode mode, final CopiedNodeSet copiedNodeSet,
 	                          final boolean forceFormat) throws IOException {
-		final TreeXmlWriter xmlWriter = createTreeWriter(fileout);
+		final StreamingTreeXmlWriter xmlWriter = createTreeWriter(fileout);
+		writeMap(map, xmlWriter, mode, copiedNodeSet, forceFormat);
+		xmlWriter.flush();
+		fileout.close();
+	}
+
+	void writeMap(final MapModel map, final ITreeWriter xmlWriter, final Mode mode, final CopiedNodeSet copiedNodeSet,
+	              final boolean forceFormat) throws IOException {
 		xmlWriter.setHint(Hint.MODE, mode);
 		if (forceFormat) {
 			xmlWriter.setHint(WriterHint.FORCE_FORMATTING);
@@ -91,8 +100,15 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 		final XMLElement xmlMap = new XMLElement("map");
 		this.copiedNodeSet = copiedNodeSet;
 		xmlWriter.addElement(map, xmlMap);
-		xmlWriter.flush();
-		fileout.close();
+	}
+
+	/** Writes the map in the binary format read by {@link MapReader#createNodeTreeFromBinary(MapModel, java.io.InputStream, Mode)}. */
+	public void writeMapAsBinary(final MapModel map, final OutputStream output, final Mode mode) throws IOException {
+		final TreeXmlWriter binaryWriter = TreeXmlWriter.createBinaryWriter(writeManager, output);
+		binaryWriter.setHint(Hint.MODE, mode);
+		this.copiedNodeSet = CopiedNodeSet.ALL_NODES;
+		binaryWriter.addElement(map, new XMLElement("map"));
+		binaryWriter.flush();
 	}
 
 	private void writeNode(final ITreeWriter xmlWriter, final NodeModel node, CopiedNodeSet copiedNodeSet,
@@ -125,7 +141,7 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 
 	public void writeNodeAsXml(final Writer writer, final NodeModel node, final Mode mode,
 	                           final CopiedNodeSet copiedNodeSet, final boolean writeChildren, boolean forceFormat) throws IOException {
-		final TreeXmlWriter xmlWriter = createTreeWriter(writer);
+		final StreamingTreeXmlWriter xmlWriter = createTreeWriter(writer);
 		xmlWriter.setHint(Hint.MODE, mode);
 		if (forceFormat) {
 			xmlWriter.setHint(WriterHint.FORCE_FORMATTING);
@@ -134,8 +150,8 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 		xmlWriter.flush();
 	}
 
-	TreeXmlWriter createTreeWriter(final Writer writer) {
-		return new TreeXmlWriter(writeManager, writer, //
+	StreamingTreeXmlWriter createTreeWriter(final Writer writer) {
+		return new StreamingTreeXmlWriter(writeManager, writer, //
 			ResourceController.getResourceController().getBooleanProperty("useAsciiCharset"));
 	}
 }
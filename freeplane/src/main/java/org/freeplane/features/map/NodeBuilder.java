@@ -26,6 +26,7 @@ import java.util.Map;
 import org.freeplane.core.io.IAttributeHandler;
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.IReadCompletionListener;
+import org.freeplane.core.io.IUnparsedElementHandler;
 import org.freeplane.core.io.ReadManager;
 import org.freeplane.core.io.UnknownElements;
 import org.freeplane.core.io.xml.TreeXmlReader;
@@ -36,7 +37,7 @@ import org.freeplane.features.map.NodeModel.CloneType;
 import org.freeplane.features.map.NodeModel.Side;
 import org.freeplane.n3.nanoxml.XMLElement;
 
-public class NodeBuilder implements IElementDOMHandler {
+public class NodeBuilder implements IElementDOMHandler, IUnparsedElementHandler {
 
 
 	private class CloneHandler implements IAttributeHandler {
@@ -60,6 +61,7 @@ public class NodeBuilder implements IElementDOMHandler {
 	}
 
 	public static final String FOLDING_LOADED = "folding_loaded";
+	public static final String LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY = "load_folded_branches_lazily";
 	private static final String RESOURCES_ALWAYS_FOLD_ALL_AFTER_LOAD = "always_fold_all_after_load";
 	private static final String RESOURCES_ALWAYS_UNFOLD_ALL_AFTER_LOAD = "always_unfold_all_after_load";
 	private static final String RESOURCES_LOAD_FOLDING = "load_folding";
@@ -117,6 +119,22 @@ public class NodeBuilder implements IElementDOMHandler {
 		}
 	}
 
+	@Override
+	public String unparsedChildTag(final Object element) {
+		final NodeModel node = (NodeModel) element;
+		if (node.isFolded() && node != getMap().getRootNode()
+		        && Mode.FILE.equals(mapReader.getCurrentNodeTreeCreator().getHint(Hint.MODE))
+		        && ResourceController.getResourceController().getBooleanProperty(LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY)) {
+			return XML_NODE;
+		}
+		return null;
+	}
+
+	@Override
+	public void addUnparsedChild(final Object element, final String xml) {
+		((NodeModel) element).addUnparsedChild(mapReader, xml);
+	}
+
 	private MapModel getMap() {
 		return mapReader.getCurrentNodeTreeCreator().getCreatedMap();
 	}
@@ -145,10 +163,7 @@ public class NodeBuilder implements IElementDOMHandler {
 			    @Override
 				public void setAttribute(final Object userObject, final String value) {
 				    final NodeModel node = (NodeModel) userObject;
-				    if (node.getHistoryInformation() == null) {
-					    node.setHistoryInformation(new HistoryInformationModel());
-				    }
-				    node.getHistoryInformation().setCreatedAt(TreeXmlReader.xmlToDate(value));
+				    node.setCreatedAtMillis(TreeXmlReader.xmlToDate(value).getTime());
 			    }
 		    });
 		reader.addAttributeHandler(NodeBuilder.XML_NODE, NodeBuilder.XML_NODE_HISTORY_LAST_MODIFIED_AT,
@@ -156,10 +171,7 @@ public class NodeBuilder implements IElementDOMHandler {
 			    @Override
 				public void setAttribute(final Object userObject, final String value) {
 				    final NodeModel node = (NodeModel) userObject;
-				    if (node.getHistoryInformation() == null) {
-					    node.setHistoryInformation(new HistoryInformationModel());
-				    }
-				    node.getHistoryInformation().setLastModifiedAt(TreeXmlReader.xmlToDate(value));
+				    node.setLastModifiedAtMillis(TreeXmlReader.xmlToDate(value).getTime());
 			    }
 		    });
 		reader.addAttributeHandler(NodeBuilder.XML_STYLENODE, "FOLDED", new IAttributeHandler() {
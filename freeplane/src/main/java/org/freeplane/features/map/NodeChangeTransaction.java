@@ -0,0 +1,46 @@
+package org.freeplane.features.map;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.freeplane.features.map.MapController.NodeRefreshKey;
+
+/**
+ * Node changes collected on one thread while a node change transaction is open.
+ *
+ * Events of the same node and property are coalesced into one event
+ * keeping the first old value and the last new value.
+ */
+class NodeChangeTransaction {
+	private final LinkedHashMap<NodeRefreshKey, NodeChangeEvent> events = new LinkedHashMap<>();
+	private final LinkedHashMap<MapModel, LinkedHashMap<NodeModel, Date>> modificationTimes = new LinkedHashMap<>();
+	int level;
+
+	void add(final NodeChangeEvent event) {
+		final NodeModel node = event.getNode();
+		final NodeRefreshKey key = new NodeRefreshKey(node, event.getProperty());
+		final NodeChangeEvent previousEvent = events.get(key);
+		if (previousEvent == null)
+			events.put(key, event);
+		else
+			events.put(key, new NodeChangeEvent(node, event.getProperty(), previousEvent.getOldValue(),
+			    event.getNewValue(), previousEvent.setsDirtyFlag() || event.setsDirtyFlag(),
+			    previousEvent.updatesModificationTime() || event.updatesModificationTime()));
+	}
+
+	/** Remembers the modification time the node had before the transaction. */
+	void modified(final NodeModel node) {
+		modificationTimes.computeIfAbsent(node.getMap(), map -> new LinkedHashMap<>())
+		    .computeIfAbsent(node, n -> new Date(n.getLastModifiedAtMillis()));
+	}
+
+	Collection<NodeChangeEvent> events() {
+		return events.values();
+	}
+
+	Map<MapModel, LinkedHashMap<NodeModel, Date>> modificationTimes() {
+		return modificationTimes;
+	}
+}
@@ -0,0 +1,207 @@
+package org.freeplane.features.map;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the nodes of a map by their IDs.
+ *
+ * Generated IDs of the form ID_&lt;number&gt; are kept in an open addressing table of primitive keys,
+ * other IDs in a map.
+ * IDs of unregistered nodes stay reserved, so generated IDs do not take the ID of a deleted node
+ * which undo can insert again.
+ * Reserved IDs are dropped by {@link #compact()}, which also runs when they outnumber the registered nodes.
+ */
+public class NodeIdRegistry {
+	/** The prefix makes generated IDs valid XML IDs. */
+	static final String ID_PREFIX = "ID_";
+	private static final int NO_NUMBER = -1;
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int COMPACTION_THRESHOLD = 1 << 16;
+	private static final Object RESERVED = new Object();
+
+	/** Registry for maps whose nodes are registered and found on several threads. */
+	public static NodeIdRegistry concurrent() {
+		return new NodeIdRegistry(new ConcurrentHashMap<String, NodeModel>(), false);
+	}
+
+	private final Map<String, NodeModel> otherIds;
+	private final boolean reservesUnregisteredIds;
+	private int[] numbers;
+	private Object[] nodes;
+	private int usedSlots;
+	private int registeredNodes;
+	private int reservedIds;
+
+	public NodeIdRegistry() {
+		this(new HashMap<String, NodeModel>(), true);
+	}
+
+	private NodeIdRegistry(Map<String, NodeModel> otherIds, boolean reservesUnregisteredIds) {
+		this.otherIds = otherIds;
+		this.reservesUnregisteredIds = reservesUnregisteredIds;
+		if (reservesUnregisteredIds)
+			allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		numbers = new int[capacity];
+		Arrays.fill(numbers, NO_NUMBER);
+		nodes = new Object[capacity];
+	}
+
+	/** Returns the number of a generated ID or -1 for other IDs. */
+	static int number(String id) {
+		final int length = id.length();
+		if (length <= ID_PREFIX.length() || length > ID_PREFIX.length() + 10 || !id.startsWith(ID_PREFIX))
+			return NO_NUMBER;
+		if (id.charAt(ID_PREFIX.length()) == '0' && length > ID_PREFIX.length() + 1)
+			return NO_NUMBER;
+		long number = 0;
+		for (int i = ID_PREFIX.length(); i < length; i++) {
+			final char c = id.charAt(i);
+			if (c < '0' || c > '9')
+				return NO_NUMBER;
+			number = number * 10 + c - '0';
+		}
+		return number <= Integer.MAX_VALUE ? (int) number : NO_NUMBER;
+	}
+
+	static String id(int number) {
+		return ID_PREFIX + number;
+	}
+
+	private int tableNumber(String id) {
+		return numbers != null ? number(id) : NO_NUMBER;
+	}
+
+	private int slot(int number) {
+		final int hash = number * 0x9E3779B9;
+		final int mask = numbers.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (numbers[slot] != number && numbers[slot] != NO_NUMBER)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	public NodeModel get(String id) {
+		final int number = tableNumber(id);
+		if (number == NO_NUMBER)
+			return otherIds.get(id);
+		final Object node = nodes[slot(number)];
+		return node instanceof NodeModel ? (NodeModel) node : null;
+	}
+
+	/** Tells whether the ID belongs to a registered node or is reserved. */
+	public boolean contains(String id) {
+		final int number = tableNumber(id);
+		return number == NO_NUMBER ? otherIds.containsKey(id) : contains(number);
+	}
+
+	boolean contains(int number) {
+		if (numbers == null)
+			return otherIds.containsKey(id(number));
+		return numbers[slot(number)] != NO_NUMBER;
+	}
+
+	/** Registers the node and returns the node registered before under the same ID. */
+	public NodeModel register(String id, NodeModel node) {
+		Objects.requireNonNull(node);
+		final int number = tableNumber(id);
+		if (number == NO_NUMBER) {
+			final boolean wasReserved = reservesUnregisteredIds && otherIds.containsKey(id) && otherIds.get(id) == null;
+			final NodeModel old = otherIds.put(id, node);
+			if (wasReserved)
+				reservedIds--;
+			if (old == null)
+				registeredNodes++;
+			return old;
+		}
+		int slot = slot(number);
+		if (numbers[slot] == NO_NUMBER) {
+			if (2 * (usedSlots + 1) > numbers.length) {
+				rehash(2 * numbers.length, true);
+				slot = slot(number);
+			}
+			numbers[slot] = number;
+			usedSlots++;
+		}
+		final Object old = nodes[slot];
+		nodes[slot] = node;
+		if (old == RESERVED)
+			reservedIds--;
+		if (!(old instanceof NodeModel))
+			registeredNodes++;
+		return old instanceof NodeModel ? (NodeModel) old : null;
+	}
+
+	public void unregister(String id) {
+		final int number = tableNumber(id);
+		if (number == NO_NUMBER) {
+			if (reservesUnregisteredIds) {
+				if (otherIds.containsKey(id) && otherIds.put(id, null) != null) {
+					registeredNodes--;
+					reservedIds++;
+				}
+			}
+			else if (otherIds.remove(id) != null)
+				registeredNodes--;
+		}
+		else {
+			final int slot = slot(number);
+			if (nodes[slot] instanceof NodeModel) {
+				nodes[slot] = RESERVED;
+				registeredNodes--;
+				reservedIds++;
+			}
+		}
+		if (reservedIds > Math.max(registeredNodes, COMPACTION_THRESHOLD))
+			compact();
+	}
+
+	/** Drops the reserved IDs of unregistered nodes. */
+	public void compact() {
+		if (reservedIds == 0)
+			return;
+		otherIds.values().removeIf(Objects::isNull);
+		if (numbers != null)
+			rehash(capacityFor(registeredNodes - otherIds.size()), false);
+		reservedIds = 0;
+	}
+
+	private static int capacityFor(int size) {
+		int capacity = INITIAL_CAPACITY;
+		while (capacity < 2 * size)
+			capacity *= 2;
+		return capacity;
+	}
+
+	private void rehash(int capacity, boolean keepsReservedIds) {
+		final int[] oldNumbers = numbers;
+		final Object[] oldNodes = nodes;
+		allocate(capacity);
+		usedSlots = 0;
+		for (int i = 0; i < oldNumbers.length; i++) {
+			final Object node = oldNodes[i];
+			if (node instanceof NodeModel || node == RESERVED && keepsReservedIds) {
+				final int slot = slot(oldNumbers[i]);
+				numbers[slot] = oldNumbers[i];
+				nodes[slot] = node;
+				usedSlots++;
+			}
+		}
+	}
+
+	/** Number of registered nodes. */
+	public int size() {
+		return numbers != null ? registeredNodes : otherIds.size();
+	}
+
+	/** Number of reserved IDs of unregistered nodes. */
+	public int reservedIdCount() {
+		return reservedIds;
+	}
+}
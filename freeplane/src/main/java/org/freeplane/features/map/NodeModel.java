@@ -22,6 +22,7 @@ package org.freeplane.features.map;
 import static org.freeplane.features.map.NodeModel.CloneType.CONTENT;
 import static org.freeplane.features.map.NodeModel.CloneType.TREE;
 
+import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -29,13 +30,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.freeplane.api.ChildrenSides;
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.io.ITreeWriter;
 import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.features.filter.Filter;
 import org.freeplane.features.icon.NamedIcon;
@@ -67,6 +68,7 @@ public class NodeModel{
 	final static int CONTENT_CLONE_INDEX = CloneType.CONTENT.ordinal();
 
 	private static final boolean ALLOWSCHILDREN = true;
+	private static final int NO_ORDINAL = -1;
 	public static final String NODE_TEXT = "node_text";
 	public static final String NOTE_TEXT = "note_text";
 	static public final Object UNKNOWN_PROPERTY = NodeProperty.UNKNOWN_PROPERTY;
@@ -74,7 +76,7 @@ public class NodeModel{
 	public static final String NODE_ICON_SIZE = "icon_size";
 	static public final Object HYPERLINK_CHANGED = "hyperlink_changed";
 
-	private List<NodeModel> children;
+	private List<NodeModel> children = Collections.emptyList();
 	private NodeModel parent;
 	private String id;
 	private MapModel map = null;
@@ -82,14 +84,86 @@ public class NodeModel{
 	private Collection<INodeView> views = null;
 
 	private SharedNodeData sharedData;
+	/** Only cloned nodes store their clone lists, other nodes create them on demand from the attached flags. */
 	private Clones[] clones;
+	private byte attachedCloneTypes;
+	private int ordinal = NO_ORDINAL;
 
 	void setClones(Clones clones) {
-		this.clones[clones.getCloneType().ordinal()] = clones;
+		putClones(clones);
 		for(NodeModel clone : clones)
 			clone.fireNodeChanged(new NodeChangeEvent(this, NodeModel.UNKNOWN_PROPERTY, null, null, false, false));
 	}
 
+	private void putClones(Clones clones) {
+		final int cloneIndex = clones.getCloneType().ordinal();
+		final int cloneTypeBit = 1 << cloneIndex;
+		if (clones.size() != 0)
+			attachedCloneTypes |= cloneTypeBit;
+		else
+			attachedCloneTypes &= ~cloneTypeBit;
+		if (clones instanceof SingleNodeList && clones.head() == this
+		        || clones instanceof DetachedNodeList && ((DetachedNodeList) clones).isUnclonedNode(this)) {
+			if (this.clones != null) {
+				this.clones[cloneIndex] = null;
+				if (this.clones[1 - cloneIndex] == null)
+					this.clones = null;
+			}
+		}
+		else {
+			if (this.clones == null)
+				this.clones = new Clones[CloneType.values().length];
+			this.clones[cloneIndex] = clones;
+		}
+	}
+
+	private Clones storedClones(int cloneIndex) {
+		return clones == null ? null : clones[cloneIndex];
+	}
+
+	private boolean isAttachedAs(int cloneIndex) {
+		return (attachedCloneTypes & (1 << cloneIndex)) != 0;
+	}
+
+	private int cloneCount(int cloneIndex) {
+		final Clones storedClones = storedClones(cloneIndex);
+		if (storedClones != null)
+			return storedClones.size();
+		return isAttachedAs(cloneIndex) ? 1 : 0;
+	}
+
+	/**
+	 * Small number identifying the node among the attached nodes of its map,
+	 * so that per node data can be kept in arrays.
+	 * Detached nodes have no ordinal and return a negative number.
+	 * Ordinals change when the map compacts them, see {@link MapModel#compactNodeOrdinals()}.
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	private void assignOrdinal() {
+		if (ordinal == NO_ORDINAL && map != null)
+			ordinal = map.createNodeOrdinal();
+	}
+
+	private void releaseOrdinal() {
+		if (ordinal != NO_ORDINAL) {
+			map.releaseNodeOrdinal();
+			ordinal = NO_ORDINAL;
+		}
+	}
+
+	/** Numbers the attached nodes of the parsed subtree starting with the given ordinal, returns the next free one. */
+	int renumberOrdinals(int nextOrdinal, int[] newOrdinals) {
+		if (ordinal != NO_ORDINAL && ordinal < newOrdinals.length)
+			newOrdinals[ordinal] = nextOrdinal;
+		ordinal = nextOrdinal++;
+		for (final NodeModel child : loadedChildren())
+			nextOrdinal = child.renumberOrdinals(nextOrdinal, newOrdinals);
+		return nextOrdinal;
+	}
+
 	public Object getUserObject() {
 		return sharedData.getUserObject();
 	}
@@ -100,24 +174,25 @@ public class NodeModel{
 
 	public NodeModel(final Object userObject, final MapModel map) {
 		this.map = map;
-		children = new ArrayList<NodeModel>();
 		sharedData = new SharedNodeData();
 		side = Side.DEFAULT;
 		init(userObject);
-		clones = new Clones[]{new DetachedNodeList(this, TREE), new DetachedNodeList(this, CONTENT)};
 	}
 
 	private NodeModel(NodeModel toBeCloned, CloneType cloneType){
 		this.map = toBeCloned.map;
 		this.sharedData = toBeCloned.sharedData;
-		children = new ArrayList<NodeModel>();
-		clones = new Clones[]{new DetachedNodeList(this, cloneType == TREE ? toBeCloned : this, TREE), new DetachedNodeList(this, toBeCloned, CONTENT)};
+		if(cloneType == TREE)
+			putClones(new DetachedNodeList(this, toBeCloned, TREE));
+		putClones(new DetachedNodeList(this, toBeCloned, CONTENT));
 		side = Side.DEFAULT;
 	}
 
 	protected void init(final Object userObject) {
 		setUserObject(userObject);
-		setHistoryInformation(new HistoryInformationModel());
+		final long now = System.currentTimeMillis();
+		setCreatedAtMillis(now);
+		setLastModifiedAtMillis(now);
 	}
 
 	public void acceptViewVisitor(final INodeViewVisitor visitor) {
@@ -154,7 +229,10 @@ public class NodeModel{
 	}
 
 	public void addViewer(final INodeView viewer) {
-		getViewers().add(viewer);
+		if (views == null) {
+			views = new ArrayList<INodeView>(1);
+		}
+		views.add(viewer);
 	}
 
 	public boolean areViewsEmpty() {
@@ -169,6 +247,41 @@ public class NodeModel{
 		this.children = chidren;
 	}
 
+	/** Leaves share an immutable empty list, the list is allocated when the first child is added. */
+	protected List<NodeModel> getModifiableChildrenInternal() {
+		if (children == Collections.<NodeModel>emptyList()) {
+			children = new ArrayList<NodeModel>();
+		}
+		return children;
+	}
+
+	/** Children parsed later are attached when they are inserted. */
+	private List<NodeModel> loadedChildren() {
+		return children instanceof LazyChildNodes ? ((LazyChildNodes) children).loadedChildren() : children;
+	}
+
+	/** Returns the children parsed so far without parsing children kept as xml by a folded node. */
+	public List<NodeModel> getParsedChildren() {
+		return Collections.unmodifiableList(loadedChildren());
+	}
+
+	/** Returns the size of the xml kept for children which are not parsed yet. */
+	public long getUnparsedChildrenSize() {
+		return children instanceof LazyChildNodes ? ((LazyChildNodes) children).unparsedSize() : 0;
+	}
+
+	void addUnparsedChild(final MapReader mapReader, final String xml) {
+		if (!(children instanceof LazyChildNodes)) {
+			final LazyChildNodes lazyChildNodes = new LazyChildNodes(this, mapReader, getModifiableChildrenInternal());
+			children = lazyChildNodes;
+		}
+		((LazyChildNodes) children).addUnparsedChild(xml);
+	}
+
+	boolean writeUnparsedChildren(final ITreeWriter writer) throws IOException {
+		return children instanceof LazyChildNodes && ((LazyChildNodes) children).writeUnparsedChildren(writer);
+	}
+
 	public Enumeration<NodeModel> children() {
 		final Iterator<NodeModel> i = getChildrenInternal().iterator();
 		return new Enumeration<NodeModel>() {
@@ -216,7 +329,13 @@ public class NodeModel{
 
 	void fireNodeChanged(INodeChangeListener[] nodeChangeListeners, final NodeChangeEvent nodeChangeEvent) {
 	    AccessController.doPrivileged( (PrivilegedAction<Void>) () -> {
-	        for(NodeModel node : clones[CONTENT.ordinal()]){
+	        final Clones contentClones = storedClones(CONTENT_CLONE_INDEX);
+	        if (contentClones == null) {
+	            if (isAttachedAs(CONTENT_CLONE_INDEX))
+	                fireSingleNodeChanged(nodeChangeListeners, nodeChangeEvent.forNode(this));
+	            return null;
+	        }
+	        for(NodeModel node : contentClones){
 	            final NodeChangeEvent cloneEvent = nodeChangeEvent.forNode(node);
 	            node.fireSingleNodeChanged(nodeChangeListeners, cloneEvent);
 	        }
@@ -224,6 +343,19 @@ public class NodeModel{
 	    });
 	}
 
+	/** Adds the event for this node or for all its content clones. */
+	void addClonedNodeChangeEvents(List<NodeChangeEvent> events, final NodeChangeEvent nodeChangeEvent) {
+		final Clones contentClones = storedClones(CONTENT_CLONE_INDEX);
+		if (contentClones == null) {
+			if (isAttachedAs(CONTENT_CLONE_INDEX))
+				events.add(nodeChangeEvent.forNode(this));
+			return;
+		}
+		for (NodeModel node : contentClones) {
+			events.add(nodeChangeEvent.forNode(node));
+		}
+	}
+
 	private void fireSingleNodeChanged(INodeChangeListener[] nodeChangeListeners, final NodeChangeEvent nodeChangeEvent) {
 		for (final INodeChangeListener listener : nodeChangeListeners) {
 			listener.nodeChanged(nodeChangeEvent);
@@ -244,6 +376,16 @@ public class NodeModel{
 	    });
 	}
 
+	/** Updates the views of this node once for all changes of a node change transaction. */
+	void fireNodesChanged(final List<NodeChangeEvent> nodeChangeEvents) {
+	    if (views == null) {
+	        return;
+	    }
+	    for (final INodeView view : new ArrayList<>(views)) {
+	        view.nodesChanged(nodeChangeEvents);
+	    }
+	}
+
 	static void fireNodeMoved(IMapChangeListener[] list, NodeMoveEvent nodeMoveEvent) {
 	    AccessController.doPrivileged( (PrivilegedAction<Void>) () -> {
 	        NodeDeletionEvent nodeDeletionEvent = new NodeDeletionEvent(nodeMoveEvent.oldParent, nodeMoveEvent.child, nodeMoveEvent.oldIndex);
@@ -311,10 +453,32 @@ public class NodeModel{
 		return getExtensionContainer().getExtensions();
 	}
 
+	/** Returns a new view of the creation and modification times, they are kept as primitive fields. */
 	public HistoryInformationModel getHistoryInformation() {
 		return sharedData.getHistoryInformation();
 	}
 
+	public long getCreatedAtMillis() {
+		return sharedData.getCreatedAtMillis();
+	}
+
+	public void setCreatedAtMillis(final long createdAt) {
+		sharedData.setCreatedAtMillis(createdAt);
+	}
+
+	public long getLastModifiedAtMillis() {
+		return sharedData.getLastModifiedAtMillis();
+	}
+
+	public void setLastModifiedAtMillis(final long lastModifiedAt) {
+		sharedData.setLastModifiedAtMillis(lastModifiedAt);
+	}
+
+	/** Tells whether creation or modification time are known. */
+	public boolean hasHistoryInformation() {
+		return getCreatedAtMillis() != 0 || getLastModifiedAtMillis() != 0;
+	}
+
 	public NamedIcon getIcon(final int position) {
 		return getIconModel().getIcon(position);
 	}
@@ -379,7 +543,7 @@ public class NodeModel{
 
 	public Collection<INodeView> getViewers() {
 		if (views == null) {
-			views = new LinkedList<INodeView>();
+			return Collections.emptyList();
 		}
 		return views;
 	}
@@ -395,7 +559,8 @@ public class NodeModel{
 	}
 
 	public boolean hasChildren() {
-		return getChildCount() != 0;
+		final List<NodeModel> children = getChildrenInternal();
+		return children != null && !children.isEmpty();
 	}
 
 	public boolean hasID() {
@@ -405,11 +570,8 @@ public class NodeModel{
 	public void insert(final NodeModel child, int index) {
 		if (index < 0) {
 			index = getChildCount();
-			children.add(index, child);
-		}
-		else {
-			children.add(index, child);
 		}
+		getModifiableChildrenInternal().add(index, child);
 		child.setParent(this);
 	}
 
@@ -442,7 +604,7 @@ public class NodeModel{
 	 * Notes
 	 */
 	public boolean isLeaf() {
-		return getChildCount() == 0;
+		return !hasChildren();
 	}
 
 	public boolean isTopOrLeft(NodeModel root) {
@@ -540,7 +702,9 @@ public class NodeModel{
 	}
 
 	public void removeViewer(final INodeView viewer) {
-		getViewers().remove(viewer);
+		if (views != null && views.remove(viewer) && views.isEmpty()) {
+			views = null;
+		}
 	}
 
 	public void setFolded(boolean folded) {
@@ -564,7 +728,7 @@ public class NodeModel{
 
 	public void setSide(Side side) {
 		if(isCloneTreeNode()) {
-			for(NodeModel node : clones[TREE.ordinal()]){
+			for(NodeModel node : clones(TREE)){
 				node.side = side;
 			}
 		}
@@ -581,7 +745,12 @@ public class NodeModel{
 	/**
 	 */
 	public void setMap(final MapModel map) {
-		this.map = map;
+		if (this.map != map) {
+			releaseOrdinal();
+			this.map = map;
+			if (isAttached())
+				assignOrdinal();
+		}
 		for (final NodeModel child : children) {
 			child.setMap(map);
 		}
@@ -598,29 +767,31 @@ public class NodeModel{
 
 	void attach() {
 		attachClones();
-		for(NodeModel child : children)
+		assignOrdinal();
+		for(NodeModel child : loadedChildren())
 			child.attach();
 	}
 
 	private void attachClones() {
-		for(Clones clonesGroup : clones)
-			clonesGroup.attach();
+		for(CloneType cloneType : CloneType.values())
+			clones(cloneType).attach();
 	}
 
 	private void detach() {
 		detachClones();
-		for(NodeModel child : children)
+		releaseOrdinal();
+		for(NodeModel child : loadedChildren())
 			child.detach();
 	}
 
 	private void detachClones() {
-		for(Clones clonesGroup : clones)
-			clonesGroup.detach(this);
+		for(CloneType cloneType : CloneType.values())
+			clones(cloneType).detach(this);
 	}
 
 
 	boolean isAttached() {
-		return clones[0].size() != 0;
+		return isAttachedAs(TREE_CLONE_INDEX);
 	}
 
 	public final void setText(final String text) {
@@ -695,8 +866,8 @@ public class NodeModel{
 	public void convertToClone(NodeModel node, CloneType cloneType) {
 		sharedData = node.sharedData;
 		if(cloneType == TREE)
-			this.clones[TREE.ordinal()] = new DetachedNodeList(this, node, TREE);
-		this.clones[CONTENT.ordinal()] = new DetachedNodeList(this, node, CONTENT);
+			putClones(new DetachedNodeList(this, node, TREE));
+		putClones(new DetachedNodeList(this, node, CONTENT));
 	}
 
 	public  Clones subtreeClones() {
@@ -708,7 +879,10 @@ public class NodeModel{
 	}
 
 	Clones clones(final CloneType cloneType) {
-		return clones[cloneType.ordinal()];
+		final Clones storedClones = storedClones(cloneType.ordinal());
+		if (storedClones != null)
+			return storedClones;
+		return isAttachedAs(cloneType.ordinal()) ? new SingleNodeList(this, cloneType) : new DetachedNodeList(this, cloneType);
 	}
 
 	public boolean subtreeContainsCloneOf(NodeModel node) {
@@ -738,16 +912,16 @@ public class NodeModel{
 	}
 
 	public boolean isCloneTreeRoot(){
-		return parent != null && parent.clones[TREE_CLONE_INDEX].size() < clones[TREE_CLONE_INDEX].size()
-				|| clones[TREE_CLONE_INDEX].size() == 1 && clones[CONTENT_CLONE_INDEX].size() > 1;
+		return parent != null && parent.cloneCount(TREE_CLONE_INDEX) < cloneCount(TREE_CLONE_INDEX)
+				|| cloneCount(TREE_CLONE_INDEX) == 1 && cloneCount(CONTENT_CLONE_INDEX) > 1;
 	}
 
 	public boolean isCloneTreeNode(){
-		return parent != null && clones[TREE_CLONE_INDEX].size() > 1 && parent.clones[TREE_CLONE_INDEX].size() == clones[TREE_CLONE_INDEX].size();
+		return parent != null && cloneCount(TREE_CLONE_INDEX) > 1 && parent.cloneCount(TREE_CLONE_INDEX) == cloneCount(TREE_CLONE_INDEX);
 	}
 
 	public boolean isCloneNode() {
-		return clones[TREE_CLONE_INDEX].size() > 1 || clones[CONTENT_CLONE_INDEX].size() > 1;
+		return cloneCount(TREE_CLONE_INDEX) > 1 || cloneCount(CONTENT_CLONE_INDEX) > 1;
 	}
 
 	public int nextNodeIndex(NodeModel root, int index, final boolean leftSide) {
@@ -783,12 +957,11 @@ public class NodeModel{
 		SharedNodeData sharedDataSwap = sharedData;
 		this.sharedData = duplicate.sharedData;
 		duplicate.sharedData = sharedDataSwap;
-		Clones[] clonesSwap = clones;
-		this.clones = duplicate.clones;
-		duplicate.clones = clonesSwap;
 		for(CloneType cloneType : CloneType.values()) {
-			final DetachedNodeList detachedClone = (DetachedNodeList) clones[cloneType.ordinal()];
-			clones[cloneType.ordinal()] = detachedClone.forClone(this);
+			final DetachedNodeList detachedClone = (DetachedNodeList) duplicate.clones(cloneType);
+			final Clones clonesSwap = clones(cloneType);
+			duplicate.putClones(((DetachedNodeList) clonesSwap).forClone(duplicate));
+			putClones(detachedClone.forClone(this));
 		}
 
 		this.attachClones();
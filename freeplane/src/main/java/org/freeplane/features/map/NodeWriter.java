@@ -29,7 +29,6 @@ import org.freeplane.core.io.IAttributeWriter;
 import org.freeplane.core.io.IElementWriter;
 import org.freeplane.core.io.ITreeWriter;
 import org.freeplane.core.io.WriteManager;
-import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.features.filter.FilterController;
 import org.freeplane.features.icon.IconController;
@@ -135,13 +134,11 @@ public class NodeWriter implements IElementWriter, IAttributeWriter {
 		}
 		if(! isNodeAlreadyWritten){
 			if (!mode.equals(Mode.STYLE)
-					&& node.getHistoryInformation() != null
 					&& ResourceController.getResourceController().getBooleanProperty(
 						NodeBuilder.RESOURCES_SAVE_MODIFICATION_TIMES)) {
-				writer.addAttribute(NodeBuilder.XML_NODE_HISTORY_CREATED_AT, TreeXmlWriter.dateToString(node
-					.getHistoryInformation().getCreatedAt()));
-				writer.addAttribute(NodeBuilder.XML_NODE_HISTORY_LAST_MODIFIED_AT, TreeXmlWriter.dateToString(node
-					.getHistoryInformation().getLastModifiedAt()));
+				writer.addAttribute(NodeBuilder.XML_NODE_HISTORY_CREATED_AT, Long.toString(node.getCreatedAtMillis()));
+				writer.addAttribute(NodeBuilder.XML_NODE_HISTORY_LAST_MODIFIED_AT,
+				    Long.toString(node.getLastModifiedAtMillis()));
 			}
 		}
 		if(! isNodeAlreadyWritten || Mode.EXPORT.equals(mode)) {
@@ -197,8 +194,10 @@ public class NodeWriter implements IElementWriter, IAttributeWriter {
 				writer.addElement(null, xmlNode.getChildAtIndex(i));
 			}
 		}
-		if (mayWriteChildren && shouldWriteChildren && node.getChildren().size()>0) {
-			saveChildren(writer, node);
+		if (mayWriteChildren && shouldWriteChildren && node.hasChildren()) {
+			if (copiedNodeSet != CopiedNodeSet.ALL_NODES || !Mode.FILE.equals(mode(writer))
+			        || !node.writeUnparsedChildren(writer))
+				saveChildren(writer, node);
 		}
 	}
 
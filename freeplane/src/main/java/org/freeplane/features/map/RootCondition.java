@@ -15,6 +15,16 @@ public class RootCondition extends ASelectableCondition {
 		return node.isRoot();
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	public static ASelectableCondition load(XMLElement element) {
 	    return new RootCondition();
     }
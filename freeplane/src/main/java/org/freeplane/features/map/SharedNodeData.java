@@ -19,6 +19,8 @@
  */
 package org.freeplane.features.map;
 
+import java.util.Date;
+
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.SmallExtensionMap;
 import org.freeplane.core.util.HtmlUtils;
@@ -28,8 +30,41 @@ import org.freeplane.features.text.RichTextModel;
  * @author  Dimitry Polivaev 05.02.2014
  */
 public class SharedNodeData {
+	/** Reads and writes the times kept as primitive fields of the node data. */
+	private class SharedHistoryInformation extends HistoryInformationModel {
+		SharedHistoryInformation() {
+			super(0, 0);
+		}
+
+		@Override
+		public Date getCreatedAt() {
+			return new Date(SharedNodeData.this.createdAt);
+		}
+
+		@Override
+		public Date getLastModifiedAt() {
+			return new Date(SharedNodeData.this.lastModifiedAt);
+		}
+
+		@Override
+		public void setCreatedAt(final Date createdAt) {
+			SharedNodeData.this.createdAt = createdAt.getTime();
+		}
+
+		@Override
+		public void setLastModifiedAt(final Date lastModifiedAt) {
+			SharedNodeData.this.lastModifiedAt = lastModifiedAt.getTime();
+		}
+
+		@Override
+		public boolean isSet() {
+			return SharedNodeData.this.createdAt != 0 || SharedNodeData.this.lastModifiedAt != 0;
+		}
+	}
+
 	final private ExtensionContainer extensionContainer;
-	private HistoryInformationModel historyInformation;
+	private long createdAt;
+	private long lastModifiedAt;
 	final private NodeIconSetModel icons;
 	private Object userObject;
 	private String xmlText;
@@ -45,12 +80,30 @@ public class SharedNodeData {
 		return extensionContainer;
 	}
 
+	/** Returns a view of the times, prefer the primitive accessors in loops over nodes. */
 	public HistoryInformationModel getHistoryInformation() {
-		return historyInformation;
+		return new SharedHistoryInformation();
+	}
+
+	public long getCreatedAtMillis() {
+		return createdAt;
+	}
+
+	public void setCreatedAtMillis(long createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public long getLastModifiedAtMillis() {
+		return lastModifiedAt;
+	}
+
+	public void setLastModifiedAtMillis(long lastModifiedAt) {
+		this.lastModifiedAt = lastModifiedAt;
 	}
 
 	public void setHistoryInformation(HistoryInformationModel historyInformation) {
-		this.historyInformation = historyInformation;
+		createdAt = historyInformation.getCreatedAt().getTime();
+		lastModifiedAt = historyInformation.getLastModifiedAt().getTime();
 	}
 
 	public NodeIconSetModel getIcons() {
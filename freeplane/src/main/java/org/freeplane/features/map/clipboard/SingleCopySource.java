@@ -165,6 +165,16 @@ class SingleCopySource extends NodeModel {
 	    return delegate.getHistoryInformation();
     }
 
+	@Override
+    public long getCreatedAtMillis() {
+	    return delegate.getCreatedAtMillis();
+    }
+
+	@Override
+    public long getLastModifiedAtMillis() {
+	    return delegate.getLastModifiedAtMillis();
+    }
+
 	@Override
     public NamedIcon getIcon(int position) {
 	    return delegate.getIcon(position);
@@ -303,6 +313,16 @@ class SingleCopySource extends NodeModel {
 		throw new RuntimeException(METHOD_NOT_SUPPORTED);
     }
 
+	@Override
+    public void setCreatedAtMillis(long createdAt) {
+		throw new RuntimeException(METHOD_NOT_SUPPORTED);
+    }
+
+	@Override
+    public void setLastModifiedAtMillis(long lastModifiedAt) {
+		throw new RuntimeException(METHOD_NOT_SUPPORTED);
+    }
+
 	@Override
     public void setID(String value) {
 		throw new RuntimeException(METHOD_NOT_SUPPORTED);
@@ -45,6 +45,11 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 import org.freeplane.api.LengthUnit;
@@ -55,6 +60,7 @@ import org.freeplane.core.ui.AFreeplaneAction;
 import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.ui.menubuilders.generic.UserRole;
 import org.freeplane.core.undo.IActor;
+import org.freeplane.core.util.Compat;
 import org.freeplane.core.util.ConfigurationUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
@@ -115,6 +121,7 @@ public class MMapController extends MapController {
     public static final int NEW_SIBLING_BEFORE = 4;
     public static final int NEW_SIBLING_BEHIND = 3;
     public static final String RESOURCES_CONVERT_TO_CURRENT_VERSION = "convert_to_current_version";
+    private static final long ESTIMATED_NODE_SIZE = 1024;
 
     public MMapController(ModeController modeController) {
         super(modeController);
@@ -355,6 +362,7 @@ public class MMapController extends MapController {
 
     private void insertSingleNewNode(final NodeModel newNode, final NodeModel parent, final int index) {
         final MapModel map = parent.getMap();
+        final long estimatedSubtreeSize = estimateSubtreeSize(newNode);
         final IActor actor = new IActor() {
             @Override
             public void act() {
@@ -366,6 +374,11 @@ public class MMapController extends MapController {
                 return "addNewNode";
             }
 
+            @Override
+            public long getEstimatedSize() {
+                return estimatedSubtreeSize;
+            }
+
             @Override
             public void undo() {
                 deleteWithoutUndo(parent, index);
@@ -473,6 +486,7 @@ public class MMapController extends MapController {
 
     private void deleteSingleNode(final NodeModel parentNode, final int index) {
         final NodeModel node = parentNode.getChildAt(index);
+        final long estimatedSubtreeSize = estimateSubtreeSize(node);
         final IActor actor = new IActor() {
             @Override
             public void act() {
@@ -484,6 +498,11 @@ public class MMapController extends MapController {
                 return "delete";
             }
 
+            @Override
+            public long getEstimatedSize() {
+                return estimatedSubtreeSize;
+            }
+
             @Override
             public void undo() {
                 insertNodeIntoWithoutUndo(node, parentNode, index);
@@ -492,6 +511,18 @@ public class MMapController extends MapController {
         Controller.getCurrentModeController().execute(actor, parentNode.getMap());
     }
 
+    /**
+     * Estimated heap size of a subtree which an undo history entry can keep alive after deletion.
+     * Children kept as xml are not parsed, they occupy the size of their xml.
+     */
+    private static long estimateSubtreeSize(final NodeModel node) {
+        long size = ESTIMATED_NODE_SIZE + node.getUnparsedChildrenSize();
+        for (final NodeModel child : node.getParsedChildren()) {
+            size += estimateSubtreeSize(child);
+        }
+        return size;
+    }
+
     private void deleteWithoutUndo(final NodeModel parent, final int index) {
         final NodeModel child = parent.getChildAt(index);
         final NodeDeletionEvent nodeDeletionEvent = new NodeDeletionEvent(parent, child, index);
@@ -1030,6 +1061,62 @@ public class MMapController extends MapController {
         return new MapLoader(getMModeController()).load(url).getMap();
     }
 
+    /**
+     * Parses the maps concurrently and registers them like maps read without a view,
+     * so that opening them later only creates their views.
+     * Maps which can not be loaded without asking the user are skipped and left for the usual loading.
+     *
+     * @return the loaded maps, they are only weakly referenced until their views are created
+     */
+    public List<MMapModel> preloadMaps(List<URL> urls) {
+        final MFileManager fileManager = MFileManager.getController(getMModeController());
+        final int threadCount = Math.max(1, Math.min(urls.size(), Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = defaultThreadFactory.newThread(r);
+                thread.setName("map preloader " + thread.getName());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final List<Future<MMapModel>> parsedMaps = new ArrayList<>(urls.size());
+            for (final URL url : urls) {
+                final File file = Compat.urlToFile(url);
+                if (file == null || !file.canRead() || getMap(url) != null)
+                    continue;
+                final MMapModel map = new MMapModel(duplicator());
+                parsedMaps.add(executor.submit(() -> fileManager.loadTreeWithoutInteraction(map, file) ? map : null));
+            }
+            final List<MMapModel> maps = new ArrayList<>(parsedMaps.size());
+            for (final Future<MMapModel> parsedMap : parsedMaps) {
+                final MMapModel map;
+                try {
+                    map = parsedMap.get();
+                }
+                catch (ExecutionException e) {
+                    LogUtils.severe(e);
+                    continue;
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+                if (map == null)
+                    continue;
+                map.setSaved(true);
+                addLoadedMap(map);
+                fireMapCreated(map);
+                maps.add(map);
+            }
+            return maps;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**@throws XMLException
      * @deprecated -- use MMapIO*/
     @Deprecated
@@ -1112,9 +1199,22 @@ public class MMapController extends MapController {
             return;
         controller.getViewController().setWaitingCursor(true);
         try{
-            map.releaseResources();
+            final MMapModel currentMap = (MMapModel) map;
+            final MFileManager fileManager = (MFileManager)MFileManager.getController();
+            currentMap.waitForPendingSave();
+            // the new map takes over the lock of the current map, which keeps it if loading fails
+            currentMap.getLockManager().release();
             final MMapModel newModel = new MMapModel(duplicator());
-            ((MFileManager)MFileManager.getController()).loadAndLock(alternativeURL, newModel);
+            boolean loaded = false;
+            try {
+                fileManager.loadAndLock(alternativeURL, newModel);
+                loaded = true;
+            }
+            finally {
+                if (!loaded && !currentMap.isReadOnly() && currentMap.getFile() != null)
+                    fileManager.lock(currentMap, currentMap.getFile());
+            }
+            map.releaseResources();
             newModel.setURL(url);
             newModel.setSaved(alternativeURL.equals(url));
             fireMapCreated(newModel);
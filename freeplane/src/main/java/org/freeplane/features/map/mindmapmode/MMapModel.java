@@ -22,6 +22,8 @@ package org.freeplane.features.map.mindmapmode;
 import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.Timer;
 
@@ -46,6 +48,7 @@ public class MMapModel extends MapModel {
 	private int titleNumber = 0;
 	private boolean autosaveEnabled;
     private long lastKnownModificationTime = UNKNOWN_MODIFICATION_TIME;
+    private Future<?> pendingSave = null;
 
 	/**
 	 * The current version and all other version that don't need XML update for
@@ -76,6 +79,8 @@ public class MMapModel extends MapModel {
     }
 
     public boolean hasExternalFileChanged() {
+        if (pendingSave != null)
+            return false;
         long fileModificationTime = getFileModificationTime();
         boolean hasTimeChanged = fileModificationTime != lastKnownModificationTime && fileModificationTime != UNKNOWN_MODIFICATION_TIME;
         if(hasTimeChanged)
@@ -108,6 +113,7 @@ public class MMapModel extends MapModel {
 	 */
 	@Override
 	public void releaseResources() {
+		waitForPendingSave();
 		getLockManager().release();
 		/* cancel the timer, if map is closed. */
 		if (getTimerForAutomaticSaving() != null) {
@@ -117,6 +123,35 @@ public class MMapModel extends MapModel {
 		super.releaseResources();
 	}
 
+	/** Called on the event dispatch thread when a save runs in background. */
+	public void setPendingSave(Future<?> save) {
+		pendingSave = save;
+	}
+
+	public Future<?> getPendingSave() {
+		return pendingSave;
+	}
+
+	public void removePendingSave(Future<?> save) {
+		if (pendingSave == save)
+			pendingSave = null;
+	}
+
+	public boolean isSavePending() {
+		return pendingSave != null;
+	}
+
+	public void waitForPendingSave() {
+		if (pendingSave == null)
+			return;
+		try {
+			pendingSave.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			// the saver reports its errors
+		}
+	}
+
 	public LockManager getLockManager() {
 		return lockManager;
 	}
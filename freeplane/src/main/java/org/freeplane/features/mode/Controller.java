@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -32,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
+import org.freeplane.core.extension.DenseExtensionMap;
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.core.resources.OptionPanelController;
@@ -76,7 +76,7 @@ public class Controller extends AController implements FreeplaneActions, IMapLif
 		mapLifeCycleListeners = new LinkedList<IMapLifeCycleListener>();
 		this.resourceController = resourceController;
 		this.optionPanelController = new OptionPanelController();
-		extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
+		extensionContainer = new ExtensionContainer(new DenseExtensionMap());
 
 		addAction(new MoveToRootAction());
 		Arrays.stream(NodePosition.values()).forEach(p -> addAction(new MoveSelectedNodeAction(p)));
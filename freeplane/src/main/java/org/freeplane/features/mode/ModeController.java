@@ -24,13 +24,13 @@ import java.awt.Component;
 import java.awt.Container;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+import org.freeplane.core.extension.DenseExtensionMap;
 import org.freeplane.core.extension.ExtensionContainer;
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.core.resources.ResourceController;
@@ -86,7 +86,7 @@ public class ModeController extends AController implements FreeplaneActions{
 	 */
 	public ModeController(final Controller controller) {
 		this.controller = controller;
-		extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
+		extensionContainer = new ExtensionContainer(new DenseExtensionMap());
 		copiers = new LinkedList<IExtensionCopier>();
         createActions();
 	}
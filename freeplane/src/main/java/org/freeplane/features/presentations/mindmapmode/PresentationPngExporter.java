@@ -5,7 +5,10 @@ import static org.freeplane.features.presentations.mindmapmode.PresentationAutom
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
@@ -14,8 +17,11 @@ import javax.swing.SwingUtilities;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.ui.AFreeplaneAction;
 import org.freeplane.core.util.FileUtils;
+import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.Hyperlink;
+import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.export.mindmapmode.ExportScheduler;
 import org.freeplane.features.export.mindmapmode.ExportToImage;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapModel;
@@ -125,6 +131,7 @@ class PresentationPngExporter {
 	private boolean spotlightEnabledForExport;
 	private final JComponent mapViewComponent;
 	private float presentationZoomFactor;
+	private final ExportToImage exporter = ExportToImage.toPNG();
 
 	private PresentationPngExporter(PresentationState presentationState, File exportDirectory) {
 		this.presentationState = presentationState;
@@ -138,9 +145,27 @@ class PresentationPngExporter {
 	private void exportAllPresentations() {
 		prepareExport();
 		NamedElementCollection<Presentation> presentations = presentationState.getPresentations();
+		final List<ExportScheduler.OutputPreparation> slideExports = new ArrayList<>();
 		for(int i = 0; i < presentations.getSize(); i++)
-	    	exportPresentation(presentations.getElement(i));
-		restorePreviousPresentation();
+	    	addSlideExports(presentations.getElement(i), slideExports);
+		exportSlides("ExportAllPresentationsAction.text", slideExports);
+	}
+
+	private void exportSlides(String titleKey, List<ExportScheduler.OutputPreparation> slideExports) {
+		try {
+			ExportScheduler.export(TextUtils.getText(titleKey), slideExports, exporter.getMaxPreparedImages(getSlideSize()));
+		}
+		catch (CancellationException e) {
+			return;
+		}
+		catch (Exception e) {
+			LogUtils.warn(e);
+			UITools.errorMessage(TextUtils.getText("export_failed"));
+			return;
+		}
+		finally {
+			restorePreviousPresentation();
+		}
 		UrlManager.getController().loadHyperlink(new Hyperlink(exportDirectory.toURI()));
 	}
 
@@ -165,9 +190,9 @@ class PresentationPngExporter {
 	private void exportSinglePresentation() {
 		prepareExport();
 		NamedElementCollection<Presentation> presentations = presentationState.getPresentations();
-		exportPresentation(presentations.getCurrentElement());
-		restorePreviousPresentation();
-		UrlManager.getController().loadHyperlink(new Hyperlink(exportDirectory.toURI()));
+		final List<ExportScheduler.OutputPreparation> slideExports = new ArrayList<>();
+		addSlideExports(presentations.getCurrentElement(), slideExports);
+		exportSlides("ExportPresentationAction.text", slideExports);
 	}
 
 	private void restorePreviousPresentation() {
@@ -183,7 +208,7 @@ class PresentationPngExporter {
 		selectionController.scrollNodeToVisible(selectionController.getSelected());
 	}
 
-	public void exportPresentation(Presentation p) {
+	private void addSlideExports(Presentation p, List<ExportScheduler.OutputPreparation> slideExports) {
 		final String validName = FileUtils.validFileNameOf(p.getName());
 		if(validName.isEmpty())
 			return;
@@ -195,11 +220,13 @@ class PresentationPngExporter {
 		if(! exportDirectory.isDirectory())
 			return;
 		NamedElementCollection<Slide> slides = p.slides;
-        for(int i = 0; i < slides.getSize(); i++)
-        	exportSlide(presentationDirectory, slides.getElement(i));
+        for(int i = 0; i < slides.getSize(); i++) {
+        	final Slide slide = slides.getElement(i);
+        	slideExports.add(() -> prepareSlideExport(presentationDirectory, slide));
+        }
 	}
 
-	private void exportSlide(File presentationDirectory, Slide slide) {
+	private ExportScheduler.OutputWriter prepareSlideExport(File presentationDirectory, Slide slide) throws IOException {
 		final NodeModel placedNode = slide.getCurrentPlacedNode();
 		if(placedNode != null)
 			slide.apply(presentationZoomFactor);
@@ -208,17 +235,18 @@ class PresentationPngExporter {
 		mapViewComponent.validate();
 		mapViewComponent.setSize(mapViewComponent.getPreferredSize());
 		File exportFile = new File(presentationDirectory, FileUtils.validFileNameOf(slide.getName()) + ".png");
-		final ExportToImage exporter = ExportToImage.toPNG();
 		final Controller controller = Controller.getCurrentController();
 		final MapModel map = controller.getMap();
-		if(placedNode != null) {
-			final Dimension slideSize;
-			if(ResourceController.getResourceController().getBooleanProperty(SWITCH_TO_FULL_SCREEN_PROPERTY))
-				slideSize = mapViewComponent.getGraphicsConfiguration().getBounds().getSize();
-			else
-				slideSize = SwingUtilities.getWindowAncestor(mapViewComponent).getSize();
-			exporter.export(map, slideSize, slide.getCurrentPlacedNode(), slide.getPlacedNodePosition(), exportFile);
-		} else
-			exporter.export(map, exportFile);
+		if(placedNode != null)
+			return exporter.prepareExport(map, getSlideSize(), slide.getCurrentPlacedNode(), slide.getPlacedNodePosition(), exportFile);
+		else
+			return exporter.prepareExport(map, null, null, null, exportFile);
+	}
+
+	private Dimension getSlideSize() {
+		if(ResourceController.getResourceController().getBooleanProperty(SWITCH_TO_FULL_SCREEN_PROPERTY))
+			return mapViewComponent.getGraphicsConfiguration().getBounds().getSize();
+		else
+			return SwingUtilities.getWindowAncestor(mapViewComponent).getSize();
 	}
 }
@@ -46,6 +46,7 @@ import org.freeplane.features.map.ITooltipProvider;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.NodeBuilder;
 import org.freeplane.features.map.NodeChangeEvent;
 import org.freeplane.features.map.NodeDeletionEvent;
@@ -195,10 +196,11 @@ public class LogicalStyleController implements IExtension {
 		ModeController modeController = Controller.getCurrentModeController();
 		final MapController mapController = modeController.getMapController();
 		final ReadManager readManager = mapController.getReadManager();
+		final MapReader mapReader = mapController.getMapReader();
 		readManager.addAttributeHandler(NodeBuilder.XML_NODE, "STYLE_REF", new IAttributeHandler() {
 			public void setAttribute(final Object node, final String value) {
 				final LogicalStyleModel extension = LogicalStyleModel.createExtension((NodeModel) node);
-				extension.setStyle(StyleFactory.create(value));
+				extension.setStyle(StyleFactory.create(mapReader.intern(value)));
 			}
 		});
 		readManager.addAttributeHandler(NodeBuilder.XML_NODE, "LOCALIZED_STYLE_REF", new IAttributeHandler() {
@@ -20,6 +20,7 @@
 package org.freeplane.features.text;
 
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.filter.NodeTextIndex;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.ConditionFactory;
@@ -61,10 +62,22 @@ public class NodeContainsCondition extends StringConditionAdapter implements Nod
 	}
 
 	public boolean checkNode(final NodeModel node) {
+		if (usesTextIndex() && !NodeTextIndex.mayContain(node, normalizedValue()))
+			return false;
 		final Object content[] = NodeTextConditionController.getItemsForComparison(nodeItem, node);
 		return checkText(content);
 	}
 
+	/** Node text can be computed by formulas. */
+	@Override
+	public boolean isThreadSafe() {
+		return NodeTextConditionController.isRawTextItem(nodeItem);
+	}
+
+	private boolean usesTextIndex() {
+		return !matchApproximately && !nodeItem.equals(TextController.FILTER_PARENT_TEXT);
+	}
+
 	private boolean checkText(Object content[]) {
 		for(Object o : content){
 			if(checkText(o))
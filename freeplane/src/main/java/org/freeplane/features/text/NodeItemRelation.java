@@ -8,4 +8,9 @@ public interface NodeItemRelation extends ICondition{
     default boolean checksParent() {
         return TextController.FILTER_PARENT_TEXT.equals(getNodeItem());
     }
+
+    @Override
+    default boolean checksNodeOnly() {
+        return ! checksParent();
+    }
 }
@@ -63,6 +63,12 @@ public class NodeMatchesRegexpCondition extends ASelectableCondition implements
 		return content != null && checkText(content);
 	}
 
+	/** Node text can be produced by formulas. */
+	@Override
+	public boolean isThreadSafe() {
+		return NodeTextConditionController.isRawTextItem(nodeItem);
+	}
+
 	private boolean checkText(Object content[]) {
 		for(Object o : content){
 			if(o != null && checkText(o.toString()))
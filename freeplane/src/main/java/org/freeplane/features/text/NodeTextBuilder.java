@@ -37,6 +37,7 @@ import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TypeReference;
 import org.freeplane.core.util.XmlUtils;
 import org.freeplane.features.format.IFormattedObject;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.NodeBuilder;
 import org.freeplane.features.map.NodeModel;
@@ -58,6 +59,11 @@ public class NodeTextBuilder implements IElementContentHandler, IElementWriter,
     public static final String XML_RICHCONTENT_CONTENT_TYPE_ATTRIBUTE = "CONTENT-TYPE";
     public static final String XML_NODE_OBJECT = "OBJECT";
 	private static final String XML_NODE_TEXT_SHORTENED = "TEXT_SHORTENED";
+	private final MapReader mapReader;
+
+	public NodeTextBuilder(final MapReader mapReader) {
+		this.mapReader = mapReader;
+	}
 
 	public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
 		if (attributes == null) {
@@ -107,7 +113,7 @@ public class NodeTextBuilder implements IElementContentHandler, IElementWriter,
 				final NodeModel node = ((NodeModel) userObject);
 				final Object nodeContent = node.getUserObject();
 				if(nodeContent == null || nodeContent.equals("")){
-					node.setText(value);
+					node.setText(mapReader.intern(value));
 				}
 			}
 		});
@@ -178,6 +178,11 @@ class NodeTextConditionController implements IElementaryConditionController {
 		return null;
 	}
 
+	/** Tells whether the compared item is taken from the node without text transformation. */
+	static boolean isRawTextItem(Object nodeItem) {
+		return nodeItem.equals(TextController.FILTER_DETAILS) || nodeItem.equals(TextController.FILTER_NOTE);
+	}
+
 	public static Object[] getItemsForComparison(Object nodeItem, final NodeModel node) {
 		if (nodeItem.equals(TextController.FILTER_ANYTEXT)) {
 			return new Object[] {
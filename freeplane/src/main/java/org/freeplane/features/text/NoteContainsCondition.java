@@ -21,6 +21,7 @@ package org.freeplane.features.text;
 
 import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.filter.NodeTextIndex;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.ConditionFactory;
@@ -56,7 +57,14 @@ public class NoteContainsCondition extends StringConditionAdapter {
 			StringMatchingStrategy.EXACT_STRING_MATCHING_STRATEGY;
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
 	public boolean checkNode(final NodeModel node) {
+		if (!matchApproximately && !NodeTextIndex.mayContain(node, normalizedValue()))
+			return false;
 		final String text = getText(node);
 		if (text == null) {
 			return false;
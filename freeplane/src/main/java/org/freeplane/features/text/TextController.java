@@ -22,6 +22,7 @@ package org.freeplane.features.text;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
+import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -113,7 +114,7 @@ public class TextController implements IExtension {
 		final MapController mapController = modeController.getMapController();
 		final ReadManager readManager = mapController.getReadManager();
 		final WriteManager writeManager = mapController.getWriteManager();
-		final NodeTextBuilder textBuilder = new NodeTextBuilder();
+		final NodeTextBuilder textBuilder = new NodeTextBuilder(mapController.getMapReader());
 		textBuilder.registerBy(readManager, writeManager);
 		writeManager.addExtensionElementWriter(DetailModel.class, textBuilder);
 		writeManager.addExtensionAttributeWriter(ShortenedTextModel.class, textBuilder);
@@ -191,6 +192,22 @@ public class TextController implements IExtension {
 		return false;
 	}
 
+	/** Tells whether the transformed content can change when other nodes change, like formulas and node links do. */
+	public boolean dependsOnOtherNodes(Object content) {
+		return content instanceof Hyperlink || content instanceof URI || isFormula(content);
+	}
+
+	/** Collects node text, details and note for the node text index. */
+	public static boolean collectIndexedTexts(final NodeModel node, List<String> texts) {
+		if (getController().dependsOnOtherNodes(node.getUserObject()))
+			return false;
+		for (Object item : NodeTextConditionController.getItemsForComparison(FILTER_ANYTEXT, node)) {
+			if (item != null)
+				texts.add(item.toString());
+		}
+		return true;
+	}
+
 	public Icon getIcon(Object object) {
 		if (object instanceof HighlightedTransformedObject) {
 			return getIcon(((HighlightedTransformedObject) object).getObject());
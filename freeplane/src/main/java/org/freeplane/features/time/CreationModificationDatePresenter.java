@@ -22,6 +22,7 @@ package org.freeplane.features.time;
 
 import java.awt.Component;
 import java.text.MessageFormat;
+import java.util.Date;
 
 import org.freeplane.core.resources.IFreeplanePropertyListener;
 import org.freeplane.core.resources.ResourceController;
@@ -46,7 +47,7 @@ public class CreationModificationDatePresenter {
 		modeController.addToolTipProvider(CREATION_TOOLTIP, new ITooltipProvider() {
 			@Override
 			public String getTooltip(ModeController modeController, NodeModel node, Component view) {
-				if (!(node.getHistoryInformation().isSet() && ResourceController.getResourceController()
+				if (!(node.hasHistoryInformation() && ResourceController.getResourceController()
 				    .getBooleanProperty(SHOW_CREATION_MODIFICATION_IN_TOOLTIP_PROPERTY)))
 					return null;
 				initTooltipFormat();
@@ -59,7 +60,7 @@ public class CreationModificationDatePresenter {
 		modeController.getMapController().addNodeSelectionListener(new INodeSelectionListener() {
 			@Override
 			public void onSelect(NodeModel node) {
-				if (!(node.getHistoryInformation().isSet() && ResourceController.getResourceController()
+				if (!(node.hasHistoryInformation() && ResourceController.getResourceController()
 				    .getBooleanProperty(SHOW_CREATION_MODIFICATION_IN_STATUS_PROPERTY)))
 					return;
 				showStatusInfo(node);
@@ -89,8 +90,8 @@ public class CreationModificationDatePresenter {
 	}
 
 	private Object[] getMessageArguments(NodeModel node) {
-		final Object[] messageArguments = { node.getHistoryInformation().getCreatedAt(),
-		        node.getHistoryInformation().getLastModifiedAt() };
+		final Object[] messageArguments = { new Date(node.getCreatedAtMillis()),
+		        new Date(node.getLastModifiedAtMillis()) };
 		return messageArguments;
 	}
 
@@ -60,6 +60,16 @@ public abstract class TimeCondition extends ASelectableCondition {
 		return date;
 	}
 
+	@Override
+	public boolean checksNodeOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	abstract protected String getName();
 
 
@@ -38,9 +38,8 @@ public class TimeConditionCreatedBefore extends TimeCondition {
 	}
 
 	public boolean checkNode(final NodeModel node) {
-		final Date createdAt = node.getHistoryInformation().getCreatedAt();
 		final Date filterDate = getDate();
-		final boolean before = createdAt.getTime() < filterDate.getTime();
+		final boolean before = node.getCreatedAtMillis() < filterDate.getTime();
 		return before;
 	}
 
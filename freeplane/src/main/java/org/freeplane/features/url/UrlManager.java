@@ -23,10 +23,10 @@ import static java.util.Arrays.asList;
 
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
@@ -37,6 +37,7 @@ import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileFilter;
@@ -56,12 +57,16 @@ import org.freeplane.features.map.DocuMapAttribute;
 import org.freeplane.features.map.IMapSelectionListener;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.url.mindmapmode.MFileManager;
 import org.freeplane.n3.nanoxml.XMLException;
 import org.freeplane.n3.nanoxml.XMLParseException;
+import org.freeplane.view.swing.features.progress.LoadingProgressDialog;
+import org.freeplane.view.swing.features.progress.ProgressInputStream;
 
 /**
  * @author Dimitry Polivaev
@@ -72,6 +77,8 @@ public class UrlManager implements IExtension {
 	public static final String FILE_SCHEME = "file";
 	public static final String FREEPLANE_FILE_EXTENSION_WITHOUT_DOT = "mm";
 	public static final String FREEPLANE_FILE_EXTENSION = "." + FREEPLANE_FILE_EXTENSION_WITHOUT_DOT;
+	public static final String FREEPLANE_BINARY_FILE_EXTENSION_WITHOUT_DOT = "mmb";
+	public static final String FREEPLANE_BINARY_FILE_EXTENSION = "." + FREEPLANE_BINARY_FILE_EXTENSION_WITHOUT_DOT;
 	public static final String FREEPLANE_ADD_ON_FILE_EXTENSION = ".addon." + FREEPLANE_FILE_EXTENSION_WITHOUT_DOT;
 	private File lastCurrentDir = null;
 	public static final String MAP_URL = "map_url";
@@ -228,6 +235,9 @@ public class UrlManager implements IExtension {
 		catch (final IOException ex) {
 			LogUtils.warn(ex);
 		}
+		catch (final CancellationException ex) {
+			return false;
+		}
 		catch (final RuntimeException ex) {
 			try {
 				final String urlString = url.toString();
@@ -241,13 +251,28 @@ public class UrlManager implements IExtension {
 	}
 
 
+	/**
+	 * Large maps are parsed on a worker thread showing a cancellable progress dialog,
+	 * so the map must not be visible until loading is complete.
+	 *
+	 * @throws CancellationException if the user has cancelled loading
+	 */
 	public void load(final URL url, final MapModel map)
 			throws IOException, XMLException {
 		setURL(map, url);
-		InputStream inputStream = getLocation(url).openStream();
-		try (InputStreamReader urlStreamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+		final URLConnection connection = getLocation(url).openConnection();
+		try (ProgressInputStream inputStream = new ProgressInputStream(new BufferedInputStream(connection.getInputStream()));
+				InputStreamReader urlStreamReader = new InputStreamReader(MFileManager.decompressed(inputStream), StandardCharsets.UTF_8)) {
 			final ModeController modeController = Controller.getCurrentModeController();
-			modeController.getMapController().getMapReader().createNodeTreeFromXml(map, urlStreamReader, Mode.FILE);
+			final MapReader mapReader = modeController.getMapController().getMapReader();
+			LoadingProgressDialog.load(TextUtils.format("loading_map", url), inputStream, connection.getContentLengthLong(),
+			    () -> mapReader.createNodeTreeFromXml(map, urlStreamReader, Mode.FILE));
+		}
+		catch (IOException | XMLException | RuntimeException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
 		}
 	}
 
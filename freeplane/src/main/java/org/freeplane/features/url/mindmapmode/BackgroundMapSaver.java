@@ -0,0 +1,200 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Writes map snapshots to their files on a background thread.
+ * Every file is first written to a temporary file in the same directory, synchronized to the disk
+ * and then renamed over the target, so that a crash never leaves a truncated map.
+ */
+class BackgroundMapSaver {
+	private static final String SAVE_STATUS = "save_pending";
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "map saver");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private int pendingSaveCount = 0;
+
+	/**
+	 * Writes the content in background if called on the event dispatch thread, otherwise on the calling thread.
+	 * The completion is called on the calling thread with the exception or null after the file has been written.
+	 *
+	 * @return false if the file has been written on the calling thread and writing has failed
+	 */
+	boolean save(final MMapModel map, final File file, final byte[] content, final Consumer<IOException> completion) {
+		if (GraphicsEnvironment.isHeadless() || !EventQueue.isDispatchThread()) {
+			try {
+				writeAtomically(file, content);
+				completion.accept(null);
+				return true;
+			}
+			catch (IOException e) {
+				completion.accept(e);
+				return false;
+			}
+		}
+		final SaveTask save = new SaveTask(map, file, content, completion);
+		map.setPendingSave(save);
+		if (pendingSaveCount++ == 0)
+			Controller.getCurrentController().getViewController().addStatusInfo(SAVE_STATUS,
+			    TextUtils.format("saving_map", file.getName()));
+		executor.execute(save);
+		return true;
+	}
+
+	/**
+	 * Waits for the last save of the map started on the event dispatch thread and calls its completion.
+	 *
+	 * @return false if writing the file has failed
+	 */
+	boolean finishPendingSave(final MMapModel map) {
+		final Future<?> save = map.getPendingSave();
+		return !(save instanceof SaveTask) || ((SaveTask) save).finish() == null;
+	}
+
+	private class SaveTask extends FutureTask<Void> {
+		private final MMapModel map;
+		private final Consumer<IOException> completion;
+		private boolean finished = false;
+
+		SaveTask(final MMapModel map, final File file, final byte[] content, final Consumer<IOException> completion) {
+			super(() -> {
+				writeAtomically(file, content);
+				return null;
+			});
+			this.map = map;
+			this.completion = completion;
+		}
+
+		@Override
+		protected void done() {
+			EventQueue.invokeLater(this::finish);
+		}
+
+		/** Waits for the file to be written, calls the completion once and returns the error or null. */
+		IOException finish() {
+			final IOException error = error();
+			if (!finished) {
+				finished = true;
+				if (--pendingSaveCount == 0)
+					Controller.getCurrentController().getViewController().removeStatus(SAVE_STATUS);
+				map.removePendingSave(this);
+				completion.accept(error);
+			}
+			return error;
+		}
+
+		private IOException error() {
+			try {
+				get();
+				return null;
+			}
+			catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+			}
+			catch (InterruptedException e) {
+				return new IOException(e);
+			}
+		}
+	}
+
+	static void writeAtomically(final File file, final byte[] content) throws IOException {
+		final Path target = file.exists() ? file.toPath().toRealPath() : file.toPath().toAbsolutePath();
+		final Path directory = target.getParent();
+		final Path temporaryFile = directory.resolve("." + target.getFileName() + "." + System.nanoTime() + ".tmp");
+		try {
+			Files.createFile(temporaryFile);
+		}
+		catch (IOException e) {
+			LogUtils.warn("can not create temporary file in " + directory + ", writing " + file + " directly");
+			write(target, content);
+			return;
+		}
+		try {
+			// the lock of the target is held until the rename, so no other process writes the replaced file in between
+			try (FileChannel targetChannel = Files.exists(target) ? FileChannel.open(target, StandardOpenOption.WRITE) : null) {
+				if (targetChannel != null) {
+					lock(targetChannel, file);
+					copyPermissions(target, temporaryFile);
+				}
+				write(temporaryFile, content);
+				try {
+					Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				}
+				catch (AtomicMoveNotSupportedException e) {
+					Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			syncDirectory(directory);
+		}
+		finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private static void write(final Path path, final byte[] content) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		    StandardOpenOption.TRUNCATE_EXISTING)) {
+			lock(channel, path.toFile());
+			final ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		}
+	}
+
+	private static void lock(final FileChannel channel, final File file) throws IOException {
+		final FileLock lock;
+		try {
+			lock = channel.tryLock();
+		}
+		catch (Exception e) {
+			LogUtils.warn(e.getMessage(), e);
+			return;
+		}
+		if (lock == null)
+			throw new IOException("can not obtain file lock for " + file);
+	}
+
+	private static void copyPermissions(final Path source, final Path target) {
+		try {
+			Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+		}
+		catch (UnsupportedOperationException | IOException e) {
+			// not a posix file system
+		}
+	}
+
+	private static void syncDirectory(final Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch (IOException e) {
+			// not supported on all platforms
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.net.URL;
 
 import javax.swing.Timer;
 
+import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.map.MapModel;
@@ -37,6 +38,8 @@ import org.freeplane.features.url.UrlManager;
 
 public class DoAutomaticSave implements ActionListener {
     static final String AUTOSAVE_EXTENSION = "autosave";
+    private static final String JOURNAL_PROPERTY = "automatic_save_to_journal";
+    private static final String JOURNAL_SIZE_LIMIT_PROPERTY = "automatic_save_journal_size_limit";
     /**
      * This value is compared with the result of
      * getNumberOfChangesSinceLastSave(). If the values coincide, no further
@@ -57,6 +60,8 @@ public class DoAutomaticSave implements ActionListener {
 
     @Override
     public void actionPerformed(ActionEvent e) {
+        if (((MMapModel) model).isSavePending())
+            return;
         /* Map is dirty enough? */
         if (model.getNumberOfChangesSinceLastSave() == changeState) {
             return;
@@ -66,6 +71,8 @@ public class DoAutomaticSave implements ActionListener {
             /* map was recently saved. */
             return;
         }
+        if (writeJournal())
+            return;
         Timer timer =  (Timer) e.getSource();
         timer.stop();
         try {
@@ -102,4 +109,28 @@ public class DoAutomaticSave implements ActionListener {
         }
     }
 
+    /**
+     * Appends the changes to the journal of the map file instead of writing the whole map.
+     * Returns false if no journal was written, so that the whole map is saved as a backup.
+     */
+    private boolean writeJournal() {
+        final ResourceController resourceController = ResourceController.getResourceController();
+        final File file = model.getFile();
+        final MapChangeJournal journal = MapChangeJournal.getJournal(model);
+        if (file == null || journal == null || !resourceController.getBooleanProperty(JOURNAL_PROPERTY))
+            return false;
+        try {
+            final long sizeLimit = resourceController.getIntProperty(JOURNAL_SIZE_LIMIT_PROPERTY, 0) * 1024L;
+            final File journalFile = journal.write(file, sizeLimit, filesShouldBeDeletedAfterShutdown);
+            Controller.getCurrentController().getViewController()
+                .out(TextUtils.format("automatically_save_message", journalFile));
+            return true;
+        }
+        catch (final Exception ex) {
+            LogUtils.severe("Error in automatic journal write: ", ex);
+            journal.saveFailed();
+            return false;
+        }
+    }
+
 }
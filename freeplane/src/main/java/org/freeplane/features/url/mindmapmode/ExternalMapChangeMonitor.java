@@ -2,49 +2,78 @@ package org.freeplane.features.url.mindmapmode;
 
 import java.awt.KeyboardFocusManager;
 import java.awt.Window;
-import java.awt.event.ActionEvent;
+import java.beans.PropertyChangeEvent;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.ui.components.OptionalDontShowMeAgainDialog;
 import org.freeplane.core.ui.components.OptionalDontShowMeAgainDialog.MessageType;
 import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapLifeCycleListener;
 import org.freeplane.features.map.IMapSelectionListener;
+import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.mindmapmode.MMapController;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.mindmapmode.MModeController;
 import org.freeplane.features.ui.IMapViewManager;
+import org.freeplane.features.url.UrlManager;
 
-public class ExternalMapChangeMonitor implements IMapSelectionListener{
+/**
+ * Offers to reload the current map when its file is changed by another program.
+ * Changes are reported by {@link MapFileWatcher} for all open maps,
+ * a map changed in the background is checked again when it is selected or its window gets focused.
+ */
+public class ExternalMapChangeMonitor implements IMapSelectionListener, IMapLifeCycleListener, IMapChangeListener{
     private static final String MONITOR_EXTERNAL_MIND_MAP_FILE_CHANGES_PROPERTY = "monitor_external_mind_map_file_changes";
-    private static final int FIRST_CHECK_DELAY_MILLIS = 1000;
-    private static final int CHECK_INTERVAL_MILLIS = 5000;
     private static final ExternalMapChangeMonitor INSTANCE = new ExternalMapChangeMonitor();
-    private Timer timer;
-    
+    private final MapFileWatcher fileWatcher;
+
     public static void install(IMapViewManager viewManager) {
         viewManager.addMapSelectionListener(INSTANCE);
+        final Controller controller = Controller.getCurrentController();
+        controller.addMapLifeCycleListener(INSTANCE);
+        final MModeController modeController = MModeController.getMModeController();
+        if(modeController != null)
+            modeController.getMapController().addMapChangeListener(INSTANCE);
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener("focusedWindow", INSTANCE::focusedWindowChanged);
+        for(MapModel map : viewManager.getMaps().values())
+            INSTANCE.fileWatcher.watch(map);
     }
 
     private ExternalMapChangeMonitor() {
         super();
-        timer = new Timer(CHECK_INTERVAL_MILLIS, this::checkCurrentMapForExternalChange);
-        timer.setInitialDelay(FIRST_CHECK_DELAY_MILLIS);
-        timer.start();
+        fileWatcher = new MapFileWatcher(map -> SwingUtilities.invokeLater(() -> checkForExternalChange(map)));
+    }
+
+    @Override
+    public void onCreate(MapModel map) {
+        fileWatcher.watch(map);
+    }
+
+    @Override
+    public void onRemove(MapModel map) {
+        fileWatcher.unwatch(map);
+    }
+
+    @Override
+    public void mapChanged(MapChangeEvent event) {
+        if (UrlManager.MAP_URL.equals(event.getProperty()) && event.getMap() != null)
+            fileWatcher.watch(event.getMap());
     }
 
     @Override
     public void afterMapChange(MapModel oldMap, MapModel newMap) {
-        timer.restart();
+        checkForExternalChange(newMap);
     }
-    
-    private void checkCurrentMapForExternalChange(ActionEvent event) {
-        MapModel map = Controller.getCurrentController().getMap();
-        checkForExternalChange(map);
+
+    private void focusedWindowChanged(PropertyChangeEvent event) {
+        if(event.getNewValue() != null)
+            checkForExternalChange(Controller.getCurrentController().getMap());
     }
 
     public void checkForExternalChange(MapModel map) {
@@ -26,6 +26,7 @@ import java.beans.PropertyChangeListener;
 import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -33,6 +34,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.SequenceInputStream;
@@ -40,7 +42,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -49,8 +50,12 @@ import java.security.PrivilegedAction;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -59,6 +64,7 @@ import javax.swing.plaf.FileChooserUI;
 import javax.swing.plaf.basic.BasicFileChooserUI;
 
 import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.io.xml.BinaryXml;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.resources.components.ComboProperty;
 import org.freeplane.core.resources.components.IPropertyControl;
@@ -73,13 +79,16 @@ import org.freeplane.core.ui.components.OptionalDontShowMeAgainDialog.MessageTyp
 import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.Compat;
 import org.freeplane.core.util.FileUtils;
+import org.freeplane.core.util.FreeplaneVersion;
 import org.freeplane.core.util.Hyperlink;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.link.LinkController;
 import org.freeplane.features.map.DocuMapAttribute;
 import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
@@ -96,6 +105,8 @@ import org.freeplane.features.url.UrlManager;
 import org.freeplane.n3.nanoxml.XMLException;
 import org.freeplane.n3.nanoxml.XMLParseException;
 import org.freeplane.view.swing.features.filepreview.MindMapPreviewWithOptions;
+import org.freeplane.view.swing.features.progress.LoadingProgressDialog;
+import org.freeplane.view.swing.features.progress.ProgressInputStream;
 
 /**
  * @author Dimitry Polivaev
@@ -104,8 +115,12 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	public static final String STANDARD_TEMPLATE = "standard_template";
 	private static final String DEFAULT_SAVE_DIR_PROPERTY = "default_save_dir";
 	private static final String BACKUP_EXTENSION = "bak";
+	private static final String RECOVERED_EXTENSION = "recovered";
+	private static final String COMPRESS_SAVED_MAPS_PROPERTY = "compress_saved_maps";
+	private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
     static final String BACKUP_DIR = ".backup";
 	private static final int DEBUG_OFFSET = 0;
+	private final BackgroundMapSaver mapSaver = new BackgroundMapSaver();
 
 	static private class BackupFlag implements IExtension {
 	}
@@ -126,7 +141,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 
 		MindMapDirectoryFilter(MindmapDirectory mindmapDirectory, File directory) {
             this.directory = directory;
-            this.description = TextUtils.getText(mindmapDirectory.key) + " (*.mm)";
+            this.description = TextUtils.getText(mindmapDirectory.key) + " (*.mm, *.mmb)";
         }
 
         @Override
@@ -136,7 +151,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			}
 			final String extension = FileUtils.getExtension(f.getName());
 			if (extension != null) {
-				if (extension.equals(UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)) {
+				if (extension.equals(UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)
+				        || extension.equals(UrlManager.FREEPLANE_BINARY_FILE_EXTENSION_WITHOUT_DOT)) {
 					return true;
 				}
 				else {
@@ -152,7 +168,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 	}
 
-    private final static FileFilter MINDMAP_FILE_FILTER = new CaseSensitiveFileNameExtensionFilter("mm", TextUtils.getText("mindmaps_desc"));
+    private final static FileFilter MINDMAP_FILE_FILTER = new CaseSensitiveFileNameExtensionFilter(new String[] { "mm", "mmb" }, TextUtils.getText("mindmaps_desc"));
 	private static final String BACKUP_FILE_NUMBER = "backup_file_number";
 	private static File singleBackupDirectory;
 	private File[] findFileRevisions(final File file, final File backupDir, final AlternativeFileMode mode) {
@@ -161,8 +177,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			fileExtensionPattern = "(" + BACKUP_EXTENSION + "|" + DoAutomaticSave.AUTOSAVE_EXTENSION + ")";
 		else
 			fileExtensionPattern = DoAutomaticSave.AUTOSAVE_EXTENSION;
-		final Pattern pattern = Pattern
-		    .compile("^" + Pattern.quote(backupFileName(file)) + "\\.+\\d+\\." + fileExtensionPattern);
+		final Pattern pattern = Pattern.compile("^" + Pattern.quote(backupFileName(file)) + "(\\.+\\d+\\."
+		        + fileExtensionPattern + "|\\." + MapChangeJournal.JOURNAL_EXTENSION + ")");
 		if (backupDir.exists()) {
 			final File[] fileList = backupDir.listFiles(new java.io.FileFilter() {
 				@Override
@@ -202,13 +218,59 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 
 	private static void performBackup(final File file, final File backupFile) {
 		try {
-			FileUtils.copyFile(file, backupFile);
+			if (savesCompressedMaps() && !isCompressed(file))
+				compressFile(file, backupFile);
+			else
+				FileUtils.copyFile(file, backupFile);
 			backupFile.setLastModified(file.lastModified());
 		}
 		catch (IOException e) {
 		}
 	}
 
+	private static void compressFile(final File file, final File compressedFile) throws IOException {
+		try (InputStream input = new FileInputStream(file);
+		        OutputStream output = compressing(new FileOutputStream(compressedFile))) {
+			FileUtils.copyStream(input, output);
+		}
+	}
+
+	/* The fastest level saves most of the space, the map is compressed while it is serialized on the event thread */
+	private static OutputStream compressing(final OutputStream output) throws IOException {
+		return new GZIPOutputStream(output, COMPRESSION_BUFFER_SIZE) {
+			{
+				def.setLevel(Deflater.BEST_SPEED);
+			}
+		};
+	}
+
+	private static boolean savesCompressedMaps() {
+		return ResourceController.getResourceController().getBooleanProperty(COMPRESS_SAVED_MAPS_PROPERTY);
+	}
+
+	private static boolean isCompressed(final File file) throws IOException {
+		try (InputStream input = new FileInputStream(file)) {
+			return isCompressed(input.read(), input.read());
+		}
+	}
+
+	private static boolean isCompressed(final int firstByte, final int secondByte) {
+		return firstByte == (GZIPInputStream.GZIP_MAGIC & 0xFF) && secondByte == GZIPInputStream.GZIP_MAGIC >> 8;
+	}
+
+	/**
+	 * Returns a stream of the decompressed data if the input is compressed, otherwise the input itself.
+	 * The input must support mark and reset.
+	 */
+	public static InputStream decompressed(final InputStream input) throws IOException {
+		input.mark(2);
+		final boolean compressed = isCompressed(input.read(), input.read());
+		input.reset();
+		if (compressed)
+			return new BufferedInputStream(new GZIPInputStream(input, COMPRESSION_BUFFER_SIZE), COMPRESSION_BUFFER_SIZE);
+		return input;
+	}
+
 	static File backupDir(final File file) {
 		if (singleBackupDirectory != null)
 			return singleBackupDirectory;
@@ -220,6 +282,10 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		    return new File(file.getParentFile(), BACKUP_DIR);
 	}
 
+	static File journalFile(final File file) {
+		return new File(backupDir(file), backupFileName(file) + '.' + MapChangeJournal.JOURNAL_EXTENSION);
+	}
+
 	static File createBackupFile(final File backupDir, final File file, final int number, final String extension) {
 		return new File(backupDir, backupFileName(file) + '.' + number + '.' + extension);
 	}
@@ -278,6 +344,11 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		if (ResourceController.getResourceController().getBooleanProperty("single_backup_directory")) {
 			singleBackupDirectory = ResourceController.getResourceController().getFile("single_backup_directory_path");
 		}
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapChangeJournal.ChangeTracker journalChangeTracker = new MapChangeJournal.ChangeTracker();
+		mapController.addMapLifeCycleListener(journalChangeTracker);
+		mapController.addMapChangeListener(journalChangeTracker);
+		mapController.addNodeChangeListener(journalChangeTracker);
 	}
 
     private void createPreferences() {
@@ -451,11 +522,20 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 		else {
 			lock(map, file);
-			if (file.length() != 0) {
-				//DOCEAR - fixed: set the file for the map before parsing the xml, necessary for some events
-				setFile(map, file);
-				NodeModel root = loadTree(map, file);
-				assert (map.getRootNode() == root);
+			boolean loaded = false;
+			try {
+				if (file.length() != 0) {
+					//DOCEAR - fixed: set the file for the map before parsing the xml, necessary for some events
+					setFile(map, file);
+					NodeModel root = loadDetachedTree(map, file);
+					assert (map.getRootNode() == root);
+				}
+				loaded = true;
+			}
+			finally {
+				// the lock must not outlive a cancelled or failed load
+				if (!loaded)
+					((MMapModel) map).getLockManager().release();
 			}
 			if (map.getRootNode() == null)
 				map.createNewRoot();
@@ -522,14 +602,71 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			if (!success)
 				LogUtils.warn("Unable to set the last modification time for " + file);
 		}
+		else if (selectedFile != null && selectedFile.getName().endsWith('.' + MapChangeJournal.JOURNAL_EXTENSION))
+			return recoverFromJournal(file, selectedFile);
 		return selectedFile;
 	}
 
+	private File recoverFromJournal(final File file, final File journal) {
+		final File recoveredFile = new File(journal.getParentFile(), backupFileName(file) + '.' + RECOVERED_EXTENSION);
+		try {
+			MapJournalRecovery.recover(file, journal, recoveredFile);
+			recoveredFile.deleteOnExit();
+			return recoveredFile;
+		}
+		catch (final IOException e) {
+			LogUtils.warn(e);
+			UITools.errorMessage(TextUtils.format("map_journal_recovery_failed", journal.getName()));
+			return file;
+		}
+	}
+
+	private enum TreeLoading {
+		SYNCHRONOUS, BACKGROUND, WITHOUT_INTERACTION
+	}
+
 	public NodeModel loadTree(final MapModel map, final File file) throws XMLParseException, IOException {
+		return loadTree(map, file, TreeLoading.SYNCHRONOUS);
+	}
+
+	/**
+	 * Parses large files on a worker thread showing a cancellable progress dialog.
+	 * The map must not be visible until loading is complete.
+	 *
+	 * @throws CancellationException if the user has cancelled loading
+	 */
+	public NodeModel loadDetachedTree(final MapModel map, final File file) throws XMLParseException, IOException {
+		return loadTree(map, file, TreeLoading.BACKGROUND);
+	}
+
+	/**
+	 * Parses the file on the calling thread if this is possible without asking the user,
+	 * e.g. there are no newer autosaved revisions and the file needs no conversion.
+	 *
+	 * @return false if the file was not loaded
+	 */
+	public boolean loadTreeWithoutInteraction(final MapModel map, final File file) {
+		final File[] autosavedRevisions = findFileRevisions(file, MFileManager.backupDir(file), AlternativeFileMode.AUTOSAVE);
+		if (file.length() == 0 || autosavedRevisions != null && autosavedRevisions.length != 0)
+			return false;
+		try {
+			setFile(map, file);
+			return loadTreeImpl(map, file, TreeLoading.WITHOUT_INTERACTION) != null;
+		}
+		catch (final Exception ex) {
+			LogUtils.warn("Error while parsing file:" + file, ex);
+			return false;
+		}
+	}
+
+	private NodeModel loadTree(final MapModel map, final File file, TreeLoading loading) throws XMLParseException, IOException {
 		try {
-			final NodeModel rootNode = loadTreeImpl(map, file);
+			final NodeModel rootNode = loadTreeImpl(map, file, loading);
 			return rootNode;
 		}
+		catch (final CancellationException ex) {
+			throw ex;
+		}
 		catch (final Exception ex) {
 			final String errorMessage = "Error while parsing file:" + file;
 			LogUtils.warn(errorMessage, ex);
@@ -541,28 +678,48 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 	}
 
-	private NodeModel loadTreeImpl(final MapModel map, final File f) throws FileNotFoundException, IOException,
-	        XMLException {
+	private NodeModel loadTreeImpl(final MapModel map, final File f, TreeLoading loading) throws Exception {
 		int versionInfoLength = 1000;
 		final byte[] buffer = new byte[versionInfoLength];
-        try (final BufferedInputStream file = new BufferedInputStream(new FileInputStream(f))) {
-            final int readCount = file.read(buffer);
+        try (final ProgressInputStream file = new ProgressInputStream(new BufferedInputStream(new FileInputStream(f)));
+                final InputStream input = decompressed(file)) {
+            final int readCount = input.read(buffer);
+            if (BinaryXml.startsWithHeader(buffer, readCount))
+                return loadBinaryTree(map, f, loading, file,
+                    new SequenceInputStream(new ByteArrayInputStream(buffer, 0, readCount), input));
             final String mapStart = new String(buffer, StandardCharsets.UTF_8.name());
             final ByteArrayInputStream readBytes = new ByteArrayInputStream(buffer, 0, readCount);
             MapVersionInterpreter versionInterpreter = MapVersionInterpreter.getVersionInterpreter(mapStart);
+            if (loading == TreeLoading.WITHOUT_INTERACTION
+                    && (versionInterpreter.anotherDialect || versionInterpreter.needsConversion))
+                return null;
             map.addExtension(versionInterpreter);
             if (versionInterpreter.anotherDialect) {
                 String message = versionInterpreter.getDialectInfo(f.getAbsolutePath());
                 UITools.showMessage(message, JOptionPane.WARNING_MESSAGE);
             }
-            try (final InputStream sequencedInput = new SequenceInputStream(readBytes, file);
+            try (final InputStream sequencedInput = new SequenceInputStream(readBytes, input);
                     Reader reader = openInputStream(f, sequencedInput, versionInterpreter)) {
-                return Controller.getCurrentModeController().getMapController().getMapReader()
-                    .createNodeTreeFromXml(map, reader, Mode.FILE);
+                final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+                if (loading != TreeLoading.BACKGROUND)
+                    return mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
+                return LoadingProgressDialog.load(TextUtils.format("loading_map", f.getName()), file, f.length(),
+                    () -> mapReader.createNodeTreeFromXml(map, reader, Mode.FILE));
             }
         }
 	}
 
+	private NodeModel loadBinaryTree(final MapModel map, final File f, TreeLoading loading,
+	                                 final ProgressInputStream file, final InputStream input) throws Exception {
+		map.addExtension(MapVersionInterpreter
+		    .getVersionInterpreter("<map version=\"" + FreeplaneVersion.XML_VERSION + "\""));
+		final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+		if (loading != TreeLoading.BACKGROUND)
+			return mapReader.createNodeTreeFromBinary(map, input, Mode.FILE);
+		return LoadingProgressDialog.load(TextUtils.format("loading_map", f.getName()), file, f.length(),
+		    () -> mapReader.createNodeTreeFromBinary(map, input, Mode.FILE));
+	}
+
     private Reader openInputStream(final File file, final InputStream sequencedInput,
             MapVersionInterpreter versionInterpreter) throws IOException, FileNotFoundException {
         Reader reader;
@@ -750,20 +907,31 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 		final URL urlBefore = map.getURL();
 		setFile(map, file);
-		final boolean saved = saveInternal((MMapModel) map, file, false);
+		final MMapController mapController = (MMapController) Controller.getCurrentModeController().getMapController();
+		final int changesBeforeSave = map.getNumberOfChangesSinceLastSave();
+		final boolean saved = saveInternal((MMapModel) map, file, false, () -> {
+			if (map.getNumberOfChangesSinceLastSave() == changesBeforeSave)
+				mapController.mapSaved(map, true);
+		});
 		if (!saved) {
 			return false;
 		}
-		map.updateLastKnownFileModificationTime();
 		map.setReadOnly(false);
 		final URL urlAfter = map.getURL();
-		final MMapController mapController = (MMapController) Controller.getCurrentModeController().getMapController();
 		if(! urlAfter.equals(urlBefore))
 			mapController.fireMapChanged(new MapChangeEvent(this, map, UrlManager.MAP_URL, urlBefore, urlAfter, false));
-		mapController.mapSaved(map, true);
 		return true;
 	}
 
+	/**
+	 * Waits until the file of the map is written and reports the result before the map is closed.
+	 *
+	 * @return false if writing the file has failed
+	 */
+	public boolean finishPendingSave(final MapModel map) {
+		return !(map instanceof MMapModel) || mapSaver.finishPendingSave((MMapModel) map);
+	}
+
 	public boolean saveAs(final MapModel map) {
 		final JFileChooser chooser = getMindMapFileChooser();
 		File mapFile = map.getFile();
@@ -783,7 +951,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 		File f = chooser.getSelectedFile();
 		final String ext = FileUtils.getExtension(f.getName());
-		if (!ext.equals(org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)) {
+		if (!ext.equals(org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)
+		        && !ext.equals(UrlManager.FREEPLANE_BINARY_FILE_EXTENSION_WITHOUT_DOT)) {
 			f = new File(f.getParent(), f.getName()
 			        + org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION);
 		}
@@ -819,25 +988,38 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	/**
 	 * This method is intended to provide both normal save routines and saving
 	 * of temporary (internal) files.
+	 * The map is serialized immediately, the file is written in background when called on the event dispatch thread.
 	 */
 	boolean saveInternal(final MMapModel map, final File file, final boolean isInternal) {
+		return saveInternal(map, file, isInternal, () -> {});
+	}
+
+	/** Runs onSaved after the file has been written. */
+	private boolean saveInternal(final MMapModel map, final File file, final boolean isInternal, final Runnable onSaved) {
 		try {
 			if (map.getTimerForAutomaticSaving() != null) {
 				map.getTimerForAutomaticSaving().stop();
 			}
-			writeToFile(map, file);
+			final byte[] snapshot = createFileContent(map, file);
+			final MapChangeJournal journal = isInternal ? null : MapChangeJournal.getJournal(map);
+			if (journal != null)
+				journal.startNewJournal();
+			final boolean saved = mapSaver.save(map, file, snapshot, e -> {
+				if (e == null) {
+					if (!isInternal)
+						map.updateLastKnownFileModificationTime();
+					if (journal != null)
+						journal.deleteObsoleteJournals(file);
+					onSaved.run();
+				}
+				else {
+					if (journal != null)
+						journal.saveFailed();
+					reportSaveError(map, file, isInternal, e);
+				}
+			});
 			map.scheduleTimerForAutomaticSaving();
-			return true;
-		}
-		catch (final IOException e) {
-			final String message = TextUtils.format("save_failed", file.getName());
-			if (!isInternal) {
-				UITools.errorMessage(message);
-				LogUtils.warn(message, e);
-			}
-			else {
-				Controller.getCurrentController().getViewController().out(message);
-			}
+			return saved;
 		}
 		catch (final Exception e) {
 			LogUtils.severe("Error in MapModel.save(): ", e);
@@ -846,31 +1028,61 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		return false;
 	}
 
+	private void reportSaveError(final MMapModel map, final File file, final boolean isInternal, final IOException e) {
+		final String message = TextUtils.format("save_failed", file.getName());
+		if (!isInternal) {
+			UITools.errorMessage(message);
+			LogUtils.warn(message, e);
+			if (map.isSaved())
+				((MMapController) Controller.getCurrentModeController().getMapController()).mapSaved(map, false);
+		}
+		else {
+			Controller.getCurrentController().getViewController().out(message);
+		}
+	}
+
+	static byte[] createSnapshot(final MapModel map) throws IOException {
+		final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		writeXml(map, snapshot);
+		return snapshot.toByteArray();
+	}
+
+	/**
+	 * Serializes the map in the format given by the file extension.
+	 * If compression is enabled, the map is compressed while it is written, so only the compressed data is kept in memory.
+	 */
+	public static byte[] createFileContent(final MapModel map, final File file) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (OutputStream output = savesCompressedMaps() ? compressing(content) : content) {
+			if (isBinaryMapFile(file))
+				Controller.getCurrentModeController().getMapController().getMapWriter()
+				    .writeMapAsBinary(map, output, Mode.FILE);
+			else
+				writeXml(map, output);
+		}
+		return content.toByteArray();
+	}
+
+	/** Replaces the file by the content created by {@link #createFileContent(MapModel, File)}, can be called on any thread. */
+	public static void writeFileContent(final File file, final byte[] content) throws IOException {
+		BackgroundMapSaver.writeAtomically(file, content);
+	}
+
+	private static void writeXml(final MapModel map, final OutputStream output) throws IOException {
+		try (final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+			Controller.getCurrentModeController().getMapController().getMapWriter()
+			    .writeMapAsXml(map, writer, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
+		}
+	}
+
+	static boolean isBinaryMapFile(final File file) {
+		return UrlManager.FREEPLANE_BINARY_FILE_EXTENSION_WITHOUT_DOT.equals(FileUtils.getExtension(file.getName()));
+	}
+
 	/**@deprecated -- use MMapIO*/
 	@Deprecated
 	public void writeToFile(final MapModel map, final File file) throws FileNotFoundException, IOException {
-		FileLock lock = null;
-		try (final FileOutputStream out = new FileOutputStream(file)){
-			boolean lockedByOtherApplication = false;
-			try {
-				lock = out.getChannel().tryLock();
-				lockedByOtherApplication = lock == null;
-			}
-			catch (Exception e) {
-				LogUtils.warn(e.getMessage(), e);
-			}
-			if (lockedByOtherApplication) {
-				throw new IOException("can not obtain file lock for " + file);
-			}
-			final BufferedWriter fileout = new BufferedWriter(new OutputStreamWriter(out,//
-				StandardCharsets.UTF_8));
-			Controller.getCurrentModeController().getMapController().getMapWriter()
-			    .writeMapAsXml(map, fileout, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
-		}
-		finally {
-			if (lock != null && lock.isValid())
-				lock.release();
-		}
+		BackgroundMapSaver.writeAtomically(file, createSnapshot(map));
 	}
 
 	public void setFile(final MapModel map, final File file) {
@@ -0,0 +1,283 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.features.map.EncryptionModel;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Collects the nodes changed since the map was saved and appends them to a journal file
+ * instead of writing the whole map on every automatic save.
+ *
+ * A journal starts with a base record identifying the saved map file or with a snapshot of the complete map.
+ * Binary map files are always journaled starting with a snapshot because the recovery only reads xml.
+ * Each node record contains the node without its children and the ids of its children,
+ * so that applying the records in their order restores the map structure, see {@link MapJournalRecovery}.
+ * When the journal exceeds the size limit it is replaced by a single snapshot.
+ */
+class MapChangeJournal implements IExtension {
+	static final String JOURNAL_EXTENSION = "journal";
+	static final byte[] MAGIC = { 'F', 'P', 'J', 1 };
+	static final byte BASE_RECORD = 1;
+	static final byte SNAPSHOT_RECORD = 2;
+	static final byte NODE_RECORD = 3;
+	static final int ENCRYPTED_CHILDREN = -1;
+
+	static MapChangeJournal getJournal(final MapModel map) {
+		return map.getExtension(MapChangeJournal.class);
+	}
+
+	/** Registered once for all maps, attaches journals to the maps and records their changes. */
+	static class ChangeTracker implements IMapLifeCycleListener, IMapChangeListener, INodeChangeListener {
+		@Override
+		public void onCreate(final MapModel map) {
+			if (map instanceof MMapModel && getJournal(map) == null)
+				map.addExtension(new MapChangeJournal((MMapModel) map));
+		}
+
+		@Override
+		public void nodeChanged(final NodeChangeEvent event) {
+			if (event.setsDirtyFlag())
+				nodeChanged(event.getNode());
+		}
+
+		@Override
+		public void mapChanged(final MapChangeEvent event) {
+			final MapModel map = event.getMap();
+			if (map != null && event.setsDirtyFlag() && map.getRootNode() != null)
+				nodeChanged(map.getRootNode());
+		}
+
+		@Override
+		public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+			final MapChangeJournal journal = getJournal(parent.getMap());
+			if (journal != null) {
+				journal.addChangedNode(parent);
+				journal.addChangedSubtree(child);
+			}
+		}
+
+		@Override
+		public void onNodeDeleted(final NodeDeletionEvent nodeDeletionEvent) {
+			nodeChanged(nodeDeletionEvent.parent);
+		}
+
+		@Override
+		public void onNodeMoved(final NodeMoveEvent nodeMoveEvent) {
+			nodeChanged(nodeMoveEvent.oldParent);
+			nodeChanged(nodeMoveEvent.newParent);
+		}
+
+		private void nodeChanged(final NodeModel node) {
+			final MapChangeJournal journal = getJournal(node.getMap());
+			if (journal != null)
+				journal.addChangedNode(node);
+		}
+	}
+
+	private final MMapModel map;
+	private final Set<NodeModel> changedNodes = Collections.newSetFromMap(new IdentityHashMap<NodeModel, Boolean>());
+	private boolean needsSnapshot;
+	private File journalFile;
+	private long initialJournalLength;
+
+	MapChangeJournal(final MMapModel map) {
+		this.map = map;
+		this.needsSnapshot = !map.isSaved();
+	}
+
+	private void addChangedNode(final NodeModel node) {
+		if (map.getURL() == null)
+			return;
+		changedNodes.add(node);
+		for (NodeModel ancestor = node.getParentNode(); ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (EncryptionModel.getModel(ancestor) != null)
+				changedNodes.add(ancestor);
+		}
+	}
+
+	private void addChangedSubtree(final NodeModel node) {
+		addChangedNode(node);
+		for (final NodeModel child : node.getChildren())
+			addChangedSubtree(child);
+	}
+
+	/** Called when the map content has been serialized for saving. */
+	void startNewJournal() {
+		changedNodes.clear();
+		needsSnapshot = false;
+	}
+
+	/** Called after the map file has been written, the journals of the previous file versions are obsolete. */
+	void deleteObsoleteJournals(final File savedFile) {
+		if (journalFile != null)
+			journalFile.delete();
+		MFileManager.journalFile(savedFile).delete();
+		journalFile = null;
+	}
+
+	/** Called if the map file or the journal could not be written, the next journal has to contain the whole map. */
+	void saveFailed() {
+		needsSnapshot = true;
+	}
+
+	/**
+	 * Appends the changed nodes to the journal file, or starts it anew if it belongs to another map file version
+	 * or if more than sizeLimit bytes have been appended since it was started.
+	 *
+	 * @return the journal file
+	 */
+	File write(final File file, final long sizeLimit, final boolean deleteOnExit) throws IOException {
+		final File newJournalFile = MFileManager.journalFile(file);
+		if (needsSnapshot || !newJournalFile.equals(journalFile) || !newJournalFile.exists()) {
+			journalFile = null;
+			startJournal(file, newJournalFile, deleteOnExit);
+		}
+		else if (newJournalFile.length() - initialJournalLength > sizeLimit) {
+			compact(newJournalFile);
+		}
+		else
+			append(newJournalFile, createNodeRecords());
+		journalFile = newJournalFile;
+		return newJournalFile;
+	}
+
+	private void startJournal(final File file, final File newJournalFile, final boolean deleteOnExit)
+	        throws IOException {
+		newJournalFile.getParentFile().mkdirs();
+		if (needsSnapshot || !file.exists() || MFileManager.isBinaryMapFile(file)) {
+			compact(newJournalFile);
+		}
+		else {
+			final ByteArrayOutputStream journal = new ByteArrayOutputStream();
+			journal.write(MAGIC);
+			journal.write(createRecord(BASE_RECORD, out -> {
+				out.writeLong(file.length());
+				out.writeLong(file.lastModified());
+			}));
+			initialJournalLength = journal.size();
+			journal.write(createNodeRecords());
+			BackgroundMapSaver.writeAtomically(newJournalFile, journal.toByteArray());
+		}
+		if (deleteOnExit)
+			newJournalFile.deleteOnExit();
+	}
+
+	private void compact(final File newJournalFile) throws IOException {
+		final byte[] snapshot = MFileManager.createSnapshot(map);
+		final ByteArrayOutputStream journal = new ByteArrayOutputStream(snapshot.length + 64);
+		journal.write(MAGIC);
+		journal.write(createRecord(SNAPSHOT_RECORD, out -> writeBytes(out, snapshot)));
+		BackgroundMapSaver.writeAtomically(newJournalFile, journal.toByteArray());
+		initialJournalLength = journal.size();
+		changedNodes.clear();
+		needsSnapshot = false;
+	}
+
+	private void append(final File file, final byte[] records) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+		    StandardOpenOption.APPEND)) {
+			final ByteBuffer buffer = ByteBuffer.wrap(records);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+	}
+
+	/** Children are written before their parents so that new nodes exist when their parent refers to them. */
+	private byte[] createNodeRecords() throws IOException {
+		final List<NodeModel> nodes = new ArrayList<NodeModel>(changedNodes.size());
+		for (final NodeModel node : changedNodes) {
+			if (isPartOfMap(node))
+				nodes.add(node);
+		}
+		changedNodes.clear();
+		Collections.sort(nodes, Comparator.comparingInt(NodeModel::depth).reversed());
+		final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		for (final NodeModel node : nodes)
+			records.write(createRecord(NODE_RECORD, out -> writeNode(out, node)));
+		return records.toByteArray();
+	}
+
+	private boolean isPartOfMap(final NodeModel node) {
+		NodeModel root = node;
+		while (root.getParentNode() != null)
+			root = root.getParentNode();
+		return root == map.getRootNode();
+	}
+
+	private void writeNode(final DataOutputStream out, final NodeModel node) throws IOException {
+		out.writeUTF(node.createID());
+		if (EncryptionModel.getModel(node) != null)
+			out.writeInt(ENCRYPTED_CHILDREN);
+		else {
+			final List<NodeModel> children = node.getChildren();
+			out.writeInt(children.size());
+			for (final NodeModel child : children)
+				out.writeUTF(child.createID());
+		}
+		final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		try (final Writer writer = new OutputStreamWriter(xml, StandardCharsets.UTF_8)) {
+			Controller.getCurrentModeController().getMapController().getMapWriter()
+			    .writeNodeAsXml(writer, node, Mode.FILE, CopiedNodeSet.ALL_NODES, false, false);
+		}
+		writeBytes(out, xml.toByteArray());
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private interface RecordContent {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	/** A record consists of its length, its type and content, and the checksum of type and content. */
+	private static byte[] createRecord(final byte type, final RecordContent content) throws IOException {
+		final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(payload)) {
+			out.writeByte(type);
+			content.write(out);
+		}
+		final byte[] payloadBytes = payload.toByteArray();
+		final CRC32 checksum = new CRC32();
+		checksum.update(payloadBytes);
+		final ByteArrayOutputStream record = new ByteArrayOutputStream(payloadBytes.length + 8);
+		try (DataOutputStream out = new DataOutputStream(record)) {
+			out.writeInt(payloadBytes.length);
+			out.write(payloadBytes);
+			out.writeInt((int) checksum.getValue());
+		}
+		return record.toByteArray();
+	}
+}
@@ -0,0 +1,291 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.MapModel;
+
+/**
+ * Notifies about changes of the files of open maps.
+ *
+ * Each directory containing a map file is registered once at a {@link WatchService}.
+ * Events arriving in a burst, like the ones caused by writing and renaming a file, result in one notification per map.
+ * Files in directories which can not be watched, or are on network file systems where changes made
+ * by other computers are not reported, are polled with an interval growing while they do not change.
+ */
+class MapFileWatcher {
+	interface Listener {
+		/** Called on a watcher thread. */
+		void mapFileChanged(MapModel map);
+	}
+
+	private static final Set<String> NETWORK_FILE_STORE_TYPES = new HashSet<String>(Arrays.asList("nfs", "nfs4",
+	    "cifs", "smbfs", "smb2", "smb3", "afpfs", "webdav", "davfs", "fuse.sshfs"));
+	static final long COALESCING_DELAY_MILLIS = 500;
+	static final long MIN_POLLING_INTERVAL_MILLIS = 2000;
+	static final long MAX_POLLING_INTERVAL_MILLIS = 60000;
+
+	private static class PolledFile {
+		final File file;
+		long lastModified;
+		long length;
+		long interval;
+		ScheduledFuture<?> check;
+
+		PolledFile(File file, long interval) {
+			this.file = file;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+			this.interval = interval;
+		}
+
+		boolean hasChanged() {
+			final long newLastModified = file.lastModified();
+			final long newLength = file.length();
+			final boolean hasChanged = newLastModified != lastModified || newLength != length;
+			lastModified = newLastModified;
+			length = newLength;
+			return hasChanged;
+		}
+	}
+
+	private final Listener listener;
+	private final long coalescingDelay;
+	private final long minPollingInterval;
+	private final long maxPollingInterval;
+	private final ScheduledExecutorService scheduler;
+	private final WatchService watchService;
+	private final Map<MapModel, Path> watchedFiles = new IdentityHashMap<MapModel, Path>();
+	private final Map<Path, WatchKey> directoryKeys = new HashMap<Path, WatchKey>();
+	private final Map<MapModel, PolledFile> polledFiles = new IdentityHashMap<MapModel, PolledFile>();
+	private final Set<Path> changedFiles = new HashSet<Path>();
+	private ScheduledFuture<?> pendingNotification;
+
+	MapFileWatcher(Listener listener) {
+		this(listener, true, COALESCING_DELAY_MILLIS, MIN_POLLING_INTERVAL_MILLIS, MAX_POLLING_INTERVAL_MILLIS);
+	}
+
+	MapFileWatcher(Listener listener, boolean usesWatchService, long coalescingDelay, long minPollingInterval,
+	               long maxPollingInterval) {
+		this.listener = listener;
+		this.coalescingDelay = coalescingDelay;
+		this.minPollingInterval = minPollingInterval;
+		this.maxPollingInterval = maxPollingInterval;
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread thread = new Thread(r, "map file watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		watchService = usesWatchService ? createWatchService() : null;
+		if (watchService != null) {
+			final Thread watchThread = new Thread(this::processEvents, "map file events");
+			watchThread.setDaemon(true);
+			watchThread.start();
+		}
+	}
+
+	private static WatchService createWatchService() {
+		try {
+			return FileSystems.getDefault().newWatchService();
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			LogUtils.info("file changes are polled: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/** Starts watching the current file of the map, or stops watching it if the map has no file. */
+	synchronized void watch(MapModel map) {
+		final File file = map.getFile();
+		final Path path = file != null ? file.toPath().toAbsolutePath().normalize() : null;
+		if (path != null && path.equals(watchedFiles.get(map))) {
+			return;
+		}
+		unwatch(map);
+		if (path == null || path.getParent() == null) {
+			return;
+		}
+		watchedFiles.put(map, path);
+		if (!registerDirectory(path.getParent())) {
+			startPolling(map, file);
+		}
+	}
+
+	synchronized void unwatch(MapModel map) {
+		final Path path = watchedFiles.remove(map);
+		if (path == null) {
+			return;
+		}
+		final PolledFile polledFile = polledFiles.remove(map);
+		if (polledFile != null) {
+			polledFile.check.cancel(false);
+			return;
+		}
+		final Path directory = path.getParent();
+		for (final Path watchedFile : watchedFiles.values()) {
+			if (directory.equals(watchedFile.getParent())) {
+				return;
+			}
+		}
+		final WatchKey key = directoryKeys.remove(directory);
+		if (key != null) {
+			key.cancel();
+		}
+	}
+
+	synchronized boolean isPolled(MapModel map) {
+		return polledFiles.containsKey(map);
+	}
+
+	void shutdown() {
+		scheduler.shutdownNow();
+		if (watchService != null) {
+			try {
+				watchService.close();
+			}
+			catch (IOException e) {
+				LogUtils.warn(e);
+			}
+		}
+	}
+
+	private boolean registerDirectory(Path directory) {
+		if (directoryKeys.containsKey(directory)) {
+			return true;
+		}
+		if (watchService == null || isOnNetworkFileSystem(directory)) {
+			return false;
+		}
+		try {
+			directoryKeys.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY));
+			return true;
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			LogUtils.info("file changes in " + directory + " are polled: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static boolean isOnNetworkFileSystem(Path directory) {
+		try {
+			return NETWORK_FILE_STORE_TYPES.contains(Files.getFileStore(directory).type().toLowerCase());
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void processEvents() {
+		for (;;) {
+			final WatchKey key;
+			try {
+				key = watchService.take();
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			final Path directory = (Path) key.watchable();
+			for (final WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					fileChanged(directory, null);
+				}
+				else {
+					fileChanged(directory, directory.resolve((Path) event.context()));
+				}
+			}
+			key.reset();
+		}
+	}
+
+	/* A null file stands for all files in the directory */
+	private synchronized void fileChanged(Path directory, Path file) {
+		boolean isWatched = false;
+		for (final Path watchedFile : watchedFiles.values()) {
+			if (file == null ? directory.equals(watchedFile.getParent()) : file.equals(watchedFile)) {
+				changedFiles.add(watchedFile);
+				isWatched = true;
+			}
+		}
+		if (!isWatched) {
+			return;
+		}
+		if (pendingNotification != null) {
+			pendingNotification.cancel(false);
+		}
+		pendingNotification = scheduler.schedule(this::notifyChangedFiles, coalescingDelay, TimeUnit.MILLISECONDS);
+	}
+
+	private void notifyChangedFiles() {
+		final List<MapModel> changedMaps = new ArrayList<MapModel>();
+		synchronized (this) {
+			for (final Map.Entry<MapModel, Path> watchedFile : watchedFiles.entrySet()) {
+				if (changedFiles.contains(watchedFile.getValue())) {
+					changedMaps.add(watchedFile.getKey());
+				}
+			}
+			changedFiles.clear();
+			pendingNotification = null;
+		}
+		notifyListener(changedMaps);
+	}
+
+	private void notifyListener(final List<MapModel> changedMaps) {
+		for (final MapModel map : changedMaps) {
+			try {
+				listener.mapFileChanged(map);
+			}
+			catch (RuntimeException e) {
+				LogUtils.severe(e);
+			}
+		}
+	}
+
+	private void startPolling(MapModel map, File file) {
+		final PolledFile polledFile = new PolledFile(file, minPollingInterval);
+		polledFiles.put(map, polledFile);
+		schedulePolling(map, polledFile);
+	}
+
+	private void schedulePolling(MapModel map, PolledFile polledFile) {
+		polledFile.check = scheduler.schedule(() -> poll(map, polledFile), polledFile.interval, TimeUnit.MILLISECONDS);
+	}
+
+	private void poll(MapModel map, PolledFile polledFile) {
+		final boolean hasChanged = polledFile.hasChanged();
+		synchronized (this) {
+			if (polledFiles.get(map) != polledFile) {
+				return;
+			}
+			polledFile.interval = hasChanged ? minPollingInterval : Math.min(polledFile.interval * 2,
+			    maxPollingInterval);
+			schedulePolling(map, polledFile);
+		}
+		if (hasChanged) {
+			notifyListener(Arrays.asList(map));
+		}
+	}
+}
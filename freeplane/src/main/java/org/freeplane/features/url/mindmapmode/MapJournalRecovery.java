@@ -0,0 +1,271 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.features.text.NodeTextBuilder;
+import org.freeplane.n3.nanoxml.IXMLParser;
+import org.freeplane.n3.nanoxml.IXMLReader;
+import org.freeplane.n3.nanoxml.NonValidator;
+import org.freeplane.n3.nanoxml.StdXMLParser;
+import org.freeplane.n3.nanoxml.StdXMLReader;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLParseException;
+import org.freeplane.n3.nanoxml.XMLParserFactory;
+import org.freeplane.n3.nanoxml.XMLWriter;
+
+/**
+ * Restores a map from a journal written by {@link MapChangeJournal}.
+ * The records are applied to the xml of the saved map, so the recovered file can be loaded as any other map file.
+ * Reading stops at the first incomplete or damaged record, which is left by a crash while the journal was written.
+ */
+class MapJournalRecovery {
+	private final File mapFile;
+	private final Map<String, XMLElement> nodes = new HashMap<String, XMLElement>();
+	private XMLElement map;
+
+	static void recover(final File mapFile, final File journal, final File recoveredFile) throws IOException {
+		final MapJournalRecovery recovery = new MapJournalRecovery(mapFile);
+		recovery.applyJournal(Files.readAllBytes(journal.toPath()));
+		final ByteArrayOutputStream recoveredMap = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(recoveredMap, StandardCharsets.UTF_8)) {
+			new RichContentWriter(writer).write(recovery.map, false);
+		}
+		BackgroundMapSaver.writeAtomically(recoveredFile, recoveredMap.toByteArray());
+	}
+
+	private MapJournalRecovery(final File mapFile) {
+		this.mapFile = mapFile;
+	}
+
+	private void applyJournal(final byte[] journal) throws IOException {
+		if (journal.length < MapChangeJournal.MAGIC.length
+		        || !Arrays.equals(Arrays.copyOf(journal, MapChangeJournal.MAGIC.length), MapChangeJournal.MAGIC))
+			throw new IOException("not a map journal");
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal));
+		in.skipBytes(MapChangeJournal.MAGIC.length);
+		while (in.available() > 0) {
+			final byte[] record = readRecord(in);
+			if (record == null) {
+				LogUtils.warn("map journal is damaged, " + in.available() + " bytes ignored");
+				break;
+			}
+			applyRecord(new DataInputStream(new ByteArrayInputStream(record)));
+		}
+		if (map == null)
+			throw new IOException("map journal contains no map");
+	}
+
+	private static byte[] readRecord(final DataInputStream in) throws IOException {
+		if (in.available() < 4)
+			return null;
+		final int length = in.readInt();
+		if (length <= 0 || in.available() < length + 4)
+			return null;
+		final byte[] record = new byte[length];
+		in.readFully(record);
+		final CRC32 checksum = new CRC32();
+		checksum.update(record);
+		if (in.readInt() != (int) checksum.getValue())
+			return null;
+		return record;
+	}
+
+	private void applyRecord(final DataInputStream record) throws IOException {
+		final byte type = record.readByte();
+		switch (type) {
+			case MapChangeJournal.BASE_RECORD:
+				final long length = record.readLong();
+				final long lastModified = record.readLong();
+				if (mapFile.length() != length || mapFile.lastModified() != lastModified)
+					throw new IOException("map journal does not belong to the current version of " + mapFile);
+				try (Reader reader = new InputStreamReader(
+				    MFileManager.decompressed(new BufferedInputStream(new FileInputStream(mapFile))),
+				    StandardCharsets.UTF_8)) {
+					setMap(parse(reader));
+				}
+				break;
+			case MapChangeJournal.SNAPSHOT_RECORD:
+				setMap(parse(readBytes(record)));
+				break;
+			case MapChangeJournal.NODE_RECORD:
+				if (map == null)
+					throw new IOException("map journal contains no map");
+				applyNodeRecord(record);
+				break;
+			default:
+				throw new IOException("unknown map journal record " + type);
+		}
+	}
+
+	private void setMap(final XMLElement map) {
+		this.map = map;
+		nodes.clear();
+		registerNodes(map);
+	}
+
+	private void registerNodes(final XMLElement element) {
+		for (final XMLElement child : element.getChildren()) {
+			if (NodeBuilder.XML_NODE.equals(child.getName())) {
+				final String id = child.getAttribute("ID", null);
+				if (id != null)
+					nodes.put(id, child);
+				registerNodes(child);
+			}
+		}
+	}
+
+	private void applyNodeRecord(final DataInputStream record) throws IOException {
+		final String id = record.readUTF();
+		final int childCount = record.readInt();
+		final List<String> childIds = new ArrayList<String>(Math.max(childCount, 0));
+		for (int i = 0; i < childCount; i++)
+			childIds.add(record.readUTF());
+		final XMLElement node = parse(readBytes(record));
+		for (final String childId : childIds) {
+			final XMLElement child = nodes.get(childId);
+			if (child != null) {
+				detach(child);
+				node.addChild(child);
+			}
+			else
+				LogUtils.warn("map journal refers to unknown node " + childId);
+		}
+		final XMLElement replacedNode = nodes.put(id, node);
+		if (replacedNode != null) {
+			final XMLElement parent = replacedNode.getParent();
+			final int index = indexOf(parent, replacedNode);
+			if (index >= 0) {
+				parent.removeChildAtIndex(index);
+				parent.insertChild(node, index);
+			}
+		}
+	}
+
+	/** Elements are compared by content in {@link XMLElement#equals(Object)}, so children are searched by identity. */
+	private static int indexOf(final XMLElement parent, final XMLElement child) {
+		if (parent == null)
+			return -1;
+		final List<XMLElement> children = parent.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			if (children.get(i) == child)
+				return i;
+		}
+		return -1;
+	}
+
+	private static void detach(final XMLElement element) {
+		final XMLElement parent = element.getParent();
+		final int index = indexOf(parent, element);
+		if (index >= 0)
+			parent.removeChildAtIndex(index);
+	}
+
+	private static Reader readBytes(final DataInputStream record) throws IOException {
+		final byte[] bytes = new byte[record.readInt()];
+		record.readFully(bytes);
+		return new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+	}
+
+	private static XMLElement parse(final Reader reader) throws IOException {
+		final IXMLParser parser = new RichContentParser();
+		parser.setBuilder(XMLParserFactory.createDefaultXMLParser().getBuilder());
+		parser.setValidator(new NonValidator());
+		parser.setReader(new StdXMLReader(reader));
+		try {
+			return (XMLElement) parser.parse();
+		}
+		catch (final XMLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Keeps the html of rich content elements as text like {@link org.freeplane.core.io.xml.TreeXmlReader} does,
+	 * because html written back as xml is not always understood by the html parser.
+	 */
+	private static class RichContentParser extends StdXMLParser {
+		private static final String CLOSING_TAG = "</" + NodeTextBuilder.XML_NODE_RICHCONTENT_TAG;
+
+		@Override
+		protected void processElementContent(final String defaultNamespace, final Properties namespaces,
+		                                     final String fullName, final String name, final String prefix)
+		        throws IOException, XMLParseException, Exception {
+			if (!NodeTextBuilder.XML_NODE_RICHCONTENT_TAG.equals(fullName)) {
+				super.processElementContent(defaultNamespace, namespaces, fullName, name, prefix);
+				return;
+			}
+			final IXMLReader reader = getReader();
+			final StringBuilder content = new StringBuilder();
+			while (!endsWithClosingTag(content))
+				content.append(reader.read());
+			content.setLength(content.length() - CLOSING_TAG.length());
+			char ch;
+			do
+				ch = reader.read();
+			while (Character.isWhitespace(ch));
+			if (ch != '>')
+				throw new XMLParseException(reader.getSystemID(), reader.getLineNr(), "Closing tag must be empty");
+			closingTagIsReadAndVerified = true;
+			getBuilder().addPCData(new StringReader(content.toString()), reader.getSystemID(), reader.getLineNr());
+		}
+
+		private static boolean endsWithClosingTag(final StringBuilder content) {
+			final int start = content.length() - CLOSING_TAG.length();
+			return start >= 0 && content.indexOf(CLOSING_TAG, start) == start;
+		}
+	}
+
+	private static class RichContentWriter extends XMLWriter {
+		RichContentWriter(final Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		public void write(final XMLElement xml, final boolean prettyPrint, final int indent,
+		                  final boolean collapseEmptyElements) throws IOException {
+			if (!NodeTextBuilder.XML_NODE_RICHCONTENT_TAG.equals(xml.getName()) || xml.getContent() == null) {
+				super.write(xml, prettyPrint, indent, collapseEmptyElements);
+				return;
+			}
+			final PrintWriter writer = getWriter();
+			writer.print('<');
+			writer.print(xml.getFullName());
+			final Enumeration<String> attributeNames = xml.enumerateAttributeNames();
+			while (attributeNames.hasMoreElements()) {
+				final String key = attributeNames.nextElement();
+				writer.print(" " + key + "=\"");
+				writeEncoded(xml.getAttribute(key, null));
+				writer.print('"');
+			}
+			writer.print('>');
+			writer.print(xml.getContent());
+			writer.print("</" + xml.getFullName() + '>');
+			writer.flush();
+		}
+	}
+}
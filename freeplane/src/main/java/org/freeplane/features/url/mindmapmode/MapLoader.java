@@ -1,5 +1,6 @@
 package org.freeplane.features.url.mindmapmode;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -14,6 +15,7 @@ import java.nio.file.Paths;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.CancellationException;
 
 import org.freeplane.core.resources.TranslatedObject;
 import org.freeplane.core.undo.IUndoHandler;
@@ -151,6 +153,9 @@ public class MapLoader{
 			}
 			return map;
 		}
+		catch (CancellationException e) {
+			return null;
+		}
 		catch (RuntimeException e) {
 			throw e;
 		}
@@ -291,7 +296,7 @@ public class MapLoader{
 				if (file.length() != 0) {
 					//DOCEAR - fixed: set the file for the map before parsing the xml, necessary for some events
 					fileManager.setFile(map, file);
-					NodeModel root = fileManager.loadTree(map, file);
+					NodeModel root = fileManager.loadDetachedTree(map, file);
 					assert (map.getRootNode() == root);
 				}
 			}
@@ -308,7 +313,9 @@ public class MapLoader{
 	}
 
 	private void loadMapContent(final MMapModel map) throws IOException, XMLException {
-		try (InputStreamReader urlStreamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+		try (InputStreamReader urlStreamReader = new InputStreamReader(
+		        MFileManager.decompressed(inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream)),
+		        StandardCharsets.UTF_8)) {
 			modeController.getMapController().getMapReader().createNodeTreeFromXml(map, urlStreamReader, Mode.FILE);
 		}
 	}
@@ -58,7 +58,11 @@ import org.freeplane.core.util.Compat;
 import org.freeplane.core.util.Hyperlink;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.mindmapmode.MMapController;
+import org.freeplane.features.map.mindmapmode.MMapModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.mode.mindmapmode.MModeController;
 import org.freeplane.features.ui.FrameController;
 import org.freeplane.features.ui.IMapViewManager;
 import org.freeplane.view.swing.map.MapView;
@@ -390,7 +394,12 @@ class ApplicationViewController extends FrameController {
 
 
 	public void openMapsOnStart() {
+		final ModeController modeController = controller.getModeController(MModeController.MODENAME);
+		final MMapController mapController = (MMapController) modeController.getMapController();
+		final List<MMapModel> preloadedMaps = mapController.preloadMaps(mapViewWindows.getMapLocationsOnStart());
 	    mapViewWindows.loadLayout();
+	    // the maps must stay reachable until the layout has created their views
+	    preloadedMaps.clear();
     }
 
 	public void focusTo(MapView currentMapView) {
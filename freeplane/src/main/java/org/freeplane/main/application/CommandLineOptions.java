@@ -16,4 +16,7 @@ public interface CommandLineOptions {
 
 	boolean hasItemsToExecute();
 
+	/** @return the operation applied to the given files by {@link org.freeplane.main.headlessmode.BatchConverter} or null */
+	String getBatchOperation();
+
 }
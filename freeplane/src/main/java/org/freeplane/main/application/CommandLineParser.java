@@ -15,6 +15,9 @@ public class CommandLineParser {
                 + "\n -R<file>      : execute script by path <file>." //
                 + "\n -S            : stop after executing menu items and scripts" //
                 + "\n -N            : set the 'nonInteractive' system property to 'true'" //
+                + "\n -B<operation> : apply the operation to all given files concurrently and exit, implies -N." //
+                + "\n                 operations: save, export:<extension>[:<export type>], script:<file>" //
+                + "\n                 files can be given as glob patterns like maps/**.mm or as @<file list>" //
                 + "\n -U<userdir>   : set the freeplane user config directory (default: "
                 + Compat.getDefaultFreeplaneUserDirectory() + ")" //
                 + "\n -h , --help   : print this help text";
@@ -23,6 +26,7 @@ public class CommandLineParser {
         private List<String> scriptsToExecute = new ArrayList<String>();
         private boolean stopAfterLaunch;
         private boolean nonInteractive;
+        private String batchOperation;
         private boolean helpRequested = false;
 
         private void setFilesToOpen(final String[] filesToOpen) {
@@ -50,7 +54,11 @@ public class CommandLineParser {
 		}
 
 		public boolean hasItemsToExecute() {
-            return !menuItemsToExecute.isEmpty() || !scriptsToExecute.isEmpty();
+            return !menuItemsToExecute.isEmpty() || !scriptsToExecute.isEmpty() || batchOperation != null;
+        }
+
+        public String getBatchOperation() {
+            return batchOperation;
         }
 
         private void addFilesToOpen(String file) {
@@ -81,7 +89,7 @@ public class CommandLineParser {
         public String toString() {
             return "Options(files: " + filesToOpen + ", menuItems: " + menuItemsToExecute + 
             		", scripts: " + scriptsToExecute + ", stopAfterLaunch: "
-                    + stopAfterLaunch + ", nonInteractive: " + nonInteractive + ")";
+                    + stopAfterLaunch + ", nonInteractive: " + nonInteractive + ", batchOperation: " + batchOperation + ")";
         }
 
         private String getHelpMessage() {
@@ -129,6 +137,13 @@ public class CommandLineParser {
                 else if (args.length > i + 1)
                     result.addScriptToExecute(args[++i]);
             }
+            else if (arg.startsWith("-B")) {
+                if (arg.length() > 2)
+                    result.batchOperation = arg.substring(2);
+                else if (args.length > i + 1)
+                    result.batchOperation = args[++i];
+                result.nonInteractive = true;
+            }
             else if (arg.startsWith("-U")) {
                 String userdir = null;
                 if (arg.length() > 2)
@@ -36,6 +36,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -61,9 +63,12 @@ import org.apache.commons.codec.binary.Base64;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.ui.FileOpener;
 import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.util.ConfigurationUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.map.DocuMapAttribute;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.mindmapmode.MModeController;
 import org.freeplane.features.ui.IMapViewChangeListener;
 import org.freeplane.features.url.mindmapmode.DroppedMindMapOpener;
 import org.freeplane.view.swing.map.MapView;
@@ -106,6 +111,7 @@ class MapViewDockingWindows implements IMapViewChangeListener {
 	private static final String CUSTOMIZED_TAB_NAME_PROPERTY = "customizedTabName";
     // // 	final private Controller controller;
 	private static final String OPENED_NOW = "openedNow_1.3.04";
+	private static final String OPENED_NOW_MAPS = "openedNowMaps";
 	private RootWindow rootWindow = null;
 	final private Vector<Component> mapViews;
 	private boolean mPaneSelectionUpdate = true;
@@ -485,12 +491,48 @@ class MapViewDockingWindows implements IMapViewChangeListener {
 			objectStream.close();
 			String encodedBytes = Base64.encodeBase64String(byteStream.toByteArray());
 			ResourceController.getResourceController().setProperty(OPENED_NOW, encodedBytes);
+			ResourceController.getResourceController().setProperty(OPENED_NOW_MAPS,
+			    ConfigurationUtils.encodeListValue(getOpenedMapLocations(), true));
         }
         catch (IOException e) {
 	        e.printStackTrace();
         }
 	}
 
+	private List<String> getOpenedMapLocations() {
+		final ArrayList<String> locations = new ArrayList<String>(mapViews.size());
+		final Component selectedMapView = Controller.getCurrentController().getMapViewManager().getMapViewComponent();
+		for (final Component mapViewComponent : getMapViewVector()) {
+			if (mapViewComponent instanceof MapView) {
+				final MapView mapView = (MapView) mapViewComponent;
+				final URL url = mapView.getMap().getURL();
+				if (url != null && mapView.getModeController().getModeName().equals(MModeController.MODENAME)
+				        && !mapView.getMap().containsExtension(DocuMapAttribute.class)) {
+					if (mapView == selectedMapView)
+						locations.add(0, url.toString());
+					else
+						locations.add(url.toString());
+				}
+			}
+		}
+		return locations;
+	}
+
+	/** Locations of the maps shown by the saved layout, the selected map comes first. */
+	public List<URL> getMapLocationsOnStart() {
+		final String locations = ResourceController.getResourceController().getProperty(OPENED_NOW_MAPS, "");
+		final List<URL> urls = new ArrayList<URL>();
+		for (final String location : ConfigurationUtils.decodeListValue(locations, true)) {
+			try {
+				urls.add(new URL(location));
+			}
+			catch (MalformedURLException e) {
+				LogUtils.warn(e);
+			}
+		}
+		return urls;
+	}
+
 	public void loadLayout(){
 		String encodedBytes = ResourceController.getResourceController().getProperty(OPENED_NOW, null);
 		if(encodedBytes != null){
@@ -0,0 +1,302 @@
+package org.freeplane.main.headlessmode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.swing.filechooser.FileFilter;
+
+import org.freeplane.core.util.FileUtils;
+import org.freeplane.features.export.mindmapmode.ExportController;
+import org.freeplane.features.export.mindmapmode.ExportScheduler.OutputWriter;
+import org.freeplane.features.export.mindmapmode.IExportEngine;
+import org.freeplane.features.map.mindmapmode.MMapController;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.script.IScriptStarter;
+import org.freeplane.features.url.mindmapmode.MFileManager;
+
+/**
+ * Applies an operation to many maps in one headless session.
+ *
+ * Every map is parsed into its own model on a worker pool.
+ * The operation is applied on the converting thread, which captures the output,
+ * and the output is written on the worker pool again.
+ * Only a bounded number of maps are loaded at the same time and each map is closed after its operation,
+ * so memory use does not grow with the number of converted maps.
+ */
+public class BatchConverter {
+	/** Applied on the converting thread, the returned writer is called on a worker thread. */
+	@FunctionalInterface
+	public interface Operation {
+		OutputWriter apply(MMapModel map, File file) throws Exception;
+	}
+
+	/** Called on any thread once per converted file. */
+	@FunctionalInterface
+	public interface Reporter {
+		void fileConverted(File file, long processingMillis, Exception failure);
+	}
+
+	private static final OutputWriter NOTHING_TO_WRITE = () -> {};
+
+	/** Saves the map again in the format given by its file extension. */
+	public static Operation save() {
+		return (map, file) -> {
+			final byte[] content = MFileManager.createFileContent(map, file);
+			return () -> MFileManager.writeFileContent(file, content);
+		};
+	}
+
+	/**
+	 * Exports the map next to its file.
+	 * The export type is chosen like in scripts: its description contains the file extension and the given type.
+	 */
+	public static Operation export(String extension, String exportType) {
+		final ExportController exportController = ExportController.getContoller();
+		final String extensionLowerCase = "." + extension.toLowerCase();
+		final String exportTypeLowerCase = exportType.toLowerCase();
+		for (final FileFilter fileFilter : exportController.getMapExportFileFilters()) {
+			final String description = fileFilter.getDescription().toLowerCase();
+			if (description.contains(extensionLowerCase) && description.contains(exportTypeLowerCase)) {
+				final IExportEngine exportEngine = exportController.getMapExportEngines().get(fileFilter);
+				return (map, file) -> exportEngine.prepareExport(Collections.singletonList(map.getRootNode()),
+				    new File(file.getParentFile(), FileUtils.removeExtension(file.getName()) + extensionLowerCase));
+			}
+		}
+		throw new IllegalArgumentException("no export defined for '" + exportType + "' and extension " + extension);
+	}
+
+	/** Executes the script on the root node and saves the map if the script has changed it. */
+	public static Operation script(ModeController modeController, File scriptFile) throws IOException {
+		final IScriptStarter scriptStarter = modeController.getExtension(IScriptStarter.class);
+		if (scriptStarter == null)
+			throw new IllegalStateException("scripting is not available");
+		final String script = FileUtils.slurpFile(scriptFile);
+		final Operation save = save();
+		return (map, file) -> {
+			scriptStarter.executeScript(map.getRootNode(), script);
+			return map.isSaved() ? NOTHING_TO_WRITE : save.apply(map, file);
+		};
+	}
+
+	/**
+	 * Creates an operation given on the command line:
+	 * {@code save}, {@code export:<extension>[:<export type>]} or {@code script:<script file>}.
+	 */
+	public static Operation parse(ModeController modeController, String operation) throws IOException {
+		final String[] parts = operation.split(":", 3);
+		switch (parts[0]) {
+			case "save":
+				return save();
+			case "export":
+				if (parts.length > 1)
+					return export(parts[1], parts.length > 2 ? parts[2] : "");
+				break;
+			case "script":
+				if (parts.length > 1)
+					return script(modeController, new File(operation.substring("script:".length())));
+				break;
+		}
+		throw new IllegalArgumentException("unknown batch operation '" + operation + "'");
+	}
+
+	/**
+	 * Expands the arguments to the converted files.
+	 * An argument is a file, a glob pattern relative to its directory part like {@code maps/**.mm},
+	 * or {@code @<list file>} naming a file with one argument per line.
+	 */
+	public static List<File> expand(List<String> arguments) throws IOException {
+		final List<File> files = new ArrayList<>();
+		for (final String argument : arguments) {
+			if (argument.startsWith("@"))
+				files.addAll(expand(Files.readAllLines(Paths.get(argument.substring(1)), StandardCharsets.UTF_8)
+				    .stream().map(String::trim).filter(line -> !line.isEmpty()).collect(Collectors.toList())));
+			else if (indexOfWildcard(argument) >= 0)
+				addMatchingFiles(argument, files);
+			else
+				files.add(new File(argument));
+		}
+		return files;
+	}
+
+	private static int indexOfWildcard(String argument) {
+		for (int i = 0; i < argument.length(); i++) {
+			if ("*?[{".indexOf(argument.charAt(i)) >= 0)
+				return i;
+		}
+		return -1;
+	}
+
+	private static void addMatchingFiles(String pattern, List<File> files) throws IOException {
+		final int firstWildcard = indexOfWildcard(pattern);
+		final int directoryEnd = Math.max(pattern.lastIndexOf('/', firstWildcard),
+		    pattern.lastIndexOf(File.separatorChar, firstWildcard));
+		final Path directory = Paths.get(directoryEnd < 0 ? "." : pattern.substring(0, directoryEnd + 1));
+		final String glob = pattern.substring(directoryEnd + 1);
+		final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+		final int depth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("[/\\\\]").length;
+		try (Stream<Path> paths = Files.walk(directory, depth)) {
+			paths.filter(path -> matcher.matches(directory.relativize(path)) && Files.isRegularFile(path)).sorted()
+			    .forEachOrdered(path -> files.add(path.toFile()));
+		}
+	}
+
+	private static class Conversion {
+		final File file;
+		Future<MMapModel> parsedMap;
+		volatile long processingNanos;
+
+		Conversion(File file) {
+			this.file = file;
+		}
+	}
+
+	private final MMapController mapController;
+	private final MFileManager fileManager;
+	private final Operation operation;
+	private final Reporter reporter;
+	private final int threadCount;
+	private final Semaphore loadedMaps;
+	private final AtomicInteger failureCount = new AtomicInteger();
+
+	public BatchConverter(ModeController modeController, Operation operation, Reporter reporter) {
+		this(modeController, operation, reporter, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchConverter(ModeController modeController, Operation operation, Reporter reporter, int threadCount) {
+		this.mapController = (MMapController) modeController.getMapController();
+		this.fileManager = MFileManager.getController(modeController);
+		this.operation = operation;
+		this.reporter = reporter;
+		this.threadCount = Math.max(1, threadCount);
+		this.loadedMaps = new Semaphore(2 * this.threadCount);
+	}
+
+	/**
+	 * Converts the files in the given order and returns after all outputs are written.
+	 *
+	 * @return the number of failed files
+	 */
+	public int convert(List<File> files) throws InterruptedException {
+		final ExecutorService workers = Executors.newFixedThreadPool(threadCount, r -> {
+			final Thread thread = new Thread(r, "batch converter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			final Iterator<File> remainingFiles = files.iterator();
+			final ArrayDeque<Conversion> parsedFiles = new ArrayDeque<>();
+			while (remainingFiles.hasNext() || !parsedFiles.isEmpty()) {
+				if (remainingFiles.hasNext() && canLoadNextMap(parsedFiles.isEmpty()))
+					parsedFiles.add(parse(remainingFiles.next(), workers));
+				else
+					applyAndWrite(parsedFiles.remove(), workers);
+			}
+		}
+		finally {
+			workers.shutdown();
+		}
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		return failureCount.get();
+	}
+
+	private boolean canLoadNextMap(boolean waitForLoadedMaps) throws InterruptedException {
+		if (!waitForLoadedMaps)
+			return loadedMaps.tryAcquire();
+		loadedMaps.acquire();
+		return true;
+	}
+
+	private Conversion parse(File file, ExecutorService workers) {
+		final Conversion conversion = new Conversion(file);
+		conversion.parsedMap = workers.submit(() -> {
+			final long start = System.nanoTime();
+			try {
+				final MMapModel map = new MMapModel(mapController.duplicator());
+				return fileManager.loadTreeWithoutInteraction(map, file) ? map : null;
+			}
+			finally {
+				conversion.processingNanos += System.nanoTime() - start;
+			}
+		});
+		return conversion;
+	}
+
+	private void applyAndWrite(Conversion conversion, ExecutorService workers) {
+		final OutputWriter writer;
+		try {
+			writer = applyOperation(conversion);
+		}
+		catch (Exception e) {
+			loadedMaps.release();
+			report(conversion, e);
+			return;
+		}
+		workers.execute(() -> {
+			final long start = System.nanoTime();
+			try {
+				writer.write();
+				conversion.processingNanos += System.nanoTime() - start;
+				report(conversion, null);
+			}
+			catch (Exception e) {
+				conversion.processingNanos += System.nanoTime() - start;
+				report(conversion, e);
+			}
+			finally {
+				loadedMaps.release();
+			}
+		});
+	}
+
+	private OutputWriter applyOperation(Conversion conversion) throws Exception {
+		final MMapModel map;
+		try {
+			map = conversion.parsedMap.get();
+		}
+		catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			throw (Error) cause;
+		}
+		conversion.parsedMap = null;
+		if (map == null)
+			throw new IOException("can not load " + conversion.file + " without user interaction");
+		final long start = System.nanoTime();
+		map.setSaved(true);
+		mapController.fireMapCreated(map);
+		try {
+			return operation.apply(map, conversion.file);
+		}
+		finally {
+			mapController.closeWithoutSaving(map);
+			conversion.processingNanos += System.nanoTime() - start;
+		}
+	}
+
+	private void report(Conversion conversion, Exception failure) {
+		if (failure != null)
+			failureCount.incrementAndGet();
+		reporter.fileConverted(conversion.file, TimeUnit.NANOSECONDS.toMillis(conversion.processingNanos), failure);
+	}
+}
@@ -19,6 +19,9 @@
  */
 package org.freeplane.main.headlessmode;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.freeplane.core.resources.ResourceController;
@@ -115,6 +118,11 @@ public class FreeplaneHeadlessStarter implements FreeplaneStarter {
 		ModeController modeController = controller.getModeController(MModeController.MODENAME);
 		controller.selectModeForBuild(modeController);
 		Controller.getCurrentController().fireStartupFinished();
+		if(options.getBatchOperation() != null) {
+			final int failureCount = convertFiles(modeController);
+			stop();
+			System.exit(failureCount == 0 ? 0 : 1);
+		}
 		if(options.shouldStopAfterLaunch()) {
 			stop();
 			System.exit(0);
@@ -122,6 +130,32 @@ public class FreeplaneHeadlessStarter implements FreeplaneStarter {
 
 	}
 
+	private int convertFiles(ModeController modeController) {
+		try {
+			final List<File> files = BatchConverter.expand(Arrays.asList(options.getFilesToOpenAsArray()));
+			final BatchConverter.Operation operation = BatchConverter.parse(modeController, options.getBatchOperation());
+			final long start = System.currentTimeMillis();
+			final int failureCount = new BatchConverter(modeController, operation, this::reportConvertedFile).convert(files);
+			System.out.println("converted " + (files.size() - failureCount) + " of " + files.size() + " files in "
+			        + (System.currentTimeMillis() - start) + " ms");
+			return failureCount;
+		}
+		catch (final Exception e) {
+			LogUtils.severe(e);
+			System.err.println(e.getMessage());
+			return -1;
+		}
+	}
+
+	private void reportConvertedFile(File file, long processingMillis, Exception failure) {
+		if (failure == null)
+			System.out.println(processingMillis + " ms " + file);
+		else {
+			LogUtils.warn("batch operation failed for " + file, failure);
+			System.out.println(processingMillis + " ms " + file + " FAILED: " + failure);
+		}
+	}
+
 	@Override
 	public void stop() {
 		if(viewController != null)
@@ -72,6 +72,7 @@ import org.freeplane.features.export.mindmapmode.ExportController;
 import org.freeplane.features.export.mindmapmode.ImportMindmanagerFiles;
 import org.freeplane.features.export.mindmapmode.ImportXmlFile;
 import org.freeplane.features.filter.FilterController;
+import org.freeplane.features.filter.NodeTextIndex;
 import org.freeplane.features.filter.hidden.HiddenNodeContoller;
 import org.freeplane.features.icon.IconController;
 import org.freeplane.features.icon.hierarchicalicons.HierarchicalIcons;
@@ -112,6 +113,7 @@ import org.freeplane.features.styles.mindmapmode.MLogicalStyleController;
 import org.freeplane.features.styles.mindmapmode.MUIFactory;
 import org.freeplane.features.styles.mindmapmode.ShowFormatPanelAction;
 import org.freeplane.features.styles.mindmapmode.styleeditorpanel.StyleEditorPanel;
+import org.freeplane.features.text.TextController;
 import org.freeplane.features.text.mindmapmode.MTextController;
 import org.freeplane.features.text.mindmapmode.SortNodes;
 import org.freeplane.features.text.mindmapmode.SplitNode;
@@ -178,6 +180,8 @@ public class MModeControllerFactory {
 		SummaryNode.install();
 		final MMapController mapController = (MMapController) modeController.getMapController();
 		mapController.addMapLifeCycleListener(new SummaryNodeMapUpdater(modeController, mapController));
+		FilterController.getCurrentFilterController().recordNodeChanges(mapController);
+		new NodeTextIndex.Updater(TextController::collectIndexedTexts, AttributeController::collectIndexedTexts).registerBy(mapController);
 		final AlwaysUnfoldedNode alwaysUnfoldedNode = new AlwaysUnfoldedNode();
 		modeController.addAction(new SetAlwaysUnfoldedNodeFlagsAction(alwaysUnfoldedNode));
 		modeController.addAction(new RemoveAllAlwaysUnfoldedNodeFlagsAction(alwaysUnfoldedNode));
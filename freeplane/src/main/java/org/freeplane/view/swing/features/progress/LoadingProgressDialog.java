@@ -0,0 +1,124 @@
+package org.freeplane.view.swing.features.progress;
+
+import java.awt.BorderLayout;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+
+import org.freeplane.core.ui.LabelAndMnemonicSetter;
+import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.util.TextUtils;
+
+/**
+ * Runs a loading task on a worker thread while a modal dialog shows how many bytes of its input are read.
+ * The event dispatch thread keeps painting, and the user can cancel loading.
+ */
+public class LoadingProgressDialog {
+	private static final long MINIMAL_BACKGROUND_LOADING_SIZE = 1024 * 1024;
+	private static final int PROGRESS_RESOLUTION = 1000;
+	private static final int PROGRESS_UPDATE_DELAY = 100;
+
+	/**
+	 * Runs the task in background if it is called on the event dispatch thread and the input is large enough,
+	 * otherwise the task runs on the calling thread.
+	 *
+	 * @throws CancellationException if the user has cancelled loading
+	 */
+	public static <T> T load(String title, ProgressInputStream input, long totalBytes, Callable<T> task)
+	        throws Exception {
+		if (totalBytes < MINIMAL_BACKGROUND_LOADING_SIZE || GraphicsEnvironment.isHeadless()
+		        || !SwingUtilities.isEventDispatchThread())
+			return task.call();
+		return new LoadingProgressDialog(title, input, totalBytes).run(task);
+	}
+
+	private final ProgressInputStream input;
+	private final long totalBytes;
+	private final JDialog dialog;
+	private final JProgressBar progressBar;
+
+	private LoadingProgressDialog(String title, ProgressInputStream input, long totalBytes) {
+		this.input = input;
+		this.totalBytes = totalBytes;
+		final Frame frame = UITools.getCurrentFrame();
+		dialog = new JDialog(frame, title, true);
+		dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		dialog.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				input.cancel();
+			}
+		});
+		progressBar = new JProgressBar(0, PROGRESS_RESOLUTION);
+		progressBar.setStringPainted(true);
+		final JButton cancelButton = new JButton();
+		LabelAndMnemonicSetter.setLabelAndMnemonic(cancelButton, TextUtils.getRawText("cancel"));
+		cancelButton.addActionListener(e -> {
+			input.cancel();
+			cancelButton.setEnabled(false);
+		});
+		final JPanel buttonPanel = new JPanel();
+		buttonPanel.add(cancelButton);
+		final JPanel contentPane = new JPanel(new BorderLayout(0, 10));
+		contentPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 5, 10));
+		contentPane.add(progressBar, BorderLayout.CENTER);
+		contentPane.add(buttonPanel, BorderLayout.SOUTH);
+		dialog.setContentPane(contentPane);
+		dialog.pack();
+		dialog.setSize(Math.max(dialog.getWidth(), 400), dialog.getHeight());
+		UITools.setDialogLocationRelativeTo(dialog, frame);
+	}
+
+	private <T> T run(Callable<T> task) throws Exception {
+		final FutureTask<T> future = new FutureTask<T>(task) {
+			@Override
+			protected void done() {
+				SwingUtilities.invokeLater(dialog::dispose);
+			}
+		};
+		final Thread worker = new Thread(future, "map loader");
+		worker.setDaemon(true);
+		final Timer timer = new Timer(PROGRESS_UPDATE_DELAY, e -> updateProgress());
+		worker.start();
+		timer.start();
+		try {
+			dialog.setVisible(true);
+		}
+		finally {
+			timer.stop();
+		}
+		try {
+			final T result = future.get();
+			if (input.isCancelled())
+				throw new CancellationException();
+			return result;
+		}
+		catch (ExecutionException e) {
+			if (input.isCancelled())
+				throw new CancellationException();
+			final Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			throw (Error) cause;
+		}
+	}
+
+	private void updateProgress() {
+		final long readBytes = Math.min(input.getReadBytes(), totalBytes);
+		progressBar.setValue((int) (readBytes * PROGRESS_RESOLUTION / totalBytes));
+	}
+}
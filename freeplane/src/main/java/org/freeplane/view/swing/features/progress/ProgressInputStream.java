@@ -0,0 +1,75 @@
+package org.freeplane.view.swing.features.progress;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Counts the bytes read from the underlying stream so that another thread can display the progress,
+ * and aborts reading after {@link #cancel()}.
+ */
+public class ProgressInputStream extends FilterInputStream {
+	private volatile long readBytes;
+	private volatile boolean cancelled;
+	private long markedBytes;
+
+	public ProgressInputStream(InputStream in) {
+		super(in);
+	}
+
+	public long getReadBytes() {
+		return readBytes;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	private void checkCancelled() throws InterruptedIOException {
+		if (cancelled)
+			throw new InterruptedIOException("loading cancelled");
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkCancelled();
+		final int c = super.read();
+		if (c != -1)
+			readBytes++;
+		return c;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkCancelled();
+		final int count = super.read(b, off, len);
+		if (count > 0)
+			readBytes += count;
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		checkCancelled();
+		final long count = super.skip(n);
+		readBytes += count;
+		return count;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		super.mark(readlimit);
+		markedBytes = readBytes;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		super.reset();
+		readBytes = markedBytes;
+	}
+}
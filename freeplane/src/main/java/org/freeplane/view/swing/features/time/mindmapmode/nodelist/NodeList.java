@@ -836,8 +836,8 @@ class NodeList implements IExtension {
 		row.add(new TextHolder(new DetailTextAccessor(node)) );
 		row.add(new TextHolder(new NoteTextAccessor(node)));
 		row.add(date);
-		row.add(node.getHistoryInformation().getCreatedAt());
-		row.add(node.getHistoryInformation().getLastModifiedAt());
+		row.add(new Date(node.getCreatedAtMillis()));
+		row.add(new Date(node.getLastModifiedAtMillis()));
 		return row;
 	}
 	static private HashSet<Object> changeableProperties = new HashSet<Object>(
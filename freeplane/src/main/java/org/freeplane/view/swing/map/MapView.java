@@ -785,6 +785,13 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 						event.getNode().getMap().equals(getMap()))
 					repaint();
 			}
+
+			@Override
+			public void nodesChanged(final List<NodeChangeEvent> events) {
+				if(events.stream().anyMatch(event -> NodeLinks.CONNECTOR.equals(event.getProperty()) &&
+						event.getNode().getMap().equals(getMap())))
+					repaint();
+			}
 		};
 		addPropertyChangeListener(SPOTLIGHT_ENABLED, repaintOnClientPropertyChangeListener);
 		if(ResourceController.getResourceController().getBooleanProperty("activateSpotlightByDefault"))
@@ -45,6 +45,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.FocusManager;
@@ -425,37 +426,31 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 	public RenderedImage createImage(int dpi, final Rectangle printedArea) {
 		final MapView view = getMapView();
 		view.preparePrinting();
-		final BufferedImage myImage = printToImage(dpi, view, printedArea);
-		view.endPrinting();
-		return myImage;
-	}
-
-	private BufferedImage printToImage(int dpi, final MapView view, final Rectangle innerBounds) {
-		double scaleFactor = (double) dpi / (double) (UITools.FONT_SCALE_FACTOR * 72);
-
-		double scaledWidth = innerBounds.width * scaleFactor;
-		double scaledHeight = innerBounds.height * scaleFactor;
-		if(scaledWidth * scaledHeight > Integer.MAX_VALUE) {
-		    UITools.errorMessage(TextUtils.getText("out_of_memory"));
-		    return null;
-        }
-		int imageWidth = (int) Math.ceil(scaledWidth);
-        int imageHeight = (int) Math.ceil(scaledHeight);
-
+		final double scaleFactor = (double) dpi / (double) (UITools.FONT_SCALE_FACTOR * 72);
+		final int imageWidth = (int) Math.ceil(printedArea.width * scaleFactor);
+		final int imageHeight = (int) Math.ceil(printedArea.height * scaleFactor);
+		Color background = view.getBackground();
+		if(background == null) {
+			background = SystemColor.window;
+		}
+		final Consumer<Graphics2D> painter = g -> printToGraphics(view, printedArea, scaleFactor, g);
+		if((long)imageWidth * imageHeight > TiledMapImage.MAX_STRIP_PIXELS) {
+			return new TiledMapImage(imageWidth, imageHeight, background, painter, view::endPrinting);
+		}
 		final BufferedImage myImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
 		final Graphics2D g = (Graphics2D) myImage.getGraphics();
-		Color background = view.getBackground();
-        if(background == null) {
-            background = SystemColor.window;
-        }
-
 		g.setBackground(background);
 		g.clearRect(0, 0, imageWidth, imageHeight);
+		painter.accept(g);
+		view.endPrinting();
+		return myImage;
+	}
+
+	private void printToGraphics(final MapView view, final Rectangle innerBounds, double scaleFactor, final Graphics2D g) {
 		g.scale(scaleFactor, scaleFactor);
 		g.translate(-innerBounds.x, -innerBounds.y);
 		g.setRenderingHint(GraphicsHints.CACHE_ICONS, Boolean.TRUE);
 		view.print(g);
-		return myImage;
 	}
 
 	/* (non-Javadoc)
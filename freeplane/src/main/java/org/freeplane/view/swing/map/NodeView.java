@@ -1064,10 +1064,26 @@ public class NodeView extends JComponent implements INodeView {
 
 	@Override
 	public void nodeChanged(final NodeChangeEvent event) {
+		if (applyChange(event))
+			updateChangedNode(event.getNode());
+	}
+
+	/** Updates the node view once even if several properties of the node have changed. */
+	@Override
+	public void nodesChanged(final List<NodeChangeEvent> events) {
+		boolean needsUpdate = false;
+		for (final NodeChangeEvent event : events)
+			needsUpdate = applyChange(event) || needsUpdate;
+		if (needsUpdate)
+			updateChangedNode(events.get(0).getNode());
+	}
+
+	/** Applies changes needing special view updates and returns true if the whole node view must be updated. */
+	private boolean applyChange(final NodeChangeEvent event) {
 		final NodeModel node = event.getNode();
 		// is node is deleted, skip the rest.
 		if (!node.isRoot() && node.getParentNode() == null) {
-			return;
+			return false;
 		}
 		final Object property = event.getProperty();
 		if (property == NodeChangeType.FOLDING || property == Properties.HIDDEN_CHILDREN || property == EncryptionModel.class) {
@@ -1077,7 +1093,7 @@ public class NodeView extends JComponent implements INodeView {
 				setFolded(folded, force);
 			}
 			if(property != EncryptionModel.class)
-				return;
+				return false;
 		}
         if(property == ChildNodesAlignment.class
                 || property == LayoutOrientation.class
@@ -1085,13 +1101,13 @@ public class NodeView extends JComponent implements INodeView {
             resetLayoutPropertiesRecursively();
             revalidate();
             repaint();
-            return;
+            return false;
         }
 		if(property == NodeVisibilityConfiguration.class) {
 			updateAll();
 			if(event.getNewValue() != NodeVisibilityConfiguration.SHOW_HIDDEN_NODES)
 			    FilterController.getCurrentFilterController().selectVisibleNodes(map.getMapSelection());
-			return;
+			return false;
 		}
 
 		if(property == NodeVisibility.class
@@ -1104,7 +1120,7 @@ public class NodeView extends JComponent implements INodeView {
 		    }
 		    else
 		        updateIcons();
-			return;
+			return false;
 		}
 
 		if(property == Side.class) {
@@ -1114,23 +1130,24 @@ public class NodeView extends JComponent implements INodeView {
 
 		// is node is not fully initialized, skip the rest.
 		if (mainView == null) {
-			return;
+			return false;
 		}
 		if (property.equals(NodeModel.NODE_ICON) || property.equals(HierarchicalIcons.ICONS)) {
 			updateIcons();
 			revalidate();
-			return;
+			return false;
 		}
 		if (property.equals(NodeModel.NODE_ICON_SIZE))
 		{
 			updateIcons();
 			revalidate();
-			return;
+			return false;
 		}
 
-		if (property.equals(HistoryInformationModel.class)) {
-			return;
-		}
+		return !property.equals(HistoryInformationModel.class);
+	}
+
+	private void updateChangedNode(final NodeModel node) {
 		update();
 		NodeView parentView = getParentView();
 		NodeModel parentNode = node.getParentNode();
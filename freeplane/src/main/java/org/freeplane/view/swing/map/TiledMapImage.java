@@ -0,0 +1,201 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+import java.util.function.Consumer;
+
+/**
+ * Image painted in horizontal strips when its pixels are requested.
+ *
+ * Image writers like the PNG writer request one row after the other,
+ * so only the strip containing the current row is kept in memory.
+ * Each strip is painted on its own graphics translated to the strip position.
+ * {@link #close()} must be called after the image is written.
+ */
+class TiledMapImage implements RenderedImage, AutoCloseable {
+	static final int MAX_STRIP_PIXELS = 4 * 1024 * 1024;
+
+	private final int width;
+	private final int height;
+	private final int stripHeight;
+	private final Color background;
+	private final Consumer<Graphics2D> painter;
+	private final Runnable disposer;
+	private final BufferedImage strip;
+	private int paintedStripIndex = -1;
+	private int paintedStripCount = 0;
+
+	TiledMapImage(int width, int height, Color background, Consumer<Graphics2D> painter, Runnable disposer) {
+		this(width, height, Math.max(1, Math.min(height, MAX_STRIP_PIXELS / Math.max(1, width))), background, painter,
+		    disposer);
+	}
+
+	TiledMapImage(int width, int height, int stripHeight, Color background, Consumer<Graphics2D> painter,
+	              Runnable disposer) {
+		this.width = width;
+		this.height = height;
+		this.stripHeight = stripHeight;
+		this.background = background;
+		this.painter = painter;
+		this.disposer = disposer;
+		this.strip = new BufferedImage(width, stripHeight, BufferedImage.TYPE_INT_RGB);
+	}
+
+	private synchronized Raster paintStrip(int stripIndex) {
+		if (paintedStripIndex != stripIndex) {
+			final Graphics2D g = strip.createGraphics();
+			try {
+				g.setBackground(background);
+				g.clearRect(0, 0, width, stripHeight);
+				g.translate(0, -stripIndex * stripHeight);
+				painter.accept(g);
+			}
+			finally {
+				g.dispose();
+			}
+			paintedStripIndex = stripIndex;
+			paintedStripCount++;
+		}
+		return strip.getRaster();
+	}
+
+	int getPaintedStripCount() {
+		return paintedStripCount;
+	}
+
+	@Override
+	public void close() {
+		disposer.run();
+	}
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return Image.UndefinedProperty;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+	@Override
+	public ColorModel getColorModel() {
+		return strip.getColorModel();
+	}
+
+	@Override
+	public SampleModel getSampleModel() {
+		return strip.getSampleModel();
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+	@Override
+	public int getNumXTiles() {
+		return 1;
+	}
+
+	@Override
+	public int getNumYTiles() {
+		return (height + stripHeight - 1) / stripHeight;
+	}
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+	@Override
+	public int getTileWidth() {
+		return width;
+	}
+
+	@Override
+	public int getTileHeight() {
+		return stripHeight;
+	}
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+
+	@Override
+	public Raster getTile(int tileX, int tileY) {
+		return copyData(strip.getRaster().createCompatibleWritableRaster(0, tileY * stripHeight, width, stripHeight));
+	}
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(0, 0, width, height));
+	}
+
+	@Override
+	public Raster getData(Rectangle rect) {
+		return copyData(strip.getRaster().createCompatibleWritableRaster(rect.x, rect.y, rect.width, rect.height));
+	}
+
+	@Override
+	public synchronized WritableRaster copyData(WritableRaster raster) {
+		if (raster == null) {
+			raster = strip.getRaster().createCompatibleWritableRaster(width, height);
+		}
+		final Rectangle copiedArea = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+		if (copiedArea.isEmpty()) {
+			return raster;
+		}
+		final int firstStrip = copiedArea.y / stripHeight;
+		final int lastStrip = (copiedArea.y + copiedArea.height - 1) / stripHeight;
+		for (int stripIndex = firstStrip; stripIndex <= lastStrip; stripIndex++) {
+			final int stripY = stripIndex * stripHeight;
+			final Rectangle copiedStripArea = copiedArea.intersection(new Rectangle(0, stripY, width, stripHeight));
+			final Raster stripRaster = paintStrip(stripIndex);
+			final Raster source = stripRaster.createChild(copiedStripArea.x, copiedStripArea.y - stripY,
+			    copiedStripArea.width, copiedStripArea.height, copiedStripArea.x, copiedStripArea.y, null);
+			raster.setRect(source);
+		}
+		return raster;
+	}
+}
@@ -199,6 +199,9 @@ public class MMapViewController extends MapViewController implements IEditBaseCr
 
     @Override
     public boolean saveModifiedIfNotCancelled(final MapModel map) {
+        final UrlManager urlManager = Controller.getCurrentModeController().getExtension(UrlManager.class);
+        if (urlManager instanceof MFileManager)
+            ((MFileManager) urlManager).finishPendingSave(map);
         if (!(map.isSaved() || map.isReadOnly())) {
             changeToMap(map);
             final MapView mapView = getMapView();
@@ -217,7 +220,8 @@ public class MMapViewController extends MapViewController implements IEditBaseCr
             if (returnVal == JOptionPane.YES_OPTION) {
                 final UrlManager fileManager = mapView.getModeController()
                         .getExtension(UrlManager.class);
-                final boolean savingNotCancelled = fileManager.save(map);
+                final boolean savingNotCancelled = fileManager.save(map)
+                        && (!(fileManager instanceof MFileManager) || ((MFileManager) fileManager).finishPendingSave(map));
                 if (!savingNotCancelled) {
                     return false;
                 }
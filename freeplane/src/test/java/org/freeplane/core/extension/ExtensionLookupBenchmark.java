@@ -0,0 +1,82 @@
+package org.freeplane.core.extension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares extension lookups of the slot based maps
+ * with a linear search comparing classes and with a hash map.
+ *
+ * Usage: ExtensionLookupBenchmark [lookups] [repetitions]
+ */
+public class ExtensionLookupBenchmark {
+	private static class E0 implements IExtension {}
+	private static class E1 implements IExtension {}
+	private static class E2 implements IExtension {}
+	private static class E3 implements IExtension {}
+	private static class E4 implements IExtension {}
+	private static class E5 implements IExtension {}
+	private static class Missing implements IExtension {}
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends IExtension>[] LOOKED_UP = new Class[] { E0.class, E3.class, E5.class,
+	        Missing.class };
+
+	/** Searches extensions by comparing their classes like the node extension map did before. */
+	private static class ClassScanMap extends HashMap<Class<? extends IExtension>, IExtension> {
+		private static final long serialVersionUID = 1L;
+		private final List<IExtension> extensions = new ArrayList<>();
+
+		@Override
+		public IExtension put(Class<? extends IExtension> key, IExtension value) {
+			extensions.add(value);
+			return null;
+		}
+
+		@Override
+		public IExtension get(Object key) {
+			for (int i = 0; i < extensions.size(); i++) {
+				if (key.equals(extensions.get(i).getClass())) {
+					return extensions.get(i);
+				}
+			}
+			return null;
+		}
+	}
+
+	public static void main(String[] args) {
+		final int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 50000000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		final Map<String, Map<Class<? extends IExtension>, IExtension>> maps = new LinkedHashMap<>();
+		maps.put("class scan", new ClassScanMap());
+		maps.put("hash map  ", new HashMap<>());
+		maps.put("small map ", new SmallExtensionMap());
+		maps.put("dense map ", new DenseExtensionMap());
+		for (final Map<Class<? extends IExtension>, IExtension> map : maps.values()) {
+			map.put(E0.class, new E0());
+			map.put(E1.class, new E1());
+			map.put(E2.class, new E2());
+			map.put(E3.class, new E3());
+			map.put(E4.class, new E4());
+			map.put(E5.class, new E5());
+		}
+		for (int i = 0; i < repetitions; i++) {
+			for (final Map.Entry<String, Map<Class<? extends IExtension>, IExtension>> entry : maps.entrySet()) {
+				final ExtensionContainer container = new ExtensionContainer(entry.getValue());
+				final long start = System.nanoTime();
+				int found = 0;
+				for (int lookup = 0; lookup < lookups; lookup++) {
+					if (container.getExtension(LOOKED_UP[lookup & 3]) != null) {
+						found++;
+					}
+				}
+				final long nanos = System.nanoTime() - start;
+				System.out.println(entry.getKey() + ": " + String.format("%.2f", (double) nanos / lookups)
+				        + " ns per lookup, " + found + " found");
+			}
+		}
+	}
+}
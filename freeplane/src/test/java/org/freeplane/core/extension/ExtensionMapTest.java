@@ -0,0 +1,89 @@
+package org.freeplane.core.extension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ExtensionMapTest {
+	private static class First implements IExtension {}
+	private static class Second implements IExtension {}
+	private static class Third implements IExtension {}
+	private interface Service extends IExtension {}
+	private static class ServiceImplementation implements Service {}
+
+	private final First first = new First();
+	private final Second second = new Second();
+	private final Third third = new Third();
+
+	@Test
+	public void smallMapKeepsInsertionOrder() {
+		final SmallExtensionMap map = new SmallExtensionMap();
+		map.put(Second.class, second);
+		map.put(First.class, first);
+		map.put(Third.class, third);
+		assertThat(map.values(), contains(second, first, third));
+		assertThat(map.remove(First.class), sameInstance(first));
+		assertThat(map.values(), contains(second, third));
+		assertThat(map.get(First.class), nullValue());
+		assertThat(map.get(Third.class), sameInstance(third));
+	}
+
+	@Test
+	public void smallMapGrowsAndReleasesStorage() {
+		final SmallExtensionMap map = new SmallExtensionMap();
+		final Class<?>[] classes = { First.class, Second.class, Third.class, ServiceImplementation.class };
+		map.put(First.class, first);
+		map.put(Second.class, second);
+		map.put(Third.class, third);
+		final ServiceImplementation service = new ServiceImplementation();
+		map.put(ServiceImplementation.class, service);
+		assertThat(map.size(), equalTo(4));
+		for (final Class<?> clazz : classes) {
+			assertThat(map.containsKey(clazz), equalTo(true));
+		}
+		for (final Class<?> clazz : classes) {
+			map.remove(clazz);
+		}
+		assertThat(map.isEmpty(), equalTo(true));
+		assertThat(map.values(), empty());
+	}
+
+	@Test
+	public void denseMapStoresExtensionsUnderInterfaceKeys() {
+		final Map<Class<? extends IExtension>, IExtension> map = new DenseExtensionMap();
+		final ServiceImplementation service = new ServiceImplementation();
+		map.put(Service.class, service);
+		map.put(First.class, first);
+		assertThat(map.get(Service.class), sameInstance(service));
+		assertThat(map.get(ServiceImplementation.class), nullValue());
+		assertThat(map.put(First.class, first), sameInstance(first));
+		assertThat(map.size(), equalTo(2));
+		assertThat(map.values(), containsInAnyOrder(service, first));
+		assertThat(map.keySet(), containsInAnyOrder(Service.class, First.class));
+		assertThat(map.remove(Service.class), sameInstance(service));
+		assertThat(map.containsKey(Service.class), equalTo(false));
+		map.clear();
+		assertThat(map.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void containerRejectsSecondExtensionOfSameClass() {
+		final ExtensionContainer container = new ExtensionContainer(new SmallExtensionMap());
+		container.addExtension(first);
+		try {
+			container.addExtension(new First());
+			throw new AssertionError("exception expected");
+		}
+		catch (RuntimeException e) {
+			assertThat(container.getExtension(First.class), sameInstance(first));
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package org.freeplane.core.io.xml;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.IElementHandler;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.junit.Test;
+
+public class TreeXmlReaderTest {
+	private final List<String> events = new ArrayList<String>();
+	private final ReadManager readManager = new ReadManager();
+	{
+		final IElementDOMHandler domHandler = new IElementDOMHandler() {
+			@Override
+			public Object createElement(Object parent, String tag, XMLElement attributes) {
+				events.add("create " + tag + " in " + parent + describe(attributes));
+				return tag + events.size();
+			}
+
+			@Override
+			public void endElement(Object parent, String tag, Object element, XMLElement dom) {
+				events.add("end " + element + describe(dom));
+			}
+		};
+		readManager.addElementHandler("map", domHandler);
+		readManager.addElementHandler("node", domHandler);
+		readManager.addElementHandler("hook", domHandler);
+		readManager.addElementHandler("hook", new IElementDOMHandler() {
+			@Override
+			public Object createElement(Object parent, String tag, XMLElement attributes) {
+				return "SECOND".equals(attributes.getAttribute("NAME", null)) ? "second hook" : null;
+			}
+
+			@Override
+			public void endElement(Object parent, String tag, Object element, XMLElement dom) {
+				events.add("end " + element + describe(dom));
+			}
+		});
+		readManager.addElementHandler("icon", new IElementHandler() {
+			@Override
+			public Object createElement(Object parent, String tag, XMLElement attributes) {
+				events.add("create icon in " + parent + describe(attributes));
+				return "icon";
+			}
+		});
+		final IElementContentHandler contentHandler = new IElementContentHandler() {
+			@Override
+			public Object createElement(Object parent, String tag, XMLElement attributes) {
+				return tag;
+			}
+
+			@Override
+			public boolean findsClosingTagByName() {
+				return true;
+			}
+
+			@Override
+			public void endElement(Object parent, String tag, Object node, XMLElement element, String content) {
+				events.add("content of " + tag + describe(element) + " [" + content + "]");
+			}
+		};
+		readManager.addElementHandler("map_styles", contentHandler);
+		for (final String type : new String[] { "NOTE", "DETAILS" }) {
+			readManager.addElementHandler("richcontent", new IElementContentHandler() {
+				@Override
+				public Object createElement(Object parent, String tag, XMLElement attributes) {
+					return type.equals(attributes.getAttribute("TYPE", null)) ? type : null;
+				}
+
+				@Override
+				public boolean findsClosingTagByName() {
+					return false;
+				}
+
+				@Override
+				public void endElement(Object parent, String tag, Object node, XMLElement element, String content) {
+					events.add("content of " + node + describe(element) + " [" + content + "]");
+				}
+			});
+		}
+		for (final String attribute : new String[] { "TEXT", "ID", "BUILTIN" }) {
+			final IAttributeHandler attributeHandler = new IAttributeHandler() {
+				@Override
+				public void setAttribute(Object node, String value) {
+					events.add(node + "." + attribute + "=[" + value + "]");
+				}
+			};
+			readManager.addAttributeHandler("node", attribute, attributeHandler);
+			readManager.addAttributeHandler("icon", attribute, attributeHandler);
+		}
+	}
+
+	private static String describe(XMLElement element) {
+		if (element == null) {
+			return "";
+		}
+		final StringBuilder description = new StringBuilder();
+		description.append(" <").append(element.getFullName()).append(" ns=").append(element.getNamespace());
+		final Enumeration<String> attributeNames = element.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String name = attributeNames.nextElement();
+			description.append(' ').append(name).append("=[").append(element.getAttribute(name, null)).append(']');
+		}
+		description.append(" content=[").append(element.getContent()).append("]");
+		for (int i = 0; i < element.getChildrenCount(); i++) {
+			description.append(describe(element.getChildAtIndex(i)));
+		}
+		return description.append('>').toString();
+	}
+
+	private List<String> read(String xml, boolean usesStreamingParser) throws XMLException {
+		events.clear();
+		final TreeXmlReader reader = new TreeXmlReader(readManager);
+		reader.setUsesStreamingParser(usesStreamingParser);
+		reader.load(new StringReader(xml));
+		return new ArrayList<String>(events);
+	}
+
+	private void assertSameEvents(String xml) throws XMLException {
+		final List<String> nanoxmlEvents = read(xml, false);
+		final List<String> streamingEvents = read(xml, true);
+		assertThat(streamingEvents, equalTo(nanoxmlEvents));
+	}
+
+	@Test
+	public void readsNestedNodesWithAttributes() throws Exception {
+		assertSameEvents("<map version=\"freeplane 1.11.5\">\n"
+		        + "<node TEXT=\"root\" ID=\"ID_1\" FOLDED=\"false\">\n"
+		        + "\t<node TEXT='child' ID=\"ID_2\" POSITION=\"right\"/>\n"
+		        + "</node>\n</map>\n");
+	}
+
+	@Test
+	public void resolvesEntitiesAndNormalizesAttributeWhitespace() throws Exception {
+		assertSameEvents("<map><node TEXT=\"a &amp; b &lt;c&gt; &quot;d&quot; &apos;e&apos; &#x430;&#1073;\tf\r\ng\rh\"/></map>");
+	}
+
+	@Test
+	public void keepsTextContentAndUnknownElements() throws Exception {
+		assertSameEvents("<map><node TEXT=\"x\" UNKNOWN=\"u\">\r\n"
+		        + "  \t leading text &amp; more\r\n<unknown a=\"1\"><inner>text</inner>tail</unknown>"
+		        + "<![CDATA[raw <data> & ]]]>after<!-- comment -->end\n"
+		        + "<node TEXT=\"y\"/>   \n</node></map>");
+	}
+
+	@Test
+	public void dropsPlainHandlerElementAttributes() throws Exception {
+		assertSameEvents("<map><node TEXT=\"x\"><icon BUILTIN=\"yes\" OTHER=\"other\"><unknown/></icon></node></map>");
+	}
+
+	@Test
+	public void passesAttributesToMultipleHandlers() throws Exception {
+		assertSameEvents("<map><node><hook NAME=\"FIRST\" X=\"1\"/><hook NAME=\"SECOND\"><p/></hook></node></map>");
+	}
+
+	@Test
+	public void collectsElementContent() throws Exception {
+		assertSameEvents("<map><map_styles A=\"1\">\n<stylenode TEXT=\"&amp;\"><x/></stylenode>\r\n</map_styles>"
+		        + "<node><richcontent TYPE=\"NOTE\">\n<html><!-- <b> --><br/><p>a/b</p></html>\n</richcontent>"
+		        + "<richcontent TYPE=\"OTHER\"><html/></richcontent></node></map>");
+	}
+
+	@Test
+	public void handlesPrologAndNamespaces() throws Exception {
+		assertSameEvents("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+		        + "<map xmlns:f=\"urn:f\"><node f:TEXT=\"t\" f:X=\"x\"><f:node TEXT=\"n\"/><f:other/></node></map>");
+	}
+
+	@Test
+	public void readsDataCrossingBufferBoundaries() throws Exception {
+		final StringBuilder xml = new StringBuilder("<map>");
+		for (int i = 0; i < 5000; i++) {
+			xml.append("<node TEXT=\"node ").append(i).append(" &amp; text\r\nline\" ID=\"ID_").append(i)
+			    .append("\">\r\n<unknown>text ").append(i).append("</unknown>\r\n</node>\r\n");
+		}
+		xml.append("</map>");
+		assertSameEvents(xml.toString());
+	}
+
+	@Test(expected = XMLException.class)
+	public void rejectsMismatchedClosingTag() throws Exception {
+		read("<map><node></map></node>", true);
+	}
+
+	@Test(expected = XMLException.class)
+	public void rejectsUnknownMarkup() throws Exception {
+		read("<map><!ELEMENT node ANY><node/></map>", true);
+	}
+
+	@Test
+	public void resolvesCharacterReferencesOutsideBasicMultilingualPlane() throws Exception {
+		final List<String> events = read("<map><node TEXT=\"&#x1F600;&#128512;\">&#x1F600;</node></map>", true);
+		assertThat(events, hasItem("node2.TEXT=[\uD83D\uDE00\uD83D\uDE00]"));
+	}
+
+	@Test(expected = XMLException.class)
+	public void rejectsInvalidCharacterReference() throws Exception {
+		read("<map><node TEXT=\"&#x110000;\"/></map>", true);
+	}
+}
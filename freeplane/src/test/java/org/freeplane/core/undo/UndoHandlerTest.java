@@ -0,0 +1,96 @@
+package org.freeplane.core.undo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapModel;
+import org.junit.After;
+import org.junit.Test;
+
+public class UndoHandlerTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final UndoHandler undoHandler = new UndoHandler(mock(MapModel.class));
+	private final List<String> undoneActors = new ArrayList<>();
+
+	@After
+	public void restoreProperties() {
+		final ResourceController resourceController = ResourceController.getResourceController();
+		resourceController.setProperty("undo_levels", resourceController.getDefaultProperty("undo_levels"));
+		resourceController.setProperty("undo_memory_budget_mb",
+		    resourceController.getDefaultProperty("undo_memory_budget_mb"));
+	}
+
+	private void addActor(final String name, final long estimatedSize) {
+		undoHandler.forceNewTransaction();
+		undoHandler.addActor(new IActor() {
+			@Override
+			public void act() {
+			}
+
+			@Override
+			public String getDescription() {
+				return name;
+			}
+
+			@Override
+			public void undo() {
+				undoneActors.add(name);
+			}
+
+			@Override
+			public long getEstimatedSize() {
+				return estimatedSize;
+			}
+		});
+	}
+
+	private void undoAll() {
+		while (undoHandler.canUndo())
+			undoHandler.undo();
+	}
+
+	@Test
+	public void dropsOldestEntriesExceedingUndoLevels() {
+		ResourceController.getResourceController().setProperty("undo_levels", 2);
+		addActor("1", 0);
+		addActor("2", 0);
+		addActor("3", 0);
+		assertThat(undoHandler.getHistoryLength(), equalTo(2));
+		undoAll();
+		assertThat(undoneActors, contains("3", "2"));
+	}
+
+	@Test
+	public void dropsOldestEntriesExceedingMemoryBudget() {
+		ResourceController.getResourceController().setProperty("undo_memory_budget_mb", 1);
+		addActor("small", 1000);
+		addActor("large", 600 * 1024);
+		assertThat(undoHandler.getHistoryLength(), equalTo(2));
+		addActor("other large", 600 * 1024);
+		assertThat(undoHandler.getHistoryLength(), equalTo(1));
+		undoAll();
+		assertThat(undoneActors, contains("other large"));
+	}
+
+	@Test
+	public void keepsNewestEntryExceedingMemoryBudget() {
+		ResourceController.getResourceController().setProperty("undo_memory_budget_mb", 1);
+		addActor("small", 1000);
+		addActor("huge", 2 * 1024 * 1024);
+		assertThat(undoHandler.getHistoryLength(), equalTo(1));
+		assertThat(undoHandler.getEstimatedHistorySize(),
+		    equalTo(2L * 1024 * 1024 + IActor.ESTIMATED_ACTOR_SIZE));
+		undoAll();
+		assertThat(undoneActors, contains("huge"));
+	}
+}
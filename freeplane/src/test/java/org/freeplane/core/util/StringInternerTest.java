@@ -0,0 +1,39 @@
+package org.freeplane.core.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class StringInternerTest {
+	@Test
+	public void returnsFirstInstanceOfEqualStrings() {
+		final StringInterner interner = new StringInterner();
+		final String first = new String("value");
+		assertThat(interner.intern(first), sameInstance(first));
+		assertThat(interner.intern(new String("value")), sameInstance(first));
+		assertThat(interner.intern(first), sameInstance(first));
+		assertThat(interner.getSharedStringCount(), equalTo(1));
+		assertThat(interner.getSavedBytes(), equalTo(24L + 32L));
+	}
+
+	@Test
+	public void keepsNoMoreStringsThanItsCapacity() {
+		final StringInterner interner = new StringInterner(1);
+		interner.intern("first");
+		final String second = new String("second");
+		assertThat(interner.intern(second), sameInstance(second));
+		assertThat(interner.intern(new String("second")), not(sameInstance(second)));
+		assertThat(interner.getSharedStringCount(), equalTo(0));
+	}
+
+	@Test
+	public void doesNotKeepLongStrings() {
+		final StringInterner interner = new StringInterner();
+		final String longString = new String(new char[1000]);
+		interner.intern(longString);
+		assertThat(interner.intern(new String(longString)), not(sameInstance(longString)));
+	}
+}
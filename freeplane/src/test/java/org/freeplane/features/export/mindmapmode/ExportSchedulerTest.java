@@ -0,0 +1,92 @@
+package org.freeplane.features.export.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freeplane.features.export.mindmapmode.ExportScheduler.OutputPreparation;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ExportSchedulerTest {
+	private final AtomicInteger preparedOutputs = new AtomicInteger();
+	private final AtomicInteger maxPreparedOutputs = new AtomicInteger();
+	private final List<Integer> preparationOrder = new ArrayList<>();
+	private final ConcurrentHashMap<Integer, String> writtenOutputs = new ConcurrentHashMap<>();
+
+	private OutputPreparation output(int index, ExportScheduler.OutputWriter writer) {
+		return () -> {
+			preparationOrder.add(index);
+			maxPreparedOutputs.accumulateAndGet(preparedOutputs.incrementAndGet(), Math::max);
+			return () -> {
+				try {
+					writer.write();
+					writtenOutputs.put(index, Thread.currentThread().getName());
+				}
+				finally {
+					preparedOutputs.decrementAndGet();
+				}
+			};
+		};
+	}
+
+	@Test
+	public void writesAllOutputsWhilePreparingInOrder() throws Exception {
+		final List<OutputPreparation> outputs = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			outputs.add(output(i, () -> Thread.sleep(5)));
+		}
+		ExportScheduler.export("export", outputs, 3);
+		assertThat(writtenOutputs.size(), equalTo(20));
+		for (int i = 0; i < 20; i++) {
+			assertThat(preparationOrder.get(i), equalTo(i));
+			assertThat(writtenOutputs.get(i), equalTo("export writer"));
+		}
+		assertThat(maxPreparedOutputs.get() <= 3, equalTo(true));
+	}
+
+	@Test
+	public void writesOutputsConcurrently() throws Exception {
+		Assume.assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+		final CountDownLatch startedWriters = new CountDownLatch(2);
+		final ExportScheduler.OutputWriter writer = () -> {
+			startedWriters.countDown();
+			if (!startedWriters.await(10, TimeUnit.SECONDS))
+				throw new IllegalStateException("outputs are not written concurrently");
+		};
+		final List<OutputPreparation> outputs = new ArrayList<>();
+		outputs.add(output(0, writer));
+		outputs.add(output(1, writer));
+		ExportScheduler.export("export", outputs, 2);
+		assertThat(writtenOutputs.size(), equalTo(2));
+	}
+
+	@Test
+	public void throwsExceptionOfFirstFailedOutput() throws Exception {
+		final List<OutputPreparation> outputs = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			final int index = i;
+			outputs.add(output(i, () -> {
+				if (index == 1)
+					Thread.sleep(200);
+				if (index >= 1)
+					throw new IOException("output " + index);
+			}));
+		}
+		try {
+			ExportScheduler.export("export", outputs, 4);
+			throw new AssertionError("exception expected");
+		}
+		catch (IOException e) {
+			assertThat(e.getMessage(), equalTo("output 1"));
+		}
+		assertThat(writtenOutputs.containsKey(0), equalTo(true));
+	}
+}
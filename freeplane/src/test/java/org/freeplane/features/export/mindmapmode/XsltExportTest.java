@@ -0,0 +1,121 @@
+package org.freeplane.features.export.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XsltExportTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static final String NODE_TEXTS_XSL = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+	        + "<xsl:output method=\"text\"/>\n"
+	        + "<xsl:template match=\"/\"><xsl:for-each select=\"//node\"><xsl:value-of select=\"@TEXT\"/>;</xsl:for-each></xsl:template>\n"
+	        + "</xsl:stylesheet>\n";
+	private static final String FAILING_XSL = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+	        + "<xsl:template match=\"/\"><xsl:message terminate=\"yes\">stop</xsl:message></xsl:template>\n"
+	        + "</xsl:stylesheet>\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MapController mapController = Controller.getCurrentModeController().getMapController();
+
+	private NodeModel loadRootNode(int childCount) throws Exception {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.11.5\">\n<node TEXT=\"root &amp; more\" ID=\"ID_0\">\n");
+		for (int i = 1; i <= childCount; i++) {
+			xml.append("<node TEXT=\"child ").append(i).append("\" ID=\"ID_").append(i).append("\"/>\n");
+		}
+		xml.append("</node>\n</map>\n");
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml.toString()), Mode.FILE);
+		return map.getRootNode();
+	}
+
+	private File stylesheet(String name, String content) throws Exception {
+		final File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void transformsStreamedXmlLikeBufferedXml() throws Exception {
+		final BranchXmlWriter branchXmlWriter = new BranchXmlWriter(Collections.singletonList(loadRootNode(20000)));
+		final Templates templates = XsltTemplatesCache.getTemplates(stylesheet("texts.xsl", NODE_TEXTS_XSL));
+		final StringWriter bufferedXml = new StringWriter();
+		branchXmlWriter.writeXml(bufferedXml, Mode.FILE);
+		final StringWriter expected = new StringWriter();
+		TransformerFactory.newInstance().newTransformer(new StreamSource(new File(folder.getRoot(), "texts.xsl")))
+		    .transform(new StreamSource(new StringReader(bufferedXml.toString())), new StreamResult(expected));
+		final StringWriter streamed = new StringWriter();
+		branchXmlWriter.transform(templates, new StreamResult(streamed), Mode.FILE);
+		assertThat(streamed.toString(), equalTo(expected.toString()));
+	}
+
+	@Test
+	public void transformsCompressedXmlLikeStreamedXml() throws Exception {
+		final BranchXmlWriter branchXmlWriter = new BranchXmlWriter(Collections.singletonList(loadRootNode(20000)));
+		final Templates templates = XsltTemplatesCache.getTemplates(stylesheet("texts.xsl", NODE_TEXTS_XSL));
+		final StringWriter streamed = new StringWriter();
+		branchXmlWriter.transform(templates, new StreamResult(streamed), Mode.FILE);
+		final byte[] compressedXml = branchXmlWriter.writeCompressedXml(Mode.FILE);
+		final StringWriter transformed = new StringWriter();
+		BranchXmlWriter.transformCompressedXml(compressedXml, templates, new StreamResult(transformed));
+		assertThat(transformed.toString(), equalTo(streamed.toString()));
+	}
+
+	@Test(expected = TransformerException.class)
+	public void reportsTransformationErrors() throws Exception {
+		final BranchXmlWriter branchXmlWriter = new BranchXmlWriter(Collections.singletonList(loadRootNode(20000)));
+		final Templates templates = XsltTemplatesCache.getTemplates(stylesheet("failing.xsl", FAILING_XSL));
+		branchXmlWriter.transform(templates, new StreamResult(new StringWriter()), Mode.FILE);
+	}
+
+	@Test
+	public void reusesCompiledStylesheetUntilFileIsModified() throws Exception {
+		final File file = stylesheet("cached.xsl", NODE_TEXTS_XSL);
+		final Templates templates = XsltTemplatesCache.getTemplates(file);
+		assertThat(XsltTemplatesCache.getTemplates(file), sameInstance(templates));
+		assertThat(XsltTemplatesCache.getTemplates(file.toURI().toURL()), sameInstance(templates));
+		file.setLastModified(file.lastModified() - 10000);
+		assertThat(XsltTemplatesCache.getTemplates(file), not(sameInstance(templates)));
+	}
+
+	@Test
+	public void compilesStylesheetAgainAfterIncludedFileIsModified() throws Exception {
+		final File includedFile = stylesheet("included.xsl", NODE_TEXTS_XSL);
+		final File file = stylesheet("including.xsl",
+		    "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+		            + "<xsl:include href=\"included.xsl\"/>\n"
+		            + "</xsl:stylesheet>\n");
+		final Templates templates = XsltTemplatesCache.getTemplates(file);
+		assertThat(XsltTemplatesCache.getTemplates(file), sameInstance(templates));
+		includedFile.setLastModified(includedFile.lastModified() - 10000);
+		assertThat(XsltTemplatesCache.getTemplates(file), not(sameInstance(templates)));
+	}
+}
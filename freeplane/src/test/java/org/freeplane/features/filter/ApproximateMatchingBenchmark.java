@@ -0,0 +1,66 @@
+package org.freeplane.features.filter;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+
+/**
+ * Compares time and allocation of the approximate matching strategies
+ * searching terms of different lengths in synthetic node texts.
+ *
+ * Usage: ApproximateMatchingBenchmark [text count] [repetitions]
+ */
+public class ApproximateMatchingBenchmark {
+	private static final String[] WORDS = { "mind", "map", "node", "filter", "search", "approximate", "string",
+	        "freeplane", "note", "details", "attribute", "connector", "style", "format", "icon", "link" };
+	private static final String[] SEARCH_TERMS = { "filtr", "approximate searhc in node", //
+	        "freeplane mind map node with details, a note and a few attributes searched approximately by a long term" };
+
+	public static void main(String[] args) {
+		final int textCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		new HeadlessFreeplaneRunner();
+		final String[] texts = createTexts(textCount);
+		final EditDistanceStringMatchingStrategy[] strategies = { new PseudoDamerauLevenshtein(),
+		        new DamerauLevenshtein(), new BitParallelDamerauLevenshtein() };
+		for (int i = 0; i < repetitions; i++) {
+			for (final String searchTerm : SEARCH_TERMS) {
+				for (final EditDistanceStringMatchingStrategy strategy : strategies)
+					measure(strategy, searchTerm, texts);
+			}
+		}
+	}
+
+	private static String[] createTexts(int textCount) {
+		final Random random = new Random(1);
+		final String[] texts = new String[textCount];
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < textCount; i++) {
+			text.setLength(0);
+			final int wordCount = 2 + random.nextInt(random.nextInt(10) == 0 ? 60 : 10);
+			for (int j = 0; j < wordCount; j++)
+				text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+			texts[i] = text.toString();
+		}
+		return texts;
+	}
+
+	private static void measure(EditDistanceStringMatchingStrategy strategy, String searchTerm, String[] texts) {
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+		    .getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		final long start = System.nanoTime();
+		int matchCount = 0;
+		for (final String text : texts) {
+			if (strategy.matches(searchTerm, text, true))
+				matchCount++;
+		}
+		final long time = System.nanoTime() - start;
+		final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		System.out.format("%-30s term length %3d: %6d ns and %6d bytes per text, %d matches%n",
+		    strategy.getClass().getSimpleName(), searchTerm.length(), time / texts.length, allocated / texts.length,
+		    matchCount);
+	}
+}
@@ -0,0 +1,82 @@
+package org.freeplane.features.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Random;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.Test;
+
+public class BitParallelDamerauLevenshteinTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final BitParallelDamerauLevenshtein strategy = new BitParallelDamerauLevenshtein();
+
+	private int distance(String searchTerm, String searchText, boolean subStringMatch) {
+		strategy.init(searchTerm, searchText, subStringMatch);
+		return strategy.distance();
+	}
+
+	@Test
+	public void computesGlobalDistance() {
+		assertThat(distance("kitten", "sitting", false), equalTo(3));
+		assertThat(distance("file", "flie", false), equalTo(1));
+		assertThat(distance("", "abc", false), equalTo(3));
+		assertThat(distance("abc", "", false), equalTo(3));
+	}
+
+	@Test
+	public void shiftsSearchTermFreeOfCostForSubstringMatch() {
+		assertThat(distance("file", "a file is", true), equalTo(0));
+		assertThat(distance("file", "a flie is", true), equalTo(1));
+		assertThat(distance("", "abc", true), equalTo(0));
+	}
+
+	@Test
+	public void matchesAnySearchTermCharacterByHyphen() {
+		assertThat(distance("abc", "a-c", false), equalTo(0));
+	}
+
+	@Test
+	public void computesSameDistancesAndMatchProbabilitiesAsMatrixImplementation() {
+		final PseudoDamerauLevenshtein matrixImplementation = new PseudoDamerauLevenshtein();
+		final Random random = new Random(1);
+		for (int i = 0; i < 3000; i++) {
+			final String searchTerm = randomString(random, random.nextInt(i < 2500 ? 70 : 200));
+			final String searchText = randomString(random, random.nextInt(i < 2500 ? 70 : 300));
+			final boolean subStringMatch = random.nextBoolean();
+			matrixImplementation.init(searchTerm, searchText, subStringMatch);
+			strategy.init(searchTerm, searchText, subStringMatch);
+			final String message = searchTerm + " / " + searchText + " / " + subStringMatch;
+			assertThat(message, strategy.distance(), equalTo(matrixImplementation.distance()));
+			assertThat(message, strategy.matchProb(), equalTo(matrixImplementation.matchProb()));
+			assertThat(message, strategy.matches(searchTerm, searchText, subStringMatch),
+			    equalTo(matrixImplementation.matches(searchTerm, searchText, subStringMatch)));
+		}
+	}
+
+	@Test
+	public void computesSameDistancesForManyDistinctNonAsciiCharacters() {
+		final PseudoDamerauLevenshtein matrixImplementation = new PseudoDamerauLevenshtein();
+		final StringBuilder searchTerm = new StringBuilder();
+		for (char c = '\u4e00'; c < '\u4e00' + 150; c++)
+			searchTerm.append(c);
+		final String searchText = "x" + searchTerm.substring(0, 70) + searchTerm.substring(71, 140) + "\u0436";
+		for (final boolean subStringMatch : new boolean[] { false, true }) {
+			matrixImplementation.init(searchTerm.toString(), searchText, subStringMatch);
+			assertThat(distance(searchTerm.toString(), searchText, subStringMatch),
+			    equalTo(matrixImplementation.distance()));
+		}
+	}
+
+	private static String randomString(Random random, int length) {
+		final String alphabet = "a\u00e4\u0436bcd\u20ac-";
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = alphabet.charAt(random.nextInt(random.nextInt(10) == 0 ? alphabet.length() : 3));
+		return new String(chars);
+	}
+}
@@ -0,0 +1,303 @@
+package org.freeplane.features.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Test;
+
+public class FilterTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MapModel(Controller.getCurrentModeController().getMapController().duplicator());
+	private final NodeModel root;
+	private final NodeModel a;
+	private final NodeModel b;
+	private final NodeModel c;
+
+	public FilterTest() {
+		map.createNewRoot();
+		root = map.getRootNode();
+		a = addChild(root, "a");
+		b = addChild(root, "b");
+		c = addChild(b, "c");
+	}
+
+	private NodeModel addChild(NodeModel parent, String text) {
+		final NodeModel child = new NodeModel(text, map);
+		parent.insert(child);
+		return child;
+	}
+
+	private static ICondition textEquals(String text) {
+		return node -> text.equals(node.getText());
+	}
+
+	@Test
+	public void showsMatchingNodesAndTheirAncestors() {
+		final Filter filter = Filter.createFilter(textEquals("c"), true, false, false, null);
+		filter.calculateFilterResults(map);
+		assertThat(filter.isVisible(a), equalTo(false));
+		assertThat(filter.isVisible(b), equalTo(true));
+		assertThat(filter.isVisible(c), equalTo(true));
+		assertThat(filter.getFilterInfo(b).isMatched(), equalTo(false));
+		assertThat(filter.getFilterInfo(c).isMatched(), equalTo(true));
+	}
+
+	@Test
+	public void queriesResultFlagsOfNodes() {
+		final Filter filter = Filter.createFilter(textEquals("c"), true, false, false, null);
+		filter.calculateFilterResults(map);
+		final NodeModel d = addChild(root, "d");
+		assertThat(filter.isMatched(b), equalTo(false));
+		assertThat(filter.isAncestor(b), equalTo(true));
+		assertThat(filter.canBeAncestor(b), equalTo(true));
+		assertThat(filter.isMatched(c), equalTo(true));
+		assertThat(filter.canBeAncestor(a), equalTo(false));
+		assertThat(filter.canBeAncestor(d), equalTo(true));
+	}
+
+	@Test
+	public void showsDescendantsOfMatchingNodes() {
+		final Filter filter = Filter.createFilter(textEquals("b"), false, true, false, null);
+		filter.calculateFilterResults(map);
+		assertThat(filter.isVisible(a), equalTo(false));
+		assertThat(filter.isVisible(c), equalTo(true));
+	}
+
+	@Test
+	public void sharesResultsWithFilterOfSameCondition() {
+		final ICondition condition = textEquals("a");
+		final Filter oldFilter = Filter.createFilter(condition, false, false, false, null);
+		oldFilter.calculateFilterResults(map);
+		final Filter filter = Filter.createFilter(condition, false, false, false, null);
+		filter.useFilterResultsFrom(oldFilter);
+		assertThat(filter.isVisible(a), equalTo(true));
+		assertThat(filter.isVisible(b), equalTo(false));
+		filter.showAsMatched(c);
+		assertThat(oldFilter.isVisible(c), equalTo(true));
+	}
+
+	@Test
+	public void treatsNodesAddedAfterFilteringAsNotChecked() {
+		final Filter filter = Filter.createFilter(textEquals("a"), false, false, false, null);
+		filter.calculateFilterResults(map);
+		final NodeModel d = addChild(root, "d");
+		assertThat(filter.isVisible(d), equalTo(true));
+		assertThat(filter.getFilterInfo(d).canBeAncestor(), equalTo(true));
+	}
+
+	@Test
+	public void givesOrdinalsOnlyToAttachedNodes() {
+		final NodeModel d = new NodeModel("d", map);
+		assertThat(d.getOrdinal() < 0, equalTo(true));
+		root.insert(d);
+		assertThat(d.getOrdinal() >= 0, equalTo(true));
+		root.remove(root.getIndex(d));
+		assertThat(d.getOrdinal() < 0, equalTo(true));
+		final Filter filter = Filter.createFilter(textEquals("d"), false, false, false, null);
+		filter.calculateFilterResults(map);
+		assertThat(filter.getFilterInfo(d).isNotChecked(), equalTo(true));
+	}
+
+	@Test
+	public void compactsOrdinalsOfRemovedNodesOnFullRecalculation() {
+		final Filter oldFilter = Filter.createFilter(textEquals("c"), true, false, false, null);
+		oldFilter.calculateFilterResults(map);
+		for (int i = 0; i < 10000; i++) {
+			final NodeModel removedNode = addChild(a, "removed");
+			a.remove(0);
+			assertThat(removedNode.getOrdinal() < 0, equalTo(true));
+		}
+		final Filter filter = Filter.createFilter(textEquals("a"), false, false, false, null);
+		filter.calculateFilterResults(map);
+		assertThat(map.getNodeOrdinalCount(), equalTo(4));
+		assertThat(filter.isVisible(a), equalTo(true));
+		assertThat(filter.isVisible(c), equalTo(false));
+		assertThat(oldFilter.isVisible(a), equalTo(false));
+		assertThat(oldFilter.isVisible(b), equalTo(true));
+		assertThat(oldFilter.getFilterInfo(c).isMatched(), equalTo(true));
+	}
+
+	@Test
+	public void checksThreadSafeConditionsOfLargeMapsInParallel() {
+		for (int i = 0; i < 40; i++) {
+			final NodeModel group = addChild(a, "group " + i);
+			for (int j = 0; j < 50; j++)
+				addChild(group, "leaf " + i + "." + j);
+		}
+		final AtomicInteger checks = new AtomicInteger();
+		final ICondition threadSafeCondition = new ICondition() {
+			@Override
+			public boolean checkNode(NodeModel node) {
+				checks.incrementAndGet();
+				return node.getText().endsWith(".7");
+			}
+
+			@Override
+			public boolean isThreadSafe() {
+				return true;
+			}
+		};
+		final Filter parallelFilter = Filter.createFilter(threadSafeCondition, true, false, false, null);
+		parallelFilter.calculateFilterResults(map);
+		final Filter serialFilter = Filter.createFilter(node -> node.getText().endsWith(".7"), true, false, false, null);
+		serialFilter.calculateFilterResults(map);
+		assertThat(checks.get(), equalTo(4 + 40 * 51));
+		assertVisibilityEquals(parallelFilter, serialFilter, root);
+	}
+
+	private void assertVisibilityEquals(Filter filter, Filter expectedFilter, NodeModel node) {
+		assertThat(node.getText(), filter.isVisible(node), equalTo(expectedFilter.isVisible(node)));
+		assertThat(node.getText(), filter.getFilterInfo(node).isMatched(),
+		    equalTo(expectedFilter.getFilterInfo(node).isMatched()));
+		for (NodeModel child : node.getChildren())
+			assertVisibilityEquals(filter, expectedFilter, child);
+	}
+
+	private static class CountingCondition implements ICondition {
+		private final String text;
+		private final boolean checksNodeOnly;
+		int checks;
+
+		CountingCondition(String text, boolean checksNodeOnly) {
+			this.text = text;
+			this.checksNodeOnly = checksNodeOnly;
+		}
+
+		@Override
+		public boolean checkNode(NodeModel node) {
+			checks++;
+			return text.equals(node.getText());
+		}
+
+		@Override
+		public boolean checksNodeOnly() {
+			return checksNodeOnly;
+		}
+	}
+
+	private final NodeChangeLog.Recorder recorder = new NodeChangeLog.Recorder();
+
+	private void changeText(NodeModel node, String text) {
+		node.setText(text);
+		recorder.nodeChanged(new NodeChangeEvent(node, NodeModel.NODE_TEXT, null, text, true, true));
+	}
+
+	@Test
+	public void updatesResultsOfChangedNodesOnly() {
+		final CountingCondition condition = new CountingCondition("x", true);
+		final Filter filter = Filter.createFilter(condition, true, true, false, null);
+		filter.calculateFilterResults(map);
+		assertThat(filter.isVisible(b), equalTo(false));
+		condition.checks = 0;
+		changeText(c, "x");
+		filter.updateFilterResults(map);
+		assertThat(condition.checks, equalTo(1));
+		assertThat(filter.isVisible(a), equalTo(false));
+		assertThat(filter.isVisible(b), equalTo(true));
+		assertThat(filter.isVisible(c), equalTo(true));
+		changeText(c, "c");
+		filter.updateFilterResults(map);
+		assertThat(filter.isVisible(b), equalTo(false));
+		assertThat(filter.isVisible(c), equalTo(false));
+	}
+
+	@Test
+	public void updatesResultsOfInsertedAndDeletedNodes() {
+		final Filter filter = Filter.createFilter(new CountingCondition("b", true), true, true, false, null);
+		filter.calculateFilterResults(map);
+		final NodeModel d = addChild(c, "d");
+		recorder.onNodeInserted(c, d, 0);
+		final NodeModel e = addChild(a, "b");
+		recorder.onNodeInserted(a, e, 0);
+		filter.updateFilterResults(map);
+		assertThat(filter.isVisible(d), equalTo(true));
+		assertThat(filter.isVisible(a), equalTo(true));
+		assertThat(filter.getFilterInfo(a).isMatched(), equalTo(false));
+		a.remove(0);
+		recorder.onNodeDeleted(new NodeDeletionEvent(a, e, 0));
+		filter.updateFilterResults(map);
+		assertThat(filter.isVisible(a), equalTo(false));
+	}
+
+	@Test
+	public void recordsChangesOnlyWhileFilterWithUpdatableResultsIsApplied() {
+		changeText(a, "x");
+		assertThat(NodeChangeLog.of(map), equalTo(null));
+		final Filter filter = Filter.createFilter(new CountingCondition("x", true), true, false, false, null);
+		filter.calculateFilterResults(map);
+		final NodeChangeLog changeLog = NodeChangeLog.of(map);
+		changeText(b, "x");
+		assertThat(changeLog.version(), equalTo(1L));
+		filter.updateFilterResults(map);
+		assertThat(changeLog.recordsChangesSince(0), equalTo(false));
+		Filter.createFilter(null, true, false, false, null).calculateFilterResults(map);
+		assertThat(NodeChangeLog.of(map), equalTo(null));
+		changeText(c, "x");
+		filter.updateFilterResults(map);
+		assertThat(filter.isVisible(c), equalTo(true));
+	}
+
+	@Test
+	public void recalculatesResultsOfConditionsCheckingOtherNodes() {
+		final CountingCondition condition = new CountingCondition("x", false);
+		final Filter filter = Filter.createFilter(condition, true, false, false, null);
+		filter.calculateFilterResults(map);
+		condition.checks = 0;
+		changeText(a, "x");
+		filter.updateFilterResults(map);
+		assertThat(condition.checks, equalTo(4));
+		assertThat(filter.isVisible(a), equalTo(true));
+	}
+
+	@Test
+	public void updatedResultsEqualRecalculatedResults() {
+		final Random random = new Random(1);
+		final List<NodeModel> nodes = new ArrayList<>();
+		nodes.add(root);
+		for (int i = 0; i < 200; i++)
+			nodes.add(addChild(nodes.get(random.nextInt(nodes.size())), "n"));
+		final Filter filter = Filter.createFilter(new CountingCondition("x", true), true, true, false, null);
+		filter.calculateFilterResults(map);
+		for (int step = 0; step < 50; step++) {
+			for (int change = 0; change < 5; change++) {
+				final NodeModel node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+				if (node.getParentNode() == null)
+					continue;
+				switch (random.nextInt(3)) {
+				case 0:
+					changeText(node, random.nextBoolean() ? "x" : "n");
+					break;
+				case 1:
+					final NodeModel child = addChild(node, random.nextBoolean() ? "x" : "n");
+					nodes.add(child);
+					recorder.onNodeInserted(node, child, node.getChildCount() - 1);
+					break;
+				default:
+					final NodeModel parent = node.getParentNode();
+					final int index = parent.getIndex(node);
+					parent.remove(index);
+					recorder.onNodeDeleted(new NodeDeletionEvent(parent, node, index));
+				}
+			}
+			filter.updateFilterResults(map);
+			final Filter expectedFilter = Filter.createFilter(new CountingCondition("x", true), true, true, false, null);
+			expectedFilter.calculateFilterResults(map);
+			assertVisibilityEquals(filter, expectedFilter, root);
+		}
+	}
+}
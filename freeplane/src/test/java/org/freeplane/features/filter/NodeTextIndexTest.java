@@ -0,0 +1,157 @@
+package org.freeplane.features.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.StringReader;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.text.NodeContainsCondition;
+import org.freeplane.features.text.TextController;
+import org.junit.Test;
+
+public class NodeTextIndexTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapModel map = new MapModel(Controller.getCurrentModeController().getMapController().duplicator());
+	private final NodeModel root;
+	private final NodeModel hello;
+	private final NodeModel peace;
+	private final NodeModel cafe;
+	private final NodeModel formula;
+	private final NodeTextIndex index = new NodeTextIndex((node, texts) -> {
+		final String text = node.getText();
+		if (text.startsWith("="))
+			return false;
+		texts.add(text);
+		return true;
+	});
+
+	public NodeTextIndexTest() {
+		map.createNewRoot();
+		root = map.getRootNode();
+		root.setText("root");
+		hello = addChild(root, "Hello World");
+		peace = addChild(hello, "world peace");
+		cafe = addChild(root, "Café Crème");
+		formula = addChild(root, "=1+1");
+	}
+
+	private NodeModel addChild(NodeModel parent, String text) {
+		final NodeModel child = new NodeModel(text, map);
+		parent.insert(child);
+		return child;
+	}
+
+	private void buildIndex() {
+		map.addExtension(NodeTextIndex.class, index);
+		index.build(map);
+	}
+
+	@Test
+	public void findsNodesContainingAllTrigramsOfText() {
+		buildIndex();
+		assertThat(NodeTextIndex.mayContain(hello, "world"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(peace, "world"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(cafe, "world"), equalTo(false));
+		assertThat(NodeTextIndex.mayContain(hello, "peace"), equalTo(false));
+		assertThat(NodeTextIndex.mayContain(root, "unknown"), equalTo(false));
+	}
+
+	@Test
+	public void ignoresCaseAndDiacritics() {
+		buildIndex();
+		assertThat(NodeTextIndex.mayContain(hello, "HELLO"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(cafe, "cafe creme"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(cafe, "Crème"), equalTo(true));
+	}
+
+	@Test
+	public void allNodesCanContainTextsShorterThanTrigrams() {
+		buildIndex();
+		assertThat(NodeTextIndex.mayContain(cafe, "wo"), equalTo(true));
+	}
+
+	@Test
+	public void allNodesCanContainTextsBeforeIndexIsBuilt() {
+		map.addExtension(NodeTextIndex.class, index);
+		assertThat(NodeTextIndex.mayContain(cafe, "world"), equalTo(true));
+	}
+
+	@Test
+	public void nodesWithUnindexedTextsAndUnknownNodesAreCandidates() {
+		buildIndex();
+		final NodeModel unknownNode = addChild(root, "other");
+		assertThat(NodeTextIndex.mayContain(formula, "world"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(unknownNode, "world"), equalTo(true));
+	}
+
+	@Test
+	public void findsUpdatedAndInsertedNodesByTheirNewTexts() {
+		buildIndex();
+		cafe.setText("new world");
+		index.update(cafe);
+		final NodeModel insertedNode = addChild(root, "inserted");
+		final NodeModel insertedChild = addChild(insertedNode, "world");
+		index.updateSubtree(insertedNode);
+		final NodeModel otherNode = addChild(root, "other");
+		index.update(otherNode);
+		assertThat(NodeTextIndex.mayContain(cafe, "world"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(insertedChild, "world"), equalTo(true));
+		assertThat(NodeTextIndex.mayContain(otherNode, "world"), equalTo(false));
+	}
+
+	@Test
+	public void indexesFoldedBranchesWhenTheyAreParsed() throws Exception {
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final NodeTextIndex.Updater updater = new NodeTextIndex.Updater((node, texts) -> texts.add(node.getText()));
+		ResourceController.getResourceController().setProperty(NodeBuilder.LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY, true);
+		mapController.addMapChangeListener(updater);
+		try {
+			final MapModel lazyMap = new MapModel(mapController.duplicator());
+			mapController.getMapReader().createNodeTreeFromXml(lazyMap, new StringReader("<map><node TEXT=\"root\">"
+			        + "<node TEXT=\"folded\" FOLDED=\"true\"><node TEXT=\"hidden world\"/></node></node></map>"),
+			    Mode.FILE);
+			final NodeTextIndex lazyIndex = new NodeTextIndex((node, texts) -> texts.add(node.getText()));
+			lazyMap.addExtension(NodeTextIndex.class, lazyIndex);
+			lazyIndex.build(lazyMap);
+			final NodeModel folded = lazyMap.getRootNode().getParsedChildren().get(0);
+			assertThat(folded.getParsedChildren().isEmpty(), equalTo(true));
+			assertThat(lazyIndex.getIndexedNodeCount(), equalTo(2));
+			final NodeModel hidden = folded.getChildren().get(0);
+			assertThat(lazyIndex.getIndexedNodeCount(), equalTo(3));
+			assertThat(NodeTextIndex.mayContain(hidden, "world"), equalTo(true));
+			assertThat(NodeTextIndex.mayContain(hidden, "peace"), equalTo(false));
+		}
+		finally {
+			mapController.removeMapChangeListener(updater);
+			ResourceController.getResourceController().setProperty(NodeBuilder.LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY,
+			    false);
+		}
+	}
+
+	@Test
+	public void containsConditionsCheckOnlyCandidates() {
+		final NodeTextIndex nodeTextIndex = new NodeTextIndex((node, texts) -> {
+			if (node != peace)
+				TextController.collectIndexedTexts(node, texts);
+			return true;
+		});
+		map.addExtension(NodeTextIndex.class, nodeTextIndex);
+		nodeTextIndex.build(map);
+		final NodeContainsCondition condition = new NodeContainsCondition(TextController.FILTER_NODE, "world", false,
+		    false, false);
+		assertThat(condition.checkNode(hello), equalTo(true));
+		assertThat(condition.checkNode(peace), equalTo(false));
+		assertThat(nodeTextIndex.getIndexedNodeCount(), equalTo(5));
+	}
+}
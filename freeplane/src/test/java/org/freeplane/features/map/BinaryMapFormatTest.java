@@ -0,0 +1,74 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.mode.Controller;
+import org.junit.Test;
+
+public class BinaryMapFormatTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapController mapController = Controller.getCurrentModeController().getMapController();
+
+	private MapModel loadXml(String xml) throws Exception {
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+		return map;
+	}
+
+	private MapModel loadBinary(byte[] content) throws Exception {
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromBinary(map, new ByteArrayInputStream(content), Mode.FILE);
+		return map;
+	}
+
+	private String saveXml(MapModel map) throws Exception {
+		final StringWriter writer = new StringWriter();
+		mapController.getMapWriter().writeMapAsXml(map, writer, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
+		return writer.toString();
+	}
+
+	private byte[] saveBinary(MapModel map) throws Exception {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		mapController.getMapWriter().writeMapAsBinary(map, output, Mode.FILE);
+		return output.toByteArray();
+	}
+
+	@Test
+	public void roundTripsSyntheticMap() throws Exception {
+		final MapModel map = loadXml(MapReaderBenchmark.createSyntheticMap(2000));
+		assertThat(saveXml(loadBinary(saveBinary(map))), equalTo(saveXml(map)));
+	}
+
+	@Test
+	public void roundTripsSpecialCharactersAndUnknownElements() throws Exception {
+		final String xml = "<map version=\"freeplane 1.11.5\">\n"
+		        + "<node TEXT=\"root &lt;&amp;&gt; &quot;quoted&quot;&#xa;second line\" ID=\"ID_0\">\n"
+		        + "<node TEXT=\"ünicode 中文 😀\" ID=\"ID_1\" LINK=\"#ID_0\">\n"
+		        + "<attribute NAME=\"a&amp;b\" VALUE=\"  spaces  \"/>\n"
+		        + "<unknown_element KEY=\"value\">text &amp; more<child/></unknown_element>\n"
+		        + "<richcontent TYPE=\"DETAILS\">\n<html>\n  <head>\n\n  </head>\n"
+		        + "  <body>\n    <p>\n      details &amp; <b>bold</b>\n    </p>\n  </body>\n</html>\n</richcontent>\n"
+		        + "</node>\n</node>\n</map>\n";
+		final MapModel map = loadXml(xml);
+		assertThat(saveXml(loadBinary(saveBinary(map))), equalTo(saveXml(map)));
+	}
+
+	@Test
+	public void binaryMapIsSmallerThanXml() throws Exception {
+		final MapModel map = loadXml(MapReaderBenchmark.createSyntheticMap(2000));
+		assertThat(saveBinary(map).length, lessThan(saveXml(map).length()));
+	}
+}
@@ -0,0 +1,168 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.mode.Controller;
+import org.junit.After;
+import org.junit.Test;
+
+public class LazyFoldedBranchesTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static final String FOLDED_BRANCH = "<node TEXT='folded &amp; kept' ID=\"ID_2\"   CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n"
+	        + "<!-- comment --><node TEXT=\"grandchild\" ID=\"ID_3\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\" FOLDED=\"true\">\n"
+	        + "<node TEXT=\"great grandchild\" ID=\"ID_4\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\"/>\n"
+	        + "</node>\n"
+	        + "<richcontent TYPE=\"NOTE\"><![CDATA[<node>]]></richcontent>\n"
+	        + "</node>";
+	private static final String MAP = "<map version=\"freeplane 1.11.5\">\n"
+	        + "<node TEXT=\"root\" FOLDED=\"false\" ID=\"ID_0\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n"
+	        + "<node TEXT=\"parent\" FOLDED=\"true\" ID=\"ID_1\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n"
+	        + FOLDED_BRANCH + "\n"
+	        + "</node>\n"
+	        + "<node TEXT=\"link\" ID=\"ID_5\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n"
+	        + "<arrowlink DESTINATION=\"ID_4\"/>\n"
+	        + "</node>\n"
+	        + "</node>\n"
+	        + "</map>\n";
+
+	private final MapController mapController = Controller.getCurrentModeController().getMapController();
+
+	@After
+	public void disableLazyLoading() {
+		ResourceController.getResourceController().setProperty(NodeBuilder.LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY,
+		    false);
+	}
+
+	private MapModel load(String xml, boolean lazily) throws Exception {
+		ResourceController.getResourceController().setProperty(NodeBuilder.LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY,
+		    lazily);
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+		return map;
+	}
+
+	private String save(MapModel map) throws Exception {
+		final StringWriter writer = new StringWriter();
+		mapController.getMapWriter().writeMapAsXml(map, writer, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
+		return writer.toString();
+	}
+
+	private static NodeModel foldedNode(MapModel map) {
+		return map.getRootNode().getChildrenInternal().get(0);
+	}
+
+	private static boolean isUnparsed(NodeModel node) {
+		final java.util.List<NodeModel> children = node.getChildrenInternal();
+		return children instanceof LazyChildNodes && !((LazyChildNodes) children).isLoaded();
+	}
+
+	@Test
+	public void keepsChildrenOfFoldedNodesUnparsed() throws Exception {
+		final MapModel map = load(MAP, true);
+		final NodeModel foldedNode = foldedNode(map);
+		assertThat(isUnparsed(foldedNode), equalTo(true));
+		assertThat(foldedNode.hasChildren(), equalTo(true));
+		assertThat(map.getRootNode().getChildrenInternal().get(1).getChildrenInternal(),
+		    not(instanceOf(LazyChildNodes.class)));
+	}
+
+	@Test
+	public void parsesChildrenOnAccess() throws Exception {
+		final MapModel map = load(MAP, true);
+		final NodeModel child = foldedNode(map).getChildren().get(0);
+		assertThat(child.getText(), equalTo("folded & kept"));
+		assertThat(child.getParentNode(), equalTo(foldedNode(map)));
+		assertThat(isUnparsed(child), equalTo(false));
+		assertThat(isUnparsed(child.getChildren().get(0)), equalTo(true));
+		assertThat(save(map), equalTo(save(load(MAP, false))));
+	}
+
+	@Test
+	public void findsNodesOfUnparsedBranchesById() throws Exception {
+		final MapModel map = load(MAP, true);
+		final NodeModel node = map.getNodeForID("ID_4");
+		assertThat(node.getText(), equalTo("great grandchild"));
+		assertThat(node.getParentNode().getParentNode().getParentNode(), equalTo(foldedNode(map)));
+	}
+
+	@Test
+	public void parsesOnlyBranchesContainingSearchedId() throws Exception {
+		final MapModel map = load(MAP, true);
+		assertThat(map.getNodeForID("ID_99"), equalTo(null));
+		assertThat(isUnparsed(foldedNode(map)), equalTo(true));
+		final NodeModel grandchild = map.getNodeForID("ID_3");
+		assertThat(grandchild.getText(), equalTo("grandchild"));
+		assertThat(isUnparsed(grandchild), equalTo(true));
+	}
+
+	@Test
+	public void reportsParsedChildrenAndSizeOfUnparsedChildrenWithoutParsing() throws Exception {
+		final MapModel map = load(MAP, true);
+		final NodeModel foldedNode = foldedNode(map);
+		assertThat(foldedNode.getParsedChildren().isEmpty(), equalTo(true));
+		assertThat(foldedNode.getUnparsedChildrenSize(), equalTo((long) FOLDED_BRANCH.length()));
+		assertThat(isUnparsed(foldedNode), equalTo(true));
+		foldedNode.getChildren().get(0);
+		assertThat(foldedNode.getParsedChildren().size(), equalTo(1));
+		assertThat(foldedNode.getUnparsedChildrenSize(), equalTo(0L));
+	}
+
+	@Test
+	public void doesNotGenerateIdsOfUnparsedNodes() throws Exception {
+		final MapModel map = load(MAP, true);
+		assertThat(map.generateNodeID("ID_4"), not(equalTo("ID_4")));
+		assertThat(map.generateNodeID("ID_6"), equalTo("ID_6"));
+		assertThat(map.getNodeForID("ID_4").getText(), equalTo("great grandchild"));
+	}
+
+	@Test
+	public void notifiesMapChangeListenersAboutParsedChildren() throws Exception {
+		final MapModel map = load(MAP, true);
+		final List<NodeModel> loadedChildren = new ArrayList<>();
+		final IMapChangeListener listener = new IMapChangeListener() {
+			@Override
+			public void onChildNodesLoaded(NodeModel parent, List<NodeModel> children) {
+				assertThat(parent, equalTo(foldedNode(map)));
+				loadedChildren.addAll(children);
+			}
+		};
+		mapController.addMapChangeListener(listener);
+		try {
+			final NodeModel child = foldedNode(map).getChildren().get(0);
+			assertThat(loadedChildren, equalTo(Collections.singletonList(child)));
+		}
+		finally {
+			mapController.removeMapChangeListener(listener);
+		}
+	}
+
+	@Test
+	public void savesUnparsedBranchesAsTheyWereRead() throws Exception {
+		final String savedMap = save(load(MAP, true));
+		assertThat(savedMap, containsString(FOLDED_BRANCH + "\n</node>"));
+		assertThat(save(load(savedMap, true)), equalTo(savedMap));
+	}
+
+	@Test
+	public void savesMapsWrittenByFreeplaneUnchanged() throws Exception {
+		final String savedMap = save(load(MapReaderBenchmark.createSyntheticMap(500), false));
+		assertThat(save(load(savedMap, true)), equalTo(savedMap));
+	}
+}
@@ -0,0 +1,101 @@
+package org.freeplane.features.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Compares loading a synthetic map from the xml and from the binary format:
+ * file size, load time, bytes allocated while loading and heap retained by the loaded map.
+ *
+ * Usage: MapFormatBenchmark [node count] [repetitions]
+ */
+public class MapFormatBenchmark {
+	private interface Loader {
+		MapModel load() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 150000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		new HeadlessFreeplaneRunner();
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map,
+		    new StringReader(MapReaderBenchmark.createSyntheticMap(nodeCount)), Mode.FILE);
+		final byte[] xml = saveXml(map);
+		final ByteArrayOutputStream binaryOutput = new ByteArrayOutputStream();
+		mapController.getMapWriter().writeMapAsBinary(map, binaryOutput, Mode.FILE);
+		final byte[] binary = binaryOutput.toByteArray();
+		final Loader xmlLoader = () -> {
+			final MapModel loadedMap = new MapModel(mapController.duplicator());
+			mapController.getMapReader().createNodeTreeFromXml(loadedMap,
+			    new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8), Mode.FILE);
+			return loadedMap;
+		};
+		final Loader binaryLoader = () -> {
+			final MapModel loadedMap = new MapModel(mapController.duplicator());
+			mapController.getMapReader().createNodeTreeFromBinary(loadedMap, new ByteArrayInputStream(binary),
+			    Mode.FILE);
+			return loadedMap;
+		};
+		if (!new String(saveXml(binaryLoader.load()), StandardCharsets.UTF_8)
+		    .equals(new String(saveXml(xmlLoader.load()), StandardCharsets.UTF_8))) {
+			throw new AssertionError("formats create different maps");
+		}
+		System.out.println("map with " + nodeCount + " nodes: xml " + xml.length / 1024 + " KB, binary "
+		        + binary.length / 1024 + " KB");
+		for (int i = 0; i < repetitions; i++) {
+			measure("xml:    ", xmlLoader);
+			measure("binary: ", binaryLoader);
+		}
+	}
+
+	private static void measure(String format, Loader loader) throws Exception {
+		final long heapBefore = usedHeap();
+		final long allocatedBefore = allocatedBytes();
+		final long start = System.nanoTime();
+		final MapModel map = loader.load();
+		final long milliseconds = (System.nanoTime() - start) / 1000000;
+		final long allocated = allocatedBytes() - allocatedBefore;
+		final long retained = usedHeap() - heapBefore;
+		System.out.println(format + milliseconds + " ms, allocated " + allocated / (1024 * 1024) + " MB, retained "
+		        + retained / (1024 * 1024) + " MB by " + map.getRootNode().getChildCount() + " root children");
+	}
+
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread()
+			    .getId());
+		}
+		return 0;
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static byte[] saveXml(MapModel map) throws Exception {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+			Controller.getCurrentModeController().getMapController().getMapWriter()
+			    .writeMapAsXml(map, writer, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
+		}
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,105 @@
+package org.freeplane.features.map;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Compares map loading with the nanoxml and the streaming parser on a synthetic map
+ * and checks that both produce the same node tree.
+ *
+ * Usage: MapReaderBenchmark [node count] [repetitions]
+ */
+public class MapReaderBenchmark {
+	private static final String STREAMING_PARSER_PROPERTY = "load_with_streaming_parser";
+
+	public static void main(String[] args) throws Exception {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 150000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		new HeadlessFreeplaneRunner();
+		final String xml = createSyntheticMap(nodeCount);
+		System.out.println("map with " + nodeCount + " nodes, " + xml.length() / 1024 + " KB");
+		final String nanoxmlResult = save(load(xml, false));
+		final String streamingResult = save(load(xml, true));
+		if (!nanoxmlResult.equals(streamingResult)) {
+			throw new AssertionError("parsers create different maps");
+		}
+		for (int i = 0; i < repetitions; i++) {
+			measure(xml, false);
+			measure(xml, true);
+		}
+	}
+
+	private static void measure(String xml, boolean usesStreamingParser) throws Exception {
+		System.gc();
+		final long start = System.nanoTime();
+		load(xml, usesStreamingParser);
+		final long milliseconds = (System.nanoTime() - start) / 1000000;
+		System.out.println((usesStreamingParser ? "streaming: " : "nanoxml:   ") + milliseconds + " ms");
+	}
+
+	private static MapModel load(String xml, boolean usesStreamingParser) throws Exception {
+		ResourceController.getResourceController().setProperty(STREAMING_PARSER_PROPERTY, usesStreamingParser);
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+		return map;
+	}
+
+	private static String save(MapModel map) throws Exception {
+		final StringWriter writer = new StringWriter();
+		Controller.getCurrentModeController().getMapController().getMapWriter()
+		    .writeMapAsXml(map, writer, Mode.FILE, CopiedNodeSet.ALL_NODES, false);
+		return writer.toString();
+	}
+
+	static String createSyntheticMap(int nodeCount) {
+		final Random random = new Random(1);
+		final StringBuilder xml = new StringBuilder(nodeCount * 300);
+		xml.append("<map version=\"freeplane 1.11.5\">\n");
+		xml.append("<node TEXT=\"root\" ID=\"ID_0\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n");
+		int created = 1;
+		int openNodes = 1;
+		while (created < nodeCount) {
+			if (openNodes > 1 && (openNodes > 12 || random.nextInt(4) == 0)) {
+				xml.append("</node>\n");
+				openNodes--;
+				continue;
+			}
+			final int id = created++;
+			xml.append("<node TEXT=\"node ").append(id).append(" &amp; some text\" ID=\"ID_").append(id)
+			    .append("\" CREATED=\"1700000000000\" MODIFIED=\"1700000").append(id).append("\"");
+			if (random.nextInt(3) == 0) {
+				xml.append(" FOLDED=\"true\"");
+			}
+			xml.append(">\n");
+			if (random.nextInt(5) == 0) {
+				xml.append("<icon BUILTIN=\"button_ok\"/>\n");
+			}
+			if (random.nextInt(4) == 0) {
+				xml.append("<attribute NAME=\"status\" VALUE=\"open\"/>\n<attribute NAME=\"owner\" VALUE=\"user")
+				    .append(random.nextInt(20)).append("\"/>\n");
+			}
+			if (random.nextInt(10) == 0) {
+				xml.append("<richcontent TYPE=\"NOTE\" CONTENT-TYPE=\"xml/\">\n<html>\n  <head>\n\n  </head>\n"
+				        + "  <body>\n    <p>\n      note of node ").append(id)
+				    .append("\n    </p>\n  </body>\n</html>\n</richcontent>\n");
+			}
+			if (random.nextInt(20) == 0) {
+				xml.append("<unknown_extension value=\"").append(id).append("\"/>\n");
+			}
+			openNodes++;
+		}
+		while (openNodes-- > 0) {
+			xml.append("</node>\n");
+		}
+		xml.append("</map>\n");
+		return xml.toString();
+	}
+}
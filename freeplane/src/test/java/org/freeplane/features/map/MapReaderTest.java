@@ -0,0 +1,106 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.attribute.Attribute;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.link.NodeLinkModel;
+import org.freeplane.features.link.NodeLinks;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.styles.LogicalStyleModel;
+import org.junit.Test;
+
+public class MapReaderTest {
+	private static final int NODE_COUNT = 200;
+
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static String createMapWithConnectors() {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.11.5\">\n<node TEXT=\"root\" ID=\"ID_0\">\n");
+		for (int i = 1; i <= NODE_COUNT; i++) {
+			xml.append("<node TEXT=\"node ").append(i).append("\" ID=\"ID_").append(i).append("\">\n")
+			    .append("<arrowlink DESTINATION=\"ID_").append(i % NODE_COUNT + 1).append("\"/>\n</node>\n");
+		}
+		return xml.append("</node>\n</map>\n").toString();
+	}
+
+	private static int countConnectors(MapModel map) {
+		int connectorCount = 0;
+		for (final NodeModel node : map.getRootNode().getChildren()) {
+			for (final NodeLinkModel link : NodeLinks.getLinks(node)) {
+				if (map.getNodeForID(link.getTargetID()) != null)
+					connectorCount++;
+			}
+		}
+		return connectorCount;
+	}
+
+	@Test
+	public void loadsMapsOnSeveralThreadsAtTheSameTime() throws Exception {
+		final String xml = createMapWithConnectors();
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<MapModel>> loadedMaps = new ArrayList<Future<MapModel>>();
+			for (int i = 0; i < 40; i++) {
+				loadedMaps.add(executor.submit(new Callable<MapModel>() {
+					@Override
+					public MapModel call() throws Exception {
+						final MapModel map = new MapModel(mapController.duplicator());
+						mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+						return map;
+					}
+				}));
+			}
+			for (final Future<MapModel> loadedMap : loadedMaps) {
+				final MapModel map = loadedMap.get();
+				assertThat(map.getRootNode().getChildCount(), equalTo(NODE_COUNT));
+				assertThat(countConnectors(map), equalTo(NODE_COUNT));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sharesRepeatedStringsOfLoadedMap() throws Exception {
+		final String node = "<node TEXT=\"same text\" STYLE_REF=\"my style\">"
+		        + "<attribute NAME=\"name\" VALUE=\"value\"/></node>\n";
+		final String xml = "<map version=\"freeplane 1.11.5\">\n<node TEXT=\"root\">\n" + node + node
+		        + "</node>\n</map>\n";
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+		final NodeModel first = map.getRootNode().getChildAt(0);
+		final NodeModel second = map.getRootNode().getChildAt(1);
+		assertThat(second.getText(), sameInstance(first.getText()));
+		assertThat(LogicalStyleModel.getStyle(second).toString(), sameInstance(LogicalStyleModel.getStyle(first).toString()));
+		final Attribute firstAttribute = NodeAttributeTableModel.getModel(first).getAttribute(0);
+		final Attribute secondAttribute = NodeAttributeTableModel.getModel(second).getAttribute(0);
+		assertThat(secondAttribute.getName(), sameInstance(firstAttribute.getName()));
+		assertThat(secondAttribute.getValue(), sameInstance(firstAttribute.getValue()));
+	}
+
+	@Test
+	public void hasNoCurrentNodeTreeCreatorAfterLoading() throws Exception {
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(createMapWithConnectors()), Mode.FILE);
+		assertThat(mapController.getMapReader().isMapLoadingInProcess(), equalTo(false));
+	}
+}
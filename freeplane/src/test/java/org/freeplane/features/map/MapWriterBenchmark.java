@@ -0,0 +1,46 @@
+package org.freeplane.features.map;
+
+import java.io.StringReader;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Compares the time needed to write a synthetic map by {@link org.freeplane.core.io.xml.TreeXmlWriter}
+ * and by {@link org.freeplane.core.io.xml.StreamingTreeXmlWriter} and checks that both write the same xml.
+ *
+ * Usage: MapWriterBenchmark [node count] [repetitions]
+ */
+public class MapWriterBenchmark {
+	private interface MapWriting {
+		String write(MapModel map) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		new HeadlessFreeplaneRunner();
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map,
+		    new StringReader(MapReaderBenchmark.createSyntheticMap(nodeCount)), Mode.FILE);
+		final MapWriting treeXmlWriter = m -> StreamingMapWriterTest.writeWithTreeXmlWriter(m, Mode.FILE, false);
+		final MapWriting streamingWriter = m -> StreamingMapWriterTest.writeWithStreamingWriter(m, Mode.FILE, false);
+		final String xml = treeXmlWriter.write(map);
+		if (!xml.equals(streamingWriter.write(map))) {
+			throw new AssertionError("writers create different xml");
+		}
+		System.out.println("map with " + nodeCount + " nodes, " + xml.length() / 1024 + " KB");
+		for (int i = 0; i < repetitions; i++) {
+			measure("TreeXmlWriter:          ", treeXmlWriter, map);
+			measure("StreamingTreeXmlWriter: ", streamingWriter, map);
+		}
+	}
+
+	private static void measure(String writerName, MapWriting writing, MapModel map) throws Exception {
+		final long start = System.nanoTime();
+		writing.write(map);
+		System.out.println(writerName + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+}
@@ -0,0 +1,162 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.mode.Controller;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NodeChangeTransactionTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapController mapController = Controller.getCurrentModeController().getMapController();
+	private final List<List<NodeChangeEvent>> batches = new ArrayList<>();
+	private final List<NodeChangeEvent> singleEvents = new ArrayList<>();
+	private final INodeChangeListener listener = new INodeChangeListener() {
+		@Override
+		public void nodeChanged(NodeChangeEvent event) {
+			singleEvents.add(event);
+		}
+
+		@Override
+		public void nodesChanged(List<NodeChangeEvent> events) {
+			batches.add(new ArrayList<>(events));
+		}
+	};
+	private MapModel map;
+	private NodeModel root;
+	private NodeModel child;
+
+	@Before
+	public void setup() {
+		map = new MapModel(mapController.duplicator());
+		map.createNewRoot();
+		root = map.getRootNode();
+		child = new NodeModel("child", map);
+		root.insert(child);
+		mapController.addNodeChangeListener(listener);
+	}
+
+	@After
+	public void removeListener() {
+		mapController.removeNodeChangeListener(listener);
+	}
+
+	@Test
+	public void deliversCoalescedEventsAsOneBatchOnOutermostCommit() {
+		mapController.startNodeChangeTransaction();
+		mapController.nodeRefresh(child, "property", 1, 2);
+		mapController.runInNodeChangeTransaction(() -> mapController.nodeRefresh(root, "property", 1, 2));
+		mapController.nodeRefresh(child, "property", 2, 3);
+		assertThat(batches, empty());
+		mapController.commitNodeChangeTransaction();
+		assertThat(singleEvents, empty());
+		assertThat(batches, hasSize(1));
+		final List<NodeChangeEvent> batch = batches.get(0);
+		assertThat(batch, hasSize(2));
+		assertThat(batch.get(0).getNode(), equalTo(child));
+		assertThat(batch.get(0).getOldValue(), equalTo(1));
+		assertThat(batch.get(0).getNewValue(), equalTo(3));
+		assertThat(batch.get(1).getNode(), equalTo(root));
+		assertThat(mapController.isNodeChangeTransactionRunning(), equalTo(false));
+	}
+
+	@Test
+	public void deliversEventsImmediatelyWithoutTransaction() {
+		mapController.nodeRefresh(child, "property", 1, 2);
+		assertThat(batches, empty());
+		assertThat(singleEvents, hasSize(1));
+	}
+
+	@Test
+	public void deliversEventsImmediatelyToListenersNotifiedDuringTransactions() {
+		final List<NodeChangeEvent> immediateEvents = new ArrayList<>();
+		final INodeChangeListener cacheListener = new INodeChangeListener() {
+			@Override
+			public void nodeChanged(NodeChangeEvent event) {
+				immediateEvents.add(event);
+			}
+
+			@Override
+			public boolean isNotifiedDuringTransactions() {
+				return true;
+			}
+		};
+		mapController.addNodeChangeListener(cacheListener);
+		try {
+			mapController.runInNodeChangeTransaction(() -> {
+				mapController.nodeRefresh(child, "property", 1, 2);
+				mapController.nodeRefresh(child, "property", 2, 3);
+				assertThat(immediateEvents, hasSize(2));
+			});
+			assertThat(immediateEvents, hasSize(2));
+			assertThat(batches, hasSize(1));
+		}
+		finally {
+			mapController.removeNodeChangeListener(cacheListener);
+		}
+	}
+
+	@Test
+	public void updatesNodeViewsOnceForAllChangesOfNode() {
+		final List<List<NodeChangeEvent>> viewBatches = new ArrayList<>();
+		child.addViewer(new INodeView() {
+			@Override
+			public void nodesChanged(List<NodeChangeEvent> events) {
+				viewBatches.add(new ArrayList<>(events));
+			}
+
+			@Override
+			public boolean hasStandardLayoutWithRootNode(NodeModel root) {
+				return true;
+			}
+
+			@Override
+			public boolean isTopOrLeft() {
+				return false;
+			}
+		});
+		mapController.runInNodeChangeTransaction(() -> {
+			mapController.nodeRefresh(child, "property", 1, 2);
+			mapController.nodeRefresh(child, "other property", 1, 2);
+		});
+		assertThat(viewBatches, hasSize(1));
+		assertThat(viewBatches.get(0), hasSize(2));
+	}
+
+	@Test
+	public void updatesModificationTimesOnceAtCommit() {
+		final Date before = new Date(1000);
+		child.getHistoryInformation().setLastModifiedAt(before);
+		root.getHistoryInformation().setLastModifiedAt(before);
+		mapController.runInNodeChangeTransaction(() -> {
+			mapController.nodeChanged(child, "property", 1, 2);
+			mapController.nodeChanged(child, "property", 2, 3);
+			mapController.nodeChanged(root, "property", 1, 2);
+			assertThat(child.getHistoryInformation().getLastModifiedAt(), equalTo(before));
+		});
+		assertThat(child.getHistoryInformation().getLastModifiedAt().after(before), equalTo(true));
+		assertThat(root.getHistoryInformation().getLastModifiedAt().after(before), equalTo(true));
+		final List<Object> properties = new ArrayList<>();
+		for (final List<NodeChangeEvent> batch : batches) {
+			for (final NodeChangeEvent event : batch) {
+				properties.add(event.getProperty());
+			}
+		}
+		assertThat(properties, containsInAnyOrder("property", "property", HistoryInformationModel.class,
+		    HistoryInformationModel.class));
+		assertThat(singleEvents, empty());
+	}
+}
@@ -0,0 +1,88 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.Test;
+
+public class NodeIdRegistryTest {
+	private final NodeIdRegistry registry = new NodeIdRegistry();
+
+	private NodeModel node(String id) {
+		return new NodeModel(id, null);
+	}
+
+	@Test
+	public void parsesOnlyCanonicalGeneratedIds() {
+		assertThat(NodeIdRegistry.number("ID_0"), equalTo(0));
+		assertThat(NodeIdRegistry.number("ID_1999999999"), equalTo(1999999999));
+		assertThat(NodeIdRegistry.number("ID_2147483647"), equalTo(Integer.MAX_VALUE));
+		assertThat(NodeIdRegistry.number("ID_2147483648"), equalTo(-1));
+		assertThat(NodeIdRegistry.number("ID_007"), equalTo(-1));
+		assertThat(NodeIdRegistry.number("ID_"), equalTo(-1));
+		assertThat(NodeIdRegistry.number("ID_12a"), equalTo(-1));
+		assertThat(NodeIdRegistry.number("projectRoot"), equalTo(-1));
+	}
+
+	@Test
+	public void findsRegisteredNodesOfBothIdKinds() {
+		final NodeModel generated = node("ID_123");
+		final NodeModel named = node("ID_007");
+		assertThat(registry.register("ID_123", generated), nullValue());
+		assertThat(registry.register("ID_007", named), nullValue());
+		assertThat(registry.get("ID_123"), sameInstance(generated));
+		assertThat(registry.get("ID_007"), sameInstance(named));
+		assertThat(registry.get("ID_7"), nullValue());
+		assertThat(registry.register("ID_123", generated), sameInstance(generated));
+		assertThat(registry.size(), equalTo(2));
+	}
+
+	@Test
+	public void keepsIdsOfUnregisteredNodesReservedUntilCompaction() {
+		registry.register("ID_1", node("ID_1"));
+		registry.register("named", node("named"));
+		registry.unregister("ID_1");
+		registry.unregister("named");
+		assertThat(registry.get("ID_1"), nullValue());
+		assertThat(registry.contains("ID_1"), equalTo(true));
+		assertThat(registry.contains("named"), equalTo(true));
+		assertThat(registry.size(), equalTo(0));
+		assertThat(registry.reservedIdCount(), equalTo(2));
+		final NodeModel node = node("ID_1");
+		registry.register("ID_1", node);
+		assertThat(registry.get("ID_1"), sameInstance(node));
+		assertThat(registry.reservedIdCount(), equalTo(1));
+		registry.compact();
+		assertThat(registry.contains("named"), equalTo(false));
+		assertThat(registry.reservedIdCount(), equalTo(0));
+		assertThat(registry.get("ID_1"), sameInstance(node));
+	}
+
+	@Test
+	public void growsAndCompactsAutomatically() {
+		final int count = 200000;
+		for (int i = 0; i < count; i++) {
+			registry.register(NodeIdRegistry.id(i), node(NodeIdRegistry.id(i)));
+		}
+		assertThat(registry.size(), equalTo(count));
+		for (int i = 0; i < count; i++) {
+			assertThat(registry.get(NodeIdRegistry.id(i)).getText(), equalTo(NodeIdRegistry.id(i)));
+		}
+		for (int i = 0; i < count - 10; i++) {
+			registry.unregister(NodeIdRegistry.id(i));
+		}
+		assertThat(registry.size(), equalTo(10));
+		assertThat(registry.reservedIdCount() <= 1 << 16, equalTo(true));
+		assertThat(registry.get(NodeIdRegistry.id(count - 1)).getText(), equalTo(NodeIdRegistry.id(count - 1)));
+	}
+
+	@Test
+	public void generatesUnusedIds() {
+		final MapModel map = new MapModel(null, null, null);
+		final String id = map.generateNodeID(null);
+		assertThat(NodeIdRegistry.number(id) >= 0, equalTo(true));
+		assertThat(map.generateNodeID("proposed"), equalTo("proposed"));
+	}
+}
@@ -0,0 +1,72 @@
+package org.freeplane.features.map;
+
+import java.io.StringReader;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Measures the heap retained per node by a map of leaves added to the root
+ * and by a loaded synthetic map with attributes, icons and notes.
+ *
+ * Usage: NodeMemoryBenchmark [node count] [repetitions]
+ */
+public class NodeMemoryBenchmark {
+	private interface MapFactory {
+		MapModel create() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		new HeadlessFreeplaneRunner();
+		ResourceController.getResourceController().setProperty(NodeBuilder.LOAD_FOLDED_BRANCHES_LAZILY_PROPERTY, false);
+		final MapController mapController = Controller.getCurrentModeController().getMapController();
+		final String xml = MapReaderBenchmark.createSyntheticMap(nodeCount);
+		final MapFactory leaves = () -> {
+			final MapModel map = new MapModel(mapController.duplicator());
+			map.createNewRoot();
+			final NodeModel root = map.getRootNode();
+			for (int i = 1; i < nodeCount; i++) {
+				root.insert(new NodeModel("node " + i, map));
+			}
+			return map;
+		};
+		final MapFactory loadedMap = () -> {
+			final MapModel map = new MapModel(mapController.duplicator());
+			mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+			return map;
+		};
+		for (int i = 0; i < repetitions; i++) {
+			measure("leaves:     ", leaves);
+			measure("loaded map: ", loadedMap);
+		}
+	}
+
+	private static void measure(String name, MapFactory factory) throws Exception {
+		final long heapBefore = usedHeap();
+		final MapModel map = factory.create();
+		final long retained = usedHeap() - heapBefore;
+		final int nodeCount = countNodes(map.getRootNode());
+		System.out.println(name + retained / nodeCount + " bytes per node, " + retained / (1024 * 1024) + " MB for "
+		        + nodeCount + " nodes");
+	}
+
+	private static int countNodes(NodeModel node) {
+		int count = 1;
+		for (final NodeModel child : node.getChildren()) {
+			count += countNodes(child);
+		}
+		return count;
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
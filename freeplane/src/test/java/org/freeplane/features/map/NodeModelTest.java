@@ -0,0 +1,64 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class NodeModelTest {
+	private final MapModel map = null;
+
+	@Test
+	public void leavesShareEmptyChildListUntilChildIsInserted() {
+		final NodeModel parent = new NodeModel("parent", map);
+		final NodeModel leaf = new NodeModel("leaf", map);
+		assertThat(parent.getChildrenInternal(), sameInstance(leaf.getChildrenInternal()));
+		final NodeModel child = new NodeModel("child", map);
+		parent.insert(child);
+		assertThat(parent.getChildren(), contains(child));
+		assertThat(leaf.getChildren(), empty());
+		parent.remove(0);
+		assertThat(parent.getChildren(), empty());
+	}
+
+	@Test
+	public void historyInformationIsStoredInSharedData() {
+		final NodeModel node = new NodeModel("node", map);
+		final NodeModel clone = node.cloneContent();
+		node.getHistoryInformation().setLastModifiedAt(new Date(1000));
+		assertThat(clone.getHistoryInformation().getLastModifiedAt(), equalTo(new Date(1000)));
+		clone.setHistoryInformation(new HistoryInformationModel(new Date(2000), new Date(3000)));
+		assertThat(node.getHistoryInformation().getCreatedAt(), equalTo(new Date(2000)));
+		assertThat(node.getHistoryInformation().getLastModifiedAt(), equalTo(new Date(3000)));
+	}
+
+	@Test
+	public void timesAreAccessedWithoutHistoryInformationView() {
+		final NodeModel node = new NodeModel("node", map);
+		final NodeModel clone = node.cloneContent();
+		node.setCreatedAtMillis(2000);
+		clone.setLastModifiedAtMillis(3000);
+		assertThat(clone.getCreatedAtMillis(), equalTo(2000L));
+		assertThat(node.getLastModifiedAtMillis(), equalTo(3000L));
+		assertThat(node.getHistoryInformation().getLastModifiedAt(), equalTo(new Date(3000)));
+		assertThat(node.hasHistoryInformation(), equalTo(true));
+	}
+
+	@Test
+	public void viewersAreReleasedWhenLastViewerIsRemoved() {
+		final NodeModel node = new NodeModel("node", map);
+		final INodeView viewer = mock(INodeView.class);
+		assertThat(node.getViewers(), empty());
+		node.addViewer(viewer);
+		assertThat(node.getViewers(), contains(viewer));
+		node.removeViewer(viewer);
+		assertThat(node.areViewsEmpty(), equalTo(true));
+		assertThat(node.getViewers(), empty());
+	}
+}
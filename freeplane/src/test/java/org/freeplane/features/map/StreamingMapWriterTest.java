@@ -0,0 +1,86 @@
+package org.freeplane.features.map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.freeplane.core.io.xml.StreamingTreeXmlWriter;
+import org.freeplane.core.io.xml.TreeXmlWriter;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.clipboard.MapClipboardController.CopiedNodeSet;
+import org.freeplane.features.mode.Controller;
+import org.junit.Test;
+
+public class StreamingMapWriterTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final MapController mapController = Controller.getCurrentModeController().getMapController();
+
+	private MapModel load(String xml) throws Exception {
+		final MapModel map = new MapModel(mapController.duplicator());
+		mapController.getMapReader().createNodeTreeFromXml(map, new StringReader(xml), Mode.FILE);
+		return map;
+	}
+
+	static String writeWithTreeXmlWriter(MapModel map, Mode mode, boolean restrictedCharset) throws Exception {
+		final MapWriter mapWriter = Controller.getCurrentModeController().getMapController().getMapWriter();
+		final StringWriter writer = new StringWriter();
+		final TreeXmlWriter xmlWriter = new TreeXmlWriter(mapWriter.writeManager, writer, restrictedCharset);
+		mapWriter.writeMap(map, xmlWriter, mode, CopiedNodeSet.ALL_NODES, false);
+		xmlWriter.flush();
+		return writer.toString();
+	}
+
+	static String writeWithStreamingWriter(MapModel map, Mode mode, boolean restrictedCharset) throws Exception {
+		final MapWriter mapWriter = Controller.getCurrentModeController().getMapController().getMapWriter();
+		final StringWriter writer = new StringWriter();
+		final StreamingTreeXmlWriter xmlWriter = new StreamingTreeXmlWriter(mapWriter.writeManager, writer,
+		    restrictedCharset);
+		mapWriter.writeMap(map, xmlWriter, mode, CopiedNodeSet.ALL_NODES, false);
+		xmlWriter.flush();
+		return writer.toString();
+	}
+
+	private void assertSameOutput(MapModel map) throws Exception {
+		for (Mode mode : new Mode[] { Mode.FILE, Mode.CLIPBOARD, Mode.EXPORT }) {
+			for (boolean restrictedCharset : new boolean[] { false, true }) {
+				assertThat(writeWithStreamingWriter(map, mode, restrictedCharset),
+				    equalTo(writeWithTreeXmlWriter(map, mode, restrictedCharset)));
+			}
+		}
+	}
+
+	@Test
+	public void writesSyntheticMapLikeTreeXmlWriter() throws Exception {
+		assertSameOutput(load(MapReaderBenchmark.createSyntheticMap(2000)));
+	}
+
+	@Test
+	public void writesSpecialCharactersAndUnknownElementsLikeTreeXmlWriter() throws Exception {
+		assertSameOutput(load("<map version=\"freeplane 1.11.5\">\n"
+		        + "<node TEXT=\"root &lt;&amp;&gt; &quot;quoted&quot; &apos;&#xa;second line&#x9;tab\" ID=\"ID_0\">\n"
+		        + "<node TEXT=\"ünicode 中文 😀 \u007f\" ID=\"ID_1\" LINK=\"#ID_0\">\n"
+		        + "<attribute NAME=\"a&amp;b\" VALUE=\"  spaces  \"/>\n"
+		        + "<unknown_element KEY=\"välue\">text &amp; more<child/></unknown_element>\n"
+		        + "<x:prefixed xmlns:x=\"urn:x\" x:key=\"value\"/>\n"
+		        + "<richcontent TYPE=\"DETAILS\">\n<html>\n  <head>\n\n  </head>\n"
+		        + "  <body>\n    <p>\n      details &amp; <b>bold</b> ü\n    </p>\n  </body>\n</html>\n</richcontent>\n"
+		        + "</node>\n</node>\n</map>\n"));
+	}
+
+	@Test
+	public void writesUserGuideLikeTreeXmlWriter() throws Exception {
+		final File userGuide = new File("doc/freeplaneUserGuide.mm");
+		if (userGuide.exists()) {
+			assertSameOutput(load(new String(Files.readAllBytes(userGuide.toPath()), StandardCharsets.UTF_8)));
+		}
+	}
+}
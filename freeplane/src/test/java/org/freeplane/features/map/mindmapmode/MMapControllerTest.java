@@ -0,0 +1,80 @@
+package org.freeplane.features.map.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.core.util.Compat;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MMapControllerTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MMapController mapController = (MMapController) Controller.getCurrentModeController()
+	    .getMapController();
+
+	private URL createMapFile(String name, int childCount) throws Exception {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.11.5\">\n<node TEXT=\"" + name + "\">\n");
+		for (int i = 0; i < childCount; i++) {
+			xml.append("<node TEXT=\"child ").append(i).append("\"/>\n");
+		}
+		xml.append("</node>\n</map>\n");
+		final File file = folder.newFile(name + ".mm");
+		Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+		return Compat.fileToUrl(file.getCanonicalFile());
+	}
+
+	@Test
+	public void preloadsMapsInGivenOrder() throws Exception {
+		final List<URL> urls = new ArrayList<URL>();
+		for (int i = 0; i < 6; i++) {
+			urls.add(createMapFile("map" + i, 100 * i));
+		}
+		final List<MMapModel> maps = mapController.preloadMaps(urls);
+		assertThat(maps.size(), equalTo(urls.size()));
+		for (int i = 0; i < maps.size(); i++) {
+			final MMapModel map = maps.get(i);
+			assertThat(map.getURL(), equalTo(urls.get(i)));
+			assertThat(map.getRootNode().getText(), equalTo("map" + i));
+			assertThat(map.getRootNode().getChildCount(), equalTo(100 * i));
+			assertThat(map.isSaved(), equalTo(true));
+			assertThat(mapController.getMap(urls.get(i)), sameInstance(map));
+		}
+	}
+
+	@Test
+	public void readsPreloadedMapWithoutParsingItAgain() throws Exception {
+		final URL url = createMapFile("preloaded", 3);
+		final List<MMapModel> maps = mapController.preloadMaps(Arrays.asList(url));
+		final MapModel map = mapController.readMap(url);
+		assertThat(map, sameInstance((MapModel) maps.get(0)));
+	}
+
+	@Test
+	public void skipsMissingAndEmptyFiles() throws Exception {
+		final URL missingFile = Compat.fileToUrl(new File(folder.getRoot(), "missing.mm"));
+		final URL emptyFile = Compat.fileToUrl(folder.newFile("empty.mm"));
+		final URL existingFile = createMapFile("existing", 1);
+		final List<MMapModel> maps = mapController.preloadMaps(Arrays.asList(missingFile, emptyFile, existingFile));
+		assertThat(maps.size(), equalTo(1));
+		assertThat(maps.get(0).getURL(), equalTo(existingFile));
+	}
+}
@@ -0,0 +1,78 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BackgroundMapSaverTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void createsNewFile() throws Exception {
+		final File file = new File(folder.getRoot(), "new.mm");
+		BackgroundMapSaver.writeAtomically(file, "<map/>".getBytes(StandardCharsets.UTF_8));
+		assertThat(read(file), equalTo("<map/>"));
+	}
+
+	@Test
+	public void replacesContentOfExistingFile() throws Exception {
+		final File file = folder.newFile("existing.mm");
+		Files.write(file.toPath(), "<map>old content which is longer</map>".getBytes(StandardCharsets.UTF_8));
+		BackgroundMapSaver.writeAtomically(file, "<map/>".getBytes(StandardCharsets.UTF_8));
+		assertThat(read(file), equalTo("<map/>"));
+	}
+
+	@Test
+	public void leavesNoTemporaryFiles() throws Exception {
+		final File file = folder.newFile("existing.mm");
+		BackgroundMapSaver.writeAtomically(file, "<map/>".getBytes(StandardCharsets.UTF_8));
+		BackgroundMapSaver.writeAtomically(file, "<map></map>".getBytes(StandardCharsets.UTF_8));
+		assertThat(folder.getRoot().list().length, equalTo(1));
+	}
+
+	@Test
+	public void keepsPermissionsOfExistingFile() throws Exception {
+		final File file = folder.newFile("existing.mm");
+		final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		try {
+			Files.setPosixFilePermissions(file.toPath(), permissions);
+		}
+		catch (UnsupportedOperationException e) {
+			Assume.assumeTrue(false);
+		}
+		BackgroundMapSaver.writeAtomically(file, "<map/>".getBytes(StandardCharsets.UTF_8));
+		assertThat(Files.getPosixFilePermissions(file.toPath()), equalTo(permissions));
+	}
+
+	@Test
+	public void writesThroughSymbolicLink() throws Exception {
+		final File target = folder.newFile("target.mm");
+		final File link = new File(folder.getRoot(), "link.mm");
+		try {
+			Files.createSymbolicLink(link.toPath(), target.toPath());
+		}
+		catch (UnsupportedOperationException | IOException e) {
+			Assume.assumeTrue(false);
+		}
+		BackgroundMapSaver.writeAtomically(link, "<map/>".getBytes(StandardCharsets.UTF_8));
+		assertThat(Files.isSymbolicLink(link.toPath()), equalTo(true));
+		assertThat(read(target), equalTo("<map/>"));
+	}
+}
@@ -0,0 +1,114 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.core.util.Compat;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.mindmapmode.MMapController;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressedMapFilesTest {
+	private static final String COMPRESS_SAVED_MAPS_PROPERTY = "compress_saved_maps";
+
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MMapController mapController = (MMapController) Controller.getCurrentModeController()
+	    .getMapController();
+	private final MFileManager fileManager = MFileManager.getController(Controller.getCurrentModeController());
+	private File file;
+
+	@Before
+	public void createMapFile() throws Exception {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.11.5\">\n")
+		    .append("<node TEXT=\"root\" ID=\"ID_0\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\">\n");
+		for (int i = 1; i <= 100; i++)
+			xml.append("<node TEXT=\"child ").append(i).append("\" ID=\"ID_").append(i)
+			    .append("\" CREATED=\"1700000000000\" MODIFIED=\"1700000000000\"/>\n");
+		xml.append("</node>\n</map>\n");
+		file = new File(folder.newFolder("maps"), "compressed.mm");
+		Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void disableCompression() {
+		ResourceController.getResourceController().setProperty(COMPRESS_SAVED_MAPS_PROPERTY, false);
+	}
+
+	private MMapModel openMap() throws Exception {
+		return mapController.preloadMaps(Arrays.asList(Compat.fileToUrl(file))).get(0);
+	}
+
+	private static boolean isCompressed(File file) throws Exception {
+		try (InputStream input = new FileInputStream(file)) {
+			return input.read() == 0x1f && input.read() == 0x8b;
+		}
+	}
+
+	private String loaded(File file) throws Exception {
+		final MapModel map = new MapModel(mapController.duplicator());
+		fileManager.loadTreeWithoutInteraction(map, file);
+		return new String(MFileManager.createSnapshot(map), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void loadsCompressedMap() throws Exception {
+		ResourceController.getResourceController().setProperty(COMPRESS_SAVED_MAPS_PROPERTY, true);
+		final MMapModel map = openMap();
+		fileManager.save(map, file);
+		assertThat(isCompressed(file), equalTo(true));
+		assertThat(loaded(file), equalTo(new String(MFileManager.createSnapshot(map), StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void loadsCompressedBinaryMap() throws Exception {
+		ResourceController.getResourceController().setProperty(COMPRESS_SAVED_MAPS_PROPERTY, true);
+		final MMapModel map = openMap();
+		final File binaryFile = new File(file.getParentFile(), "compressed.mmb");
+		fileManager.save(map, binaryFile);
+		assertThat(isCompressed(binaryFile), equalTo(true));
+		assertThat(loaded(binaryFile), equalTo(new String(MFileManager.createSnapshot(map), StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void writesUncompressedMapByDefault() throws Exception {
+		final MMapModel map = openMap();
+		fileManager.save(map, file);
+		assertThat(isCompressed(file), equalTo(false));
+	}
+
+	@Test
+	public void compressesBackupOfUncompressedMap() throws Exception {
+		final String originalMap = loaded(file);
+		ResourceController.getResourceController().setProperty(COMPRESS_SAVED_MAPS_PROPERTY, true);
+		final File backupFile = MFileManager.createBackupFile(MFileManager.backupDir(file), file, 1, "bak");
+		try {
+			fileManager.save(openMap(), file);
+			assertThat(isCompressed(backupFile), equalTo(true));
+			assertThat(loaded(backupFile), equalTo(originalMap));
+		}
+		finally {
+			backupFile.delete();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.core.util.Compat;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeModel.Side;
+import org.freeplane.features.map.mindmapmode.MMapController;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.note.mindmapmode.MNoteController;
+import org.freeplane.features.text.mindmapmode.MTextController;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapChangeJournalTest {
+	private static final long NO_SIZE_LIMIT = Long.MAX_VALUE;
+
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MMapController mapController = (MMapController) Controller.getCurrentModeController()
+	    .getMapController();
+	private File file;
+	private MMapModel map;
+	private MapChangeJournal journal;
+
+	@Before
+	public void loadMap() throws Exception {
+		final StringBuilder xml = new StringBuilder("<map version=\"freeplane 1.11.5\">\n<node TEXT=\"root\" ID=\"ID_0\">\n");
+		for (int i = 1; i <= 3; i++) {
+			xml.append("<node TEXT=\"child ").append(i).append("\" ID=\"ID_").append(i).append("\">\n")
+			    .append("<node TEXT=\"grandchild ").append(i).append("\" ID=\"ID_").append(i * 10).append("\"/>\n")
+			    .append("</node>\n");
+		}
+		xml.append("</node>\n</map>\n");
+		file = new File(folder.newFolder("maps"), "journaled.mm");
+		Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+		map = mapController.preloadMaps(Arrays.asList(Compat.fileToUrl(file))).get(0);
+		MFileManager.getController(Controller.getCurrentModeController()).save(map, file);
+		journal = MapChangeJournal.getJournal(map);
+	}
+
+	private NodeModel node(String id) {
+		return map.getNodeForID(id);
+	}
+
+	private void changeMap() {
+		MTextController.getController().setNodeText(node("ID_2"), "changed child 2");
+		MNoteController.getController().setNoteText(node("ID_20"),
+		    "<html>\n  <body>\n    <p>\n      note &amp; <b>bold</b> text\n    </p>\n  </body>\n</html>");
+		final NodeModel newNode = mapController.addNewNode(node("ID_1"), 0, Side.DEFAULT);
+		MTextController.getController().setNodeText(newNode, "new node");
+	}
+
+	private void changeMapStructure() {
+		mapController.moveNodes(Collections.singletonList(node("ID_30")), node("ID_2"), 0);
+		mapController.deleteNode(node("ID_10"));
+		MTextController.getController().setNodeText(node("ID_0"), "changed root");
+	}
+
+	private String recoverMap() throws Exception {
+		final File recoveredFile = folder.newFile("recovered.mm");
+		MapJournalRecovery.recover(file, MFileManager.journalFile(file), recoveredFile);
+		return reloaded(Files.readAllBytes(recoveredFile.toPath()));
+	}
+
+	/** Rich content is trimmed by reading, so the maps are compared as they are after loading. */
+	private String reloaded(byte[] content) throws Exception {
+		final MapModel loadedMap = new MapModel(mapController.duplicator());
+		try (InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(content),
+		    StandardCharsets.UTF_8)) {
+			mapController.getMapReader().createNodeTreeFromXml(loadedMap, reader, Mode.FILE);
+		}
+		return new String(MFileManager.createSnapshot(loadedMap), StandardCharsets.UTF_8);
+	}
+
+	private String savedMap() throws Exception {
+		return reloaded(MFileManager.createSnapshot(map));
+	}
+
+	@Test
+	public void recoversChangesAppendedToJournal() throws Exception {
+		changeMap();
+		journal.write(file, NO_SIZE_LIMIT, false);
+		changeMapStructure();
+		journal.write(file, NO_SIZE_LIMIT, false);
+		assertThat(recoverMap(), equalTo(savedMap()));
+	}
+
+	@Test
+	public void ignoresDamagedRecordAtJournalEnd() throws Exception {
+		changeMap();
+		journal.write(file, NO_SIZE_LIMIT, false);
+		final String expectedMap = savedMap();
+		Files.write(MFileManager.journalFile(file).toPath(), new byte[] { 0, 0, 1, 0, 3, 4 },
+		    StandardOpenOption.APPEND);
+		assertThat(recoverMap(), equalTo(expectedMap));
+	}
+
+	@Test
+	public void replacesJournalBySnapshotAboveSizeLimit() throws Exception {
+		changeMap();
+		journal.write(file, 0, false);
+		changeMapStructure();
+		journal.write(file, 0, false);
+		final byte[] journalContent = Files.readAllBytes(MFileManager.journalFile(file).toPath());
+		assertThat(journalContent[MapChangeJournal.MAGIC.length + 4], equalTo(MapChangeJournal.SNAPSHOT_RECORD));
+		assertThat(recoverMap(), equalTo(savedMap()));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsJournalOfChangedMapFile() throws Exception {
+		changeMap();
+		journal.write(file, NO_SIZE_LIMIT, false);
+		file.setLastModified(file.lastModified() - 10000);
+		recoverMap();
+	}
+
+	@Test
+	public void deletesJournalAfterSaving() throws Exception {
+		changeMap();
+		journal.write(file, NO_SIZE_LIMIT, false);
+		MFileManager.getController(Controller.getCurrentModeController()).save(map, file);
+		assertThat(MFileManager.journalFile(file).exists(), equalTo(false));
+	}
+}
@@ -0,0 +1,108 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.mode.Controller;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapFileWatcherTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static final long COALESCING_DELAY = 200;
+	private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(20);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<MapModel> changedMaps = new CopyOnWriteArrayList<MapModel>();
+	private MapFileWatcher watcher;
+
+	@After
+	public void shutdown() {
+		if (watcher != null) {
+			watcher.shutdown();
+		}
+	}
+
+	private void createWatcher(boolean usesWatchService) {
+		watcher = new MapFileWatcher(changedMaps::add, usesWatchService, COALESCING_DELAY, 50, 400);
+	}
+
+	private MapModel map(File file) throws Exception {
+		final MapModel map = new MapModel(Controller.getCurrentModeController().getMapController().duplicator());
+		map.setURL(file.toURI().toURL());
+		return map;
+	}
+
+	private static void write(File file, String content) throws Exception {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void waitForNotifications(int count) throws InterruptedException {
+		final long end = System.currentTimeMillis() + TIMEOUT;
+		while (changedMaps.size() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(20);
+		}
+		Thread.sleep(4 * COALESCING_DELAY);
+	}
+
+	@Test
+	public void notifiesOnceForBurstOfChanges() throws Exception {
+		createWatcher(true);
+		final File file = folder.newFile("map.mm");
+		final File otherFile = folder.newFile("other.mm");
+		final MapModel map = map(file);
+		watcher.watch(map);
+		watcher.watch(map(otherFile));
+		for (int i = 0; i < 5; i++) {
+			write(file, "<map>" + i + "</map>");
+		}
+		BackgroundMapSaver.writeAtomically(file, "<map/>".getBytes(StandardCharsets.UTF_8));
+		waitForNotifications(1);
+		assertThat(changedMaps.size(), equalTo(1));
+		assertThat(changedMaps.get(0), equalTo(map));
+	}
+
+	@Test
+	public void pollsFilesWhenWatchServiceIsNotUsed() throws Exception {
+		createWatcher(false);
+		final File file = folder.newFile("map.mm");
+		final MapModel map = map(file);
+		watcher.watch(map);
+		assertThat(watcher.isPolled(map), equalTo(true));
+		write(file, "<map>changed content</map>");
+		waitForNotifications(1);
+		assertThat(changedMaps.size(), equalTo(1));
+		assertThat(changedMaps.get(0), equalTo(map));
+	}
+
+	@Test
+	public void stopsNotifyingAfterUnwatch() throws Exception {
+		for (boolean usesWatchService : new boolean[] { true, false }) {
+			createWatcher(usesWatchService);
+			final File file = folder.newFile(usesWatchService + ".mm");
+			final MapModel map = map(file);
+			watcher.watch(map);
+			watcher.unwatch(map);
+			write(file, "<map>changed content</map>");
+			Thread.sleep(1000);
+			assertThat(changedMaps.size(), equalTo(0));
+			watcher.shutdown();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.freeplane.main.headlessmode;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.core.util.FreeplaneVersion;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchConverterTest {
+	static {
+		new HeadlessFreeplaneRunner();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ModeController modeController = Controller.getCurrentModeController();
+	private final Map<File, Exception> failures = new ConcurrentHashMap<>();
+	private final List<File> convertedFiles = Collections.synchronizedList(new ArrayList<>());
+
+	private final BatchConverter.Reporter reporter = (file, processingMillis, failure) -> {
+		convertedFiles.add(file);
+		if (failure != null)
+			failures.put(file, failure);
+	};
+
+	private File map(String name, String rootText) throws Exception {
+		final File file = new File(folder.getRoot(), name);
+		file.getParentFile().mkdirs();
+		final String xml = "<map version=\"" + FreeplaneVersion.XML_VERSION + "\">\n<node TEXT=\"" + rootText
+		        + "\" ID=\"ID_1\">\n<node TEXT=\"child\" ID=\"ID_2\"/>\n</node>\n</map>\n";
+		Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void appliesOperationToEachMapInItsOwnModel() throws Exception {
+		final List<File> files = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			files.add(map("map" + i + ".mm", "root " + i));
+		}
+		final BatchConverter.Operation operation = (map, file) -> {
+			final String rootText = map.getRootNode().getText();
+			final File output = new File(file.getPath() + ".txt");
+			return () -> Files.write(output.toPath(), rootText.getBytes(StandardCharsets.UTF_8));
+		};
+		final int failureCount = new BatchConverter(modeController, operation, reporter, 3).convert(files);
+		assertThat(failureCount, equalTo(0));
+		assertThat(convertedFiles.size(), equalTo(30));
+		for (int i = 0; i < 30; i++) {
+			assertThat(read(new File(files.get(i).getPath() + ".txt")), equalTo("root " + i));
+		}
+	}
+
+	@Test
+	public void savesMapsAndReportsFailedFiles() throws Exception {
+		final File map = map("saved.mm", "saved root");
+		final File invalidMap = new File(folder.getRoot(), "invalid.mm");
+		Files.write(invalidMap.toPath(), "no map".getBytes(StandardCharsets.UTF_8));
+		final File missingMap = new File(folder.getRoot(), "missing.mm");
+		final int failureCount = new BatchConverter(modeController, BatchConverter.save(), reporter, 2)
+		    .convert(Arrays.asList(invalidMap, map, missingMap));
+		assertThat(failureCount, equalTo(2));
+		assertThat(convertedFiles.size(), equalTo(3));
+		assertThat(failures.get(map), nullValue());
+		assertThat(read(map), containsString("saved root"));
+		assertThat(read(map), containsString("<!--To view this file"));
+		assertThat(read(invalidMap), equalTo("no map"));
+	}
+
+	@Test
+	public void expandsGlobPatternsAndFileLists() throws Exception {
+		final File first = map("a/first.mm", "first");
+		final File second = map("a/b/second.mm", "second");
+		map("a/ignored.txt", "ignored");
+		final String root = folder.getRoot().getPath() + File.separator;
+		assertThat(BatchConverter.expand(Arrays.asList(root + "a/*.mm")), equalTo(Arrays.asList(first)));
+		assertThat(BatchConverter.expand(Arrays.asList(root + "a/**.mm")), equalTo(Arrays.asList(second, first)));
+		final File list = new File(folder.getRoot(), "list.txt");
+		Files.write(list.toPath(), (second.getPath() + "\n\n" + root + "a/*.mm\n").getBytes(StandardCharsets.UTF_8));
+		assertThat(BatchConverter.expand(Arrays.asList("@" + list.getPath())), equalTo(Arrays.asList(second, first)));
+	}
+}
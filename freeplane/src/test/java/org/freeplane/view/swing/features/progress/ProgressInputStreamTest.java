@@ -0,0 +1,44 @@
+package org.freeplane.view.swing.features.progress;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+
+import org.junit.Test;
+
+public class ProgressInputStreamTest {
+	private final ProgressInputStream input = new ProgressInputStream(new ByteArrayInputStream(new byte[100]));
+
+	@Test
+	public void countsReadBytes() throws Exception {
+		input.read();
+		input.read(new byte[30], 0, 30);
+		input.skip(9);
+		assertThat(input.getReadBytes(), equalTo(40L));
+	}
+
+	@Test
+	public void doesNotCountEndOfStream() throws Exception {
+		input.read(new byte[200], 0, 200);
+		input.read();
+		assertThat(input.getReadBytes(), equalTo(100L));
+	}
+
+	@Test
+	public void restoresCountOnReset() throws Exception {
+		input.read(new byte[10], 0, 10);
+		input.mark(100);
+		input.read(new byte[10], 0, 10);
+		input.reset();
+		assertThat(input.getReadBytes(), equalTo(10L));
+	}
+
+	@Test(expected = InterruptedIOException.class)
+	public void throwsAfterCancel() throws Exception {
+		input.read();
+		input.cancel();
+		input.read();
+	}
+}
@@ -0,0 +1,78 @@
+package org.freeplane.view.swing.map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class TiledMapImageTest {
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 1000;
+	private static final int STRIP_HEIGHT = 64;
+
+	private static final Consumer<Graphics2D> PAINTER = g -> {
+		for (int y = 0; y < HEIGHT; y += 10) {
+			g.setColor(new Color(y % 256, (y * 7) % 256, 100));
+			g.fillRect(y % WIDTH, y, 50, 10);
+		}
+		g.setColor(Color.BLACK);
+		g.drawLine(0, 0, WIDTH, HEIGHT);
+	};
+
+	private static BufferedImage paintAtOnce() {
+		final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = image.createGraphics();
+		g.setBackground(Color.WHITE);
+		g.clearRect(0, 0, WIDTH, HEIGHT);
+		PAINTER.accept(g);
+		g.dispose();
+		return image;
+	}
+
+	private static void assertSamePixels(BufferedImage actual, BufferedImage expected) {
+		assertThat(actual.getWidth(), equalTo(expected.getWidth()));
+		assertThat(actual.getHeight(), equalTo(expected.getHeight()));
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertThat("pixel " + x + ", " + y, actual.getRGB(x, y), equalTo(expected.getRGB(x, y)));
+			}
+		}
+	}
+
+	@Test
+	public void writesPngPaintingEachStripOnce() throws Exception {
+		final boolean[] closed = { false };
+		final TiledMapImage image = new TiledMapImage(WIDTH, HEIGHT, STRIP_HEIGHT, Color.WHITE, PAINTER,
+		    () -> closed[0] = true);
+		final ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", png);
+		image.close();
+		assertSamePixels(ImageIO.read(new ByteArrayInputStream(png.toByteArray())), paintAtOnce());
+		assertThat(image.getPaintedStripCount(), equalTo(image.getNumYTiles()));
+		assertThat(closed[0], equalTo(true));
+	}
+
+	@Test
+	public void copiesDataAcrossStrips() throws Exception {
+		final TiledMapImage image = new TiledMapImage(WIDTH, HEIGHT, STRIP_HEIGHT, Color.WHITE, PAINTER, () -> {});
+		final BufferedImage copy = new BufferedImage(image.getColorModel(), image.copyData(null), false, null);
+		assertSamePixels(copy, paintAtOnce());
+	}
+
+	@Test
+	public void limitsStripSize() throws Exception {
+		final TiledMapImage image = new TiledMapImage(10000, 20000, Color.WHITE, g -> {}, () -> {});
+		assertThat((long) image.getTileWidth() * image.getTileHeight() <= TiledMapImage.MAX_STRIP_PIXELS,
+		    equalTo(true));
+		assertThat(image.getNumYTiles() * image.getTileHeight() >= image.getHeight(), equalTo(true));
+	}
+}
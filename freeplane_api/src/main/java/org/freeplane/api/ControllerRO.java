@@ -2,6 +2,7 @@ package org.freeplane.api;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 
 
@@ -138,4 +139,14 @@ public interface ControllerRO {
      *   matches filter desription.
      * @since 1.3.5 */
     void export(MindMap map, File destinationFile, String exportTypeDescription, boolean overwriteExisting);
+
+    /** exports each branch to its own file. Files are written concurrently where the export type allows it,
+     * an exception of the first failed file in iteration order is thrown after all files are processed. Example:
+     * <pre>
+     *   def destinations = node.children.collectEntries { [(it): new File("/tmp/${it.id}.html")] }
+     *   c.exportBranches(destinations, 'HTML', true)
+     * </pre>
+     * @param exportTypeDescription a branch export type description or its part as in {@link #export(MindMap, File, String, boolean)}
+     * @since 1.11.12 */
+    void exportBranches(Map<? extends Node, File> branchDestinations, String exportTypeDescription, boolean overwriteExisting);
 }
\ No newline at end of file
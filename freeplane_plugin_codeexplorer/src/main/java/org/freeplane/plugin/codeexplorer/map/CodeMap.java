@@ -1,10 +1,9 @@
 package org.freeplane.plugin.codeexplorer.map;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import org.freeplane.features.map.INodeDuplicator;
+import org.freeplane.features.map.NodeIdRegistry;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.NodeRelativePath;
 import org.freeplane.features.map.mindmapmode.MMapModel;
@@ -32,20 +31,9 @@ public class CodeMap extends MMapModel {
         getRootNode().setFolded(false);
     }
 
-    @SuppressWarnings("serial")
     @Override
-    protected Map<String, NodeModel> createNodeByIdMap() {
-        return new ConcurrentHashMap<String, NodeModel>() {
-
-            @Override
-            public NodeModel put(String key, NodeModel value) {
-                if(value == null)
-                    return remove(key);
-                else
-                    return super.put(key, value);
-            }
-
-        };
+    protected NodeIdRegistry createNodeIdRegistry() {
+        return NodeIdRegistry.concurrent();
     }
 
     @Override
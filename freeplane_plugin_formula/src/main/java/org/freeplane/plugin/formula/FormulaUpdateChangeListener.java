@@ -36,6 +36,18 @@ public class FormulaUpdateChangeListener implements INodeChangeListener, IMapCha
 		}
 	}
 
+	/** Invalidates the dependencies of all nodes changed by a node change transaction in one pass. */
+	@Override
+	public void nodesChanged(List<NodeChangeEvent> events) {
+		final NodeModel[] changedNodes = events.stream()
+		    .filter(event -> !FormulaCache.class.equals(event.getProperty()))
+		    .map(NodeChangeEvent::getNode)
+		    .distinct()
+		    .toArray(NodeModel[]::new);
+		if (changedNodes.length > 0)
+			nodeChangedImpl(false, changedNodes);
+	}
+
 	@Override
 	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
 		nodeChangedImpl(true, nodeDeletionEvent.parent);
@@ -29,6 +29,7 @@ import org.freeplane.core.undo.IUndoHandler;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.IMapSelectionListener;
+import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
@@ -100,17 +101,20 @@ public class ExecuteScriptAction extends AFreeplaneAction {
 			mapViewManager.addMapSelectionListener(transactionRestarter);
 			final MModeController modeController = (MModeController) Controller.getCurrentModeController();
 			modeController.startTransaction();
+			final MapController mapController = modeController.getMapController();
 			for (final NodeModel node : nodes) {
 				try {
-					if (mode == ExecutionMode.ON_SELECTED_NODE_RECURSIVELY) {
-						// TODO: ensure that a script is invoked only once on every node?
-						// (might be a problem with recursive actions if parent and child
-						// are selected.)
-						executeScriptRecursive(node);
-					}
-					else {
-						scriptRunner.execute(node);
-					}
+					mapController.runInNodeChangeTransaction(() -> {
+						if (mode == ExecutionMode.ON_SELECTED_NODE_RECURSIVELY) {
+							// TODO: ensure that a script is invoked only once on every node?
+							// (might be a problem with recursive actions if parent and child
+							// are selected.)
+							executeScriptRecursive(node);
+						}
+						else {
+							scriptRunner.execute(node);
+						}
+					});
 				}
 				catch (ExecuteScriptException ex) {
 					final String cause;
@@ -9,6 +9,7 @@ import org.freeplane.core.extension.IExtension;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
 import org.freeplane.plugin.script.dependencies.RelatedElements;
 
 public class FormulaCache implements IExtension{
@@ -27,7 +28,7 @@ public class FormulaCache implements IExtension{
 	}
 
 	static Object getOrThrowCachedResult(final ScriptContext scriptContext, Supplier<Object> computation) {
-	    if (! FormulaCache.ENABLE_CACHING)
+	    if (! FormulaCache.ENABLE_CACHING || isNodeChangeTransactionRunning())
 	        return computation.get();
 	    NodeScript nodeScript = scriptContext.getNodeScript();
 	    final FormulaCache formulaCache = FormulaCache.of(nodeScript.node.getMap());
@@ -45,6 +46,12 @@ public class FormulaCache implements IExtension{
 	    }
 	}
 
+	/** Cached results are invalidated when the transaction is committed, until then formulas are evaluated anew. */
+	private static boolean isNodeChangeTransactionRunning() {
+		final ModeController modeController = Controller.getCurrentModeController();
+		return modeController != null && modeController.getMapController().isNodeChangeTransactionRunning();
+	}
+
 	private Object getOrThrowCachedResult(final NodeScript nodeScript) {
 		final LinkedHashMap<String, CachedResult> cacheEntry = cache.get(nodeScript.node.createID());
 		if (cacheEntry == null)
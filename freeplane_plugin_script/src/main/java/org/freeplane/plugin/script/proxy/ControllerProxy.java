@@ -12,7 +12,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
@@ -315,6 +317,41 @@ class ControllerProxy implements Proxy.Controller {
 		LogUtils.info("exported " + map.getFile() + " to " + destFile.getAbsolutePath());
     }
 
+    @Override
+	public void exportBranches(Map<? extends Node, File> branchDestinations, String exportTypeDescription,
+	                           boolean overwriteExisting) {
+		if (branchDestinations.isEmpty())
+			return;
+		final File firstDestination = branchDestinations.values().iterator().next();
+		final String destinationName = firstDestination.getName();
+		final String destinationExtension = destinationName.substring(destinationName.lastIndexOf('.'));
+		final ExportController exportController = ExportController.getContoller();
+		final FileFilter filter = findExportFileFilterByDescription(exportController.getBranchExportFileFilters(),
+		    exportTypeDescription, destinationExtension);
+		if (filter == null) {
+			throw new IllegalArgumentException("no branch export defined for '" + exportTypeDescription + "'");
+		}
+		final Map<NodeModel, File> branchFiles = new LinkedHashMap<NodeModel, File>();
+		for (Map.Entry<? extends Node, File> branchDestination : branchDestinations.entrySet()) {
+			final File destFile = branchDestination.getValue();
+			if (!overwriteExisting && destFile.exists()) {
+				throw new RuntimeException("destination file " + destFile.getAbsolutePath()
+				        + " already exists - set overwriteExisting to true?");
+			}
+			branchFiles.put(((NodeProxy) branchDestination.getKey()).getDelegate(), destFile);
+		}
+		try {
+			exportController.exportBranches(exportController.getBranchExportEngines().get(filter), branchFiles);
+		}
+		catch (RuntimeException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		LogUtils.info("exported " + branchFiles.size() + " branches");
+	}
+
     private FileFilter findExportFileFilterByDescription(List<FileFilter> fileFilters, String exportTypeDescription, String destinationExtension) {
         String exportTypeDescriptionLowerCase = exportTypeDescription.toLowerCase();
         String destinationExtensionLowerCase = destinationExtension.toLowerCase();
@@ -821,17 +821,17 @@ class NodeProxy extends AbstractProxy<NodeModel> implements Proxy.Node {
 	// NodeRO: R
 	@Override
 	public Date getLastModifiedAt() {
-		return getDelegate().getHistoryInformation().getLastModifiedAt();
+		return new Date(getDelegate().getLastModifiedAtMillis());
 	}
 
 	// Node: R/W
 	@Override
 	public void setLastModifiedAt(final Date date) {
-		final Date oldDate = getDelegate().getHistoryInformation().getLastModifiedAt();
+		final long oldTime = getDelegate().getLastModifiedAtMillis();
 		final IActor actor = new IActor() {
 			@Override
 			public void act() {
-				getDelegate().getHistoryInformation().setLastModifiedAt(date);
+				getDelegate().setLastModifiedAtMillis(date.getTime());
 			}
 
 			@Override
@@ -841,7 +841,7 @@ class NodeProxy extends AbstractProxy<NodeModel> implements Proxy.Node {
 
 			@Override
 			public void undo() {
-				getDelegate().getHistoryInformation().setLastModifiedAt(oldDate);
+				getDelegate().setLastModifiedAtMillis(oldTime);
 			}
 		};
 		getModeController().execute(actor, getDelegate().getMap());
@@ -850,17 +850,17 @@ class NodeProxy extends AbstractProxy<NodeModel> implements Proxy.Node {
 	// NodeRO: R
 	@Override
 	public Date getCreatedAt() {
-		return getDelegate().getHistoryInformation().getCreatedAt();
+		return new Date(getDelegate().getCreatedAtMillis());
 	}
 
 	// Node: R/W
 	@Override
 	public void setCreatedAt(final Date date) {
-		final Date oldDate = getDelegate().getHistoryInformation().getCreatedAt();
+		final long oldTime = getDelegate().getCreatedAtMillis();
 		final IActor actor = new IActor() {
 			@Override
 			public void act() {
-				getDelegate().getHistoryInformation().setCreatedAt(date);
+				getDelegate().setCreatedAtMillis(date.getTime());
 			}
 
 			@Override
@@ -870,7 +870,7 @@ class NodeProxy extends AbstractProxy<NodeModel> implements Proxy.Node {
 
 			@Override
 			public void undo() {
-				getDelegate().getHistoryInformation().setCreatedAt(oldDate);
+				getDelegate().setCreatedAtMillis(oldTime);
 			}
 		};
 		getModeController().execute(actor, getDelegate().getMap());